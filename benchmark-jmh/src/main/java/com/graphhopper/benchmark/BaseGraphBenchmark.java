@@ -0,0 +1,75 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.util.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the iteration over the edges of the graph, both via {@link EdgeExplorer} (like routing algorithms do it)
+ * and via {@link AllEdgesIterator}. Every invocation iterates the whole graph.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BaseGraphBenchmark {
+    private BaseGraph graph;
+    private EdgeExplorer explorer;
+
+    @Setup(Level.Trial)
+    public void setup(GraphHopperState state) {
+        graph = state.hopper.getGraphHopperStorage().getBaseGraph();
+        explorer = graph.createEdgeExplorer();
+    }
+
+    @Benchmark
+    public long exploreAllNodes() {
+        long sum = 0;
+        for (int node = 0; node < graph.getNodes(); node++) {
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next())
+                sum += iter.getAdjNode();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double iterateAllEdges() {
+        double sum = 0;
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next())
+            sum += iter.getDistance();
+        return sum;
+    }
+
+    @Benchmark
+    public long fetchWayGeometry() {
+        long sum = 0;
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next())
+            sum += iter.fetchWayGeometry(FetchMode.ALL).size();
+        return sum;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.routing.ev.DecimalEncodedValueImpl;
+import com.graphhopper.routing.ev.EncodedValue;
+import com.graphhopper.routing.ev.IntEncodedValueImpl;
+import com.graphhopper.storage.IntsRef;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading and writing {@link IntEncodedValueImpl} and {@link DecimalEncodedValueImpl} on an {@link IntsRef}
+ * with two ints, like the edge flags of a typical setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodedValueBenchmark {
+    private IntEncodedValueImpl intEnc;
+    private DecimalEncodedValueImpl decimalEnc;
+    private IntEncodedValueImpl secondIntEnc;
+    private IntsRef ref;
+    private int counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        EncodedValue.InitializerConfig config = new EncodedValue.InitializerConfig();
+        intEnc = new IntEncodedValueImpl("int", 10, true);
+        intEnc.init(config);
+        decimalEnc = new DecimalEncodedValueImpl("decimal", 5, 5, true);
+        decimalEnc.init(config);
+        // 2 * 10 + 2 * 5 bits are used already, so this one is stored in the second int
+        secondIntEnc = new IntEncodedValueImpl("second_int", 4, false);
+        secondIntEnc.init(config);
+        ref = new IntsRef(2);
+    }
+
+    @Benchmark
+    public void setInt() {
+        counter++;
+        intEnc.setInt(false, ref, counter & 1023);
+        intEnc.setInt(true, ref, (counter + 1) & 1023);
+    }
+
+    @Benchmark
+    public int getInt() {
+        counter++;
+        return intEnc.getInt((counter & 1) == 0, ref);
+    }
+
+    @Benchmark
+    public void setDecimal() {
+        counter++;
+        decimalEnc.setDecimal(false, ref, (counter & 31) * 5);
+        decimalEnc.setDecimal(true, ref, ((counter + 1) & 31) * 5);
+    }
+
+    @Benchmark
+    public double getDecimal() {
+        counter++;
+        return decimalEnc.getDecimal((counter & 1) == 0, ref);
+    }
+
+    @Benchmark
+    public int setAndGetSecondInt() {
+        counter++;
+        secondIntEnc.setInt(false, ref, counter & 15);
+        return secondIntEnc.getInt(false, ref);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.GraphHopper;
+import com.graphhopper.GraphHopperConfig;
+import com.graphhopper.config.CHProfile;
+import com.graphhopper.config.LMProfile;
+import com.graphhopper.config.Profile;
+import com.graphhopper.routing.weighting.custom.CustomProfile;
+import com.graphhopper.util.CustomModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static com.graphhopper.json.Statement.If;
+import static com.graphhopper.json.Statement.Op.LIMIT;
+import static com.graphhopper.json.Statement.Op.MULTIPLY;
+
+/**
+ * Imports (or loads) the given OSM file once per benchmark fork. The graph is stored next to the working directory,
+ * so only the first fork needs to do the import and the CH/LM preparations.
+ */
+@State(Scope.Benchmark)
+public class GraphHopperState {
+    public static final String PROFILE = "car";
+    public static final String PROFILE_TC = "car_tc";
+    public static final String PROFILE_CUSTOM = "custom_car";
+
+    /**
+     * The path of the OSM file, relative to the directory the benchmarks are started from
+     */
+    @Param({"core/files/andorra.osm.pbf"})
+    public String osmFile;
+
+    public GraphHopper hopper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        String name = new File(osmFile).getName();
+        GraphHopperConfig config = new GraphHopperConfig().
+                putObject("datareader.file", osmFile).
+                putObject("graph.location", "benchmark-jmh/target/" + name.substring(0, name.indexOf('.')) + "-gh").
+                putObject("graph.flag_encoders", "car|turn_costs=true").
+                putObject("graph.encoded_values", "road_class,road_environment,max_speed,surface").
+                setProfiles(Arrays.asList(
+                        new Profile(PROFILE).setVehicle("car").setWeighting("fastest"),
+                        new Profile(PROFILE_TC).setVehicle("car").setWeighting("fastest").setTurnCosts(true),
+                        new CustomProfile(PROFILE_CUSTOM).setCustomModel(createCustomModel()).setVehicle("car"))).
+                setCHProfiles(Arrays.asList(new CHProfile(PROFILE), new CHProfile(PROFILE_TC))).
+                setLMProfiles(Arrays.asList(new LMProfile(PROFILE)));
+        hopper = new GraphHopper().init(config);
+        hopper.importOrLoad();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        hopper.close();
+    }
+
+    static CustomModel createCustomModel() {
+        CustomModel customModel = new CustomModel();
+        customModel.addToPriority(If("road_class == MOTORWAY", MULTIPLY, 0.5));
+        customModel.addToPriority(If("road_environment == TUNNEL", MULTIPLY, 0.8));
+        customModel.addToSpeed(If("surface != ASPHALT", MULTIPLY, 0.9));
+        customModel.addToSpeed(If("true", LIMIT, 100));
+        return customModel;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.jackson.ResponsePathSerializer;
+import com.graphhopper.util.PointList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the polyline encoding of a {@link PointList} like it is done for every route response.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointListBenchmark {
+    @Param({"100", "10000"})
+    public int points;
+
+    private PointList pointList;
+    private PointList pointList3D;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random rnd = new Random(123);
+        pointList = new PointList(points, false);
+        pointList3D = new PointList(points, true);
+        double lat = 42.5;
+        double lon = 1.5;
+        for (int i = 0; i < points; i++) {
+            lat += (rnd.nextDouble() - 0.5) * 0.001;
+            lon += (rnd.nextDouble() - 0.5) * 0.001;
+            pointList.add(lat, lon);
+            pointList3D.add(lat, lon, 1000 + rnd.nextDouble() * 100);
+        }
+    }
+
+    @Benchmark
+    public String encodePolyline() {
+        return ResponsePathSerializer.encodePolyline(pointList, false, 1e5);
+    }
+
+    @Benchmark
+    public String encodePolyline3D() {
+        return ResponsePathSerializer.encodePolyline(pointList3D, true, 1e5);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.routing.AlgorithmOptions;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.ch.CHRoutingAlgorithmFactory;
+import com.graphhopper.routing.lm.LMRoutingAlgorithmFactory;
+import com.graphhopper.routing.lm.LandmarkStorage;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.Parameters;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.graphhopper.benchmark.GraphHopperState.PROFILE;
+import static com.graphhopper.benchmark.GraphHopperState.PROFILE_TC;
+import static com.graphhopper.routing.util.TraversalMode.NODE_BASED;
+
+/**
+ * Measures CH and LM queries between random nodes of the graph. The *Query benchmarks run the routing algorithms
+ * directly, the *Route benchmarks measure a complete {@link GraphHopper#route} call including the snapping and path
+ * extraction (but without instructions and points).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RoutingBenchmark {
+    private static final int QUERIES = 1_000;
+    private GraphHopper hopper;
+    private BaseGraph graph;
+    private RoutingCHGraph chGraph;
+    private RoutingCHGraph chGraphTC;
+    private LandmarkStorage landmarks;
+    private int[] fromNodes;
+    private int[] toNodes;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup(GraphHopperState state) {
+        hopper = state.hopper;
+        graph = hopper.getGraphHopperStorage().getBaseGraph();
+        chGraph = hopper.getCHGraphs().get(PROFILE);
+        chGraphTC = hopper.getCHGraphs().get(PROFILE_TC);
+        landmarks = hopper.getLandmarks().get(PROFILE);
+        Random rnd = new Random(123);
+        fromNodes = new int[QUERIES];
+        toNodes = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            fromNodes[i] = rnd.nextInt(graph.getNodes());
+            toNodes[i] = rnd.nextInt(graph.getNodes());
+        }
+    }
+
+    @Benchmark
+    public Path chQuery() {
+        index = (index + 1) % QUERIES;
+        return new CHRoutingAlgorithmFactory(chGraph).createAlgo(new PMap()).calcPath(fromNodes[index], toNodes[index]);
+    }
+
+    @Benchmark
+    public Path chEdgeBasedQuery() {
+        index = (index + 1) % QUERIES;
+        return new CHRoutingAlgorithmFactory(chGraphTC).createAlgo(new PMap()).calcPath(fromNodes[index], toNodes[index]);
+    }
+
+    @Benchmark
+    public Path lmQuery() {
+        index = (index + 1) % QUERIES;
+        AlgorithmOptions opts = new AlgorithmOptions().setAlgorithm(Parameters.Algorithms.ASTAR_BI).setTraversalMode(NODE_BASED);
+        return new LMRoutingAlgorithmFactory(landmarks).createAlgo(graph, landmarks.getWeighting(), opts).calcPath(fromNodes[index], toNodes[index]);
+    }
+
+    @Benchmark
+    public GHResponse chRoute() {
+        return route(false);
+    }
+
+    @Benchmark
+    public GHResponse lmRoute() {
+        return route(true);
+    }
+
+    private GHResponse route(boolean disableCH) {
+        index = (index + 1) % QUERIES;
+        NodeAccess na = graph.getNodeAccess();
+        GHRequest request = new GHRequest(na.getLat(fromNodes[index]), na.getLon(fromNodes[index]),
+                na.getLat(toNodes[index]), na.getLon(toNodes[index])).setProfile(PROFILE);
+        request.putHint(Parameters.CH.DISABLE, disableCH);
+        request.putHint(Parameters.Routing.INSTRUCTIONS, false);
+        request.putHint(Parameters.Routing.CALC_POINTS, false);
+        return hopper.route(request);
+    }
+}
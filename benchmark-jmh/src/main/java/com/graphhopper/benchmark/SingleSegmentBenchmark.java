@@ -0,0 +1,103 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.graphhopper.GraphHopper;
+import com.graphhopper.GraphHopperConfig;
+import com.graphhopper.config.CHProfile;
+import com.graphhopper.config.Profile;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.ch.CHRoutingAlgorithmFactory;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.PMap;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the CH query latency when the graph and CH storages use the default segments vs. a single segment that
+ * can be read without any segment calculations (graph.dataaccess.single_segment.*).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SingleSegmentBenchmark {
+    private static final String PROFILE = "car";
+    private static final int QUERIES = 1_000;
+    private RoutingCHGraph chGraph;
+    private int[] fromNodes;
+    private int[] toNodes;
+    private int index;
+
+    @State(Scope.Benchmark)
+    public static class SegmentsState {
+        @Param({"core/files/andorra.osm.pbf"})
+        public String osmFile;
+
+        @Param({"false", "true"})
+        public boolean singleSegment;
+
+        public GraphHopper hopper;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            String name = new File(osmFile).getName();
+            // the graph needs to be imported separately for both modes, because the segment size is stored on disk
+            GraphHopperConfig config = new GraphHopperConfig().
+                    putObject("datareader.file", osmFile).
+                    putObject("graph.location", "benchmark-jmh/target/" + name.substring(0, name.indexOf('.')) + "-gh-single-segment-" + singleSegment).
+                    putObject("graph.flag_encoders", "car").
+                    setProfiles(Collections.singletonList(new Profile(PROFILE).setVehicle("car").setWeighting("fastest"))).
+                    setCHProfiles(Collections.singletonList(new CHProfile(PROFILE)));
+            for (String da : new String[]{"nodes", "edges", "nodes_ch_" + PROFILE, "shortcuts_" + PROFILE})
+                config.putObject("graph.dataaccess.single_segment." + da, singleSegment);
+            hopper = new GraphHopper().init(config);
+            hopper.importOrLoad();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            hopper.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup(SegmentsState state) {
+        chGraph = state.hopper.getCHGraphs().get(PROFILE);
+        int nodes = chGraph.getNodes();
+        Random rnd = new Random(123);
+        fromNodes = new int[QUERIES];
+        toNodes = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            fromNodes[i] = rnd.nextInt(nodes);
+            toNodes[i] = rnd.nextInt(nodes);
+        }
+    }
+
+    @Benchmark
+    public Path chQuery() {
+        index = (index + 1) % QUERIES;
+        return new CHRoutingAlgorithmFactory(chGraph).createAlgo(new PMap()).calcPath(fromNodes[index], toNodes[index]);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.benchmark;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.ev.DecimalEncodedValue;
+import com.graphhopper.routing.ev.TurnCost;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.TurnCostStorage;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TurnCostStorage#get} for random turns (pairs of edges adjacent to the same node) of the graph. Most
+ * of these turns have no turn costs, which is also the case during routing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnCostStorageBenchmark {
+    private static final int TURNS = 100_000;
+    private TurnCostStorage turnCostStorage;
+    private DecimalEncodedValue turnCostEnc;
+    private int[] fromEdges;
+    private int[] viaNodes;
+    private int[] toEdges;
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setup(GraphHopperState state) {
+        BaseGraph graph = state.hopper.getGraphHopperStorage().getBaseGraph();
+        turnCostStorage = state.hopper.getGraphHopperStorage().getTurnCostStorage();
+        turnCostEnc = state.hopper.getEncodingManager().getDecimalEncodedValue(TurnCost.key("car"));
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        IntArrayList edges = new IntArrayList();
+        Random rnd = new Random(123);
+        fromEdges = new int[TURNS];
+        viaNodes = new int[TURNS];
+        toEdges = new int[TURNS];
+        for (int i = 0; i < TURNS; ) {
+            int node = rnd.nextInt(graph.getNodes());
+            edges.clear();
+            EdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next())
+                edges.add(iter.getEdge());
+            if (edges.size() < 2)
+                continue;
+            fromEdges[i] = edges.get(rnd.nextInt(edges.size()));
+            viaNodes[i] = node;
+            toEdges[i] = edges.get(rnd.nextInt(edges.size()));
+            i++;
+        }
+    }
+
+    @Benchmark
+    public double get() {
+        index = (index + 1) % TURNS;
+        return turnCostStorage.get(turnCostEnc, fromEdges[index], viaNodes[index], toEdges[index]);
+    }
+}
@@ -0,0 +1,24 @@
+#!/bin/bash
+# usage:
+# benchmark/jmh.sh <results_dir> [jmh options]
+#
+# where:
+# <results_dir> = directory where the machine-readable results (jmh.json) of this run are stored
+# [jmh options] = further options passed to JMH, e.g. a benchmark regex like 'RoutingBenchmark' or '-p osmFile=<path>'
+#
+# the resulting json files of two runs can be compared with any of the JMH result viewers/diff tools
+
+# make this script exit if a command fails, a variable is missing etc.
+set -euo pipefail
+# print all commands
+set -o xtrace
+
+defaultResultsDir=measurements/jmh/$(date '+%d-%m-%Y-%s%N')/
+RESULTS_DIR=${1:-$defaultResultsDir}
+shift || true
+
+mkdir -p ${RESULTS_DIR}
+
+mvn -B -pl benchmark-jmh -am package -DskipTests
+java -jar benchmark-jmh/target/graphhopper-benchmark-jmh-*-jar-with-dependencies.jar \
+  -rf json -rff ${RESULTS_DIR}jmh.json "$@"
@@ -27,10 +27,13 @@ import com.graphhopper.reader.osm.OSMReader;
 import com.graphhopper.reader.osm.conditional.DateRangeParser;
 import com.graphhopper.routing.*;
 import com.graphhopper.routing.ch.CHPreparationHandler;
+import com.graphhopper.routing.ch.CustomizableCH;
+import com.graphhopper.routing.ch.CustomizedCHCache;
 import com.graphhopper.routing.ch.PrepareContractionHierarchies;
 import com.graphhopper.routing.ev.EnumEncodedValue;
 import com.graphhopper.routing.ev.RoadEnvironment;
 import com.graphhopper.routing.ev.Subnetwork;
+import com.graphhopper.routing.lm.ActiveLandmarkCache;
 import com.graphhopper.routing.lm.LMConfig;
 import com.graphhopper.routing.lm.LMPreparationHandler;
 import com.graphhopper.routing.lm.LandmarkStorage;
@@ -65,6 +68,8 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static com.graphhopper.util.GHUtility.readCountries;
@@ -95,6 +100,9 @@ public class GraphHopper {
     private DAType dataAccessDefaultType = DAType.RAM_STORE;
     private final LinkedHashMap<String, String> dataAccessConfig = new LinkedHashMap<>();
     private boolean sortGraph = false;
+    private boolean compressedGeometry = false;
+    private boolean csrAdjacency = false;
+    private String graphReordering = "none";
     private boolean elevation = false;
     private LockFactory lockFactory = new NativeFSLockFactory();
     private boolean allowWrites = true;
@@ -113,7 +121,12 @@ public class GraphHopper {
     private final LMPreparationHandler lmPreparationHandler = new LMPreparationHandler();
     private final CHPreparationHandler chPreparationHandler = new CHPreparationHandler();
     private Map<String, RoutingCHGraph> chGraphs = Collections.emptyMap();
+    private Map<String, ArraySPTPool> chWorkspacePools = Collections.emptyMap();
+    private ArraySPTPool workspacePool;
+    private Map<String, ActiveLandmarkCache> activeLandmarkCaches = Collections.emptyMap();
     private Map<String, LandmarkStorage> landmarks = Collections.emptyMap();
+    private ExecutorService viaLegExecutor;
+    private CustomizedCHCache customizedCHCache;
 
     // for data reader
     private String osmFile;
@@ -337,6 +350,22 @@ public class GraphHopper {
         return landmarks;
     }
 
+    /**
+     * @return the caches of the active landmarks mapped by profile name, empty unless
+     * routing.lm.active_landmark_cache.size is set
+     */
+    public Map<String, ActiveLandmarkCache> getActiveLandmarkCaches() {
+        return activeLandmarkCaches;
+    }
+
+    /**
+     * @return the CH graphs customized for the custom models of recent requests, null unless routing.cch.cache_size
+     * is set
+     */
+    public CustomizedCHCache getCustomizedCHCache() {
+        return customizedCHCache;
+    }
+
     /**
      * The location index created from the graph.
      *
@@ -362,6 +391,40 @@ public class GraphHopper {
         return this;
     }
 
+    /**
+     * Stores the way geometries delta-encoded, which makes the geometry storage more than 50% smaller. This only
+     * affects new imports, existing graphs are loaded in the format they were created with.
+     */
+    public GraphHopper setCompressedGeometry(boolean compressedGeometry) {
+        ensureNotLoaded();
+        this.compressedGeometry = compressedGeometry;
+        return this;
+    }
+
+    /**
+     * Keeps the edges adjacent to every node in contiguous arrays once the graph is frozen, which makes the graph
+     * explorations faster but needs additional memory on the heap, see {@link BaseGraph#setCSRAdjacency}.
+     */
+    public GraphHopper setCSRAdjacency(boolean csrAdjacency) {
+        ensureNotLoaded();
+        this.csrAdjacency = csrAdjacency;
+        return this;
+    }
+
+    /**
+     * Renumbers the nodes and edges of the graph after the import, such that nodes which are close to each other
+     * are stored close to each other as well. Use "hilbert" to order the nodes along a Hilbert curve, "bfs" for the
+     * order of a breadth-first search or "none" to keep the import order. Unlike {@link #setSortGraph} this works in
+     * place and also supports turn costs.
+     */
+    public GraphHopper setGraphReordering(String graphReordering) {
+        ensureNotLoaded();
+        if (!Arrays.asList("none", "hilbert", "bfs").contains(graphReordering))
+            throw new IllegalArgumentException("graph.reorder must be one of none, hilbert or bfs, but was: " + graphReordering);
+        this.graphReordering = graphReordering;
+        return this;
+    }
+
     public boolean isAllowWrites() {
         return allowWrites;
     }
@@ -453,9 +516,14 @@ public class GraphHopper {
                 dataAccessConfig.put(entry.getKey().substring("graph.dataaccess.type.".length()), entry.getValue().toString());
             if (entry.getKey().startsWith("graph.dataaccess.mmap.preload."))
                 dataAccessConfig.put(entry.getKey().substring("graph.dataaccess.mmap.".length()), entry.getValue().toString());
+            if (entry.getKey().startsWith("graph.dataaccess.single_segment."))
+                dataAccessConfig.put(entry.getKey().substring("graph.dataaccess.".length()), entry.getValue().toString());
         }
 
         sortGraph = ghConfig.getBool("graph.do_sort", sortGraph);
+        compressedGeometry = ghConfig.getBool("graph.compress_geometry", compressedGeometry);
+        csrAdjacency = ghConfig.getBool("graph.csr_adjacency", csrAdjacency);
+        setGraphReordering(ghConfig.getString("graph.reorder", graphReordering));
         removeZipped = ghConfig.getBool("graph.remove_zipped", removeZipped);
 
         if (!ghConfig.getString("spatial_rules.location", "").isEmpty())
@@ -502,6 +570,8 @@ public class GraphHopper {
         osmReaderConfig.setPreferredLanguage(ghConfig.getString("datareader.preferred_language", osmReaderConfig.getPreferredLanguage()));
         osmReaderConfig.setMaxWayPointDistance(ghConfig.getDouble(Routing.INIT_WAY_POINT_MAX_DISTANCE, osmReaderConfig.getMaxWayPointDistance()));
         osmReaderConfig.setWorkerThreads(ghConfig.getInt("datareader.worker_threads", osmReaderConfig.getWorkerThreads()));
+        osmReaderConfig.setCachePass1(ghConfig.getBool("datareader.cache_pass1", osmReaderConfig.isCachePass1()));
+        osmReaderConfig.setWayThreads(ghConfig.getInt("datareader.way_threads", osmReaderConfig.getWayThreads()));
 
         // index
         preciseIndexResolution = ghConfig.getInt("index.high_resolution", preciseIndexResolution);
@@ -509,14 +579,23 @@ public class GraphHopper {
 
         // routing
         routerConfig.setMaxVisitedNodes(ghConfig.getInt(Routing.INIT_MAX_VISITED_NODES, routerConfig.getMaxVisitedNodes()));
+        routerConfig.setMaxMatrixSize(ghConfig.getInt(Routing.INIT_MAX_MATRIX_SIZE, routerConfig.getMaxMatrixSize()));
         routerConfig.setMaxRoundTripRetries(ghConfig.getInt(RoundTrip.INIT_MAX_RETRIES, routerConfig.getMaxRoundTripRetries()));
         routerConfig.setNonChMaxWaypointDistance(ghConfig.getInt(Parameters.NON_CH.MAX_NON_CH_POINT_DISTANCE, routerConfig.getNonChMaxWaypointDistance()));
         routerConfig.setInstructionsEnabled(ghConfig.getBool(Routing.INIT_INSTRUCTIONS, routerConfig.isInstructionsEnabled()));
+        routerConfig.setCHWorkspacePooling(ghConfig.getBool("routing.ch.workspace_pooling", routerConfig.isCHWorkspacePooling()));
+        routerConfig.setWorkspacePooling(ghConfig.getBool("routing.workspace_pooling", routerConfig.isWorkspacePooling()));
+        routerConfig.setCHUpwardGraph(ghConfig.getBool("routing.ch.upward_graph", routerConfig.isCHUpwardGraph()));
+        routerConfig.setViaLegThreads(ghConfig.getInt("routing.via_leg_threads", routerConfig.getViaLegThreads()));
+        routerConfig.setCustomizedCHCacheSize(ghConfig.getInt("routing.cch.cache_size", routerConfig.getCustomizedCHCacheSize()));
+        routerConfig.setCustomizationThreads(ghConfig.getInt("routing.cch.threads", routerConfig.getCustomizationThreads()));
         int activeLandmarkCount = ghConfig.getInt(Landmark.ACTIVE_COUNT_DEFAULT, Math.min(8, lmPreparationHandler.getLandmarks()));
         if (activeLandmarkCount > lmPreparationHandler.getLandmarks())
             throw new IllegalArgumentException("Default value for active landmarks " + activeLandmarkCount
                     + " should be less or equal to landmark count of " + lmPreparationHandler.getLandmarks());
         routerConfig.setActiveLandmarkCount(activeLandmarkCount);
+        routerConfig.setActiveLandmarkCacheSize(ghConfig.getInt(Landmark.ACTIVE_LANDMARK_CACHE_SIZE, routerConfig.getActiveLandmarkCacheSize()));
+        routerConfig.setActiveLandmarkCacheTileSize(ghConfig.getDouble(Landmark.ACTIVE_LANDMARK_CACHE_TILE_SIZE, routerConfig.getActiveLandmarkCacheTileSize()));
 
         return this;
     }
@@ -671,6 +750,14 @@ public class GraphHopper {
             ghStorage = newGraph;
         }
 
+        if (!graphReordering.equals("none")) {
+            StopWatch sw = new StopWatch().start();
+            BaseGraph baseGraph = ghStorage.getBaseGraph();
+            int[] newNodes = graphReordering.equals("hilbert") ? GHUtility.calcHilbertNodeOrder(baseGraph) : GHUtility.calcBFSNodeOrder(baseGraph);
+            baseGraph.reorder(newNodes);
+            logger.info("graph reordered (" + graphReordering + ") in " + sw.stop().getSeconds() + "s, " + getMemInfo());
+        }
+
         if (hasElevation())
             interpolateBridgesTunnelsAndFerries();
     }
@@ -774,6 +861,8 @@ public class GraphHopper {
                 .set3D(hasElevation())
                 .withTurnCosts(tagParserManager.needsTurnCostsSupport())
                 .setSegmentSize(defaultSegmentSize)
+                .setCompressedGeometry(compressedGeometry)
+                .setCSRAdjacency(csrAdjacency)
                 .build();
         checkProfilesConsistency();
 
@@ -945,6 +1034,16 @@ public class GraphHopper {
 
         if (chPreparationHandler.isEnabled())
             loadOrPrepareCH(closeEarly);
+
+        workspacePool = routerConfig.isWorkspacePooling() ? new ArraySPTPool(ghStorage.getNodes()) : null;
+
+        if (!closeEarly && routerConfig.getCustomizedCHCacheSize() > 0) {
+            // the topology does not depend on the weighting, so it is calculated once for all profiles and only the
+            // customization runs per custom model
+            ghStorage.freeze();
+            customizedCHCache = new CustomizedCHCache(CustomizableCH.fromGraph(ghStorage.getBaseGraph()),
+                    routerConfig.getCustomizedCHCacheSize(), routerConfig.getCustomizationThreads());
+        }
     }
 
     protected void importPublicTransit() {
@@ -983,6 +1082,10 @@ public class GraphHopper {
         return createRouter().route(request);
     }
 
+    public GHMatrixResponse matrix(GHMatrixRequest request) {
+        return createRouter().matrix(request);
+    }
+
     private Router createRouter() {
         if (ghStorage == null || !fullyLoaded)
             throw new IllegalStateException("Do a successful call to load or importOrLoad before routing");
@@ -992,7 +1095,12 @@ public class GraphHopper {
             throw new IllegalStateException("Location index not initialized");
 
         return doCreateRouter(ghStorage, locationIndex, profilesByName, pathBuilderFactory,
-                trMap, routerConfig, createWeightingFactory(), chGraphs, landmarks);
+                trMap, routerConfig, createWeightingFactory(), chGraphs, landmarks)
+                .setCHWorkspacePools(chWorkspacePools)
+                .setWorkspacePool(workspacePool)
+                .setActiveLandmarkCaches(activeLandmarkCaches)
+                .setViaLegExecutor(viaLegExecutor)
+                .setCustomizedCHCache(customizedCHCache);
     }
 
     protected Router doCreateRouter(GraphHopperStorage ghStorage, LocationIndex locationIndex, Map<String, Profile> profilesByName,
@@ -1067,6 +1175,16 @@ public class GraphHopper {
             } else
                 throw new IllegalStateException("CH graph should be either loaded or prepared: " + profile.getProfile());
         }
+        // the CH storages are closed already if we close early
+        if (routerConfig.isCHUpwardGraph() && !closeEarly)
+            chGraphs.replaceAll((name, chGraph) -> UpwardRoutingCHGraph.fromGraph(chGraph));
+
+        chWorkspacePools = new HashMap<>();
+        if (routerConfig.isCHWorkspacePooling())
+            chGraphs.forEach((name, chGraph) -> {
+                if (!chGraph.isEdgeBased())
+                    chWorkspacePools.put(name, new ArraySPTPool(chGraph.getNodes()));
+            });
     }
 
     protected Map<String, PrepareContractionHierarchies.Result> prepareCH(boolean closeEarly, List<CHConfig> configsToPrepare) {
@@ -1107,6 +1225,11 @@ public class GraphHopper {
             } else
                 loadedLMS.ifPresent(landmarkStorage -> landmarks.put(lmp.getProfile(), landmarkStorage));
         }
+
+        activeLandmarkCaches = new HashMap<>();
+        if (routerConfig.getActiveLandmarkCacheSize() > 0)
+            for (String profile : landmarks.keySet())
+                activeLandmarkCaches.put(profile, new ActiveLandmarkCache(routerConfig.getActiveLandmarkCacheSize(), routerConfig.getActiveLandmarkCacheTileSize()));
     }
 
     protected List<PrepareLandmarks> prepareLM(boolean closeEarly, List<LMConfig> configsToPrepare) {
@@ -1159,6 +1282,11 @@ public class GraphHopper {
         if (locationIndex != null)
             locationIndex.close();
 
+        if (viaLegExecutor != null) {
+            viaLegExecutor.shutdownNow();
+            viaLegExecutor = null;
+        }
+
         try {
             lockFactory.forceRemove(fileLockName, true);
         } catch (Exception ex) {
@@ -1190,6 +1318,12 @@ public class GraphHopper {
 
     private void setFullyLoaded() {
         fullyLoaded = true;
+        if (routerConfig.getViaLegThreads() > 1 && viaLegExecutor == null)
+            viaLegExecutor = Executors.newFixedThreadPool(routerConfig.getViaLegThreads(), r -> {
+                Thread thread = new Thread(r, "gh-via-legs");
+                thread.setDaemon(true);
+                return thread;
+            });
     }
 
     public boolean getFullyLoaded() {
@@ -32,6 +32,7 @@ public class LMProfile {
     private String profile = "";
     private String preparationProfile = "this";
     private double maximumLMWeight = -1;
+    private boolean compressedWeights = false;
 
     private LMProfile() {
         // default constructor needed for jackson
@@ -62,6 +63,8 @@ public class LMProfile {
         validateProfileName(preparationProfile);
         if (maximumLMWeight >= 0)
             throw new IllegalArgumentException("Using non-default maximum_lm_weight and preparation_profile at the same time is not allowed");
+        if (compressedWeights)
+            throw new IllegalArgumentException("Using compressed_weights and preparation_profile at the same time is not allowed");
         this.preparationProfile = preparationProfile;
         return this;
     }
@@ -78,8 +81,24 @@ public class LMProfile {
         return this;
     }
 
+    public boolean isCompressedWeights() {
+        return compressedWeights;
+    }
+
+    /**
+     * Stores the landmark weights in one instead of two bytes, see LandmarkStorage#setCompressedWeights
+     */
+    @JsonProperty("compressed_weights")
+    public LMProfile setCompressedWeights(boolean compressedWeights) {
+        if (usesOtherPreparation())
+            throw new IllegalArgumentException("Using compressed_weights and preparation_profile at the same time is not allowed");
+        this.compressedWeights = compressedWeights;
+        return this;
+    }
+
     @Override
     public String toString() {
-        return profile + "|preparation_profile=" + preparationProfile + "|maximum_lm_weight=" + maximumLMWeight;
+        return profile + "|preparation_profile=" + preparationProfile + "|maximum_lm_weight=" + maximumLMWeight
+                + "|compressed_weights=" + compressedWeights;
     }
 }
@@ -0,0 +1,253 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.carrotsearch.hppc.IntIntHashMap;
+import com.graphhopper.routing.AbstractRoutingAlgorithm;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.GHUtility;
+
+import java.util.Arrays;
+
+import static com.graphhopper.isochrone.algorithm.ShortestPathTree.ExploreType.*;
+
+/**
+ * Computes the same shortest path tree as {@link ShortestPathTree}, but keeps the labels in primitive arrays instead
+ * of {@link ShortestPathTree.IsoLabel} objects and passes every label to a {@link LabelConsumer} once it is settled.
+ * The labels do not know their parents, so this is meant for consumers that only need the settled nodes like the
+ * {@link GridTriangulator}.
+ * <p>
+ * There is exactly one label per traversal id. If a shorter path to a label is found the label is updated in place
+ * and the outdated entry of the queue is skipped when it is polled.
+ * <p>
+ * Labels and queue entries are only created for the edges of settled nodes, so the memory of the tree grows linearly
+ * with the number of visited nodes. The search fails once more than {@link #setMaxVisitedNodes(int)} nodes were
+ * visited.
+ */
+public class ArrayShortestPathTree extends AbstractRoutingAlgorithm {
+
+    public interface LabelConsumer {
+        /**
+         * @param edge the edge used to reach the node or {@link EdgeIterator#NO_EDGE} for the start node
+         */
+        void accept(int node, int edge, double weight, long time, double distance);
+    }
+
+    private static final int NO_LABEL = -1;
+    private final IntIntHashMap labelsByTraversalId = new IntIntHashMap(1000);
+    private int[] nodes = new int[1000];
+    private int[] edges = new int[1000];
+    private double[] weights = new double[1000];
+    private long[] times = new long[1000];
+    private double[] distances = new double[1000];
+    private boolean[] settled = new boolean[1000];
+    private int labels;
+    // the queue is a binary heap of (weight, label) pairs that may contain outdated entries
+    private double[] queueWeights = new double[1000];
+    private int[] queueLabels = new int[1000];
+    private int queueSize;
+    private int visitedNodes;
+    private double limit = -1;
+    private ShortestPathTree.ExploreType exploreType = TIME;
+    private final boolean reverseFlow;
+
+    public ArrayShortestPathTree(Graph g, Weighting weighting, boolean reverseFlow, TraversalMode traversalMode) {
+        super(g, weighting, traversalMode);
+        this.reverseFlow = reverseFlow;
+    }
+
+    @Override
+    public Path calcPath(int from, int to) {
+        throw new IllegalStateException("call search instead");
+    }
+
+    /**
+     * Time limit in milliseconds
+     */
+    public void setTimeLimit(double limit) {
+        exploreType = TIME;
+        this.limit = limit;
+    }
+
+    /**
+     * Distance limit in meter
+     */
+    public void setDistanceLimit(double limit) {
+        exploreType = DISTANCE;
+        this.limit = limit;
+    }
+
+    public void setWeightLimit(double limit) {
+        exploreType = WEIGHT;
+        this.limit = limit;
+    }
+
+    /**
+     * @return the time, distance or weight of a label, depending on the limit that was set for this tree
+     */
+    public double getExploreValue(double weight, long time, double distance) {
+        if (exploreType == TIME)
+            return time;
+        if (exploreType == WEIGHT)
+            return weight;
+        return distance;
+    }
+
+    public void search(int from, final LabelConsumer consumer) {
+        checkAlreadyRun();
+        int startLabel = addLabel(from, EdgeIterator.NO_EDGE, 0, 0, 0);
+        if (traversalMode == TraversalMode.NODE_BASED)
+            labelsByTraversalId.put(from, startLabel);
+        push(0, startLabel);
+        while (!finished()) {
+            double currWeight = queueWeights[0];
+            int currLabel = poll();
+            if (settled[currLabel] || currWeight > weights[currLabel])
+                continue;
+            settled[currLabel] = true;
+            int currNode = nodes[currLabel];
+            int currEdge = edges[currLabel];
+            long currTime = times[currLabel];
+            double currDistance = distances[currLabel];
+            visitedNodes++;
+            if (isMaxVisitedNodesExceeded())
+                throw new IllegalArgumentException("Too many nodes would be visited (more than " + maxVisitedNodes + "). Try a smaller limit.");
+            consumer.accept(currNode, currEdge, currWeight, currTime, currDistance);
+
+            EdgeIterator iter = edgeExplorer.setBaseNode(currNode);
+            while (iter.next()) {
+                if (!accept(iter, currEdge))
+                    continue;
+
+                double nextWeight = GHUtility.calcWeightWithTurnWeightWithAccess(weighting, iter, reverseFlow, currEdge) + currWeight;
+                if (Double.isInfinite(nextWeight))
+                    continue;
+
+                double nextDistance = iter.getDistance() + currDistance;
+                long nextTime = GHUtility.calcMillisWithTurnMillis(weighting, iter, reverseFlow, currEdge) + currTime;
+                int nextTraversalId = traversalMode.createTraversalId(iter, reverseFlow);
+                int label = labelsByTraversalId.getOrDefault(nextTraversalId, NO_LABEL);
+                if (label == NO_LABEL) {
+                    label = addLabel(iter.getAdjNode(), iter.getEdge(), nextWeight, nextTime, nextDistance);
+                    labelsByTraversalId.put(nextTraversalId, label);
+                } else if (!settled[label] && weights[label] > nextWeight) {
+                    setLabel(label, iter.getAdjNode(), iter.getEdge(), nextWeight, nextTime, nextDistance);
+                } else {
+                    continue;
+                }
+                if (getExploreValue(nextWeight, nextTime, nextDistance) <= limit)
+                    push(nextWeight, label);
+            }
+        }
+    }
+
+    private int addLabel(int node, int edge, double weight, long time, double distance) {
+        if (labels == nodes.length) {
+            int newLength = labels + labels / 2;
+            nodes = Arrays.copyOf(nodes, newLength);
+            edges = Arrays.copyOf(edges, newLength);
+            weights = Arrays.copyOf(weights, newLength);
+            times = Arrays.copyOf(times, newLength);
+            distances = Arrays.copyOf(distances, newLength);
+            settled = Arrays.copyOf(settled, newLength);
+        }
+        setLabel(labels, node, edge, weight, time, distance);
+        return labels++;
+    }
+
+    private void setLabel(int label, int node, int edge, double weight, long time, double distance) {
+        nodes[label] = node;
+        edges[label] = edge;
+        weights[label] = weight;
+        times[label] = time;
+        distances[label] = distance;
+    }
+
+    private void push(double weight, int label) {
+        if (queueSize == queueWeights.length) {
+            int newLength = queueSize + queueSize / 2;
+            queueWeights = Arrays.copyOf(queueWeights, newLength);
+            queueLabels = Arrays.copyOf(queueLabels, newLength);
+        }
+        int index = queueSize++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (queueWeights[parent] <= weight)
+                break;
+            queueWeights[index] = queueWeights[parent];
+            queueLabels[index] = queueLabels[parent];
+            index = parent;
+        }
+        queueWeights[index] = weight;
+        queueLabels[index] = label;
+    }
+
+    private int poll() {
+        int result = queueLabels[0];
+        queueSize--;
+        double weight = queueWeights[queueSize];
+        int label = queueLabels[queueSize];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= queueSize)
+                break;
+            if (child + 1 < queueSize && queueWeights[child + 1] < queueWeights[child])
+                child++;
+            if (weight <= queueWeights[child])
+                break;
+            queueWeights[index] = queueWeights[child];
+            queueLabels[index] = queueLabels[child];
+            index = child;
+        }
+        queueWeights[index] = weight;
+        queueLabels[index] = label;
+        return result;
+    }
+
+    /**
+     * @return the number of labels that were created so far, i.e. the number of reached traversal ids
+     */
+    public int getLabels() {
+        return labels;
+    }
+
+    @Override
+    protected boolean finished() {
+        return queueSize == 0;
+    }
+
+    @Override
+    protected Path extractPath() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String getName() {
+        return "reachability";
+    }
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
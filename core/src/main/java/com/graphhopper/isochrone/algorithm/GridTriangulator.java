@@ -0,0 +1,137 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.PointList;
+import org.locationtech.jts.geom.Coordinate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Builds the triangulation for isochrones while the labels of an {@link ArrayShortestPathTree} are settled, instead of
+ * collecting all labels first like the {@link JTSTriangulator}. Every site is put into a cell of a regular lat/lon
+ * grid and only the site with the smallest value is kept per cell. So the number of sites that are triangulated (and
+ * the memory needed for them) only depends on the covered area and the cell size, but not on the number of settled
+ * labels. Since the value of every cell is known, the contours of all buckets can be built from the same triangulation.
+ */
+public class GridTriangulator {
+    private final double cellSize;
+    private final int maxCells;
+
+    /**
+     * @param cellSize the size of the grid cells in degrees
+     * @param maxCells the maximum number of cells, the triangulation fails if more cells are reached
+     */
+    public GridTriangulator(double cellSize, int maxCells) {
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("cell size must be positive, but was: " + cellSize);
+        this.cellSize = cellSize;
+        this.maxCells = maxCells;
+    }
+
+    public Triangulator.Result triangulate(Graph graph, ArrayShortestPathTree tree, int startNode, double tolerance) {
+        final NodeAccess na = graph.getNodeAccess();
+        final Grid grid = new Grid(cellSize, maxCells);
+        tree.search(startNode, (node, edge, weight, time, distance) -> {
+            double exploreValue = tree.getExploreValue(weight, time, distance);
+            grid.add(na.getLat(node), na.getLon(node), exploreValue);
+
+            // add a pillar node to increase precision a bit for longer roads
+            if (edge != EdgeIterator.NO_EDGE) {
+                EdgeIteratorState edgeState = graph.getEdgeIteratorState(edge, node);
+                PointList innerPoints = edgeState.fetchWayGeometry(FetchMode.PILLAR_ONLY);
+                if (innerPoints.size() > 0) {
+                    int midIndex = innerPoints.size() / 2;
+                    grid.add(innerPoints.getLat(midIndex), innerPoints.getLon(midIndex), exploreValue);
+                }
+            }
+        });
+        return JTSTriangulator.triangulate(grid.getSites(), tolerance);
+    }
+
+    /**
+     * The sites of the grid cells, stored in primitive arrays
+     */
+    static class Grid {
+        private final double cellSize;
+        private final int maxCells;
+        private final LongIntHashMap cellsByKey = new LongIntHashMap();
+        private double[] lats = new double[100];
+        private double[] lons = new double[100];
+        private double[] values = new double[100];
+        private int cells;
+
+        Grid(double cellSize, int maxCells) {
+            this.cellSize = cellSize;
+            this.maxCells = maxCells;
+        }
+
+        /**
+         * Adds a site to the cell that contains it, unless the cell has a site with a smaller value already
+         */
+        void add(double lat, double lon, double value) {
+            long latIndex = (long) Math.floor((lat + 90) / cellSize);
+            long lonIndex = (long) Math.floor((lon + 180) / cellSize);
+            long key = (latIndex << 32) | lonIndex;
+            int cell = cellsByKey.getOrDefault(key, -1);
+            if (cell < 0) {
+                if (cells >= maxCells)
+                    throw new IllegalArgumentException("Too many grid cells would be included in post processing (" + cells + "). Try a larger cell size.");
+                if (cells == lats.length) {
+                    int newLength = cells * 2;
+                    lats = Arrays.copyOf(lats, newLength);
+                    lons = Arrays.copyOf(lons, newLength);
+                    values = Arrays.copyOf(values, newLength);
+                }
+                cell = cells++;
+                cellsByKey.put(key, cell);
+            } else if (values[cell] <= value) {
+                return;
+            }
+            lats[cell] = lat;
+            lons[cell] = lon;
+            values[cell] = value;
+        }
+
+        int size() {
+            return cells;
+        }
+
+        double getValue(int cell) {
+            return values[cell];
+        }
+
+        List<Coordinate> getSites() {
+            List<Coordinate> sites = new ArrayList<>(cells);
+            for (int cell = 0; cell < cells; cell++) {
+                Coordinate site = new Coordinate(lons[cell], lats[cell]);
+                site.z = values[cell];
+                sites.add(site);
+            }
+            return sites;
+        }
+    }
+}
@@ -79,7 +79,14 @@ public class JTSTriangulator implements Triangulator {
         // each node multiple times.
         // But that's okay, the triangulator de-dupes by itself, and it keeps the first z-value it sees, which is
         // what we want.
+        return triangulate(sites, tolerance);
+    }
 
+    /**
+     * Triangulates the given sites, using their z-values as the values of the vertices. The vertices of the frame
+     * get the z-value {@link Double#MAX_VALUE}.
+     */
+    static Result triangulate(Collection<Coordinate> sites, double tolerance) {
         Collection<ConstraintVertex> constraintVertices = sites.stream().map(ConstraintVertex::new).collect(Collectors.toList());
         ConformingDelaunayTriangulator conformingDelaunayTriangulator = new ConformingDelaunayTriangulator(constraintVertices, tolerance);
         conformingDelaunayTriangulator.setConstraints(new ArrayList<>(), new ArrayList<>());
@@ -47,6 +47,7 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.LongToIntFunction;
 import java.util.regex.Pattern;
 
@@ -81,7 +82,8 @@ public class OSMReader {
 
     private final IntsRef tempRelFlags;
     private Date osmDataDate;
-    private long zeroCounter = 0;
+    private final AtomicLong zeroCounter = new AtomicLong();
+    private OrderedBatchPipeline<PendingEdge, PendingEdge> edgePipeline;
 
     private GHLongLongHashMap osmWayIdToRelationFlagsMap = new GHLongLongHashMap(200, .5f);
     // stores osm way ids used by relations to identify which edge ids needs to be mapped later
@@ -158,13 +160,23 @@ public class OSMReader {
                 .setRelationProcessor(this::processRelation)
                 .setEdgeHandler(this::addEdge)
                 .setWorkerThreads(config.getWorkerThreads())
+                .setCachePass1(config.isCachePass1())
                 .build();
-        waySegmentParser.readOSM(osmFile);
+        edgePipeline = createEdgePipeline();
+        try {
+            waySegmentParser.readOSM(osmFile);
+            if (edgePipeline != null)
+                edgePipeline.flush();
+        } finally {
+            if (edgePipeline != null)
+                edgePipeline.close();
+            edgePipeline = null;
+        }
         osmDataDate = waySegmentParser.getTimeStamp();
         if (baseGraph.getNodes() == 0)
             throw new RuntimeException("Graph after reading OSM must not be empty");
         LOGGER.info("Finished reading OSM file: {}, nodes: {}, edges: {}, zero distance edges: {}",
-                osmFile.getAbsolutePath(), nf(baseGraph.getNodes()), nf(baseGraph.getEdges()), nf(zeroCounter));
+                osmFile.getAbsolutePath(), nf(baseGraph.getNodes()), nf(baseGraph.getEdges()), nf(zeroCounter.get()));
         finishedReading();
     }
 
@@ -282,6 +294,45 @@ public class OSMReader {
         if (pointList.getDimension() != nodeAccess.getDimension())
             throw new AssertionError("Dimension does not match for pointList vs. nodeAccess " + pointList.getDimension() + " <-> " + nodeAccess.getDimension());
 
+        if (edgePipeline == null) {
+            PendingEdge edge = prepareEdge(new PendingEdge(fromIndex, toIndex, pointList, way, nodeTags));
+            if (edge != null)
+                commitEdge(edge);
+        } else {
+            // the artificial tags are set per edge, so the edges of the same way cannot share the way object when
+            // they are prepared concurrently
+            edgePipeline.add(new PendingEdge(fromIndex, toIndex, pointList, copyWay(way), nodeTags));
+        }
+    }
+
+    private OrderedBatchPipeline<PendingEdge, PendingEdge> createEdgePipeline() {
+        if (config.getWayThreads() <= 1)
+            return null;
+        if (config.getLongEdgeSamplingDistance() < Double.MAX_VALUE && eleProvider != ElevationProvider.NOOP) {
+            // the elevation providers are not thread-safe
+            LOGGER.warn("Cannot use multiple way threads in combination with long edge sampling, using a single thread");
+            return null;
+        }
+        LOGGER.info("Using {} threads to calculate the edge flags of the OSM ways", config.getWayThreads());
+        return new OrderedBatchPipeline<>(config.getWayThreads(), 1_000, this::prepareEdge, this::commitEdge);
+    }
+
+    private static ReaderWay copyWay(ReaderWay way) {
+        ReaderWay copy = new ReaderWay(way.getId());
+        copy.getNodes().addAll(way.getNodes());
+        copy.getTags().putAll(way.getTags());
+        return copy;
+    }
+
+    /**
+     * Calculates the geometry, distance and flags of the given edge. This might be called from multiple threads when
+     * {@link OSMReaderConfig#getWayThreads()} is larger than one, so it must not modify the graph.
+     *
+     * @return the given edge or null if it shall not be added to the graph
+     */
+    private PendingEdge prepareEdge(PendingEdge edge) {
+        PointList pointList = edge.pointList;
+        ReaderWay way = edge.way;
         // todo: in principle it should be possible to delay elevation calculation so we do not need to store
         // elevations during import (saves memory in pillar info during import). also note that we already need to
         // to do some kind of elevation processing (bridge+tunnel interpolation in GraphHopper class, maybe this can
@@ -303,7 +354,7 @@ public class OSMReader {
         if (distance < 0.001) {
             // As investigation shows often two paths should have crossed via one identical point
             // but end up in two very close points.
-            zeroCounter++;
+            zeroCounter.incrementAndGet();
             distance = 0.001;
         }
 
@@ -321,21 +372,34 @@ public class OSMReader {
             distance = maxDistance;
         }
 
-        setArtificialWayTags(pointList, way, distance, nodeTags);
-        IntsRef relationFlags = getRelFlagsMap(way.getId());
+        setArtificialWayTags(pointList, way, distance, edge.nodeTags);
+        IntsRef relationFlags = getRelFlagsMap(way.getId(), tagParserManager.createRelationFlags());
         IntsRef edgeFlags = tagParserManager.handleWayTags(way, relationFlags);
         if (edgeFlags.isEmpty())
-            return;
+            return null;
 
+        edge.pointList = pointList;
+        edge.distance = distance;
+        edge.edgeFlags = edgeFlags;
+        return edge;
+    }
+
+    /**
+     * Adds the given edge to the graph. This is always called from the reading thread and in the order the edges were
+     * passed to {@link #addEdge}.
+     */
+    private void commitEdge(PendingEdge pendingEdge) {
+        PointList pointList = pendingEdge.pointList;
+        ReaderWay way = pendingEdge.way;
         String name = way.getTag("way_name", "");
-        EdgeIteratorState edge = baseGraph.edge(fromIndex, toIndex).setDistance(distance).setFlags(edgeFlags).setName(name);
+        EdgeIteratorState edge = baseGraph.edge(pendingEdge.fromIndex, pendingEdge.toIndex).setDistance(pendingEdge.distance).setFlags(pendingEdge.edgeFlags).setName(name);
 
         // If the entire way is just the first and last point, do not waste space storing an empty way geometry
         if (pointList.size() > 2) {
             // the geometry consists only of pillar nodes, but we check that the first and last points of the pointList
             // are equal to the tower node coordinates
-            checkCoordinates(fromIndex, pointList.get(0));
-            checkCoordinates(toIndex, pointList.get(pointList.size() - 1));
+            checkCoordinates(pendingEdge.fromIndex, pointList.get(0));
+            checkCoordinates(pendingEdge.toIndex, pointList.get(pointList.size() - 1));
             edge.setWayGeometry(pointList.shallowCopy(1, pointList.size() - 1, false));
         }
         tagParserManager.applyWayTags(way, edge);
@@ -503,6 +567,9 @@ public class OSMReader {
      * We use it to set turn restrictions.
      */
     protected void processRelation(ReaderRelation relation, LongToIntFunction getIdForOSMNodeId) {
+        // the relations come after the ways, so make sure all edges were added before we look them up
+        if (edgePipeline != null)
+            edgePipeline.flush();
         if (turnCostStorage != null && relation.hasTag("type", "restriction")) {
             TurnCostParser.ExternalInternalMap map = new TurnCostParser.ExternalInternalMap() {
                 @Override
@@ -606,10 +673,14 @@ public class OSMReader {
     }
 
     IntsRef getRelFlagsMap(long osmId) {
+        return getRelFlagsMap(osmId, tempRelFlags);
+    }
+
+    private IntsRef getRelFlagsMap(long osmId, IntsRef relFlags) {
         long relFlagsAsLong = osmWayIdToRelationFlagsMap.get(osmId);
-        tempRelFlags.ints[0] = (int) relFlagsAsLong;
-        tempRelFlags.ints[1] = (int) (relFlagsAsLong >> 32);
-        return tempRelFlags;
+        relFlags.ints[0] = (int) relFlagsAsLong;
+        relFlags.ints[1] = (int) (relFlagsAsLong >> 32);
+        return relFlags;
     }
 
     void putRelFlagsMap(long osmId, IntsRef relFlags) {
@@ -622,4 +693,22 @@ public class OSMReader {
         return getClass().getSimpleName();
     }
 
+    private static class PendingEdge {
+        final int fromIndex;
+        final int toIndex;
+        final ReaderWay way;
+        final Map<String, Object> nodeTags;
+        PointList pointList;
+        double distance;
+        IntsRef edgeFlags;
+
+        PendingEdge(int fromIndex, int toIndex, PointList pointList, ReaderWay way, Map<String, Object> nodeTags) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.pointList = pointList;
+            this.way = way;
+            this.nodeTags = nodeTags;
+        }
+    }
+
 }
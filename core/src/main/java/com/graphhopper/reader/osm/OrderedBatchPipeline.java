@@ -0,0 +1,114 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.reader.osm;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Collects items into batches, runs the (thread-safe) preparation function for the batches on a thread pool and
+ * passes the results to the commit function on the calling thread, in the same order the items were added. Results
+ * that are null are skipped. The number of outstanding batches is limited, so memory usage stays bounded even if the
+ * preparation is faster than the commit.
+ */
+class OrderedBatchPipeline<T, R> {
+    private final ExecutorService executorService;
+    private final int batchSize;
+    private final int maxPendingBatches;
+    private final Function<T, R> prepare;
+    private final Consumer<R> commit;
+    private final ArrayDeque<Future<List<R>>> pendingBatches = new ArrayDeque<>();
+    private List<T> currentBatch;
+
+    OrderedBatchPipeline(int threads, int batchSize, Function<T, R> prepare, Consumer<R> commit) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive, was: " + threads);
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be positive, was: " + batchSize);
+        this.batchSize = batchSize;
+        this.maxPendingBatches = 2 * threads;
+        this.prepare = prepare;
+        this.commit = commit;
+        this.currentBatch = new ArrayList<>(batchSize);
+        this.executorService = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "gh-way-pipeline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void add(T item) {
+        currentBatch.add(item);
+        if (currentBatch.size() >= batchSize) {
+            submitCurrentBatch();
+            while (pendingBatches.size() > maxPendingBatches)
+                commitOldestBatch();
+        }
+    }
+
+    /**
+     * Prepares and commits all items that were added so far
+     */
+    void flush() {
+        if (!currentBatch.isEmpty())
+            submitCurrentBatch();
+        while (!pendingBatches.isEmpty())
+            commitOldestBatch();
+    }
+
+    /**
+     * Stops the threads of this pipeline. Items that were not flushed before are dropped.
+     */
+    void close() {
+        executorService.shutdownNow();
+    }
+
+    private void submitCurrentBatch() {
+        List<T> batch = currentBatch;
+        currentBatch = new ArrayList<>(batchSize);
+        pendingBatches.add(executorService.submit(() -> {
+            List<R> results = new ArrayList<>(batch.size());
+            for (T item : batch)
+                results.add(prepare.apply(item));
+            return results;
+        }));
+    }
+
+    private void commitOldestBatch() {
+        List<R> results;
+        try {
+            results = pendingBatches.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+        for (R result : results)
+            if (result != null)
+                commit.accept(result);
+    }
+}
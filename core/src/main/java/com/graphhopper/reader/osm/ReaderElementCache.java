@@ -0,0 +1,222 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.reader.osm;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.graphhopper.reader.ReaderElement;
+import com.graphhopper.reader.ReaderRelation;
+import com.graphhopper.reader.ReaderWay;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A temporary file that stores OSM ways and relations in a compact binary format. During the first pass of the
+ * {@link WaySegmentParser} we write the accepted ways and all relations to this file, so the second pass only needs to
+ * read the OSM nodes from the (much more expensive to decode) OSM file.
+ * <p>
+ * Node ids are delta encoded and all numbers are written as variable length integers. Tag keys and member roles are
+ * stored only once and then referenced by their index. Only tags with String values are supported.
+ */
+class ReaderElementCache {
+    private static final int END = 0;
+    private static final int WAY = 1;
+    private static final int RELATION = 2;
+    // string table references, everything larger refers to a string that was written before
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+
+    private ReaderElementCache() {
+    }
+
+    static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private final ObjectIntHashMap<String> stringTable = new ObjectIntHashMap<>();
+        private long elements;
+
+        Writer(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        void write(ReaderWay way) throws IOException {
+            out.writeByte(WAY);
+            writeVarLong(zigZag(way.getId()));
+            writeTags(way);
+            LongArrayList nodes = way.getNodes();
+            writeVarLong(nodes.size());
+            long prev = 0;
+            for (int i = 0; i < nodes.size(); i++) {
+                long node = nodes.get(i);
+                writeVarLong(zigZag(node - prev));
+                prev = node;
+            }
+            elements++;
+        }
+
+        void write(ReaderRelation relation) throws IOException {
+            out.writeByte(RELATION);
+            writeVarLong(zigZag(relation.getId()));
+            writeTags(relation);
+            List<ReaderRelation.Member> members = relation.getMembers();
+            writeVarLong(members.size());
+            for (ReaderRelation.Member member : members) {
+                out.writeByte(member.getType());
+                writeVarLong(zigZag(member.getRef()));
+                writeTableString(member.getRole());
+            }
+            elements++;
+        }
+
+        long getElements() {
+            return elements;
+        }
+
+        private void writeTags(ReaderElement element) throws IOException {
+            Map<String, Object> tags = element.getTags();
+            writeVarLong(tags.size());
+            for (Map.Entry<String, Object> tag : tags.entrySet()) {
+                if (!(tag.getValue() instanceof String))
+                    throw new IllegalArgumentException("Only String tag values can be cached, but " + tag.getKey()
+                            + " of OSM element " + element.getId() + " is " + tag.getValue());
+                writeTableString(tag.getKey());
+                out.writeUTF((String) tag.getValue());
+            }
+        }
+
+        private void writeTableString(String string) throws IOException {
+            if (string == null) {
+                writeVarLong(NULL_STRING);
+                return;
+            }
+            int index = stringTable.getOrDefault(string, -1);
+            if (index >= 0) {
+                writeVarLong(index + 2);
+            } else {
+                stringTable.put(string, stringTable.size());
+                writeVarLong(NEW_STRING);
+                out.writeUTF(string);
+            }
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeByte(END);
+            out.close();
+        }
+    }
+
+    static class Reader implements Closeable {
+        private final DataInputStream in;
+        private final List<String> stringTable = new ArrayList<>();
+
+        Reader(File file) throws IOException {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        /**
+         * @return the next way or relation in the order they were written or null if there are no more elements
+         */
+        ReaderElement next() throws IOException {
+            int type = in.readByte();
+            switch (type) {
+                case END:
+                    return null;
+                case WAY: {
+                    ReaderWay way = new ReaderWay(unZigZag(readVarLong()));
+                    readTags(way);
+                    int size = (int) readVarLong();
+                    LongArrayList nodes = way.getNodes();
+                    nodes.ensureCapacity(size);
+                    long prev = 0;
+                    for (int i = 0; i < size; i++) {
+                        prev += unZigZag(readVarLong());
+                        nodes.add(prev);
+                    }
+                    return way;
+                }
+                case RELATION: {
+                    ReaderRelation relation = new ReaderRelation(unZigZag(readVarLong()));
+                    readTags(relation);
+                    int size = (int) readVarLong();
+                    for (int i = 0; i < size; i++) {
+                        int memberType = in.readByte();
+                        long ref = unZigZag(readVarLong());
+                        relation.add(new ReaderRelation.Member(memberType, ref, readTableString()));
+                    }
+                    return relation;
+                }
+                default:
+                    throw new IllegalStateException("Unknown element type in cache: " + type);
+            }
+        }
+
+        private void readTags(ReaderElement element) throws IOException {
+            int size = (int) readVarLong();
+            for (int i = 0; i < size; i++) {
+                String key = readTableString();
+                element.setTag(key, in.readUTF());
+            }
+        }
+
+        private String readTableString() throws IOException {
+            int ref = (int) readVarLong();
+            if (ref == NULL_STRING)
+                return null;
+            if (ref == NEW_STRING) {
+                String string = in.readUTF();
+                stringTable.add(string);
+                return string;
+            }
+            return stringTable.get(ref - 2);
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = in.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                    return value;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
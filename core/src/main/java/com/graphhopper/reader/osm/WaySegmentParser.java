@@ -37,6 +37,7 @@ import org.slf4j.LoggerFactory;
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -60,6 +61,10 @@ import static java.util.Collections.emptyMap;
  * ways are intersecting. During the second pass we split the OSM ways at intersections, introduce the artificial
  * segments and pass the way information along with the corresponding nodes to a given callback.
  * <p>
+ * Optionally the accepted ways and all relations can be written to a temporary file during the first pass, see
+ * {@link Builder#setCachePass1(boolean)}. In this case the second pass only reads the OSM nodes from the OSM file and
+ * then reads the ways and relations from the temporary file, which is much cheaper than decoding them again.
+ * <p>
  * We assume a strict order of the OSM file: nodes, ways, then relations.
  * <p>
  * The main difficulty is that the OSM ID range is very large (64bit integers) and to be able to provide the full
@@ -77,6 +82,7 @@ public class WaySegmentParser {
     private final RelationProcessor relationProcessor;
     private final EdgeHandler edgeHandler;
     private final int workerThreads;
+    private final boolean cachePass1;
 
     private final OSMNodeData nodeData;
     private Date timestamp;
@@ -84,7 +90,7 @@ public class WaySegmentParser {
     private WaySegmentParser(PointAccess nodeAccess, Directory directory, ElevationProvider eleProvider,
                              Predicate<ReaderWay> wayFilter, Predicate<ReaderNode> splitNodeFilter, WayPreprocessor wayPreprocessor,
                              Consumer<ReaderRelation> relationPreprocessor, RelationProcessor relationProcessor,
-                             EdgeHandler edgeHandler, int workerThreads) {
+                             EdgeHandler edgeHandler, int workerThreads, boolean cachePass1) {
         this.eleProvider = eleProvider;
         this.wayFilter = wayFilter;
         this.splitNodeFilter = splitNodeFilter;
@@ -93,6 +99,7 @@ public class WaySegmentParser {
         this.relationProcessor = relationProcessor;
         this.edgeHandler = edgeHandler;
         this.workerThreads = workerThreads;
+        this.cachePass1 = cachePass1;
 
         this.nodeData = new OSMNodeData(nodeAccess, directory);
     }
@@ -105,26 +112,48 @@ public class WaySegmentParser {
             throw new IllegalStateException("You can only run way segment parser once");
 
         LOGGER.info("Start reading OSM file: '" + osmFile + "'");
-        LOGGER.info("pass1 - start");
-        StopWatch sw1 = StopWatch.started();
-        readOSM(osmFile, new Pass1Handler());
-        LOGGER.info("pass1 - finished, took: {}", sw1.stop().getTimeString());
-
-        long nodes = nodeData.getNodeCount();
-
-        LOGGER.info("Creating graph. Node count (pillar+tower): " + nodes + ", " + Helper.getMemInfo());
-
-        LOGGER.info("pass2 - start");
-        StopWatch sw2 = new StopWatch().start();
-        readOSM(osmFile, new Pass2Handler());
-        LOGGER.info("pass2 - finished, took: {}", sw2.stop().getTimeString());
+        File cacheFile = null;
+        try {
+            LOGGER.info("pass1 - start");
+            StopWatch sw1 = StopWatch.started();
+            if (cachePass1) {
+                cacheFile = createCacheFile();
+                long cachedElements;
+                try (ReaderElementCache.Writer cache = new ReaderElementCache.Writer(cacheFile)) {
+                    readOSM(osmFile, new Pass1Handler(cache));
+                    cachedElements = cache.getElements();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                LOGGER.info("pass1 - cached " + nf(cachedElements) + " ways and relations in " + cacheFile
+                        + ", size: " + nf(cacheFile.length() / Helper.MB) + "MB");
+            } else {
+                readOSM(osmFile, new Pass1Handler(null));
+            }
+            LOGGER.info("pass1 - finished, took: {}", sw1.stop().getTimeString());
+
+            long nodes = nodeData.getNodeCount();
+
+            LOGGER.info("Creating graph. Node count (pillar+tower): " + nodes + ", " + Helper.getMemInfo());
+
+            LOGGER.info("pass2 - start");
+            StopWatch sw2 = new StopWatch().start();
+            if (cachePass1)
+                readOSMNodesAndCache(osmFile, cacheFile, new Pass2Handler());
+            else
+                readOSM(osmFile, new Pass2Handler());
+            LOGGER.info("pass2 - finished, took: {}", sw2.stop().getTimeString());
+
+            LOGGER.info("Finished reading OSM file." +
+                    " pass1: " + (int) sw1.getSeconds() + "s, " +
+                    " pass2: " + (int) sw2.getSeconds() + "s, " +
+                    " total: " + (int) (sw1.getSeconds() + sw2.getSeconds()) + "s");
+        } finally {
+            if (cacheFile != null && !cacheFile.delete())
+                LOGGER.warn("Could not delete temporary file " + cacheFile);
+        }
 
         nodeData.release();
-
-        LOGGER.info("Finished reading OSM file." +
-                " pass1: " + (int) sw1.getSeconds() + "s, " +
-                " pass2: " + (int) sw2.getSeconds() + "s, " +
-                " total: " + (int) (sw1.getSeconds() + sw2.getSeconds()) + "s");
     }
 
     /**
@@ -135,12 +164,18 @@ public class WaySegmentParser {
     }
 
     private class Pass1Handler implements ReaderElementHandler {
+        // null unless the ways and relations shall be cached for the second pass
+        private final ReaderElementCache.Writer cache;
         private boolean handledWays;
         private boolean handledRelations;
         private long wayCounter = 1;
         private long acceptedWays = 0;
         private long relationsCounter = -1;
 
+        Pass1Handler(ReaderElementCache.Writer cache) {
+            this.cache = cache;
+        }
+
         @Override
         public void handleWay(ReaderWay way) {
             if (!handledWays) {
@@ -157,6 +192,8 @@ public class WaySegmentParser {
             if (!wayFilter.test(way))
                 return;
             acceptedWays++;
+            if (cache != null)
+                writeToCache(way);
 
             for (LongCursor node : way.getNodes()) {
                 final boolean isEnd = node.index == 0 || node.index == way.getNodes().size() - 1;
@@ -178,9 +215,23 @@ public class WaySegmentParser {
             if (++relationsCounter % 1_000_000 == 0)
                 LOGGER.info("pass1 - processed relations: " + nf(relationsCounter) + ", " + Helper.getMemInfo());
 
+            // we need to cache the relation before it is passed to the preprocessor, which might modify it
+            if (cache != null)
+                writeToCache(relation);
             relationPreprocessor.accept(relation);
         }
 
+        private void writeToCache(ReaderElement element) {
+            try {
+                if (element instanceof ReaderWay)
+                    cache.write((ReaderWay) element);
+                else
+                    cache.write((ReaderRelation) element);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
         @Override
         public void handleFileHeader(OSMFileHeader fileHeader) throws ParseException {
             timestamp = Helper.createFormatter().parse(fileHeader.getTag("timestamp"));
@@ -402,6 +453,42 @@ public class WaySegmentParser {
         }
     }
 
+    /**
+     * Reads only the nodes of the given OSM file and then the ways and relations from the cache file that was written
+     * during the first pass. Since the nodes are located before all ways and relations we can stop reading the OSM
+     * file once we encounter the first way or relation.
+     */
+    private void readOSMNodesAndCache(File file, File cacheFile, ReaderElementHandler handler) {
+        try (OSMInput osmInput = openOsmInputFile(file)) {
+            ReaderElement elem;
+            while ((elem = osmInput.getNext()) != null) {
+                if (elem.isType(ReaderElement.WAY) || elem.isType(ReaderElement.RELATION))
+                    break;
+                handler.handleElement(elem);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not parse OSM file: " + file.getAbsolutePath(), e);
+        }
+        try (ReaderElementCache.Reader cache = new ReaderElementCache.Reader(cacheFile)) {
+            ReaderElement elem;
+            while ((elem = cache.next()) != null)
+                handler.handleElement(elem);
+            handler.onFinish();
+        } catch (Exception e) {
+            throw new RuntimeException("Could not read cached ways and relations: " + cacheFile.getAbsolutePath(), e);
+        }
+    }
+
+    private File createCacheFile() {
+        try {
+            File file = File.createTempFile("gh-pass1-", ".bin");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     protected OSMInput openOsmInputFile(File osmFile) throws XMLStreamException, IOException {
         return new OSMInputFile(osmFile).setWorkerThreads(workerThreads).open();
     }
@@ -421,6 +508,7 @@ public class WaySegmentParser {
         private EdgeHandler edgeHandler = (from, to, pointList, way, nodeTags) ->
                 System.out.println("edge " + from + "->" + to + " (" + pointList.size() + " points)");
         private int workerThreads = 2;
+        private boolean cachePass1 = false;
 
         /**
          * @param nodeAccess used to store tower node coordinates while parsing the ways
@@ -502,10 +590,20 @@ public class WaySegmentParser {
             return this;
         }
 
+        /**
+         * @param cachePass1 true if the accepted ways and all relations should be written to a temporary file during
+         *                   the first pass such that the second pass only needs to read the nodes of the OSM file.
+         *                   This speeds up the import, but requires some temporary disk space.
+         */
+        public Builder setCachePass1(boolean cachePass1) {
+            this.cachePass1 = cachePass1;
+            return this;
+        }
+
         public WaySegmentParser build() {
             return new WaySegmentParser(
                     nodeAccess, directory, elevationProvider, wayFilter, splitNodeFilter, wayPreprocessor, relationPreprocessor, relationProcessor,
-                    edgeHandler, workerThreads
+                    edgeHandler, workerThreads, cachePass1
             );
         }
     }
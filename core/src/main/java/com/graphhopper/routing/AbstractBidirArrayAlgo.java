@@ -0,0 +1,213 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.graphhopper.util.EdgeIterator.ANY_EDGE;
+
+/**
+ * Common subclass for node-based bidirectional algorithms that store their shortest path trees in {@link ArraySPT}s
+ * instead of {@link SPTEntry} objects. Apart from the path extraction no objects are created during the search.
+ *
+ * @see AbstractBidirAlgo for the {@link SPTEntry} based variant
+ */
+public abstract class AbstractBidirArrayAlgo implements BidirRoutingAlgorithm {
+    protected static final int NO_NODE = -1;
+    protected final ArraySPT fwdSPT;
+    protected final ArraySPT bwdSPT;
+    protected int from;
+    protected int to;
+    protected int bestNode = NO_NODE;
+    protected double bestWeight = Double.MAX_VALUE;
+    protected double currFromWeight;
+    protected double currToWeight;
+    protected boolean finishedFrom;
+    protected boolean finishedTo;
+    protected int maxVisitedNodes = Integer.MAX_VALUE;
+    int visitedCountFrom;
+    int visitedCountTo;
+    private boolean alreadyRun;
+
+    /**
+     * @param fwdSPT the tree used for the forward search, will be cleared before it is used
+     * @param bwdSPT the tree used for the backward search, will be cleared before it is used
+     */
+    protected AbstractBidirArrayAlgo(ArraySPT fwdSPT, ArraySPT bwdSPT, int nodes) {
+        if (fwdSPT == bwdSPT)
+            throw new IllegalArgumentException("The forward and backward search cannot share the same tree");
+        this.fwdSPT = fwdSPT;
+        this.bwdSPT = bwdSPT;
+        fwdSPT.ensureCapacity(nodes);
+        bwdSPT.ensureCapacity(nodes);
+    }
+
+    @Override
+    public List<Path> calcPaths(int from, int to) {
+        return Collections.singletonList(calcPath(from, to));
+    }
+
+    @Override
+    public Path calcPath(int from, int to) {
+        return calcPath(from, to, ANY_EDGE, ANY_EDGE);
+    }
+
+    @Override
+    public Path calcPath(int from, int to, int fromOutEdge, int toInEdge) {
+        if (fromOutEdge != ANY_EDGE || toInEdge != ANY_EDGE)
+            throw new IllegalArgumentException("Restricting the start/target edges is only possible for edge-based graph traversal");
+        checkAlreadyRun();
+        init(from, to);
+        runAlgo();
+        return extractPath();
+    }
+
+    void init(int from, int to) {
+        this.from = from;
+        this.to = to;
+        fwdSPT.clear();
+        bwdSPT.clear();
+        fwdSPT.setRoot(from, 0);
+        bwdSPT.setRoot(to, 0);
+        if (from == to) {
+            bestNode = from;
+            bestWeight = 0;
+        }
+    }
+
+    protected void runAlgo() {
+        while (!finished() && !isMaxVisitedNodesExceeded()) {
+            if (!finishedFrom)
+                finishedFrom = !fillEdgesFrom();
+
+            if (!finishedTo)
+                finishedTo = !fillEdgesTo();
+        }
+    }
+
+    protected boolean finished() {
+        if (finishedFrom || finishedTo)
+            return true;
+
+        return currFromWeight + currToWeight >= bestWeight;
+    }
+
+    boolean fillEdgesFrom() {
+        if (fwdSPT.isEmpty())
+            return false;
+        int node = fwdSPT.poll();
+        currFromWeight = fwdSPT.getWeight(node);
+        visitedCountFrom++;
+        if (fwdSearchCanBeStopped())
+            return false;
+        if (fromNodeCanBeSkipped(node))
+            return true;
+        fillEdges(node, fwdSPT, bwdSPT, false);
+        return true;
+    }
+
+    boolean fillEdgesTo() {
+        if (bwdSPT.isEmpty())
+            return false;
+        int node = bwdSPT.poll();
+        currToWeight = bwdSPT.getWeight(node);
+        visitedCountTo++;
+        if (bwdSearchCanBeStopped())
+            return false;
+        if (toNodeCanBeSkipped(node))
+            return true;
+        fillEdges(node, bwdSPT, fwdSPT, true);
+        return true;
+    }
+
+    /**
+     * Expands the given (settled) node by calling {@link #relax} for all its adjacent edges
+     */
+    protected abstract void fillEdges(int node, ArraySPT spt, ArraySPT otherSPT, boolean reverse);
+
+    /**
+     * Updates the tree entry of adjNode if the given weight is smaller than the one found so far and checks if the
+     * other search has reached adjNode already.
+     */
+    protected final void relax(ArraySPT spt, ArraySPT otherSPT, int baseNode, int adjNode, int edge, double weight) {
+        if (weight >= spt.getWeight(adjNode))
+            return;
+        spt.update(adjNode, weight, weight, baseNode, edge);
+        if (otherSPT.isReached(adjNode)) {
+            double pathWeight = weight + otherSPT.getWeight(adjNode);
+            if (pathWeight < bestWeight) {
+                bestWeight = pathWeight;
+                bestNode = adjNode;
+            }
+        }
+    }
+
+    protected boolean fromNodeCanBeSkipped(int node) {
+        return false;
+    }
+
+    protected boolean toNodeCanBeSkipped(int node) {
+        return false;
+    }
+
+    protected boolean fwdSearchCanBeStopped() {
+        return false;
+    }
+
+    protected boolean bwdSearchCanBeStopped() {
+        return false;
+    }
+
+    protected Path extractPath() {
+        if (finished() && bestNode != NO_NODE)
+            return createPathExtractor().extract(fwdSPT.toSPTEntry(bestNode), bwdSPT.toSPTEntry(bestNode), bestWeight);
+
+        return createEmptyPath();
+    }
+
+    protected abstract BidirPathExtractor createPathExtractor();
+
+    protected abstract Path createEmptyPath();
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedCountFrom + visitedCountTo;
+    }
+
+    @Override
+    public void setMaxVisitedNodes(int numberOfNodes) {
+        this.maxVisitedNodes = numberOfNodes;
+    }
+
+    protected boolean isMaxVisitedNodesExceeded() {
+        return maxVisitedNodes < getVisitedNodes();
+    }
+
+    protected void checkAlreadyRun() {
+        if (alreadyRun)
+            throw new IllegalStateException("Create a new instance per call");
+
+        alreadyRun = true;
+    }
+
+    @Override
+    public String getName() {
+        return getClass().getSimpleName();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.coll.MinHeapWithUpdate;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+
+/**
+ * A shortest path tree for node-based searches that keeps the weights, parent nodes and edge ids in primitive arrays
+ * indexed by node id instead of using {@link SPTEntry} objects and a hash map. The open set is a
+ * {@link MinHeapWithUpdate}, so there is no need to remove and re-add entries when their weight decreases.
+ * <p>
+ * The arrays are as large as the graph, so this is only a good choice if an instance is re-used for many queries, see
+ * {@link ArraySPTPool}. Every entry is tagged with the version of the search that wrote it, so {@link #clear()} only
+ * needs to increment the current version instead of resetting the arrays (apart from the remaining heap entries).
+ */
+public class ArraySPT {
+    private static final int NO_PARENT = -1;
+    private double[] weights;
+    private int[] parents;
+    private int[] edges;
+    private int[] versions;
+    private int version;
+    private MinHeapWithUpdate heap;
+
+    public ArraySPT(int nodes) {
+        allocate(nodes);
+    }
+
+    private void allocate(int nodes) {
+        weights = new double[nodes];
+        parents = new int[nodes];
+        edges = new int[nodes];
+        versions = new int[nodes];
+        // version 0 is never used for a search, so all entries are initially unset
+        version = 1;
+        heap = new MinHeapWithUpdate(nodes);
+    }
+
+    /**
+     * Makes sure this tree can be used for a graph with the given number of nodes. Growing the tree is expensive, but
+     * this is only necessary when the number of (virtual) nodes exceeds the previous maximum.
+     */
+    public void ensureCapacity(int nodes) {
+        if (nodes > weights.length)
+            allocate(Math.max(nodes, weights.length + weights.length / 4));
+    }
+
+    public int getCapacity() {
+        return weights.length;
+    }
+
+    /**
+     * Resets all nodes that were reached since the last call of this method.
+     */
+    public void clear() {
+        if (version == Integer.MAX_VALUE) {
+            // this happens only after billions of searches, but we need to make sure old entries do not become valid again
+            Arrays.fill(versions, 0);
+            version = 0;
+        }
+        version++;
+        heap.clear();
+    }
+
+    /**
+     * Adds the root of the tree
+     */
+    public void setRoot(int node, double weight) {
+        update(node, weight, weight, NO_PARENT, EdgeIterator.NO_EDGE);
+    }
+
+    /**
+     * Sets the weight of the given node and adds it to the open set, or updates its position if it is contained
+     * already.
+     *
+     * @param heapWeight the key used to order the open set, usually the same as weight
+     */
+    public void update(int node, double weight, double heapWeight, int parent, int edge) {
+        versions[node] = version;
+        weights[node] = weight;
+        parents[node] = parent;
+        edges[node] = edge;
+        if (heap.contains(node))
+            heap.update(node, (float) heapWeight);
+        else
+            heap.push(node, (float) heapWeight);
+    }
+
+    public boolean isReached(int node) {
+        return versions[node] == version;
+    }
+
+    public double getWeight(int node) {
+        return isReached(node) ? weights[node] : Double.POSITIVE_INFINITY;
+    }
+
+    public int getParent(int node) {
+        return isReached(node) ? parents[node] : NO_PARENT;
+    }
+
+    public int getEdge(int node) {
+        return isReached(node) ? edges[node] : EdgeIterator.NO_EDGE;
+    }
+
+    public boolean isEmpty() {
+        return heap.isEmpty();
+    }
+
+    public int peekNode() {
+        return heap.peekId();
+    }
+
+    public int poll() {
+        return heap.poll();
+    }
+
+    /**
+     * Converts the tree branch ending at the given node into a chain of {@link SPTEntry} objects such that the existing
+     * path extractors can be used. Only the nodes on the path are materialized.
+     */
+    public SPTEntry toSPTEntry(int node) {
+        SPTEntry entry = new SPTEntry(edges[node], node, weights[node]);
+        SPTEntry curr = entry;
+        int parent = parents[node];
+        while (parent != NO_PARENT) {
+            curr.parent = new SPTEntry(edges[parent], parent, weights[parent]);
+            curr = curr.parent;
+            parent = parents[parent];
+        }
+        return entry;
+    }
+
+    /**
+     * @return the approximate memory used by this tree in bytes
+     */
+    public long getMemoryUsage() {
+        // weights, parents, edges, versions + tree, positions and values of the heap
+        return (8L + 4L + 4L + 4L + 4L + 4L + 4L) * weights.length;
+    }
+}
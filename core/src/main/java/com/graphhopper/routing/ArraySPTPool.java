@@ -0,0 +1,70 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+/**
+ * Keeps one pair of {@link ArraySPT}s per thread, such that subsequent queries running on the same thread do not need
+ * to allocate (graph-sized) search data structures. Since the trees are only cleared lazily when the next search starts,
+ * a workspace may only be used by one algorithm at a time, i.e. the path must be extracted before the next algorithm
+ * is created on the same thread.
+ */
+public class ArraySPTPool {
+    private final int nodes;
+    private final ThreadLocal<Workspace> workspaces;
+
+    /**
+     * @param nodes the initial size of the workspaces, usually the number of nodes of the (CH) graph. The workspaces
+     *              grow automatically if a query graph with more (virtual) nodes is used.
+     */
+    public ArraySPTPool(int nodes) {
+        this.nodes = nodes;
+        workspaces = ThreadLocal.withInitial(() -> new Workspace(nodes));
+    }
+
+    /**
+     * @return the workspace of the current thread, large enough to be used for a graph with the given number of nodes
+     */
+    public Workspace get(int nodes) {
+        Workspace workspace = workspaces.get();
+        workspace.fwd.ensureCapacity(nodes);
+        workspace.bwd.ensureCapacity(nodes);
+        return workspace;
+    }
+
+    public int getNodes() {
+        return nodes;
+    }
+
+    public static class Workspace {
+        private final ArraySPT fwd;
+        private final ArraySPT bwd;
+
+        Workspace(int nodes) {
+            fwd = new ArraySPT(nodes);
+            bwd = new ArraySPT(nodes);
+        }
+
+        public ArraySPT getFwd() {
+            return fwd;
+        }
+
+        public ArraySPT getBwd() {
+            return bwd;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.Graph;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.Parameters;
+
+/**
+ * Node-based bidirectional Dijkstra that yields the same results as {@link DijkstraBidirectionRef}, but keeps the
+ * shortest path trees in {@link ArraySPT}s. Pass in the same trees for subsequent queries to avoid re-allocating them.
+ */
+public class DijkstraBidirectionArray extends AbstractBidirArrayAlgo {
+    private final Graph graph;
+    private final Weighting weighting;
+    private final EdgeExplorer edgeExplorer;
+
+    public DijkstraBidirectionArray(Graph graph, Weighting weighting) {
+        this(graph, weighting, new ArraySPT(graph.getNodes()), new ArraySPT(graph.getNodes()));
+    }
+
+    public DijkstraBidirectionArray(Graph graph, Weighting weighting, ArraySPT fwdSPT, ArraySPT bwdSPT) {
+        super(fwdSPT, bwdSPT, graph.getNodes());
+        if (weighting.hasTurnCosts())
+            throw new IllegalStateException("Weightings supporting turn costs cannot be used with node-based traversal mode");
+        this.graph = graph;
+        this.weighting = weighting;
+        edgeExplorer = graph.createEdgeExplorer();
+    }
+
+    @Override
+    protected void fillEdges(int node, ArraySPT spt, ArraySPT otherSPT, boolean reverse) {
+        final int incEdge = spt.getEdge(node);
+        final double currWeight = spt.getWeight(node);
+        EdgeIterator iter = edgeExplorer.setBaseNode(node);
+        while (iter.next()) {
+            // u-turns are not possible for node-based traversal, so we exclude them here already
+            if (iter.getEdge() == incEdge)
+                continue;
+            double weight = GHUtility.calcWeightWithTurnWeightWithAccess(weighting, iter, reverse, incEdge);
+            if (Double.isInfinite(weight))
+                continue;
+            relax(spt, otherSPT, node, iter.getAdjNode(), iter.getEdge(), currWeight + weight);
+        }
+    }
+
+    @Override
+    protected BidirPathExtractor createPathExtractor() {
+        return new DefaultBidirPathExtractor(graph, weighting);
+    }
+
+    @Override
+    protected Path createEmptyPath() {
+        return new Path(graph);
+    }
+
+    @Override
+    public String getName() {
+        return Parameters.Algorithms.DIJKSTRA_BI + "|array";
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "|" + weighting;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.routing.ch.NodeBasedCHBidirPathExtractor;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+
+/**
+ * Node-based bidirectional Dijkstra for CH that yields the same results as {@link DijkstraBidirectionCH}, but keeps the
+ * shortest path trees in {@link ArraySPT}s. Pass in the same trees for subsequent queries to avoid re-allocating them.
+ *
+ * @see DijkstraBidirectionCH for an explanation of the stall-on-demand optimization
+ */
+public class DijkstraBidirectionCHArray extends AbstractBidirArrayAlgo {
+    private final RoutingCHGraph graph;
+    private final RoutingCHEdgeExplorer inEdgeExplorer;
+    private final RoutingCHEdgeExplorer outEdgeExplorer;
+    private final int maxNodes;
+    private boolean stallOnDemand = true;
+
+    public DijkstraBidirectionCHArray(RoutingCHGraph graph) {
+        this(graph, new ArraySPT(graph.getNodes()), new ArraySPT(graph.getNodes()));
+    }
+
+    public DijkstraBidirectionCHArray(RoutingCHGraph graph, ArraySPT fwdSPT, ArraySPT bwdSPT) {
+        super(fwdSPT, bwdSPT, graph.getNodes());
+        if (graph.isEdgeBased())
+            throw new IllegalArgumentException("DijkstraBidirectionCHArray can only be used for node-based CH");
+        this.graph = graph;
+        inEdgeExplorer = graph.createInEdgeExplorer();
+        outEdgeExplorer = graph.createOutEdgeExplorer();
+        maxNodes = graph.getBaseGraph().getBaseGraph().getNodes();
+    }
+
+    public DijkstraBidirectionCHArray setStallOnDemand(boolean stallOnDemand) {
+        this.stallOnDemand = stallOnDemand;
+        return this;
+    }
+
+    @Override
+    protected boolean finished() {
+        // we need to finish BOTH searches for CH!
+        if (finishedFrom && finishedTo)
+            return true;
+
+        return currFromWeight >= bestWeight && currToWeight >= bestWeight;
+    }
+
+    @Override
+    protected boolean fwdSearchCanBeStopped() {
+        return currFromWeight > bestWeight;
+    }
+
+    @Override
+    protected boolean bwdSearchCanBeStopped() {
+        return currToWeight > bestWeight;
+    }
+
+    @Override
+    protected boolean fromNodeCanBeSkipped(int node) {
+        return stallOnDemand && nodeIsStallable(node, fwdSPT, inEdgeExplorer, false);
+    }
+
+    @Override
+    protected boolean toNodeCanBeSkipped(int node) {
+        return stallOnDemand && nodeIsStallable(node, bwdSPT, outEdgeExplorer, true);
+    }
+
+    private boolean nodeIsStallable(int node, ArraySPT spt, RoutingCHEdgeExplorer edgeExplorer, boolean reverse) {
+        final int incEdge = spt.getEdge(node);
+        final double weight = spt.getWeight(node);
+        RoutingCHEdgeIterator iter = edgeExplorer.setBaseNode(node);
+        while (iter.next()) {
+            if (iter.getEdge() == incEdge)
+                continue;
+            int adjNode = iter.getAdjNode();
+            // we have to be careful because of rounded shortcut weights in combination with virtual via nodes, see #1574
+            final double precision = 0.001;
+            if (spt.isReached(adjNode) && spt.getWeight(adjNode) + iter.getWeight(!reverse) - weight < -precision)
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    protected void fillEdges(int node, ArraySPT spt, ArraySPT otherSPT, boolean reverse) {
+        final int incEdge = spt.getEdge(node);
+        final double currWeight = spt.getWeight(node);
+        RoutingCHEdgeIterator iter = (reverse ? inEdgeExplorer : outEdgeExplorer).setBaseNode(node);
+        while (iter.next()) {
+            if (iter.getEdge() == incEdge || !acceptLevel(iter))
+                continue;
+            double weight = iter.getWeight(reverse);
+            if (Double.isInfinite(weight))
+                continue;
+            relax(spt, otherSPT, node, iter.getAdjNode(), iter.getEdge(), currWeight + weight);
+        }
+    }
+
+    private boolean acceptLevel(RoutingCHEdgeIterator iter) {
+        int base = iter.getBaseNode();
+        int adj = iter.getAdjNode();
+        // always accept virtual edges, see #288
+        if (base >= maxNodes || adj >= maxNodes)
+            return true;
+
+        // shortcuts in wrong direction are disconnected, so no need to exclude them
+        if (iter.isShortcut())
+            return true;
+
+        return graph.getLevel(base) <= graph.getLevel(adj);
+    }
+
+    @Override
+    protected BidirPathExtractor createPathExtractor() {
+        return new NodeBasedCHBidirPathExtractor(graph);
+    }
+
+    @Override
+    protected Path createEmptyPath() {
+        return new Path(graph.getBaseGraph());
+    }
+
+    @Override
+    public String getName() {
+        return stallOnDemand ? "dijkstrabi|ch|array" : "dijkstrabi|ch|no_sod|array";
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "|" + graph.getWeighting();
+    }
+}
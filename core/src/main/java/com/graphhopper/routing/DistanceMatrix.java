@@ -0,0 +1,78 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import java.util.Arrays;
+
+/**
+ * The result of a {@link MatrixCalculator}. The entries are stored in row-major order in primitive arrays, entries
+ * for pairs of points that are not connected have an infinite weight.
+ */
+public class DistanceMatrix {
+    private final int fromCount;
+    private final int toCount;
+    private final double[] weights;
+    private final long[] times;
+    private final double[] distances;
+
+    public DistanceMatrix(int fromCount, int toCount) {
+        this.fromCount = fromCount;
+        this.toCount = toCount;
+        weights = new double[fromCount * toCount];
+        times = new long[fromCount * toCount];
+        distances = new double[fromCount * toCount];
+        Arrays.fill(weights, Double.POSITIVE_INFINITY);
+    }
+
+    public void set(int fromIndex, int toIndex, double weight, long time, double distance) {
+        int index = fromIndex * toCount + toIndex;
+        weights[index] = weight;
+        times[index] = time;
+        distances[index] = distance;
+    }
+
+    public int getFromCount() {
+        return fromCount;
+    }
+
+    public int getToCount() {
+        return toCount;
+    }
+
+    public boolean isConnected(int fromIndex, int toIndex) {
+        return Double.isFinite(getWeight(fromIndex, toIndex));
+    }
+
+    public double getWeight(int fromIndex, int toIndex) {
+        return weights[fromIndex * toCount + toIndex];
+    }
+
+    /**
+     * @return the time in milliseconds
+     */
+    public long getTime(int fromIndex, int toIndex) {
+        return times[fromIndex * toCount + toIndex];
+    }
+
+    /**
+     * @return the distance in meters
+     */
+    public double getDistance(int fromIndex, int toIndex) {
+        return distances[fromIndex * toCount + toIndex];
+    }
+}
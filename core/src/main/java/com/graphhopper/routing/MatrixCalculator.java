@@ -0,0 +1,34 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+/**
+ * Implementations of this class calculate the weights, times and distances between all pairs of the given start and
+ * target nodes.
+ */
+public interface MatrixCalculator {
+    /**
+     * @param fromNodes the start nodes, negative entries are ignored and the corresponding row is left empty
+     * @param toNodes   the target nodes, negative entries are ignored and the corresponding column is left empty
+     */
+    DistanceMatrix calcMatrix(int[] fromNodes, int[] toNodes);
+
+    String getDebugString();
+
+    int getVisitedNodes();
+}
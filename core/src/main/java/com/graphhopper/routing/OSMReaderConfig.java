@@ -26,6 +26,8 @@ public class OSMReaderConfig {
     private boolean smoothElevation = false;
     private double longEdgeSamplingDistance = Double.MAX_VALUE;
     private int workerThreads = 2;
+    private boolean cachePass1 = false;
+    private int wayThreads = 1;
 
     public String getPreferredLanguage() {
         return preferredLanguage;
@@ -113,4 +115,34 @@ public class OSMReaderConfig {
         this.workerThreads = workerThreads;
         return this;
     }
+
+    public boolean isCachePass1() {
+        return cachePass1;
+    }
+
+    /**
+     * Enables/disables writing the accepted OSM ways and all relations into a temporary file while reading the OSM
+     * file the first time. The second pass then only needs to read the OSM nodes from the OSM file. This speeds up the
+     * import, but needs temporary disk space in java.io.tmpdir.
+     */
+    public OSMReaderConfig setCachePass1(boolean cachePass1) {
+        this.cachePass1 = cachePass1;
+        return this;
+    }
+
+    public int getWayThreads() {
+        return wayThreads;
+    }
+
+    /**
+     * Sets the number of threads used to calculate the edge flags of the OSM ways during the second pass. The edges
+     * are still added to the graph in the same order as for a single thread. Note that all tag parsers need to be
+     * thread-safe if this is larger than one.
+     */
+    public OSMReaderConfig setWayThreads(int wayThreads) {
+        if (wayThreads < 1)
+            throw new IllegalArgumentException("way_threads must be positive, was: " + wayThreads);
+        this.wayThreads = wayThreads;
+        return this;
+    }
 }
@@ -0,0 +1,66 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.util.StopWatch;
+
+/**
+ * Calculates a {@link DistanceMatrix} by running one query per pair of points with the given {@link PathCalculator}.
+ * This works for every kind of routing algorithm (e.g. LM, flexible or edge-based CH), but is much slower than
+ * {@link com.graphhopper.routing.ch.CHMatrixCalculator} for larger matrices.
+ */
+public class PathMatrixCalculator implements MatrixCalculator {
+    private final PathCalculator pathCalculator;
+    private int visitedNodes;
+    private String debug = "";
+
+    public PathMatrixCalculator(PathCalculator pathCalculator) {
+        this.pathCalculator = pathCalculator;
+    }
+
+    @Override
+    public DistanceMatrix calcMatrix(int[] fromNodes, int[] toNodes) {
+        StopWatch sw = new StopWatch().start();
+        DistanceMatrix matrix = new DistanceMatrix(fromNodes.length, toNodes.length);
+        visitedNodes = 0;
+        for (int i = 0; i < fromNodes.length; i++) {
+            if (fromNodes[i] < 0)
+                continue;
+            for (int j = 0; j < toNodes.length; j++) {
+                if (toNodes[j] < 0)
+                    continue;
+                Path path = pathCalculator.calcPaths(fromNodes[i], toNodes[j], new EdgeRestrictions()).get(0);
+                visitedNodes += pathCalculator.getVisitedNodes();
+                if (path.isFound())
+                    matrix.set(i, j, path.getWeight(), path.getTime(), path.getDistance());
+            }
+        }
+        debug = ", queries:" + fromNodes.length * toNodes.length + ", matrix:" + sw.stop().getMillis() + " ms";
+        return matrix;
+    }
+
+    @Override
+    public String getDebugString() {
+        return debug;
+    }
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
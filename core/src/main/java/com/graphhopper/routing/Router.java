@@ -19,17 +19,23 @@
 package com.graphhopper.routing;
 
 import com.carrotsearch.hppc.cursors.IntCursor;
+import com.graphhopper.GHMatrixRequest;
+import com.graphhopper.GHMatrixResponse;
 import com.graphhopper.GHRequest;
 import com.graphhopper.GHResponse;
 import com.graphhopper.ResponsePath;
 import com.graphhopper.config.Profile;
+import com.graphhopper.routing.ch.CHMatrixCalculator;
 import com.graphhopper.routing.ch.CHRoutingAlgorithmFactory;
+import com.graphhopper.routing.ch.CustomizedCHCache;
 import com.graphhopper.routing.ev.BooleanEncodedValue;
 import com.graphhopper.routing.ev.EncodedValueLookup;
 import com.graphhopper.routing.ev.Subnetwork;
+import com.graphhopper.routing.lm.ActiveLandmarkCache;
 import com.graphhopper.routing.lm.LMRoutingAlgorithmFactory;
 import com.graphhopper.routing.lm.LandmarkStorage;
 import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.querygraph.QueryRoutingCHGraph;
 import com.graphhopper.routing.util.*;
 import com.graphhopper.routing.weighting.BlockAreaWeighting;
 import com.graphhopper.routing.weighting.Weighting;
@@ -42,6 +48,7 @@ import com.graphhopper.storage.index.LocationIndex;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
 import com.graphhopper.util.details.PathDetailsBuilderFactory;
+import com.graphhopper.util.exceptions.ConnectionNotFoundException;
 import com.graphhopper.util.exceptions.PointDistanceExceededException;
 import com.graphhopper.util.exceptions.PointNotFoundException;
 import com.graphhopper.util.exceptions.PointOutOfBoundsException;
@@ -49,6 +56,7 @@ import com.graphhopper.util.shapes.BBox;
 import com.graphhopper.util.shapes.GHPoint;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 import static com.graphhopper.routing.weighting.Weighting.INFINITE_U_TURN_COSTS;
 import static com.graphhopper.util.DistanceCalcEarth.DIST_EARTH;
@@ -69,6 +77,11 @@ public class Router {
     // like a 'graph database'
     private final Map<String, RoutingCHGraph> chGraphs;
     private final Map<String, LandmarkStorage> landmarks;
+    private Map<String, ArraySPTPool> chWorkspacePools = Collections.emptyMap();
+    private ArraySPTPool workspacePool;
+    private Map<String, ActiveLandmarkCache> activeLandmarkCaches = Collections.emptyMap();
+    private ExecutorService viaLegExecutor;
+    private CustomizedCHCache customizedCHCache;
     private final boolean chEnabled;
     private final boolean lmEnabled;
 
@@ -97,6 +110,59 @@ public class Router {
         }
     }
 
+    /**
+     * @param chWorkspacePools the pools of search data structures to be used for node-based CH queries, mapped by
+     *                         profile name. The pools need to outlive this router, because they only pay off when they
+     *                         are shared between many requests.
+     * @see RouterConfig#setCHWorkspacePooling
+     */
+    public Router setCHWorkspacePools(Map<String, ArraySPTPool> chWorkspacePools) {
+        this.chWorkspacePools = chWorkspacePools;
+        return this;
+    }
+
+    /**
+     * @param workspacePool the pool of search data structures to be used for node-based queries without CH and LM,
+     *                      null to allocate them for every query. Like the CH workspace pools it needs to outlive this
+     *                      router.
+     * @see RouterConfig#setWorkspacePooling
+     */
+    public Router setWorkspacePool(ArraySPTPool workspacePool) {
+        this.workspacePool = workspacePool;
+        return this;
+    }
+
+    /**
+     * @param activeLandmarkCaches the caches of the active landmarks to be used for LM queries, mapped by profile name.
+     *                             Like the CH workspace pools they need to outlive this router.
+     * @see RouterConfig#setActiveLandmarkCacheSize
+     */
+    public Router setActiveLandmarkCaches(Map<String, ActiveLandmarkCache> activeLandmarkCaches) {
+        this.activeLandmarkCaches = activeLandmarkCaches;
+        return this;
+    }
+
+    /**
+     * @param viaLegExecutor the executor used to calculate the legs of via-routes concurrently, or null to calculate
+     *                       them one after another. It is shared by all requests and needs to outlive this router.
+     * @see RouterConfig#setViaLegThreads
+     */
+    public Router setViaLegExecutor(ExecutorService viaLegExecutor) {
+        this.viaLegExecutor = viaLegExecutor;
+        return this;
+    }
+
+    /**
+     * @param customizedCHCache the CH graphs customized for the custom models of requests, or null to use the flexible
+     *                          or LM mode for requests with a custom model. Like the CH workspace pools it needs to
+     *                          outlive this router.
+     * @see RouterConfig#setCustomizedCHCacheSize
+     */
+    public Router setCustomizedCHCache(CustomizedCHCache customizedCHCache) {
+        this.customizedCHCache = customizedCHCache;
+        return this;
+    }
+
     public GHResponse route(GHRequest request) {
         try {
             checkNoLegacyParameters(request);
@@ -133,6 +199,127 @@ public class Router {
         }
     }
 
+    /**
+     * Calculates the weights, times and distances between all pairs of the from and to points of the given request.
+     * For node-based CH profiles this runs one upward search per point, for all other profiles one query per pair of
+     * points is necessary.
+     */
+    public GHMatrixResponse matrix(GHMatrixRequest request) {
+        try {
+            GHRequest routeRequest = createMatrixRouteRequest(request);
+            checkNoLegacyParameters(routeRequest);
+            checkMatrixPoints(request);
+
+            Solver solver = createSolver(routeRequest);
+            solver.checkMatrixRequest(request.getFromPoints(), request.getToPoints());
+            solver.init();
+            return calcMatrix(request, solver);
+        } catch (IllegalArgumentException ex) {
+            GHMatrixResponse rsp = new GHMatrixResponse();
+            rsp.addError(ex);
+            return rsp;
+        }
+    }
+
+    private GHRequest createMatrixRouteRequest(GHMatrixRequest request) {
+        // the points are only used to build the block area or custom model areas, the lookup is done separately
+        List<GHPoint> points = new ArrayList<>(request.getFromPoints());
+        if (!request.isIdenticalLists())
+            points.addAll(request.getToPoints());
+        GHRequest routeRequest = new GHRequest(points).
+                setProfile(request.getProfile()).
+                setSnapPreventions(request.getSnapPreventions());
+        routeRequest.getHints().putAll(request.getHints());
+        return routeRequest;
+    }
+
+    private void checkMatrixPoints(GHMatrixRequest request) {
+        if (request.getFromPoints().isEmpty() || request.getToPoints().isEmpty())
+            throw new IllegalArgumentException("You have to pass at least one from point and one to point");
+        long matrixSize = (long) request.getFromPoints().size() * request.getToPoints().size();
+        if (matrixSize > routerConfig.getMaxMatrixSize())
+            throw new IllegalArgumentException("The matrix size of " + request.getFromPoints().size() + "x" + request.getToPoints().size()
+                    + " exceeds the maximum of " + routerConfig.getMaxMatrixSize() + " entries, see " + Parameters.Routing.INIT_MAX_MATRIX_SIZE);
+        checkIfPointsAreInBounds(request.getFromPoints());
+        checkIfPointsAreInBounds(request.getToPoints());
+        if (!request.getFromPointHints().isEmpty() && request.getFromPointHints().size() != request.getFromPoints().size())
+            throw new IllegalArgumentException("If you pass from_" + POINT_HINT + ", you need to pass exactly one hint for every from point, empty hints will be ignored");
+        if (!request.getToPointHints().isEmpty() && request.getToPointHints().size() != request.getToPoints().size())
+            throw new IllegalArgumentException("If you pass to_" + POINT_HINT + ", you need to pass exactly one hint for every to point, empty hints will be ignored");
+        for (String key : Arrays.asList("curbsides", "from_curbsides", "to_curbsides"))
+            if (request.getHints().has(key))
+                throw new IllegalArgumentException("The matrix does not support the '" + key + "' parameter yet");
+    }
+
+    protected GHMatrixResponse calcMatrix(GHMatrixRequest request, Solver solver) {
+        StopWatch sw = new StopWatch().start();
+        EdgeFilter snapFilter = solver.createSnapFilter();
+        DirectedEdgeFilter directedEdgeFilter = solver.createDirectedEdgeFilter();
+        List<Snap> fromSnaps = ViaRouting.lookupAll(encodingManager, request.getFromPoints(), snapFilter, locationIndex,
+                request.getSnapPreventions(), request.getFromPointHints(), directedEdgeFilter, Collections.emptyList());
+        List<Snap> toSnaps = request.isIdenticalLists() ? fromSnaps : ViaRouting.lookupAll(encodingManager, request.getToPoints(),
+                snapFilter, locationIndex, request.getSnapPreventions(), request.getToPointHints(), directedEdgeFilter, Collections.emptyList());
+        String lookupDebug = "idLookup:" + sw.stop().getSeconds() + "s";
+
+        GHMatrixResponse rsp = new GHMatrixResponse(fromSnaps.size(), toSnaps.size());
+        List<Snap> validSnaps = new ArrayList<>(fromSnaps.size() + toSnaps.size());
+        for (int i = 0; i < fromSnaps.size(); i++) {
+            if (fromSnaps.get(i).isValid())
+                validSnaps.add(fromSnaps.get(i));
+            else
+                rsp.getInvalidFromPoints().add(i);
+        }
+        for (int j = 0; j < toSnaps.size(); j++) {
+            if (!toSnaps.get(j).isValid())
+                rsp.getInvalidToPoints().add(j);
+            else if (!request.isIdenticalLists())
+                validSnaps.add(toSnaps.get(j));
+        }
+        if (request.isFailFast() && (!rsp.getInvalidFromPoints().isEmpty() || !rsp.getInvalidToPoints().isEmpty())) {
+            GHMatrixResponse errorRsp = new GHMatrixResponse();
+            for (int i : rsp.getInvalidFromPoints())
+                errorRsp.addError(new PointNotFoundException("Cannot find from_point " + i + ": " + request.getFromPoints().get(i), i));
+            for (int j : rsp.getInvalidToPoints())
+                errorRsp.addError(new PointNotFoundException("Cannot find to_point " + j + ": " + request.getToPoints().get(j), j));
+            return errorRsp;
+        }
+
+        // the snaps are updated when the query graph is created, so we need to read the nodes afterwards
+        QueryGraph queryGraph = QueryGraph.create(graph, validSnaps);
+        MatrixCalculator matrixCalculator = solver.createMatrixCalculator(queryGraph);
+        DistanceMatrix matrix = matrixCalculator.calcMatrix(getClosestNodes(fromSnaps), getClosestNodes(toSnaps));
+        for (int i = 0; i < matrix.getFromCount(); i++) {
+            for (int j = 0; j < matrix.getToCount(); j++) {
+                if (matrix.isConnected(i, j)) {
+                    rsp.getWeights()[i][j] = matrix.getWeight(i, j);
+                    rsp.getTimes()[i][j] = matrix.getTime(i, j);
+                    rsp.getDistances()[i][j] = matrix.getDistance(i, j);
+                } else {
+                    rsp.getWeights()[i][j] = Double.MAX_VALUE;
+                    rsp.getTimes()[i][j] = Long.MAX_VALUE;
+                    rsp.getDistances()[i][j] = Double.MAX_VALUE;
+                    if (fromSnaps.get(i).isValid() && toSnaps.get(j).isValid())
+                        rsp.getDisconnectedPairs().add(new int[]{i, j});
+                }
+            }
+        }
+        if (request.isFailFast() && !rsp.getDisconnectedPairs().isEmpty()) {
+            Map<String, Object> details = new HashMap<>(2);
+            details.put("point_pairs", rsp.getDisconnectedPairs());
+            return new GHMatrixResponse().addError(new ConnectionNotFoundException("Connection between locations not found", details));
+        }
+        rsp.addDebugInfo(lookupDebug + matrixCalculator.getDebugString());
+        rsp.getHints().putObject("visited_nodes.sum", matrixCalculator.getVisitedNodes());
+        return rsp;
+    }
+
+    private static int[] getClosestNodes(List<Snap> snaps) {
+        int[] nodes = new int[snaps.size()];
+        for (int i = 0; i < snaps.size(); i++)
+            nodes[i] = snaps.get(i).isValid() ? snaps.get(i).getClosestNode() : -1;
+        return nodes;
+    }
+
     private void checkNoLegacyParameters(GHRequest request) {
         if (request.getHints().has("vehicle"))
             throw new IllegalArgumentException("GHRequest may no longer contain a vehicle, use the profile parameter instead, see docs/core/profiles.md");
@@ -186,12 +373,14 @@ public class Router {
     protected Solver createSolver(GHRequest request) {
         final boolean disableCH = getDisableCH(request.getHints());
         final boolean disableLM = getDisableLM(request.getHints());
-        if (chEnabled && !disableCH) {
-            return new CHSolver(request, profilesByName, routerConfig, encodingManager, chGraphs);
+        if (customizedCHCache != null && request.getCustomModel() != null && !disableCH) {
+            return new CustomizedCHSolver(request, profilesByName, routerConfig, encodingManager, weightingFactory, customizedCHCache);
+        } else if (chEnabled && !disableCH) {
+            return new CHSolver(request, profilesByName, routerConfig, encodingManager, chGraphs, chWorkspacePools);
         } else if (lmEnabled && !disableLM) {
-            return new LMSolver(request, profilesByName, routerConfig, encodingManager, weightingFactory, graph, locationIndex, landmarks);
+            return new LMSolver(request, profilesByName, routerConfig, encodingManager, weightingFactory, graph, locationIndex, landmarks, activeLandmarkCaches);
         } else {
-            return new FlexSolver(request, profilesByName, routerConfig, encodingManager, weightingFactory, graph, locationIndex);
+            return new FlexSolver(request, profilesByName, routerConfig, encodingManager, weightingFactory, graph, locationIndex, workspacePool);
         }
     }
 
@@ -259,11 +448,10 @@ public class Router {
         // (base) query graph used to resolve headings, curbsides etc. this is not necessarily the same thing as
         // the (possibly implementation specific) query graph used by PathCalculator
         QueryGraph queryGraph = QueryGraph.create(graph, snaps);
-        PathCalculator pathCalculator = solver.createPathCalculator(queryGraph);
         boolean passThrough = getPassThrough(request.getHints());
         boolean forceCurbsides = getForceCurbsides(request.getHints());
         ViaRouting.Result result = ViaRouting.calcPaths(request.getPoints(), queryGraph, snaps, directedEdgeFilter,
-                pathCalculator, request.getCurbsides(), forceCurbsides, request.getHeadings(), passThrough);
+                solver::createPathCalculator, viaLegExecutor, request.getCurbsides(), forceCurbsides, request.getHeadings(), passThrough);
 
         if (request.getPoints().size() != result.paths.size() + 1)
             throw new RuntimeException("There should be exactly one more point than paths. points:" + request.getPoints().size() + ", paths:" + result.paths.size());
@@ -397,6 +585,14 @@ public class Router {
 
         protected abstract PathCalculator createPathCalculator(QueryGraph queryGraph);
 
+        protected void checkMatrixRequest(List<GHPoint> fromPoints, List<GHPoint> toPoints) {
+            checkRequest();
+        }
+
+        protected MatrixCalculator createMatrixCalculator(QueryGraph queryGraph) {
+            return new PathMatrixCalculator(createPathCalculator(queryGraph));
+        }
+
         private List<String> getTurnCostProfiles() {
             List<String> turnCostProfiles = new ArrayList<>();
             for (Profile p : profilesByName.values()) {
@@ -414,10 +610,13 @@ public class Router {
 
     private static class CHSolver extends Solver {
         private final Map<String, RoutingCHGraph> chGraphs;
+        private final Map<String, ArraySPTPool> workspacePools;
 
-        CHSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig, EncodedValueLookup lookup, Map<String, RoutingCHGraph> chGraphs) {
+        CHSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig, EncodedValueLookup lookup,
+                 Map<String, RoutingCHGraph> chGraphs, Map<String, ArraySPTPool> workspacePools) {
             super(request, profilesByName, routerConfig, lookup);
             this.chGraphs = chGraphs;
+            this.workspacePools = workspacePools;
         }
 
         @Override
@@ -432,13 +631,17 @@ public class Router {
             if (request.getHints().has(Parameters.Routing.BLOCK_AREA))
                 throw new IllegalArgumentException("The '" + Parameters.Routing.BLOCK_AREA + "' parameter is currently not supported for speed mode, you need to disable speed mode with `ch.disable=true`.");
 
-            if (request.getCustomModel() != null)
-                throw new IllegalArgumentException("The 'custom_model' parameter is currently not supported for speed mode, you need to disable speed mode with `ch.disable=true`.");
+            checkCustomModel();
 
             if (ROUND_TRIP.equalsIgnoreCase(request.getAlgorithm()))
                 throw new IllegalArgumentException("algorithm=round_trip cannot be used with CH");
         }
 
+        protected void checkCustomModel() {
+            if (request.getCustomModel() != null)
+                throw new IllegalArgumentException("The 'custom_model' parameter is currently not supported for speed mode, you need to disable speed mode with `ch.disable=true`.");
+        }
+
         @Override
         protected Weighting createWeighting() {
             // todo: do not allow things like short_fastest.distance_factor or u_turn_costs unless CH is disabled
@@ -455,10 +658,22 @@ public class Router {
             PMap opts = new PMap(request.getHints());
             opts.putObject(ALGORITHM, request.getAlgorithm());
             opts.putObject(MAX_VISITED_NODES, getMaxVisitedNodes(request.getHints()));
-            return new CHPathCalculator(new CHRoutingAlgorithmFactory(getRoutingCHGraph(profile.getName()), queryGraph), opts);
+            CHRoutingAlgorithmFactory algoFactory = new CHRoutingAlgorithmFactory(getRoutingCHGraph(profile.getName()), queryGraph)
+                    .setArraySPTPool(workspacePools.get(profile.getName()));
+            return new CHPathCalculator(algoFactory, opts);
         }
 
-        private RoutingCHGraph getRoutingCHGraph(String profileName) {
+        @Override
+        protected MatrixCalculator createMatrixCalculator(QueryGraph queryGraph) {
+            RoutingCHGraph chGraph = getRoutingCHGraph(profile.getName());
+            // edge-based CH is not supported by the many-to-many search yet, so we fall back to one query per pair
+            if (chGraph.isEdgeBased())
+                return super.createMatrixCalculator(queryGraph);
+            return new CHMatrixCalculator(new QueryRoutingCHGraph(chGraph, queryGraph))
+                    .setStallOnDemand(request.getHints().getBool("stall_on_demand", true));
+        }
+
+        protected RoutingCHGraph getRoutingCHGraph(String profileName) {
             RoutingCHGraph chGraph = chGraphs.get(profileName);
             if (chGraph == null)
                 throw new IllegalArgumentException("Cannot find CH preparation for the requested profile: '" + profileName + "'" +
@@ -468,19 +683,69 @@ public class Router {
         }
     }
 
+    /**
+     * Uses a CH graph that was customized for the profile and custom model of the request, see
+     * {@link com.graphhopper.routing.ch.CustomizableCH}
+     */
+    private static class CustomizedCHSolver extends CHSolver {
+        private final WeightingFactory weightingFactory;
+        private final CustomizedCHCache customizedCHCache;
+        private RoutingCHGraph chGraph;
+
+        CustomizedCHSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig, EncodedValueLookup lookup,
+                           WeightingFactory weightingFactory, CustomizedCHCache customizedCHCache) {
+            // the workspace pools are per CH profile, so the queries on the customized graphs do not use them
+            super(request, profilesByName, routerConfig, lookup, Collections.emptyMap(), Collections.emptyMap());
+            this.weightingFactory = weightingFactory;
+            this.customizedCHCache = customizedCHCache;
+        }
+
+        @Override
+        protected void checkCustomModel() {
+            // the graph is customized for the custom model of the request
+        }
+
+        @Override
+        protected void checkProfileCompatibility() {
+            super.checkProfileCompatibility();
+            if (profile.isTurnCosts())
+                throw new IllegalArgumentException("The 'custom_model' parameter is currently not supported for speed mode and profiles with turn costs, you need to disable speed mode with `ch.disable=true`.");
+        }
+
+        @Override
+        protected RoutingCHGraph getRoutingCHGraph(String profileName) {
+            if (chGraph == null)
+                chGraph = customizedCHCache.get(createKey(profileName, request.getCustomModel()), () -> {
+                    PMap hints = new PMap().putObject(CustomModel.KEY, request.getCustomModel());
+                    return weightingFactory.createWeighting(profile, hints, false);
+                });
+            return chGraph;
+        }
+
+        private static String createKey(String profileName, CustomModel customModel) {
+            // the string of a custom model only contains the ids of its areas, so we add their geometries
+            StringBuilder key = new StringBuilder(profileName).append('|').append(customModel);
+            new TreeMap<>(customModel.getAreas()).forEach((id, area) -> key.append('|').append(id).append('=').append(area.getGeometry()));
+            return key.toString();
+        }
+    }
+
     private static class FlexSolver extends Solver {
         protected final RouterConfig routerConfig;
         private final WeightingFactory weightingFactory;
         private final BaseGraph baseGraph;
         private final LocationIndex locationIndex;
+        private final ArraySPTPool workspacePool;
 
         FlexSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig,
-                   EncodedValueLookup lookup, WeightingFactory weightingFactory, BaseGraph graph, LocationIndex locationIndex) {
+                   EncodedValueLookup lookup, WeightingFactory weightingFactory, BaseGraph graph, LocationIndex locationIndex,
+                   ArraySPTPool workspacePool) {
             super(request, profilesByName, routerConfig, lookup);
             this.routerConfig = routerConfig;
             this.weightingFactory = weightingFactory;
             this.baseGraph = graph;
             this.locationIndex = locationIndex;
+            this.workspacePool = workspacePool;
         }
 
         @Override
@@ -489,6 +754,13 @@ public class Router {
             checkNonChMaxWaypointDistance(request.getPoints());
         }
 
+        @Override
+        protected void checkMatrixRequest(List<GHPoint> fromPoints, List<GHPoint> toPoints) {
+            // for the matrix the maximum distance applies to every pair of points, not only to consecutive points
+            super.checkRequest();
+            checkNonChMaxMatrixDistance(fromPoints, toPoints);
+        }
+
         @Override
         protected Weighting createWeighting() {
             PMap requestHints = new PMap(request.getHints());
@@ -504,7 +776,7 @@ public class Router {
 
         @Override
         protected FlexiblePathCalculator createPathCalculator(QueryGraph queryGraph) {
-            RoutingAlgorithmFactory algorithmFactory = new RoutingAlgorithmFactorySimple();
+            RoutingAlgorithmFactory algorithmFactory = new RoutingAlgorithmFactorySimple().setArraySPTPool(workspacePool);
             return new FlexiblePathCalculator(queryGraph, algorithmFactory, weighting, getAlgoOpts());
         }
 
@@ -542,15 +814,38 @@ public class Router {
                 lastPoint = point;
             }
         }
+
+        private void checkNonChMaxMatrixDistance(List<GHPoint> fromPoints, List<GHPoint> toPoints) {
+            if (routerConfig.getNonChMaxWaypointDistance() == Integer.MAX_VALUE) {
+                return;
+            }
+            for (int i = 0; i < fromPoints.size(); i++) {
+                GHPoint from = fromPoints.get(i);
+                for (int j = 0; j < toPoints.size(); j++) {
+                    GHPoint to = toPoints.get(j);
+                    double dist = DIST_EARTH.calcDist(from.getLat(), from.getLon(), to.getLat(), to.getLon());
+                    if (dist > routerConfig.getNonChMaxWaypointDistance()) {
+                        Map<String, Object> detailMap = new HashMap<>(2);
+                        detailMap.put("from", i);
+                        detailMap.put("to", j);
+                        throw new PointDistanceExceededException("To point " + j + " is too far from from point " + i + ": " + to, detailMap);
+                    }
+                }
+            }
+        }
     }
 
     private static class LMSolver extends FlexSolver {
         private final Map<String, LandmarkStorage> landmarks;
+        private final Map<String, ActiveLandmarkCache> activeLandmarkCaches;
 
         LMSolver(GHRequest request, Map<String, Profile> profilesByName, RouterConfig routerConfig, EncodedValueLookup lookup,
-                 WeightingFactory weightingFactory, BaseGraph graph, LocationIndex locationIndex, Map<String, LandmarkStorage> landmarks) {
-            super(request, profilesByName, routerConfig, lookup, weightingFactory, graph, locationIndex);
+                 WeightingFactory weightingFactory, BaseGraph graph, LocationIndex locationIndex, Map<String, LandmarkStorage> landmarks,
+                 Map<String, ActiveLandmarkCache> activeLandmarkCaches) {
+            // the LM algorithms are all based on A*, so they do not use the array based shortest path trees
+            super(request, profilesByName, routerConfig, lookup, weightingFactory, graph, locationIndex, null);
             this.landmarks = landmarks;
+            this.activeLandmarkCaches = activeLandmarkCaches;
         }
 
         @Override
@@ -561,7 +856,11 @@ public class Router {
                 throw new IllegalArgumentException("Cannot find LM preparation for the requested profile: '" + profile.getName() + "'" +
                         "\nYou can try disabling LM using " + Parameters.Landmark.DISABLE + "=true" +
                         "\navailable LM profiles: " + landmarks.keySet());
-            RoutingAlgorithmFactory routingAlgorithmFactory = new LMRoutingAlgorithmFactory(landmarkStorage).setDefaultActiveLandmarks(routerConfig.getActiveLandmarkCount());
+            ActiveLandmarkCache activeLandmarkCache = request.getHints().getBool(Parameters.Landmark.ACTIVE_LANDMARK_CACHE, true)
+                    ? activeLandmarkCaches.get(profile.getName()) : null;
+            RoutingAlgorithmFactory routingAlgorithmFactory = new LMRoutingAlgorithmFactory(landmarkStorage)
+                    .setDefaultActiveLandmarks(routerConfig.getActiveLandmarkCount())
+                    .setActiveLandmarkCache(activeLandmarkCache);
             return new FlexiblePathCalculator(queryGraph, routingAlgorithmFactory, weighting, getAlgoOpts());
         }
     }
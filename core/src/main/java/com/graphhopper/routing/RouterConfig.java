@@ -23,6 +23,7 @@ package com.graphhopper.routing;
  */
 public class RouterConfig {
     private int maxVisitedNodes = Integer.MAX_VALUE;
+    private int maxMatrixSize = 10_000;
     private int maxRoundTripRetries = 3;
     private int nonChMaxWaypointDistance = Integer.MAX_VALUE;
     private boolean calcPoints = true;
@@ -30,6 +31,14 @@ public class RouterConfig {
     private boolean simplifyResponse = true;
     private double elevationWayPointMaxDistance = Double.MAX_VALUE;
     private int activeLandmarkCount = 8;
+    private int activeLandmarkCacheSize = 0;
+    private double activeLandmarkCacheTileSize = 0.1;
+    private boolean chWorkspacePooling = false;
+    private boolean workspacePooling = false;
+    private boolean chUpwardGraph = false;
+    private int viaLegThreads = 1;
+    private int customizedCHCacheSize = 0;
+    private int customizationThreads = Runtime.getRuntime().availableProcessors();
 
     public int getMaxVisitedNodes() {
         return maxVisitedNodes;
@@ -43,6 +52,18 @@ public class RouterConfig {
         this.maxVisitedNodes = maxVisitedNodes;
     }
 
+    public int getMaxMatrixSize() {
+        return maxMatrixSize;
+    }
+
+    /**
+     * Matrix requests with more entries (from points times to points) are rejected. Without CH every entry is a
+     * separate path calculation, so this limits the work a single request can cause.
+     */
+    public void setMaxMatrixSize(int maxMatrixSize) {
+        this.maxMatrixSize = maxMatrixSize;
+    }
+
     public int getMaxRoundTripRetries() {
         return maxRoundTripRetries;
     }
@@ -98,6 +119,111 @@ public class RouterConfig {
         this.activeLandmarkCount = activeLandmarkCount;
     }
 
+    public int getActiveLandmarkCacheSize() {
+        return activeLandmarkCacheSize;
+    }
+
+    /**
+     * Sets the number of entries of the cache that keeps the active landmarks chosen for earlier LM queries per LM
+     * profile, see {@link com.graphhopper.routing.lm.ActiveLandmarkCache}. Default is 0, i.e. no cache.
+     */
+    public void setActiveLandmarkCacheSize(int activeLandmarkCacheSize) {
+        this.activeLandmarkCacheSize = activeLandmarkCacheSize;
+    }
+
+    public double getActiveLandmarkCacheTileSize() {
+        return activeLandmarkCacheTileSize;
+    }
+
+    /**
+     * Queries share the cached active landmarks if their start and target points lie within the same tiles of this
+     * size (in degrees).
+     */
+    public void setActiveLandmarkCacheTileSize(double activeLandmarkCacheTileSize) {
+        this.activeLandmarkCacheTileSize = activeLandmarkCacheTileSize;
+    }
+
+    public boolean isCHWorkspacePooling() {
+        return chWorkspacePooling;
+    }
+
+    /**
+     * If enabled every thread keeps the (graph-sized) data structures used for node-based CH queries between requests
+     * instead of allocating new ones per request. This reduces the setup time of short queries, but requires roughly
+     * 64 bytes per node for every node-based CH profile and routing thread.
+     */
+    public void setCHWorkspacePooling(boolean chWorkspacePooling) {
+        this.chWorkspacePooling = chWorkspacePooling;
+    }
+
+    public boolean isWorkspacePooling() {
+        return workspacePooling;
+    }
+
+    /**
+     * Like {@link #setCHWorkspacePooling(boolean)}, but for node-based bidirectional Dijkstra queries without CH and
+     * LM. This requires roughly 64 bytes per node of the base graph for every routing thread.
+     */
+    public void setWorkspacePooling(boolean workspacePooling) {
+        this.workspacePooling = workspacePooling;
+    }
+
+    public boolean isCHUpwardGraph() {
+        return chUpwardGraph;
+    }
+
+    /**
+     * If enabled the CH graphs are copied into an {@link com.graphhopper.storage.UpwardRoutingCHGraph} once they are
+     * loaded or prepared, which stores the upward edges of every node contiguously on the heap.
+     */
+    public void setCHUpwardGraph(boolean chUpwardGraph) {
+        this.chUpwardGraph = chUpwardGraph;
+    }
+
+    public int getViaLegThreads() {
+        return viaLegThreads;
+    }
+
+    /**
+     * The number of threads that are shared by all requests to calculate the legs of via-routes concurrently. Every
+     * leg uses its own copy of the query graph. Legs with pass_through are always calculated one after another.
+     * The workspace pools are per thread, so with {@link #setWorkspacePooling} or {@link #setCHWorkspacePooling} every
+     * one of these threads keeps its own workspaces as well.
+     */
+    public void setViaLegThreads(int viaLegThreads) {
+        if (viaLegThreads < 1)
+            throw new IllegalArgumentException("via leg threads must be positive, but was: " + viaLegThreads);
+        this.viaLegThreads = viaLegThreads;
+    }
+
+    public int getCustomizedCHCacheSize() {
+        return customizedCHCacheSize;
+    }
+
+    /**
+     * Sets the number of CH graphs that are kept for the custom models of recent requests, see
+     * {@link com.graphhopper.routing.ch.CustomizedCHCache}. If this is positive, requests with a custom model use a
+     * {@link com.graphhopper.routing.ch.CustomizableCH} that was customized for their profile and custom model, unless
+     * they disable CH. Every graph needs about as much RAM as a CH preparation. Default is 0, i.e. no customizable CH.
+     */
+    public void setCustomizedCHCacheSize(int customizedCHCacheSize) {
+        this.customizedCHCacheSize = customizedCHCacheSize;
+    }
+
+    public int getCustomizationThreads() {
+        return customizationThreads;
+    }
+
+    /**
+     * The number of threads used to customize the CH graph for a new custom model, the default is the number of
+     * available processors.
+     */
+    public void setCustomizationThreads(int customizationThreads) {
+        if (customizationThreads < 1)
+            throw new IllegalArgumentException("customization threads must be positive, but was: " + customizationThreads);
+        this.customizationThreads = customizationThreads;
+    }
+
     public double getElevationWayPointMaxDistance() {
         return elevationWayPointMaxDistance;
     }
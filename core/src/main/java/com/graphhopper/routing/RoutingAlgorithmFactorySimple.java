@@ -29,6 +29,7 @@ import com.graphhopper.util.PMap;
 
 import static com.graphhopper.util.Parameters.Algorithms.*;
 import static com.graphhopper.util.Parameters.Algorithms.AltRoute.*;
+import static com.graphhopper.util.Parameters.Routing.ARRAY_SPT;
 
 /**
  * A simple factory creating normal algorithms (RoutingAlgorithm) without preparation.
@@ -37,13 +38,34 @@ import static com.graphhopper.util.Parameters.Algorithms.AltRoute.*;
  * @author Peter Karich
  */
 public class RoutingAlgorithmFactorySimple implements RoutingAlgorithmFactory {
+    private ArraySPTPool arraySPTPool;
+
+    /**
+     * @param arraySPTPool if not null node-based bidirectional Dijkstra uses {@link DijkstraBidirectionArray} by
+     *                     default and takes the shortest path trees from this pool instead of allocating them for
+     *                     every query
+     */
+    public RoutingAlgorithmFactorySimple setArraySPTPool(ArraySPTPool arraySPTPool) {
+        this.arraySPTPool = arraySPTPool;
+        return this;
+    }
+
     @Override
     public RoutingAlgorithm createAlgo(Graph g, Weighting w, AlgorithmOptions opts) {
         RoutingAlgorithm ra;
         String algoStr = opts.getAlgorithm();
         Weighting weighting = g.wrapWeighting(w);
         if (DIJKSTRA_BI.equalsIgnoreCase(algoStr)) {
-            ra = new DijkstraBidirectionRef(g, weighting, opts.getTraversalMode());
+            if (opts.getHints().getBool(ARRAY_SPT, arraySPTPool != null) && !opts.getTraversalMode().isEdgeBased()) {
+                if (arraySPTPool != null) {
+                    ArraySPTPool.Workspace workspace = arraySPTPool.get(g.getNodes());
+                    ra = new DijkstraBidirectionArray(g, weighting, workspace.getFwd(), workspace.getBwd());
+                } else {
+                    ra = new DijkstraBidirectionArray(g, weighting);
+                }
+            } else {
+                ra = new DijkstraBidirectionRef(g, weighting, opts.getTraversalMode());
+            }
         } else if (DIJKSTRA.equalsIgnoreCase(algoStr)) {
             ra = new Dijkstra(g, weighting, opts.getTraversalMode());
 
@@ -32,6 +32,10 @@ import com.graphhopper.util.shapes.GHPoint;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
 
 import static com.graphhopper.util.EdgeIterator.ANY_EDGE;
 import static com.graphhopper.util.EdgeIterator.NO_EDGE;
@@ -56,13 +60,32 @@ public class ViaRouting {
         if (points.size() < 2)
             throw new IllegalArgumentException("At least 2 points have to be specified, but was:" + points.size());
 
+        List<Snap> snaps = lookupAll(lookup, points, snapFilter, locationIndex, snapPreventions, pointHints, directedSnapFilter, headings);
+        IntArrayList pointsNotFound = new IntArrayList();
+        for (int placeIndex = 0; placeIndex < snaps.size(); placeIndex++) {
+            if (!snaps.get(placeIndex).isValid())
+                pointsNotFound.add(placeIndex);
+        }
+
+        if (!pointsNotFound.isEmpty())
+            throw new MultiplePointsNotFoundException(pointsNotFound);
+
+        return snaps;
+    }
+
+    /**
+     * Same as {@link #lookup}, but does not fail if points cannot be resolved. The snaps of these points are invalid
+     * instead.
+     */
+    public static List<Snap> lookupAll(EncodedValueLookup lookup, List<GHPoint> points, EdgeFilter snapFilter,
+                                       LocationIndex locationIndex, List<String> snapPreventions, List<String> pointHints,
+                                       DirectedEdgeFilter directedSnapFilter, List<Double> headings) {
         final EnumEncodedValue<RoadClass> roadClassEnc = lookup.getEnumEncodedValue(RoadClass.KEY, RoadClass.class);
         final EnumEncodedValue<RoadEnvironment> roadEnvEnc = lookup.getEnumEncodedValue(RoadEnvironment.KEY, RoadEnvironment.class);
         EdgeFilter strictEdgeFilter = snapPreventions.isEmpty()
                 ? snapFilter
                 : new SnapPreventionEdgeFilter(snapFilter, roadClassEnc, roadEnvEnc, snapPreventions);
         List<Snap> snaps = new ArrayList<>(points.size());
-        IntArrayList pointsNotFound = new IntArrayList();
         for (int placeIndex = 0; placeIndex < points.size(); placeIndex++) {
             GHPoint point = points.get(placeIndex);
             Snap snap = null;
@@ -80,38 +103,18 @@ public class ViaRouting {
 
             if (snap == null || !snap.isValid())
                 snap = locationIndex.findClosest(point.lat, point.lon, snapFilter);
-            if (!snap.isValid())
-                pointsNotFound.add(placeIndex);
 
             snaps.add(snap);
         }
-
-        if (!pointsNotFound.isEmpty())
-            throw new MultiplePointsNotFoundException(pointsNotFound);
-
         return snaps;
     }
 
     public static Result calcPaths(List<GHPoint> points, QueryGraph queryGraph, List<Snap> snaps, DirectedEdgeFilter directedEdgeFilter, PathCalculator pathCalculator, List<String> curbsides, boolean forceCurbsides, List<Double> headings, boolean passThrough) {
-        if (!curbsides.isEmpty() && curbsides.size() != points.size())
-            throw new IllegalArgumentException("If you pass " + CURBSIDE + ", you need to pass exactly one curbside for every point, empty curbsides will be ignored");
-        if (!curbsides.isEmpty() && !headings.isEmpty())
-            throw new IllegalArgumentException("You cannot use curbsides and headings or pass_through at the same time");
+        checkCurbsidesAndHeadings(points, curbsides, headings);
 
         final int legs = snaps.size() - 1;
         Result result = new Result(legs);
         for (int leg = 0; leg < legs; ++leg) {
-            Snap fromSnap = snaps.get(leg);
-            Snap toSnap = snaps.get(leg + 1);
-
-            // enforce headings
-            // at via-nodes and the target node the heading parameter is interpreted as the direction we want
-            // to enforce for arriving (not starting) at this node. the starting direction is not enforced at
-            // all for these points (unless using pass through). see this forum discussion:
-            // https://discuss.graphhopper.com/t/meaning-of-heading-parameter-for-via-routing/5643/6
-            double fromHeading = (leg == 0 && !headings.isEmpty()) ? headings.get(0) : Double.NaN;
-            double toHeading = (snaps.size() == headings.size() && !Double.isNaN(headings.get(leg + 1))) ? headings.get(leg + 1) : Double.NaN;
-
             // enforce pass-through
             int incomingEdge = NO_EDGE;
             if (leg != 0) {
@@ -120,39 +123,99 @@ public class ViaRouting {
                 if (prevRoute.getEdgeCount() > 0)
                     incomingEdge = prevRoute.getFinalEdge().getEdge();
             }
+            result.add(calcLeg(leg, queryGraph, snaps, directedEdgeFilter, pathCalculator, curbsides, forceCurbsides, headings, incomingEdge, passThrough));
+        }
 
-            // enforce curbsides
-            final String fromCurbside = curbsides.isEmpty() ? CURBSIDE_ANY : curbsides.get(leg);
-            final String toCurbside = curbsides.isEmpty() ? CURBSIDE_ANY : curbsides.get(leg + 1);
-
-            EdgeRestrictions edgeRestrictions = buildEdgeRestrictions(queryGraph, fromSnap, toSnap,
-                    fromHeading, toHeading, incomingEdge, passThrough,
-                    fromCurbside, toCurbside, directedEdgeFilter);
-
-            edgeRestrictions.setSourceOutEdge(ignoreThrowOrAcceptImpossibleCurbsides(curbsides, edgeRestrictions.getSourceOutEdge(), leg, forceCurbsides));
-            edgeRestrictions.setTargetInEdge(ignoreThrowOrAcceptImpossibleCurbsides(curbsides, edgeRestrictions.getTargetInEdge(), leg + 1, forceCurbsides));
+        return result;
+    }
 
-            // calculate paths
-            List<Path> paths = pathCalculator.calcPaths(fromSnap.getClosestNode(), toSnap.getClosestNode(), edgeRestrictions);
-            result.debug += pathCalculator.getDebugString();
+    /**
+     * Same as {@link #calcPaths(List, QueryGraph, List, DirectedEdgeFilter, PathCalculator, List, boolean, List, boolean)},
+     * but the legs are calculated concurrently by the given executor. Every leg uses its own copy of the query graph
+     * (see {@link QueryGraph#copy()}) and its own path calculator. The paths are still returned in the order of the
+     * legs and if the calculation fails for several legs the error of the first one is thrown. With pass_through every
+     * leg depends on the previous one, so the legs are calculated sequentially in this case.
+     *
+     * @param pathCalculatorFactory creates the path calculator for a copy of the query graph, this needs to be safe to
+     *                              call from several threads
+     * @param executor              the executor used for the legs, or null to calculate them on the current thread
+     */
+    public static Result calcPaths(List<GHPoint> points, QueryGraph queryGraph, List<Snap> snaps, DirectedEdgeFilter directedEdgeFilter,
+                                   Function<QueryGraph, PathCalculator> pathCalculatorFactory, ExecutorService executor,
+                                   List<String> curbsides, boolean forceCurbsides, List<Double> headings, boolean passThrough) {
+        final int legs = snaps.size() - 1;
+        if (executor == null || passThrough || legs < 2)
+            return calcPaths(points, queryGraph, snaps, directedEdgeFilter, pathCalculatorFactory.apply(queryGraph), curbsides, forceCurbsides, headings, passThrough);
 
-            // for alternative routing we get multiple paths and add all of them (which is ok, because we do not allow
-            // via-points for alternatives at the moment). otherwise we would have to return a list<list<path>> and find
-            // a good method to decide how to combine the different legs
-            for (int i = 0; i < paths.size(); i++) {
-                Path path = paths.get(i);
-                if (path.getTime() < 0)
-                    throw new RuntimeException("Time was negative " + path.getTime() + " for index " + i);
+        checkCurbsidesAndHeadings(points, curbsides, headings);
+        List<Future<Leg>> futures = new ArrayList<>(legs);
+        for (int leg = 0; leg < legs; ++leg) {
+            final int finalLeg = leg;
+            final QueryGraph legQueryGraph = queryGraph.copy();
+            futures.add(executor.submit(() -> calcLeg(finalLeg, legQueryGraph, snaps, directedEdgeFilter, pathCalculatorFactory.apply(legQueryGraph),
+                    curbsides, forceCurbsides, headings, NO_EDGE, false)));
+        }
+        Result result = new Result(legs);
+        try {
+            for (Future<Leg> future : futures)
+                result.add(future.get());
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error)
+                throw (Error) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calculating the via legs", e);
+        } finally {
+            // stop the remaining legs if one of them failed
+            for (Future<Leg> future : futures)
+                future.cancel(true);
+        }
+        return result;
+    }
 
-                result.paths.add(path);
-                result.debug += ", " + path.getDebugInfo();
-            }
+    private static void checkCurbsidesAndHeadings(List<GHPoint> points, List<String> curbsides, List<Double> headings) {
+        if (!curbsides.isEmpty() && curbsides.size() != points.size())
+            throw new IllegalArgumentException("If you pass " + CURBSIDE + ", you need to pass exactly one curbside for every point, empty curbsides will be ignored");
+        if (!curbsides.isEmpty() && !headings.isEmpty())
+            throw new IllegalArgumentException("You cannot use curbsides and headings or pass_through at the same time");
+    }
 
-            result.visitedNodes += pathCalculator.getVisitedNodes();
-            result.debug += "visited nodes sum: " + result.visitedNodes;
+    private static Leg calcLeg(int leg, QueryGraph queryGraph, List<Snap> snaps, DirectedEdgeFilter directedEdgeFilter,
+                               PathCalculator pathCalculator, List<String> curbsides, boolean forceCurbsides,
+                               List<Double> headings, int incomingEdge, boolean passThrough) {
+        Snap fromSnap = snaps.get(leg);
+        Snap toSnap = snaps.get(leg + 1);
+
+        // enforce headings
+        // at via-nodes and the target node the heading parameter is interpreted as the direction we want
+        // to enforce for arriving (not starting) at this node. the starting direction is not enforced at
+        // all for these points (unless using pass through). see this forum discussion:
+        // https://discuss.graphhopper.com/t/meaning-of-heading-parameter-for-via-routing/5643/6
+        double fromHeading = (leg == 0 && !headings.isEmpty()) ? headings.get(0) : Double.NaN;
+        double toHeading = (snaps.size() == headings.size() && !Double.isNaN(headings.get(leg + 1))) ? headings.get(leg + 1) : Double.NaN;
+
+        // enforce curbsides
+        final String fromCurbside = curbsides.isEmpty() ? CURBSIDE_ANY : curbsides.get(leg);
+        final String toCurbside = curbsides.isEmpty() ? CURBSIDE_ANY : curbsides.get(leg + 1);
+
+        EdgeRestrictions edgeRestrictions = buildEdgeRestrictions(queryGraph, fromSnap, toSnap,
+                fromHeading, toHeading, incomingEdge, passThrough,
+                fromCurbside, toCurbside, directedEdgeFilter);
+
+        edgeRestrictions.setSourceOutEdge(ignoreThrowOrAcceptImpossibleCurbsides(curbsides, edgeRestrictions.getSourceOutEdge(), leg, forceCurbsides));
+        edgeRestrictions.setTargetInEdge(ignoreThrowOrAcceptImpossibleCurbsides(curbsides, edgeRestrictions.getTargetInEdge(), leg + 1, forceCurbsides));
+
+        // calculate paths
+        List<Path> paths = pathCalculator.calcPaths(fromSnap.getClosestNode(), toSnap.getClosestNode(), edgeRestrictions);
+        for (int i = 0; i < paths.size(); i++) {
+            Path path = paths.get(i);
+            if (path.getTime() < 0)
+                throw new RuntimeException("Time was negative " + path.getTime() + " for index " + i);
         }
-
-        return result;
+        return new Leg(paths, pathCalculator.getDebugString(), pathCalculator.getVisitedNodes());
     }
 
     public static class Result {
@@ -163,6 +226,31 @@ public class ViaRouting {
         Result(int legs) {
             paths = new ArrayList<>(legs);
         }
+
+        private void add(Leg leg) {
+            debug += leg.debug;
+            // for alternative routing we get multiple paths and add all of them (which is ok, because we do not allow
+            // via-points for alternatives at the moment). otherwise we would have to return a list<list<path>> and find
+            // a good method to decide how to combine the different legs
+            for (Path path : leg.paths) {
+                paths.add(path);
+                debug += ", " + path.getDebugInfo();
+            }
+            visitedNodes += leg.visitedNodes;
+            debug += "visited nodes sum: " + visitedNodes;
+        }
+    }
+
+    private static class Leg {
+        final List<Path> paths;
+        final String debug;
+        final int visitedNodes;
+
+        Leg(List<Path> paths, String debug, int visitedNodes) {
+            this.paths = paths;
+            this.debug = debug;
+            this.visitedNodes = visitedNodes;
+        }
     }
 
     /**
@@ -0,0 +1,247 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.carrotsearch.hppc.*;
+import com.graphhopper.routing.ArraySPT;
+import com.graphhopper.routing.DistanceMatrix;
+import com.graphhopper.routing.MatrixCalculator;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.RoutingCHEdgeExplorer;
+import com.graphhopper.storage.RoutingCHEdgeIterator;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.StopWatch;
+
+import static com.graphhopper.util.EdgeIterator.NO_EDGE;
+
+/**
+ * Calculates a {@link DistanceMatrix} for node-based CH using the bucket-based many-to-many algorithm: First we run
+ * a backward upward search from every target node and store the weight to the target in a 'bucket' at every node
+ * that is settled. Then we run a forward upward search from every start node and scan the buckets of all settled
+ * nodes. Every shortest path between a start and a target node meets at its highest node, so the minimum of
+ * (forward weight + bucket weight) found while scanning the buckets is the weight of the shortest path. This means we
+ * only need to run one search per start and target node instead of one query per pair.
+ * <p>
+ * The distance and time of the paths are accumulated along the search trees, because they cannot be derived from the
+ * weights. To do this the shortcuts are unpacked once and their distance and time are cached.
+ *
+ * @see DijkstraBidirectionCH for the one-to-one query and the stall-on-demand optimization
+ */
+public class CHMatrixCalculator implements MatrixCalculator {
+    private static final int NO_ENTRY = -1;
+    private final RoutingCHGraph graph;
+    private final Weighting weighting;
+    private final RoutingCHEdgeExplorer inEdgeExplorer;
+    private final RoutingCHEdgeExplorer outEdgeExplorer;
+    private final ShortcutUnpacker shortcutUnpacker;
+    private final int maxNodes;
+    private final ArraySPT spt;
+    private final double[] nodeDistances;
+    private final long[] nodeTimes;
+    // the buckets are linked lists of entries, the head of each list is stored per node
+    private final IntIntHashMap bucketHeads = new IntIntHashMap();
+    private final IntArrayList entryNext = new IntArrayList();
+    private final IntArrayList entryTargets = new IntArrayList();
+    private final DoubleArrayList entryWeights = new DoubleArrayList();
+    private final DoubleArrayList entryDistances = new DoubleArrayList();
+    private final LongArrayList entryTimes = new LongArrayList();
+    // the distance and time of the (unpacked) edges by edge, adjacent node and direction
+    private final LongDoubleHashMap edgeDistances = new LongDoubleHashMap();
+    private final LongLongHashMap edgeTimes = new LongLongHashMap();
+    private double unpackedDistance;
+    private long unpackedTime;
+    private boolean stallOnDemand = true;
+    private int visitedNodes;
+    private String debug = "";
+
+    public CHMatrixCalculator(RoutingCHGraph graph) {
+        if (graph.isEdgeBased())
+            throw new IllegalArgumentException("CHMatrixCalculator can only be used for node-based CH");
+        this.graph = graph;
+        weighting = graph.getWeighting();
+        inEdgeExplorer = graph.createInEdgeExplorer();
+        outEdgeExplorer = graph.createOutEdgeExplorer();
+        shortcutUnpacker = new ShortcutUnpacker(graph, (edge, reverse, prevOrNextEdgeId) -> {
+            unpackedDistance += edge.getDistance();
+            unpackedTime += weighting.calcEdgeMillis(edge, reverse);
+        }, false);
+        maxNodes = graph.getBaseGraph().getBaseGraph().getNodes();
+        spt = new ArraySPT(graph.getNodes());
+        nodeDistances = new double[graph.getNodes()];
+        nodeTimes = new long[graph.getNodes()];
+    }
+
+    public CHMatrixCalculator setStallOnDemand(boolean stallOnDemand) {
+        this.stallOnDemand = stallOnDemand;
+        return this;
+    }
+
+    @Override
+    public DistanceMatrix calcMatrix(int[] fromNodes, int[] toNodes) {
+        StopWatch sw = new StopWatch().start();
+        DistanceMatrix matrix = new DistanceMatrix(fromNodes.length, toNodes.length);
+        visitedNodes = 0;
+        clearBuckets();
+        for (int j = 0; j < toNodes.length; j++) {
+            if (toNodes[j] >= 0)
+                runUpwardSearch(toNodes[j], true, j, matrix);
+        }
+        int bucketEntries = entryTargets.size();
+        for (int i = 0; i < fromNodes.length; i++) {
+            if (fromNodes[i] >= 0)
+                runUpwardSearch(fromNodes[i], false, i, matrix);
+        }
+        debug = ", bucket entries:" + bucketEntries + ", matrix:" + sw.stop().getMillis() + " ms";
+        return matrix;
+    }
+
+    private void clearBuckets() {
+        bucketHeads.clear();
+        entryNext.clear();
+        entryTargets.clear();
+        entryWeights.clear();
+        entryDistances.clear();
+        entryTimes.clear();
+    }
+
+    /**
+     * Runs a complete upward search from the given node. For the backward search (reverse=true) the settled nodes are
+     * added to the buckets, for the forward search the buckets are scanned and the results are written to the matrix.
+     */
+    private void runUpwardSearch(int root, boolean reverse, int index, DistanceMatrix matrix) {
+        RoutingCHEdgeExplorer explorer = reverse ? inEdgeExplorer : outEdgeExplorer;
+        RoutingCHEdgeExplorer stallExplorer = reverse ? outEdgeExplorer : inEdgeExplorer;
+        spt.clear();
+        spt.setRoot(root, 0);
+        while (!spt.isEmpty()) {
+            int node = spt.poll();
+            visitedNodes++;
+            if (stallOnDemand && nodeIsStallable(node, stallExplorer, reverse))
+                continue;
+
+            double weight = spt.getWeight(node);
+            int incEdge = spt.getEdge(node);
+            if (incEdge == NO_EDGE) {
+                nodeDistances[node] = 0;
+                nodeTimes[node] = 0;
+            } else {
+                // the parent cannot be stalled, because stalled nodes are never expanded
+                int parent = spt.getParent(node);
+                unpackEdge(incEdge, node, reverse);
+                nodeDistances[node] = nodeDistances[parent] + unpackedDistance;
+                nodeTimes[node] = nodeTimes[parent] + unpackedTime;
+            }
+
+            if (reverse)
+                addBucketEntry(node, index, weight);
+            else
+                scanBucket(node, index, weight, matrix);
+
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                if (iter.getEdge() == incEdge || !acceptLevel(iter))
+                    continue;
+                double edgeWeight = iter.getWeight(reverse);
+                if (Double.isInfinite(edgeWeight))
+                    continue;
+                int adjNode = iter.getAdjNode();
+                double newWeight = weight + edgeWeight;
+                if (newWeight < spt.getWeight(adjNode))
+                    spt.update(adjNode, newWeight, newWeight, node, iter.getEdge());
+            }
+        }
+    }
+
+    private void addBucketEntry(int node, int targetIndex, double weight) {
+        int entry = entryTargets.size();
+        entryNext.add(bucketHeads.getOrDefault(node, NO_ENTRY));
+        entryTargets.add(targetIndex);
+        entryWeights.add(weight);
+        entryDistances.add(nodeDistances[node]);
+        entryTimes.add(nodeTimes[node]);
+        bucketHeads.put(node, entry);
+    }
+
+    private void scanBucket(int node, int fromIndex, double weight, DistanceMatrix matrix) {
+        for (int entry = bucketHeads.getOrDefault(node, NO_ENTRY); entry != NO_ENTRY; entry = entryNext.get(entry)) {
+            int toIndex = entryTargets.get(entry);
+            double pathWeight = weight + entryWeights.get(entry);
+            if (pathWeight < matrix.getWeight(fromIndex, toIndex))
+                matrix.set(fromIndex, toIndex, pathWeight, nodeTimes[node] + entryTimes.get(entry),
+                        nodeDistances[node] + entryDistances.get(entry));
+        }
+    }
+
+    private void unpackEdge(int edge, int adjNode, boolean reverse) {
+        long key = ((long) edge << 32) | ((long) adjNode << 1) | (reverse ? 1 : 0);
+        int distanceIndex = edgeDistances.indexOf(key);
+        if (distanceIndex >= 0) {
+            unpackedDistance = edgeDistances.indexGet(distanceIndex);
+            unpackedTime = edgeTimes.get(key);
+            return;
+        }
+        unpackedDistance = 0;
+        unpackedTime = 0;
+        if (reverse)
+            shortcutUnpacker.visitOriginalEdgesBwd(edge, adjNode, false, NO_EDGE);
+        else
+            shortcutUnpacker.visitOriginalEdgesFwd(edge, adjNode, false, NO_EDGE);
+        edgeDistances.put(key, unpackedDistance);
+        edgeTimes.put(key, unpackedTime);
+    }
+
+    private boolean nodeIsStallable(int node, RoutingCHEdgeExplorer stallExplorer, boolean reverse) {
+        final int incEdge = spt.getEdge(node);
+        final double weight = spt.getWeight(node);
+        RoutingCHEdgeIterator iter = stallExplorer.setBaseNode(node);
+        while (iter.next()) {
+            if (iter.getEdge() == incEdge)
+                continue;
+            int adjNode = iter.getAdjNode();
+            // we have to be careful because of rounded shortcut weights in combination with virtual via nodes, see #1574
+            final double precision = 0.001;
+            if (spt.isReached(adjNode) && spt.getWeight(adjNode) + iter.getWeight(!reverse) - weight < -precision)
+                return true;
+        }
+        return false;
+    }
+
+    private boolean acceptLevel(RoutingCHEdgeIterator iter) {
+        int base = iter.getBaseNode();
+        int adj = iter.getAdjNode();
+        // always accept virtual edges, see #288
+        if (base >= maxNodes || adj >= maxNodes)
+            return true;
+
+        // shortcuts in wrong direction are disconnected, so no need to exclude them
+        if (iter.isShortcut())
+            return true;
+
+        return graph.getLevel(base) <= graph.getLevel(adj);
+    }
+
+    @Override
+    public String getDebugString() {
+        return debug;
+    }
+
+    @Override
+    public int getVisitedNodes() {
+        return visitedNodes;
+    }
+}
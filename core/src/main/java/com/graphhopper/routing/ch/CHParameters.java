@@ -10,6 +10,8 @@ public final class CHParameters {
     public static final String NEIGHBOR_UPDATES_MAX = Parameters.CH.PREPARE + "updates.neighbor_max";
     public static final String CONTRACTED_NODES = Parameters.CH.PREPARE + "contracted_nodes";
     public static final String LOG_MESSAGES = Parameters.CH.PREPARE + "log_messages";
+    public static final String CONTRACTION_THREADS = Parameters.CH.PREPARE + "contraction_threads";
+    public static final String BASE_EDGE_WEIGHTS = Parameters.CH.PREPARE + "base_edge_weights";
     // node contraction, node-based
     public static final String EDGE_DIFFERENCE_WEIGHT = Parameters.CH.PREPARE + "node.edge_difference_weight";
     public static final String ORIGINAL_EDGE_COUNT_WEIGHT = Parameters.CH.PREPARE + "node.original_edge_count_weight";
@@ -21,6 +23,7 @@ public final class CHParameters {
     public static final String HIERARCHY_DEPTH_WEIGHT = Parameters.CH.PREPARE + "edge.hierarchy_depth_weight";
     public static final String MAX_POLL_FACTOR_HEURISTIC_EDGE = Parameters.CH.PREPARE + "edge.max_poll_factor_heuristic";
     public static final String MAX_POLL_FACTOR_CONTRACTION_EDGE = Parameters.CH.PREPARE + "edge.max_poll_factor_contraction";
+    public static final String PRIORITY_CACHE_EDGE = Parameters.CH.PREPARE + "edge.priority_cache";
 
     private CHParameters() {
     }
@@ -107,6 +107,7 @@ public class CHPreparationHandler {
                         // todo: this is ugly, see comments in LMPreparationHandler
                         graph.getDirectory().remove("nodes_ch_" + c.getName());
                         graph.getDirectory().remove("shortcuts_" + c.getName());
+                        graph.getDirectory().remove("base_weights_" + c.getName());
                     }
                     return c.getName();
                 })
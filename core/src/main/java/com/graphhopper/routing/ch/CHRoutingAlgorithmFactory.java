@@ -28,6 +28,7 @@ import com.graphhopper.util.PMap;
 
 import static com.graphhopper.util.Parameters.Algorithms.*;
 import static com.graphhopper.util.Parameters.Routing.ALGORITHM;
+import static com.graphhopper.util.Parameters.Routing.ARRAY_SPT;
 import static com.graphhopper.util.Parameters.Routing.MAX_VISITED_NODES;
 
 /**
@@ -36,6 +37,7 @@ import static com.graphhopper.util.Parameters.Routing.MAX_VISITED_NODES;
  */
 public class CHRoutingAlgorithmFactory {
     private final RoutingCHGraph routingCHGraph;
+    private ArraySPTPool arraySPTPool;
 
     public CHRoutingAlgorithmFactory(RoutingCHGraph routingCHGraph, QueryGraph queryGraph) {
         this(new QueryRoutingCHGraph(routingCHGraph, queryGraph));
@@ -45,6 +47,15 @@ public class CHRoutingAlgorithmFactory {
         this.routingCHGraph = routingCHGraph;
     }
 
+    /**
+     * @param arraySPTPool if not null node-based CH uses {@link DijkstraBidirectionCHArray} by default and takes the
+     *                     shortest path trees from this pool instead of allocating them for every query
+     */
+    public CHRoutingAlgorithmFactory setArraySPTPool(ArraySPTPool arraySPTPool) {
+        this.arraySPTPool = arraySPTPool;
+        return this;
+    }
+
     public BidirRoutingAlgorithm createAlgo(PMap opts) {
         BidirRoutingAlgorithm algo = routingCHGraph.isEdgeBased()
                 ? createAlgoEdgeBased(routingCHGraph, opts)
@@ -81,7 +92,16 @@ public class CHRoutingAlgorithmFactory {
             return new AStarBidirectionCH(g)
                     .setApproximation(RoutingAlgorithmFactorySimple.getApproximation(ASTAR_BI, opts, getWeighting(), g.getBaseGraph().getNodeAccess()));
         } else if (DIJKSTRA_BI.equals(algo) || Helper.isEmpty(algo)) {
-            if (opts.getBool("stall_on_demand", true)) {
+            if (opts.getBool(ARRAY_SPT, arraySPTPool != null)) {
+                DijkstraBidirectionCHArray arrayAlgo;
+                if (arraySPTPool != null) {
+                    ArraySPTPool.Workspace workspace = arraySPTPool.get(g.getNodes());
+                    arrayAlgo = new DijkstraBidirectionCHArray(g, workspace.getFwd(), workspace.getBwd());
+                } else {
+                    arrayAlgo = new DijkstraBidirectionCHArray(g);
+                }
+                return arrayAlgo.setStallOnDemand(opts.getBool("stall_on_demand", true));
+            } else if (opts.getBool("stall_on_demand", true)) {
                 return new DijkstraBidirectionCH(g);
             } else {
                 return new DijkstraBidirectionCHNoSOD(g);
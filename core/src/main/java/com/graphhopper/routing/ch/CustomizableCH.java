@@ -0,0 +1,391 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.util.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Customizable Contraction Hierarchies (CCH), see Dibbelt, Strasser and Wagner: 'Customizable Contraction
+ * Hierarchies'.
+ * <p>
+ * Unlike {@link PrepareContractionHierarchies} the node order and the shortcuts do not depend on the weighting. The
+ * nodes are contracted in a metric-independent order (by default a {@link NestedDissectionOrdering}) and every
+ * contraction connects all higher level neighbors of a node without running any witness searches. This topology only
+ * needs to be calculated once per graph and can then be customized for any number of weightings, for example for the
+ * custom models of different requests. The customization only calculates the weights of the shortcuts. It is much
+ * faster than a full CH preparation, because it uses all given threads and does not need any witness searches.
+ * <p>
+ * The customized graphs are regular {@link RoutingCHGraph}s, so they can be used with the
+ * {@link CHRoutingAlgorithmFactory}. Only node-based weightings without turn costs are supported.
+ */
+public class CustomizableCH {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CustomizableCH.class);
+    private static final int NO_VIA = -1;
+    // nodes with the same height are only customized in parallel if there are enough of them
+    private static final int MIN_PARALLEL_NODES = 256;
+    private final BaseGraph graph;
+    // the rank is the position of a node in the ordering and the CH level of the node, apart from the ranks array all
+    // arrays below are indexed by rank rather than node id
+    private final int[] ranks;
+    private final int[] nodesByRank;
+    // the arcs x-y with rank(x) < rank(y), grouped by x and sorted by y. the index of an arc is its id
+    private final int[] upOffsets;
+    private final int[] upHeads;
+    // the same arcs grouped by y and sorted by x
+    private final int[] downOffsets;
+    private final int[] downTails;
+    private final int[] downArcs;
+    // the ranks sorted by their height in the elimination tree. the arcs of nodes with the same height do not depend on
+    // each other, so they can be customized in parallel
+    private final int[] heightOffsets;
+    private final int[] ranksByHeight;
+
+    public static CustomizableCH fromGraph(BaseGraph graph) {
+        StopWatch sw = StopWatch.started();
+        NodeOrderingProvider ordering = NestedDissectionOrdering.calcOrder(graph);
+        LOGGER.info("Calculated nested dissection ordering, took: {}s", sw.stop().getSeconds());
+        return fromGraph(graph, ordering);
+    }
+
+    public static CustomizableCH fromGraph(BaseGraph graph, NodeOrderingProvider ordering) {
+        if (!graph.isFrozen())
+            throw new IllegalStateException("graph must be frozen before we can calculate the customizable CH topology");
+        if (ordering.getNumNodes() != graph.getNodes())
+            throw new IllegalArgumentException("The node ordering must contain all " + graph.getNodes() + " nodes, but" +
+                    " has " + ordering.getNumNodes());
+        StopWatch sw = StopWatch.started();
+        CustomizableCH cch = new CustomizableCH(graph, ordering);
+        LOGGER.info("Calculated customizable CH topology, nodes: {}, arcs: {}, took: {}s, {}",
+                Helper.nf(graph.getNodes()), Helper.nf(cch.getArcs()), sw.stop().getSeconds(), Helper.getMemInfo());
+        return cch;
+    }
+
+    private CustomizableCH(BaseGraph graph, NodeOrderingProvider ordering) {
+        this.graph = graph;
+        int nodes = graph.getNodes();
+        ranks = new int[nodes];
+        nodesByRank = new int[nodes];
+        Arrays.fill(ranks, -1);
+        for (int rank = 0; rank < nodes; rank++) {
+            int node = ordering.getNodeIdForLevel(rank);
+            if (ranks[node] != -1)
+                throw new IllegalArgumentException("The node ordering contains node " + node + " twice");
+            ranks[node] = rank;
+            nodesByRank[rank] = node;
+        }
+
+        // contract the nodes in rank order, every contraction connects all higher ranked neighbors of a node with each
+        // other. it is sufficient to connect them to the lowest one of them, because this one is contracted next.
+        IntArrayList[] neighbors = new IntArrayList[nodes];
+        AllEdgesIterator iter = graph.getAllEdges();
+        while (iter.next()) {
+            int a = ranks[iter.getBaseNode()];
+            int b = ranks[iter.getAdjNode()];
+            if (a != b)
+                addNeighbor(neighbors, Math.min(a, b), Math.max(a, b));
+        }
+        upOffsets = new int[nodes + 1];
+        IntArrayList heads = new IntArrayList(graph.getEdges());
+        for (int x = 0; x < nodes; x++) {
+            upOffsets[x] = heads.size();
+            if (neighbors[x] == null)
+                continue;
+            int[] upper = neighbors[x].toArray();
+            neighbors[x] = null;
+            Arrays.sort(upper);
+            int count = 0;
+            for (int i = 0; i < upper.length; i++)
+                if (i == 0 || upper[i] != upper[i - 1])
+                    upper[count++] = upper[i];
+            for (int i = 0; i < count; i++) {
+                heads.add(upper[i]);
+                if (i > 0)
+                    addNeighbor(neighbors, upper[0], upper[i]);
+            }
+        }
+        upOffsets[nodes] = heads.size();
+        upHeads = heads.toArray();
+
+        downOffsets = new int[nodes + 1];
+        for (int head : upHeads)
+            downOffsets[head + 1]++;
+        for (int y = 0; y < nodes; y++)
+            downOffsets[y + 1] += downOffsets[y];
+        downTails = new int[upHeads.length];
+        downArcs = new int[upHeads.length];
+        int[] next = Arrays.copyOf(downOffsets, nodes);
+        int[] heights = new int[nodes];
+        int maxHeight = 0;
+        for (int x = 0; x < nodes; x++) {
+            maxHeight = Math.max(maxHeight, heights[x]);
+            for (int arc = upOffsets[x]; arc < upOffsets[x + 1]; arc++) {
+                int y = upHeads[arc];
+                downTails[next[y]] = x;
+                downArcs[next[y]] = arc;
+                next[y]++;
+                heights[y] = Math.max(heights[y], heights[x] + 1);
+            }
+        }
+
+        heightOffsets = new int[maxHeight + 2];
+        for (int x = 0; x < nodes; x++)
+            heightOffsets[heights[x] + 1]++;
+        for (int h = 0; h <= maxHeight; h++)
+            heightOffsets[h + 1] += heightOffsets[h];
+        ranksByHeight = new int[nodes];
+        next = Arrays.copyOf(heightOffsets, maxHeight + 1);
+        for (int x = 0; x < nodes; x++)
+            ranksByHeight[next[heights[x]]++] = x;
+    }
+
+    private static void addNeighbor(IntArrayList[] neighbors, int lower, int upper) {
+        if (neighbors[lower] == null)
+            neighbors[lower] = new IntArrayList(4);
+        neighbors[lower].add(upper);
+    }
+
+    /**
+     * @return the number of arcs of the topology, i.e. the number of node pairs that are connected by an edge or by a
+     * shortcut
+     */
+    public int getArcs() {
+        return upHeads.length;
+    }
+
+    /**
+     * @return the height of the elimination tree, i.e. the number of sequential steps of the customization
+     */
+    public int getHeight() {
+        return heightOffsets.length - 1;
+    }
+
+    public int getLevel(int node) {
+        return ranks[node];
+    }
+
+    /**
+     * Calculates the shortcut weights for the given weighting and creates an in-memory CH graph for it. This can be
+     * called concurrently for different weightings.
+     *
+     * @param name    the name of the created CH storage, only used for logging and debugging
+     * @param threads the number of threads used to calculate the weights
+     */
+    public RoutingCHGraph customize(String name, Weighting weighting, int threads) {
+        if (weighting.hasTurnCosts())
+            throw new IllegalArgumentException("Customizable CH does not support weightings with turn costs, but got: " + weighting);
+        if (threads < 1)
+            throw new IllegalArgumentException("threads has to be at least 1, but was: " + threads);
+        StopWatch sw = StopWatch.started();
+        Customization customization = new Customization(weighting);
+        ExecutorService executorService = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try {
+            for (int h = 0; h < heightOffsets.length - 1; h++) {
+                int from = heightOffsets[h];
+                int to = heightOffsets[h + 1];
+                if (executorService == null || to - from < MIN_PARALLEL_NODES) {
+                    customization.customize(from, to);
+                    continue;
+                }
+                int chunk = (to - from + threads - 1) / threads;
+                List<Future<?>> futures = new ArrayList<>(threads);
+                for (int start = from; start < to; start += chunk) {
+                    int chunkFrom = start;
+                    int chunkTo = Math.min(to, start + chunk);
+                    futures.add(executorService.submit(() -> customization.customize(chunkFrom, chunkTo)));
+                }
+                for (Future<?> future : futures)
+                    future.get();
+            }
+        } catch (Exception e) {
+            throw new RuntimeException("Could not customize CH graph " + name, e);
+        } finally {
+            if (executorService != null)
+                executorService.shutdownNow();
+        }
+        CHStorage store = customization.createCHStorage(name);
+        LOGGER.info("Customized CH graph {}, shortcuts: {}, threads: {}, took: {}s", name,
+                Helper.nf(store.getShortcuts()), threads, sw.stop().getSeconds());
+        return new RoutingCHGraphImpl(graph, store, weighting);
+    }
+
+    private int findArc(int x, int y) {
+        int arc = Arrays.binarySearch(upHeads, upOffsets[x], upOffsets[x + 1], y);
+        assert arc >= 0 : "there is no arc " + x + "-" + y;
+        return arc;
+    }
+
+    /**
+     * The weights of the arcs for a single weighting. The forward direction of an arc x-y (with rank(x) < rank(y)) is
+     * x->y and the backward direction is y->x. For every direction we also keep what the weight stems from: either
+     * the edge id of an original edge or the rank of the middle node of the lower triangle encoded as -2 - rank.
+     */
+    private class Customization {
+        private final Weighting weighting;
+        private final double[] fwdWeights;
+        private final double[] bwdWeights;
+        private final int[] fwdVias;
+        private final int[] bwdVias;
+
+        Customization(Weighting weighting) {
+            this.weighting = weighting;
+            fwdWeights = new double[upHeads.length];
+            bwdWeights = new double[upHeads.length];
+            fwdVias = new int[upHeads.length];
+            bwdVias = new int[upHeads.length];
+            Arrays.fill(fwdWeights, Double.POSITIVE_INFINITY);
+            Arrays.fill(bwdWeights, Double.POSITIVE_INFINITY);
+            Arrays.fill(fwdVias, NO_VIA);
+            Arrays.fill(bwdVias, NO_VIA);
+        }
+
+        /**
+         * Calculates the final weights of the arcs of the nodes ranksByHeight[from..to). All lower triangles of these
+         * arcs must have been customized already.
+         */
+        void customize(int from, int to) {
+            EdgeExplorer explorer = graph.createEdgeExplorer();
+            for (int i = from; i < to; i++) {
+                int x = ranksByHeight[i];
+                if (upOffsets[x] == upOffsets[x + 1])
+                    continue;
+                initOriginalEdges(x, explorer);
+                // every lower neighbor z of x forms a triangle z-x-y with all higher neighbors y of z that come after
+                // x. The arcs z-x and z-y are final already, because the height of z is smaller than the one of x.
+                for (int d = downOffsets[x]; d < downOffsets[x + 1]; d++) {
+                    int z = downTails[d];
+                    int zx = downArcs[d];
+                    int xy = upOffsets[x];
+                    for (int zy = findArc(z, x) + 1; zy < upOffsets[z + 1]; zy++) {
+                        int y = upHeads[zy];
+                        while (upHeads[xy] != y)
+                            xy++;
+                        double fwdWeight = bwdWeights[zx] + fwdWeights[zy];
+                        if (fwdWeight < fwdWeights[xy]) {
+                            fwdWeights[xy] = fwdWeight;
+                            fwdVias[xy] = -2 - z;
+                        }
+                        double bwdWeight = bwdWeights[zy] + fwdWeights[zx];
+                        if (bwdWeight < bwdWeights[xy]) {
+                            bwdWeights[xy] = bwdWeight;
+                            bwdVias[xy] = -2 - z;
+                        }
+                    }
+                }
+            }
+        }
+
+        private void initOriginalEdges(int x, EdgeExplorer explorer) {
+            EdgeIterator iter = explorer.setBaseNode(nodesByRank[x]);
+            while (iter.next()) {
+                int y = ranks[iter.getAdjNode()];
+                // this skips loops as well
+                if (y <= x)
+                    continue;
+                int arc = findArc(x, y);
+                double fwdWeight = weighting.calcEdgeWeightWithAccess(iter, false);
+                if (fwdWeight < fwdWeights[arc]) {
+                    fwdWeights[arc] = fwdWeight;
+                    fwdVias[arc] = iter.getEdge();
+                }
+                double bwdWeight = weighting.calcEdgeWeightWithAccess(iter, true);
+                if (bwdWeight < bwdWeights[arc]) {
+                    bwdWeights[arc] = bwdWeight;
+                    bwdVias[arc] = iter.getEdge();
+                }
+            }
+        }
+
+        /**
+         * Creates the shortcuts for all arcs that are not represented by an original edge. The arcs are processed in
+         * rank order, so the shortcuts are sorted by the level of their lower node like {@link CHStorageBuilder}
+         * requires, and the skipped edges of every shortcut exist already.
+         */
+        CHStorage createCHStorage(String name) {
+            int shortcuts = 0;
+            for (int arc = 0; arc < upHeads.length; arc++)
+                if (fwdVias[arc] < NO_VIA || bwdVias[arc] < NO_VIA)
+                    shortcuts++;
+            CHStorage store = new CHStorage(new RAMDirectory(), name, graph.getSegmentSize(), false);
+            store.create();
+            store.init(graph.getNodes(), shortcuts);
+            CHStorageBuilder builder = new CHStorageBuilder(store);
+            for (int node = 0; node < graph.getNodes(); node++)
+                builder.setLevel(node, ranks[node]);
+
+            // the CH edge used for either direction of every arc, i.e. the id of an original edge or shortcut
+            int[] fwdEdges = new int[upHeads.length];
+            int[] bwdEdges = new int[upHeads.length];
+            for (int x = 0; x < upOffsets.length - 1; x++) {
+                for (int xy = upOffsets[x]; xy < upOffsets[x + 1]; xy++) {
+                    int y = upHeads[xy];
+                    fwdEdges[xy] = fwdVias[xy] < NO_VIA ? EdgeIterator.NO_EDGE : fwdVias[xy];
+                    bwdEdges[xy] = bwdVias[xy] < NO_VIA ? EdgeIterator.NO_EDGE : bwdVias[xy];
+                    int fwdSkip1 = 0, fwdSkip2 = 0, bwdSkip1 = 0, bwdSkip2 = 0;
+                    if (fwdVias[xy] < NO_VIA) {
+                        int z = -2 - fwdVias[xy];
+                        int zx = findArc(z, x);
+                        int zy = findArc(z, y);
+                        fwdSkip1 = bwdEdges[zx];
+                        fwdSkip2 = fwdEdges[zy];
+                    }
+                    if (bwdVias[xy] < NO_VIA) {
+                        int z = -2 - bwdVias[xy];
+                        int zx = findArc(z, x);
+                        int zy = findArc(z, y);
+                        bwdSkip1 = bwdEdges[zy];
+                        bwdSkip2 = fwdEdges[zx];
+                    }
+                    int nodeX = nodesByRank[x];
+                    int nodeY = nodesByRank[y];
+                    if (fwdVias[xy] < NO_VIA && bwdVias[xy] < NO_VIA && fwdWeights[xy] == bwdWeights[xy]
+                            && fwdSkip1 == bwdSkip2 && fwdSkip2 == bwdSkip1) {
+                        // both directions use the same edges, so we can use a single bidirectional shortcut
+                        int shortcut = builder.addShortcutNodeBased(nodeX, nodeY, PrepareEncoder.getScDirMask(),
+                                fwdWeights[xy], fwdSkip1, fwdSkip2);
+                        fwdEdges[xy] = bwdEdges[xy] = graph.getEdges() + shortcut;
+                        continue;
+                    }
+                    if (fwdVias[xy] < NO_VIA) {
+                        int shortcut = builder.addShortcutNodeBased(nodeX, nodeY, PrepareEncoder.getScFwdDir(),
+                                fwdWeights[xy], fwdSkip1, fwdSkip2);
+                        fwdEdges[xy] = graph.getEdges() + shortcut;
+                    }
+                    if (bwdVias[xy] < NO_VIA) {
+                        int shortcut = builder.addShortcutNodeBased(nodeX, nodeY, PrepareEncoder.getScBwdDir(),
+                                bwdWeights[xy], bwdSkip2, bwdSkip1);
+                        bwdEdges[xy] = graph.getEdges() + shortcut;
+                    }
+                }
+            }
+            return store;
+        }
+    }
+}
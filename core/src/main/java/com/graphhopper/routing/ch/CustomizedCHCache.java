@@ -0,0 +1,130 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.RoutingCHGraph;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the graphs of a {@link CustomizableCH} that were customized for the most recently used weightings, for example
+ * for the custom models of different requests. Every key stands for one weighting, e.g. the profile name together with
+ * the custom model of a request.
+ * <p>
+ * Every entry holds the weights of all arcs, so it needs about as much memory as a CH graph. The least recently used
+ * entry is dropped once there are more than the given number of entries. Requests for a key that is customized at the
+ * moment wait for this customization, while requests for other keys are not blocked.
+ */
+public class CustomizedCHCache {
+    private final CustomizableCH cch;
+    private final int size;
+    private final int threads;
+    private final Map<String, FutureTask<RoutingCHGraph>> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicInteger customizations = new AtomicInteger();
+
+    /**
+     * @param size    the maximum number of customized graphs
+     * @param threads the number of threads used for every customization
+     */
+    public CustomizedCHCache(CustomizableCH cch, int size, int threads) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Size of the customized CH cache must be positive, but was: " + size);
+        if (threads <= 0)
+            throw new IllegalArgumentException("Threads of the customized CH cache must be positive, but was: " + threads);
+        this.cch = cch;
+        this.size = size;
+        this.threads = threads;
+        this.entries = new LinkedHashMap<String, FutureTask<RoutingCHGraph>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<RoutingCHGraph>> eldest) {
+                // the removed graph is not closed, because it might still be used by running queries. it only lives
+                // in memory and is garbage collected once these queries are finished.
+                return size() > CustomizedCHCache.this.size;
+            }
+        };
+    }
+
+    /**
+     * @return the graph that was customized for the given key, if there is none it is customized for the weighting
+     * created by the given supplier
+     */
+    public RoutingCHGraph get(String key, Supplier<Weighting> weightingSupplier) {
+        FutureTask<RoutingCHGraph> task;
+        boolean customize = false;
+        synchronized (entries) {
+            task = entries.get(key);
+            if (task == null) {
+                // the key can be long and contain any characters, so it cannot be used as name of the CH storage
+                String name = "customized_ch_" + customizations.incrementAndGet();
+                task = new FutureTask<>(() -> cch.customize(name, weightingSupplier.get(), threads));
+                entries.put(key, task);
+                customize = true;
+            }
+        }
+        if (customize) {
+            misses.increment();
+            task.run();
+        } else {
+            hits.increment();
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the customization of " + key, e);
+        } catch (ExecutionException e) {
+            // do not keep the failed customization, so the next request can try again
+            synchronized (entries) {
+                entries.remove(key, task);
+            }
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException("Could not customize CH graph for " + key, e.getCause());
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    @Override
+    public String toString() {
+        return "size: " + size + ", threads: " + threads + ", hits: " + getHits() + ", misses: " + getMisses();
+    }
+}
@@ -28,6 +28,7 @@ import com.graphhopper.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.BitSet;
 import java.util.Locale;
 
 import static com.graphhopper.routing.ch.CHParameters.*;
@@ -66,6 +67,12 @@ class EdgeBasedNodeContractor implements NodeContractor {
     private Stats activeStats;
 
     private int[] hierarchyDepths;
+    // the priorities calculated for the nodes, only used if the priority cache is enabled. the witness searches
+    // are by far the most expensive part of the preparation, so we only repeat them if the neighborhood of a node
+    // changed since its priority was calculated.
+    private float[] cachedPriorities;
+    private BitSet validPriorities;
+    private long priorityCacheHits;
     private EdgeBasedWitnessPathSearcher witnessPathSearcher;
     private BridgePathFinder bridgePathFinder;
     private final EdgeBasedWitnessPathSearcher.Stats wpsStatsHeur = new EdgeBasedWitnessPathSearcher.Stats();
@@ -95,6 +102,7 @@ class EdgeBasedNodeContractor implements NodeContractor {
         params.hierarchyDepthWeight = pMap.getFloat(HIERARCHY_DEPTH_WEIGHT, params.hierarchyDepthWeight);
         params.maxPollFactorHeuristic = pMap.getDouble(MAX_POLL_FACTOR_HEURISTIC_EDGE, params.maxPollFactorHeuristic);
         params.maxPollFactorContraction = pMap.getDouble(MAX_POLL_FACTOR_CONTRACTION_EDGE, params.maxPollFactorContraction);
+        params.priorityCache = pMap.getBool(PRIORITY_CACHE_EDGE, params.priorityCache);
     }
 
     @Override
@@ -107,10 +115,18 @@ class EdgeBasedNodeContractor implements NodeContractor {
         witnessPathSearcher = new EdgeBasedWitnessPathSearcher(prepareGraph);
         bridgePathFinder = new BridgePathFinder(prepareGraph);
         meanDegree = prepareGraph.getOriginalEdges() * 1.0 / prepareGraph.getNodes();
+        if (params.priorityCache) {
+            cachedPriorities = new float[prepareGraph.getNodes()];
+            validPriorities = new BitSet(prepareGraph.getNodes());
+        }
     }
 
     @Override
     public float calculatePriority(int node) {
+        if (validPriorities != null && validPriorities.get(node)) {
+            priorityCacheHits++;
+            return cachedPriorities[node];
+        }
         activeStats = countingStats;
         resetEdgeCounters();
         countPreviousEdges(node);
@@ -134,6 +150,10 @@ class EdgeBasedNodeContractor implements NodeContractor {
                     numShortcuts, numPrevEdges, edgeQuotient,
                     numOrigEdges, numPrevOrigEdges, origEdgeQuotient,
                     hierarchyDepth, priority);
+        if (validPriorities != null) {
+            cachedPriorities[node] = priority;
+            validPriorities.set(node);
+        }
         return priority;
     }
 
@@ -148,10 +168,33 @@ class EdgeBasedNodeContractor implements NodeContractor {
         // We do it the same way as for node-based CH for now.
         meanDegree = (meanDegree * 2 + neighbors.size()) / 3;
         updateHierarchyDepthsOfNeighbors(node, neighbors);
+        invalidateCachedPriorities(node, neighbors);
         stats().stopWatch.stop();
         return neighbors;
     }
 
+    /**
+     * Contracting a node changes the edges of its neighbors (and thereby their hierarchy depths and the shortcuts
+     * they need) as well as the edges the witness searches of the neighbors' neighbors start with. The priorities
+     * of all these nodes need to be calculated again. Changes further away are ignored, so a cached priority might
+     * slightly deviate from the one we would get when repeating the witness searches, but the contraction itself
+     * is not affected, because shortcuts are always searched from scratch.
+     */
+    private void invalidateCachedPriorities(int node, IntContainer neighbors) {
+        if (validPriorities == null)
+            return;
+        validPriorities.clear(node);
+        for (IntCursor n : neighbors) {
+            validPriorities.clear(n.value);
+            PrepareGraphEdgeIterator outIter = outEdgeExplorer.setBaseNode(n.value);
+            while (outIter.next())
+                validPriorities.clear(outIter.getAdjNode());
+            PrepareGraphEdgeIterator inIter = inEdgeExplorer.setBaseNode(n.value);
+            while (inIter.next())
+                validPriorities.clear(inIter.getAdjNode());
+        }
+    }
+
     @Override
     public void finishContraction() {
         chBuilder.replaceSkippedEdges(prepareGraph::getShortcutForPrepareEdge);
@@ -169,7 +212,8 @@ class EdgeBasedNodeContractor implements NodeContractor {
 
     @Override
     public String getStatisticsString() {
-        return String.format(Locale.ROOT, "degree_approx: %3.1f", meanDegree) + ", priority   : " + countingStats + ", " + wpsStatsHeur + ", contraction: " + addingStats + ", " + wpsStatsContr;
+        return String.format(Locale.ROOT, "degree_approx: %3.1f", meanDegree) + ", priority   : " + countingStats + ", " + wpsStatsHeur + ", contraction: " + addingStats + ", " + wpsStatsContr
+                + (validPriorities == null ? "" : ", cached priorities: " + nf(priorityCacheHits));
     }
 
     /**
@@ -379,6 +423,8 @@ class EdgeBasedNodeContractor implements NodeContractor {
         targetNodes.release();
         addedShortcuts.release();
         hierarchyDepths = null;
+        cachedPriorities = null;
+        validPriorities = null;
     }
 
     private Stats stats() {
@@ -418,6 +464,15 @@ class EdgeBasedNodeContractor implements NodeContractor {
         return wpsStatsContr.numPolls + wpsStatsHeur.numPolls;
     }
 
+    @Override
+    public long getSettledNodes() {
+        return getNumPolledEdges();
+    }
+
+    long getPriorityCacheHits() {
+        return priorityCacheHits;
+    }
+
     public static class Params {
         private float edgeQuotientWeight = 100;
         private float originalEdgeQuotientWeight = 100;
@@ -426,6 +481,9 @@ class EdgeBasedNodeContractor implements NodeContractor {
         // shortcuts and possibly (slightly) faster queries.
         private double maxPollFactorHeuristic = 5;
         private double maxPollFactorContraction = 200;
+        // Re-use the priority of a node until its neighborhood changes. This reduces the preparation time, but the
+        // node ordering and thus the number of shortcuts can differ slightly.
+        private boolean priorityCache = false;
     }
 
     private static class Stats {
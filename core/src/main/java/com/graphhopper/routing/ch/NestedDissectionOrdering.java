@@ -0,0 +1,162 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.NodeAccess;
+import com.graphhopper.util.EdgeExplorer;
+import com.graphhopper.util.EdgeIterator;
+
+import java.util.Arrays;
+
+/**
+ * Calculates a metric-independent node ordering using nested dissection: The nodes are recursively split into two
+ * halves at the median of their latitude or longitude (whichever extent is larger). The smaller of the two sets of
+ * boundary nodes, i.e. the nodes that are connected to the other half, is used as separator and the separator nodes
+ * are put after the nodes of both halves. So every separator is contracted only after all the nodes it separates.
+ * <p>
+ * This is a purely geometric variant of the partitioning used in the literature (which uses e.g. max-flow
+ * computations to find small separators), but since road networks are mostly planar it still yields a node order with
+ * a moderate number of shortcuts. The access flags and weights of the edges are ignored, so the same order can be used
+ * for all weightings, see {@link CustomizableCH}.
+ */
+public class NestedDissectionOrdering {
+    private final NodeAccess nodeAccess;
+    private final EdgeExplorer explorer;
+    // the nodes in their final order once all cells are dissected
+    private final int[] nodes;
+    // the cell every node belongs to, every split creates two new cells, so we never need to reset this array
+    private final int[] cells;
+    private int cellCount;
+
+    public static NodeOrderingProvider calcOrder(BaseGraph graph) {
+        return new NestedDissectionOrdering(graph).calcOrder();
+    }
+
+    private NestedDissectionOrdering(BaseGraph graph) {
+        nodeAccess = graph.getNodeAccess();
+        explorer = graph.createEdgeExplorer();
+        nodes = new int[graph.getNodes()];
+        cells = new int[graph.getNodes()];
+    }
+
+    private NodeOrderingProvider calcOrder() {
+        for (int node = 0; node < nodes.length; node++)
+            nodes[node] = node;
+        dissect(0, nodes.length);
+        return NodeOrderingProvider.fromArray(nodes);
+    }
+
+    /**
+     * Orders the nodes in the range [from, to) of {@link #nodes}. The recursion depth is only logarithmic in the
+     * number of nodes, because every split halves the current cell.
+     */
+    private void dissect(int from, int to) {
+        if (to - from < 2)
+            return;
+        int mid = (from + to) >>> 1;
+        sortByCoordinate(from, to, useLatitude(from, to));
+        int leftCell = ++cellCount;
+        int rightCell = ++cellCount;
+        for (int i = from; i < mid; i++)
+            cells[nodes[i]] = leftCell;
+        for (int i = mid; i < to; i++)
+            cells[nodes[i]] = rightCell;
+        int leftBoundary = countBoundaryNodes(from, mid, rightCell);
+        int rightBoundary = countBoundaryNodes(mid, to, leftCell);
+        int separatorCell = ++cellCount;
+        if (leftBoundary <= rightBoundary)
+            markBoundaryNodes(from, mid, rightCell, separatorCell);
+        else
+            markBoundaryNodes(mid, to, leftCell, separatorCell);
+
+        // move the separator nodes to the end of the range and keep the order of the remaining nodes
+        int[] separator = new int[Math.min(leftBoundary, rightBoundary)];
+        int s = 0;
+        int pos = from;
+        int leftEnd = from;
+        for (int i = from; i < to; i++) {
+            int node = nodes[i];
+            if (cells[node] == separatorCell)
+                separator[s++] = node;
+            else {
+                nodes[pos++] = node;
+                if (i < mid)
+                    leftEnd = pos;
+            }
+        }
+        System.arraycopy(separator, 0, nodes, pos, s);
+        dissect(from, leftEnd);
+        dissect(leftEnd, pos);
+    }
+
+    private boolean useLatitude(int from, int to) {
+        double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+        double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            double lat = nodeAccess.getLat(nodes[i]);
+            double lon = nodeAccess.getLon(nodes[i]);
+            minLat = Math.min(minLat, lat);
+            maxLat = Math.max(maxLat, lat);
+            minLon = Math.min(minLon, lon);
+            maxLon = Math.max(maxLon, lon);
+        }
+        double lonFactor = Math.cos(Math.toRadians((minLat + maxLat) / 2));
+        return maxLat - minLat >= (maxLon - minLon) * lonFactor;
+    }
+
+    private void sortByCoordinate(int from, int to, boolean latitude) {
+        // we sort the nodes and their coordinates at once by putting the coordinate into the upper bits
+        long[] keys = new long[to - from];
+        for (int i = from; i < to; i++) {
+            int node = nodes[i];
+            double coord = latitude ? nodeAccess.getLat(node) : nodeAccess.getLon(node);
+            keys[i - from] = ((long) (int) Math.round(coord * 1e6)) << 32 | node;
+        }
+        Arrays.sort(keys);
+        for (int i = from; i < to; i++)
+            nodes[i] = (int) keys[i - from];
+    }
+
+    private int countBoundaryNodes(int from, int to, int otherCell) {
+        int count = 0;
+        for (int i = from; i < to; i++)
+            if (isBoundaryNode(nodes[i], otherCell))
+                count++;
+        return count;
+    }
+
+    private void markBoundaryNodes(int from, int to, int otherCell, int separatorCell) {
+        // we first collect the boundary nodes, because changing their cell would influence the following checks
+        int[] boundary = new int[to - from];
+        int count = 0;
+        for (int i = from; i < to; i++)
+            if (isBoundaryNode(nodes[i], otherCell))
+                boundary[count++] = nodes[i];
+        for (int i = 0; i < count; i++)
+            cells[boundary[i]] = separatorCell;
+    }
+
+    private boolean isBoundaryNode(int node, int otherCell) {
+        EdgeIterator iter = explorer.setBaseNode(node);
+        while (iter.next())
+            if (cells[iter.getAdjNode()] == otherCell)
+                return true;
+        return false;
+    }
+}
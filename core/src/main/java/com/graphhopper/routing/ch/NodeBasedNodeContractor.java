@@ -17,6 +17,8 @@
  */
 package com.graphhopper.routing.ch;
 
+import com.carrotsearch.hppc.DoubleArrayList;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntContainer;
 import com.graphhopper.storage.CHStorageBuilder;
 import com.graphhopper.util.PMap;
@@ -31,7 +33,10 @@ import static com.graphhopper.util.Helper.nf;
 
 class NodeBasedNodeContractor implements NodeContractor {
     private final CHPreparationGraph prepareGraph;
-    private final Params params = new Params();
+    private final Params params;
+    // the contractor that created this one, null unless this is a worker, see createWorker()
+    private final NodeBasedNodeContractor parent;
+    private final List<NodeBasedNodeContractor> workers = new ArrayList<>();
     // todo: maybe use a set to prevent duplicates instead?
     private List<Shortcut> shortcuts = new ArrayList<>();
     private CHStorageBuilder chBuilder;
@@ -41,6 +46,7 @@ class NodeBasedNodeContractor implements NodeContractor {
     private NodeBasedWitnessPathSearcher witnessPathSearcher;
     private int addedShortcutsCount;
     private long dijkstraCount;
+    private long settledNodes;
     private final StopWatch dijkstraSW = new StopWatch();
     // meanDegree is the number of edges / number of nodes ratio of the graph, not really the average degree, because
     // each edge can exist in both directions
@@ -51,10 +57,40 @@ class NodeBasedNodeContractor implements NodeContractor {
 
     NodeBasedNodeContractor(CHPreparationGraph prepareGraph, CHStorageBuilder chBuilder, PMap pMap) {
         this.prepareGraph = prepareGraph;
+        this.params = new Params();
+        this.parent = null;
         extractParams(pMap);
         this.chBuilder = chBuilder;
     }
 
+    private NodeBasedNodeContractor(NodeBasedNodeContractor parent) {
+        this.prepareGraph = parent.prepareGraph;
+        this.params = parent.params;
+        this.parent = parent;
+        initFromGraph();
+    }
+
+    /**
+     * Creates a contractor that shares the prepare graph with this one, but uses its own explorers and witness path
+     * searcher. Different workers can calculate priorities and find shortcuts concurrently as long as the prepare graph
+     * is not modified at the same time. Workers cannot contract nodes, instead the shortcuts they find need to be
+     * passed to {@link #contractNode(ShortcutCandidates)} of this contractor.
+     */
+    NodeBasedNodeContractor createWorker() {
+        if (parent != null)
+            throw new IllegalStateException("Workers cannot create other workers");
+        NodeBasedNodeContractor worker = new NodeBasedNodeContractor(this);
+        workers.add(worker);
+        return worker;
+    }
+
+    /**
+     * @see NodeBasedWitnessPathSearcher#setExcludedNodes
+     */
+    void setExcludedNodes(boolean[] excludedNodes) {
+        witnessPathSearcher.setExcludedNodes(excludedNodes);
+    }
+
     private void extractParams(PMap pMap) {
         params.edgeDifferenceWeight = pMap.getFloat(EDGE_DIFFERENCE_WEIGHT, params.edgeDifferenceWeight);
         params.originalEdgesCountWeight = pMap.getFloat(ORIGINAL_EDGE_COUNT_WEIGHT, params.originalEdgesCountWeight);
@@ -73,7 +109,13 @@ class NodeBasedNodeContractor implements NodeContractor {
 
     @Override
     public void close() {
+        if (parent != null)
+            throw new IllegalStateException("Workers cannot be closed, close the contractor that created them instead");
         prepareGraph.close();
+        // keep the counters of the workers
+        for (NodeBasedNodeContractor worker : workers)
+            settledNodes += worker.settledNodes;
+        workers.clear();
         shortcuts = null;
         chBuilder = null;
         inEdgeExplorer = null;
@@ -97,7 +139,7 @@ class NodeBasedNodeContractor implements NodeContractor {
         // originalEdgesCount = σ(v) := sum_{ (u,w) ∈ shortcuts(v) } of r(u, w)
         shortcutsCount = 0;
         originalEdgesCount = 0;
-        findAndHandleShortcuts(node, this::countShortcuts, (int) (meanDegree * params.maxPollFactorHeuristic));
+        findAndHandleShortcuts(node, this::countShortcuts, (int) (getMeanDegree() * params.maxPollFactorHeuristic));
 
         // from shortcuts we can compute the edgeDifference
         // # low influence: with it the shortcut creation is slightly faster
@@ -123,6 +165,65 @@ class NodeBasedNodeContractor implements NodeContractor {
         return prepareGraph.disconnect(node);
     }
 
+    /**
+     * Searches the shortcuts that are needed to contract the given node, but unlike {@link #contractNode(int)} this
+     * does not change the prepare graph. The result can be used to contract the node using
+     * {@link #contractNode(ShortcutCandidates)} as long as none of its neighbors is contracted before.
+     */
+    ShortcutCandidates findShortcuts(int node) {
+        ShortcutCandidates candidates = new ShortcutCandidates(node);
+        candidates.degree = findAndHandleShortcuts(node, candidates::add, (int) (getMeanDegree() * params.maxPollFactorContraction));
+        return candidates;
+    }
+
+    /**
+     * Contracts a node using the shortcuts found by {@link #findShortcuts(int)}.
+     *
+     * @return the set of nodes adjacent to this node (before contraction)
+     */
+    IntContainer contractNode(ShortcutCandidates candidates) {
+        if (parent != null)
+            throw new IllegalStateException("Workers cannot contract nodes");
+        IntArrayList ints = candidates.ints;
+        for (int i = 0, j = 0; i < candidates.weights.size(); i++, j += 6)
+            addOrUpdateShortcut(ints.get(j), ints.get(j + 1), candidates.weights.get(i),
+                    ints.get(j + 2), ints.get(j + 3), ints.get(j + 4), ints.get(j + 5));
+        insertShortcuts(candidates.node);
+        meanDegree = (meanDegree * 2 + candidates.degree) / 3;
+        return prepareGraph.disconnect(candidates.node);
+    }
+
+    /**
+     * Marks the given node and all its neighbors in the given array.
+     *
+     * @return true if neither the node nor any of its neighbors were marked before
+     */
+    boolean markNeighborhood(int node, int[] marks, int mark) {
+        // we check all marks before setting any, because the same neighbor can be reached via the in- and out-explorer
+        // or via parallel edges and must not conflict with itself
+        boolean unmarked = marks[node] != mark;
+        PrepareGraphEdgeIterator iter = outEdgeExplorer.setBaseNode(node);
+        while (unmarked && iter.next())
+            unmarked = marks[iter.getAdjNode()] != mark;
+        iter = inEdgeExplorer.setBaseNode(node);
+        while (unmarked && iter.next())
+            unmarked = marks[iter.getAdjNode()] != mark;
+
+        marks[node] = mark;
+        iter = outEdgeExplorer.setBaseNode(node);
+        while (iter.next())
+            marks[iter.getAdjNode()] = mark;
+        iter = inEdgeExplorer.setBaseNode(node);
+        while (iter.next())
+            marks[iter.getAdjNode()] = mark;
+        return unmarked;
+    }
+
+    private double getMeanDegree() {
+        // workers use the mean degree of the contractor that does the actual contraction
+        return parent == null ? meanDegree : parent.meanDegree;
+    }
+
     /**
      * Calls the shortcut handler for all edges and shortcuts adjacent to the given node. After this method is called
      * these edges and shortcuts will be removed from the prepare graph, so this method offers the last chance to deal
@@ -196,8 +297,11 @@ class NodeBasedNodeContractor implements NodeContractor {
 
     @Override
     public String getStatisticsString() {
+        long dijkstras = dijkstraCount;
+        for (NodeBasedNodeContractor worker : workers)
+            dijkstras += worker.dijkstraCount;
         return String.format(Locale.ROOT, "meanDegree: %.2f, dijkstras: %10s, mem: %10s",
-                meanDegree, nf(dijkstraCount), witnessPathSearcher.getMemoryUsageAsString());
+                meanDegree, nf(dijkstras), witnessPathSearcher.getMemoryUsageAsString());
     }
 
     /**
@@ -251,6 +355,7 @@ class NodeBasedNodeContractor implements NodeContractor {
                         outgoingEdges.getPrepareEdge(), outgoingEdges.getOrigEdgeCount(),
                         incomingEdges.getPrepareEdge(), incomingEdges.getOrigEdgeCount());
             }
+            settledNodes += witnessPathSearcher.getSettledNodes();
         }
         return degree;
     }
@@ -288,9 +393,21 @@ class NodeBasedNodeContractor implements NodeContractor {
         return addedShortcutsCount;
     }
 
+    @Override
+    public long getSettledNodes() {
+        long result = settledNodes;
+        for (NodeBasedNodeContractor worker : workers)
+            result += worker.settledNodes;
+        return result;
+    }
+
     @Override
     public float getDijkstraSeconds() {
-        return dijkstraSW.getCurrentSeconds();
+        // for workers we sum up the time spent in all threads
+        float seconds = dijkstraSW.getCurrentSeconds();
+        for (NodeBasedNodeContractor worker : workers)
+            seconds += worker.dijkstraSW.getCurrentSeconds();
+        return seconds;
     }
 
     @FunctionalInterface
@@ -311,6 +428,32 @@ class NodeBasedNodeContractor implements NodeContractor {
         private double maxPollFactorContraction = 200;
     }
 
+    /**
+     * The shortcuts that are needed to contract a node, see {@link #findShortcuts(int)}
+     */
+    static class ShortcutCandidates {
+        private final int node;
+        private long degree;
+        // fromNode, toNode, outgoingEdge, outOrigEdgeCount, incomingEdge, inOrigEdgeCount for each shortcut
+        private final IntArrayList ints = new IntArrayList();
+        private final DoubleArrayList weights = new DoubleArrayList();
+
+        private ShortcutCandidates(int node) {
+            this.node = node;
+        }
+
+        int getNode() {
+            return node;
+        }
+
+        private void add(int fromNode, int toNode, double existingDirectWeight,
+                         int outgoingEdge, int outOrigEdgeCount,
+                         int incomingEdge, int inOrigEdgeCount) {
+            ints.add(fromNode, toNode, outgoingEdge, outOrigEdgeCount, incomingEdge, inOrigEdgeCount);
+            weights.add(existingDirectWeight);
+        }
+    }
+
     private static class Shortcut {
         int prepareEdgeFwd;
         int prepareEdgeBwd;
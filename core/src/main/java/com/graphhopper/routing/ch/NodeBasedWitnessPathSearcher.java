@@ -34,6 +34,7 @@ public class NodeBasedWitnessPathSearcher {
     private final IntArrayList changedNodes;
     private final IntFloatBinaryHeap heap;
     private int ignoreNode = -1;
+    private boolean[] excludedNodes;
     private int settledNodes = 0;
 
     public NodeBasedWitnessPathSearcher(CHPreparationGraph graph) {
@@ -44,6 +45,14 @@ public class NodeBasedWitnessPathSearcher {
         changedNodes = new IntArrayList();
     }
 
+    /**
+     * Excludes nodes from all following searches, i.e. witness paths found by this searcher will not contain any of
+     * the nodes for which the given array is true. The array is not copied, so changes to it are visible to this searcher.
+     */
+    public void setExcludedNodes(boolean[] excludedNodes) {
+        this.excludedNodes = excludedNodes;
+    }
+
     /**
      * Sets up a search for given start node and an ignored node. The shortest path tree will be re-used for different
      * target nodes until this method is called again.
@@ -85,7 +94,7 @@ public class NodeBasedWitnessPathSearcher {
             PrepareGraphEdgeIterator iter = outEdgeExplorer.setBaseNode(node);
             while (iter.next()) {
                 int adjNode = iter.getAdjNode();
-                if (adjNode == ignoreNode)
+                if (adjNode == ignoreNode || (excludedNodes != null && excludedNodes[adjNode]))
                     continue;
                 double weight = weights[node] + iter.getWeight();
                 if (Double.isInfinite(weight))
@@ -41,6 +41,12 @@ public interface NodeContractor {
 
     long getAddedShortcutsCount();
 
+    /**
+     * @return the total number of nodes (or edge states for edge-based CH) that were settled by the witness searches
+     * so far, including the ones for the priority calculations
+     */
+    long getSettledNodes();
+
     String getStatisticsString();
 
     float getDijkstraSeconds();
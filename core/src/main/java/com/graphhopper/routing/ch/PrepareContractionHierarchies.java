@@ -17,6 +17,8 @@
  */
 package com.graphhopper.routing.ch;
 
+import com.carrotsearch.hppc.FloatArrayList;
+import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntContainer;
 import com.carrotsearch.hppc.cursors.IntCursor;
 import com.graphhopper.coll.MinHeapWithUpdate;
@@ -28,8 +30,11 @@ import com.graphhopper.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.*;
 
 import static com.graphhopper.routing.ch.CHParameters.*;
 import static com.graphhopper.util.Helper.getMemInfo;
@@ -69,6 +74,9 @@ public class PrepareContractionHierarchies {
     private MinHeapWithUpdate sortedNodes;
     private PMap pMap = new PMap();
     private int checkCounter;
+    private long contractedNodes;
+    private int contractionThreads = 1;
+    private boolean storeBaseEdgeWeights = false;
     private boolean prepared = false;
 
     public static PrepareContractionHierarchies fromGraph(BaseGraph graph, CHConfig chConfig) {
@@ -100,6 +108,10 @@ public class PrepareContractionHierarchies {
         params.setMaxNeighborUpdates(pMap.getInt(NEIGHBOR_UPDATES_MAX, params.getMaxNeighborUpdates()));
         params.setNodesContractedPercentage(pMap.getInt(CONTRACTED_NODES, params.getNodesContractedPercentage()));
         params.setLogMessagesPercentage(pMap.getInt(LOG_MESSAGES, params.getLogMessagesPercentage()));
+        contractionThreads = pMap.getInt(CONTRACTION_THREADS, contractionThreads);
+        if (contractionThreads < 1)
+            throw new IllegalArgumentException(CONTRACTION_THREADS + " has to be at least 1, but was: " + contractionThreads);
+        storeBaseEdgeWeights = pMap.getBool(BASE_EDGE_WEIGHTS, storeBaseEdgeWeights);
         return this;
     }
 
@@ -131,11 +143,16 @@ public class PrepareContractionHierarchies {
         allSW.start();
         initFromGraph();
         runGraphContraction();
+        if (storeBaseEdgeWeights)
+            // the weights of the original edges are calculated once here, so the queries do not need the weighting
+            chStore.initBaseEdgeWeights(graph, chConfig.getWeighting());
         allSW.stop();
         logFinalGraphStats();
         return new Result(
                 chConfig, chStore,
                 nodeContractor.getAddedShortcutsCount(),
+                contractedNodes,
+                nodeContractor.getSettledNodes(),
                 lazyUpdateSW.getCurrentSeconds(),
                 periodicUpdateSW.getCurrentSeconds(),
                 neighborUpdateSW.getCurrentSeconds(),
@@ -159,7 +176,11 @@ public class PrepareContractionHierarchies {
         setMaxLevelOnAllNodes();
         if (nodeOrderingProvider != null) {
             contractNodesUsingFixedNodeOrdering();
+        } else if (contractionThreads > 1 && !isEdgeBased()) {
+            contractNodesUsingHeuristicNodeOrderingInParallel();
         } else {
+            if (contractionThreads > 1)
+                logger.info("Parallel contraction is only supported for node-based CH, using a single thread for {}", chConfig.getName());
             contractNodesUsingHeuristicNodeOrdering();
         }
     }
@@ -322,6 +343,235 @@ public class PrepareContractionHierarchies {
         _close();
     }
 
+    /**
+     * Same as {@link #contractNodesUsingHeuristicNodeOrdering()}, but in every round we contract a set of independent
+     * nodes, i.e. nodes that are not adjacent and do not share any neighbors. The shortcuts of these nodes are searched
+     * concurrently and then inserted into the graph sequentially. Node priorities are also calculated concurrently.
+     * While searching the shortcuts we exclude all nodes of the current round from the witness searches, so the
+     * resulting hierarchy is the same as if the nodes were contracted one after the other, but without the witness
+     * paths that would use the shortcuts of the nodes contracted before. This means there can be slightly more
+     * shortcuts than for the sequential contraction, but the result does not depend on the thread scheduling. On
+     * random graphs four threads create at most 5% (usually less than 2%) more shortcuts than a single thread, which is
+     * checked by PrepareContractionHierarchiesTest#testParallelContraction.
+     */
+    private void contractNodesUsingHeuristicNodeOrderingInParallel() {
+        NodeBasedNodeContractor contractor = (NodeBasedNodeContractor) nodeContractor;
+        List<NodeBasedNodeContractor> workers = new ArrayList<>(contractionThreads);
+        boolean[] excludedNodes = new boolean[nodes];
+        for (int i = 0; i < contractionThreads; i++) {
+            NodeBasedNodeContractor worker = contractor.createWorker();
+            worker.setExcludedNodes(excludedNodes);
+            workers.add(worker);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(contractionThreads);
+        try {
+            StopWatch sw = new StopWatch().start();
+            logger.info("Building initial queue of nodes to be contracted: {} nodes, threads: {}, {}", nodes, contractionThreads, getMemInfo());
+            updatePrioritiesOfRemainingNodesInParallel(executor, workers);
+            logger.info("Finished building queue, took: {}s, {}", sw.stop().getSeconds(), getMemInfo());
+            final int initSize = sortedNodes.size();
+            int level = 0;
+            checkCounter = 0;
+            final long logSize = params.getLogMessagesPercentage() == 0
+                    ? Long.MAX_VALUE
+                    : Math.round(Math.max(10, initSize * (params.getLogMessagesPercentage() / 100d)));
+            final long periodicUpdatesCount = params.getPeriodicUpdatesPercentage() == 0
+                    ? Long.MAX_VALUE
+                    : Math.round(Math.max(10, initSize * (params.getPeriodicUpdatesPercentage() / 100d)));
+            int updateCounter = 0;
+            final long lastNodesLazyUpdates = Math.round(initSize * (params.getLastNodesLazyUpdatePercentage() / 100d));
+            final long nodesToAvoidContract = Math.round(initSize * ((100 - params.getNodesContractedPercentage()) / 100d));
+            final boolean neighborUpdate = (params.getNeighborUpdatePercentage() != 0);
+            // since the periodic updates and log messages happen after a whole round we cannot use checkCounter % x == 0
+            long nextPeriodicUpdate = periodicUpdatesCount;
+            long nextLog = 0;
+
+            // the nodes with the lowest priorities are contracted in each round, but we limit the round size such that
+            // the hierarchy does not deviate too much from the sequential one
+            final int maxRoundSize = contractionThreads * 16;
+            int[] marks = new int[nodes];
+            int mark = 0;
+            IntArrayList round = new IntArrayList();
+            FloatArrayList roundPriorities = new FloatArrayList();
+            IntArrayList skipped = new IntArrayList();
+            FloatArrayList skippedPriorities = new FloatArrayList();
+            IntArrayList neighborsToUpdate = new IntArrayList();
+            while (!sortedNodes.isEmpty()) {
+                stopIfInterrupted();
+                if (checkCounter >= nextPeriodicUpdate) {
+                    updatePrioritiesOfRemainingNodesInParallel(executor, workers);
+                    updateCounter++;
+                    nextPeriodicUpdate = checkCounter + periodicUpdatesCount;
+                    if (sortedNodes.isEmpty())
+                        throw new IllegalStateException("Cannot prepare as no unprepared nodes where found. Called preparation twice?");
+                }
+
+                if (checkCounter >= nextLog) {
+                    logHeuristicStats(updateCounter);
+                    nextLog = checkCounter + logSize;
+                }
+
+                // pick independent nodes, every polled node blocks its neighborhood even if it is skipped, so we only
+                // contract nodes if no other node with a lower priority is nearby
+                int roundSize = Math.max(1, Math.min(maxRoundSize, sortedNodes.size() / 100));
+                mark++;
+                round.clear();
+                roundPriorities.clear();
+                skipped.clear();
+                skippedPriorities.clear();
+                for (int polled = 0; polled < 4 * roundSize && round.size() < roundSize && !sortedNodes.isEmpty(); polled++) {
+                    float priority = sortedNodes.peekValue();
+                    int node = sortedNodes.poll();
+                    checkCounter++;
+                    if (contractor.markNeighborhood(node, marks, mark)) {
+                        round.add(node);
+                        roundPriorities.add(priority);
+                    } else {
+                        skipped.add(node);
+                        skippedPriorities.add(priority);
+                    }
+                }
+                for (int i = 0; i < skipped.size(); i++)
+                    sortedNodes.push(skipped.get(i), skippedPriorities.get(i));
+
+                if (!sortedNodes.isEmpty() && sortedNodes.size() < lastNodesLazyUpdates) {
+                    lazyUpdateSW.start();
+                    float[] priorities = calculatePrioritiesInParallel(executor, workers, round);
+                    float threshold = sortedNodes.peekValue();
+                    int remaining = 0;
+                    for (int i = 0; i < round.size(); i++) {
+                        if (priorities[i] > threshold)
+                            // current node got more important => insert as new value and contract it later
+                            sortedNodes.push(round.get(i), priorities[i]);
+                        else
+                            round.set(remaining++, round.get(i));
+                    }
+                    round.elementsCount = remaining;
+                    lazyUpdateSW.stop();
+                }
+
+                contractionSW.start();
+                for (int i = 0; i < round.size(); i++)
+                    excludedNodes[round.get(i)] = true;
+                NodeBasedNodeContractor.ShortcutCandidates[] candidates = new NodeBasedNodeContractor.ShortcutCandidates[round.size()];
+                runInParallel(executor, workers, round.size(), (worker, i) -> candidates[i] = worker.findShortcuts(round.get(i)));
+                for (int i = 0; i < round.size(); i++)
+                    excludedNodes[round.get(i)] = false;
+
+                neighborsToUpdate.clear();
+                for (NodeBasedNodeContractor.ShortcutCandidates c : candidates) {
+                    if (isContracted(c.getNode()))
+                        throw new IllegalArgumentException("Node " + c.getNode() + " was contracted already");
+                    chBuilder.setLevel(c.getNode(), level);
+                    level++;
+                    IntContainer neighbors = contractor.contractNode(c);
+                    contractedNodes++;
+                    // there are no common neighbors of the nodes in a round, so there are no duplicates
+                    int neighborCount = 0;
+                    for (IntCursor neighbor : neighbors) {
+                        if (neighborUpdate && (params.getMaxNeighborUpdates() < 0 || neighborCount < params.getMaxNeighborUpdates()) && rand.nextInt(100) < params.getNeighborUpdatePercentage()) {
+                            neighborCount++;
+                            neighborsToUpdate.add(neighbor.value);
+                        }
+                    }
+                }
+                contractionSW.stop();
+
+                if (sortedNodes.size() < nodesToAvoidContract)
+                    // skipped nodes are already set to maxLevel
+                    break;
+
+                if (!neighborsToUpdate.isEmpty()) {
+                    neighborUpdateSW.start();
+                    float[] priorities = calculatePrioritiesInParallel(executor, workers, neighborsToUpdate);
+                    for (int i = 0; i < neighborsToUpdate.size(); i++)
+                        sortedNodes.update(neighborsToUpdate.get(i), priorities[i]);
+                    neighborUpdateSW.stop();
+                }
+            }
+
+            nodeContractor.finishContraction();
+
+            logHeuristicStats(updateCounter);
+
+            logger.info(
+                    "new shortcuts: " + nf(nodeContractor.getAddedShortcutsCount())
+                            + ", initSize:" + nf(initSize)
+                            + ", " + chConfig.getWeighting()
+                            + ", threads:" + contractionThreads
+                            + ", periodic:" + params.getPeriodicUpdatesPercentage()
+                            + ", lazy:" + params.getLastNodesLazyUpdatePercentage()
+                            + ", neighbor:" + params.getNeighborUpdatePercentage()
+                            + ", " + getTimesAsString()
+                            + ", lazy-overhead: " + (int) (100 * ((checkCounter / (double) initSize) - 1)) + "%"
+                            + ", " + Helper.getMemInfo());
+        } finally {
+            executor.shutdownNow();
+        }
+        _close();
+    }
+
+    private void updatePrioritiesOfRemainingNodesInParallel(ExecutorService executor, List<NodeBasedNodeContractor> workers) {
+        periodicUpdateSW.start();
+        sortedNodes.clear();
+        IntArrayList remainingNodes = new IntArrayList();
+        for (int node = 0; node < nodes; node++)
+            if (!isContracted(node))
+                remainingNodes.add(node);
+        float[] priorities = calculatePrioritiesInParallel(executor, workers, remainingNodes);
+        for (int i = 0; i < remainingNodes.size(); i++)
+            sortedNodes.push(remainingNodes.get(i), priorities[i]);
+        periodicUpdateSW.stop();
+    }
+
+    private float[] calculatePrioritiesInParallel(ExecutorService executor, List<NodeBasedNodeContractor> workers, IntArrayList nodeList) {
+        float[] priorities = new float[nodeList.size()];
+        runInParallel(executor, workers, nodeList.size(), (worker, i) -> {
+            int node = nodeList.get(i);
+            if (isContracted(node))
+                throw new IllegalArgumentException("Priority should only be calculated for not yet contracted nodes");
+            priorities[i] = worker.calculatePriority(node);
+        });
+        return priorities;
+    }
+
+    /**
+     * Runs the given task for the indices 0..size-1. Every worker processes every n-th index, where n is the number
+     * of workers, so no worker is used by two threads at the same time.
+     */
+    private static void runInParallel(ExecutorService executor, List<NodeBasedNodeContractor> workers, int size, WorkerTask task) {
+        if (size < 2 * workers.size()) {
+            // not worth the overhead
+            for (int i = 0; i < size; i++)
+                task.run(workers.get(0), i);
+            return;
+        }
+        List<Callable<Object>> callables = new ArrayList<>(workers.size());
+        for (int w = 0; w < workers.size(); w++) {
+            final int first = w;
+            final NodeBasedNodeContractor worker = workers.get(w);
+            callables.add(() -> {
+                for (int i = first; i < size; i += workers.size())
+                    task.run(worker, i);
+                return null;
+            });
+        }
+        try {
+            for (Future<Object> future : executor.invokeAll(callables))
+                future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @FunctionalInterface
+    private interface WorkerTask {
+        void run(NodeBasedNodeContractor worker, int index);
+    }
+
     private void contractNodesUsingFixedNodeOrdering() {
         final int nodesToContract = nodeOrderingProvider.getNumNodes();
         final int logSize = Math.max(10, (int) (params.getLogMessagesPercentage() / 100.0 * nodesToContract));
@@ -352,6 +602,7 @@ public class PrepareContractionHierarchies {
         contractionSW.start();
         chBuilder.setLevel(node, level);
         IntContainer neighbors = nodeContractor.contractNode(node);
+        contractedNodes++;
         contractionSW.stop();
         return neighbors;
     }
@@ -436,14 +687,19 @@ public class PrepareContractionHierarchies {
         private final CHConfig chConfig;
         private final CHStorage chStorage;
         private final long shortcuts;
+        private final long contractedNodes;
+        private final long settledNodes;
         private final double lazyTime;
         private final double periodTime;
         private final double neighborTime;
         private final long totalPrepareTime;
 
-        private Result(CHConfig chConfig, CHStorage chStorage, long shortcuts, double lazyTime, double periodTime, double neighborTime, long totalPrepareTime) {
+        private Result(CHConfig chConfig, CHStorage chStorage, long shortcuts, long contractedNodes, long settledNodes,
+                       double lazyTime, double periodTime, double neighborTime, long totalPrepareTime) {
             this.chStorage = chStorage;
             this.shortcuts = shortcuts;
+            this.contractedNodes = contractedNodes;
+            this.settledNodes = settledNodes;
             this.lazyTime = lazyTime;
             this.periodTime = periodTime;
             this.neighborTime = neighborTime;
@@ -463,6 +719,22 @@ public class PrepareContractionHierarchies {
             return shortcuts;
         }
 
+        public long getContractedNodes() {
+            return contractedNodes;
+        }
+
+        /**
+         * @return the number of nodes (node-based) or edge states (edge-based) settled by all witness searches, i.e.
+         * for the priority calculations and the contractions
+         */
+        public long getSettledNodes() {
+            return settledNodes;
+        }
+
+        public double getSettledNodesPerContraction() {
+            return contractedNodes == 0 ? 0 : settledNodes / (double) contractedNodes;
+        }
+
         public double getLazyTime() {
             return lazyTime;
         }
@@ -0,0 +1,145 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.lm;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the active landmarks that were chosen for earlier queries, so queries between the same regions can skip
+ * the selection, which needs to look at the weights of all landmarks for the start and the target node. Two queries
+ * share an entry if they run in the same subnetwork and direction, use the same number of active landmarks and their
+ * start and target nodes lie in the same tiles of a coarse lat/lon grid.
+ * <p>
+ * The cache has a fixed number of slots and a new entry simply replaces the one that was stored in its slot before, so
+ * lookups and updates never block. Any set of landmarks yields a valid (though maybe less tight) approximation, so using
+ * the landmarks of a nearby query never changes the routing results, only the number of visited nodes.
+ */
+public class ActiveLandmarkCache {
+    private final double tileSize;
+    private final AtomicReferenceArray<Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param size     the maximum number of entries
+     * @param tileSize the width and height of a tile in degrees
+     */
+    public ActiveLandmarkCache(int size, double tileSize) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Size of the active landmark cache must be positive, but was: " + size);
+        if (!(tileSize > 0))
+            throw new IllegalArgumentException("Tile size of the active landmark cache must be positive, but was: " + tileSize);
+        this.tileSize = tileSize;
+        this.entries = new AtomicReferenceArray<>(size);
+    }
+
+    public long getTile(double lat, double lon) {
+        long latIndex = (long) Math.floor((lat + 90) / tileSize);
+        long lonIndex = (long) Math.floor((lon + 180) / tileSize);
+        return (latIndex << 32) | lonIndex;
+    }
+
+    /**
+     * Copies the cached active landmarks for the given key into activeLandmarkIndices
+     *
+     * @return true if an entry was found
+     */
+    boolean get(int subnetwork, long fromTile, long toTile, boolean reverse, int[] activeLandmarkIndices) {
+        Entry entry = entries.get(slot(subnetwork, fromTile, toTile, reverse, activeLandmarkIndices.length));
+        if (entry == null || !entry.matches(subnetwork, fromTile, toTile, reverse, activeLandmarkIndices.length)) {
+            misses.increment();
+            return false;
+        }
+        System.arraycopy(entry.landmarkIndices, 0, activeLandmarkIndices, 0, activeLandmarkIndices.length);
+        hits.increment();
+        return true;
+    }
+
+    void put(int subnetwork, long fromTile, long toTile, boolean reverse, int[] activeLandmarkIndices) {
+        entries.set(slot(subnetwork, fromTile, toTile, reverse, activeLandmarkIndices.length),
+                new Entry(subnetwork, fromTile, toTile, reverse, activeLandmarkIndices.clone()));
+    }
+
+    private int slot(int subnetwork, long fromTile, long toTile, boolean reverse, int activeCount) {
+        long hash = fromTile * 31 + toTile;
+        hash = hash * 31 + subnetwork;
+        hash = hash * 31 + activeCount;
+        hash = hash * 2 + (reverse ? 1 : 0);
+        // mix the bits, the tiles of nearby queries differ only in their lowest bits
+        hash *= 0x9E3779B97F4A7C15L;
+        return (int) ((hash >>> 33) % entries.length());
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the share of lookups that found an entry, or 0 if there were none so far
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public int getSize() {
+        return entries.length();
+    }
+
+    public double getTileSize() {
+        return tileSize;
+    }
+
+    @Override
+    public String toString() {
+        return "size: " + getSize() + ", tile size: " + tileSize + ", hits: " + getHits() + ", misses: " + getMisses();
+    }
+
+    private static class Entry {
+        final int subnetwork;
+        final long fromTile;
+        final long toTile;
+        final boolean reverse;
+        final int[] landmarkIndices;
+
+        Entry(int subnetwork, long fromTile, long toTile, boolean reverse, int[] landmarkIndices) {
+            this.subnetwork = subnetwork;
+            this.fromTile = fromTile;
+            this.toTile = toTile;
+            this.reverse = reverse;
+            this.landmarkIndices = landmarkIndices;
+        }
+
+        boolean matches(int subnetwork, long fromTile, long toTile, boolean reverse, int activeCount) {
+            return this.subnetwork == subnetwork && this.fromTile == fromTile && this.toTile == toTile
+                    && this.reverse == reverse && landmarkIndices.length == activeCount;
+        }
+
+        @Override
+        public String toString() {
+            return subnetwork + ", " + fromTile + " -> " + toTile + ", reverse: " + reverse + ", " + Arrays.toString(landmarkIndices);
+        }
+    }
+}
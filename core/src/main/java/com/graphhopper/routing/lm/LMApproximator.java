@@ -38,6 +38,9 @@ public class LMApproximator implements WeightApproximator {
     private int[] activeLandmarkIndices;
     private int[] weightsFromActiveLandmarksToT;
     private int[] weightsFromTToActiveLandmarks;
+    // upper bounds of the above weights, they are only different if the landmark weights are compressed
+    private int[] maxWeightsFromActiveLandmarksToT;
+    private int[] maxWeightsFromTToActiveLandmarks;
     private double epsilon = 1;
     private int towerNodeNextToT = -1;
     private double weightFromTToTowerNode;
@@ -48,6 +51,7 @@ public class LMApproximator implements WeightApproximator {
     private final Graph graph;
     private final WeightApproximator fallBackApproximation;
     private boolean fallback = false;
+    private ActiveLandmarkCache activeLandmarkCache;
 
     public static LMApproximator forLandmarks(Graph g, LandmarkStorage lms, int activeLM) {
         return new LMApproximator(g, lms.getWeighting(), lms.getBaseNodes(), lms, activeLM, lms.getFactor(), false);
@@ -66,6 +70,8 @@ public class LMApproximator implements WeightApproximator {
         Arrays.fill(activeLandmarkIndices, -1);
         weightsFromActiveLandmarksToT = new int[activeCount];
         weightsFromTToActiveLandmarks = new int[activeCount];
+        maxWeightsFromActiveLandmarksToT = new int[activeCount];
+        maxWeightsFromTToActiveLandmarks = new int[activeCount];
 
         this.graph = graph;
         this.weighting = weighting;
@@ -73,6 +79,14 @@ public class LMApproximator implements WeightApproximator {
         this.maxBaseNodes = maxBaseNodes;
     }
 
+    /**
+     * Re-uses the active landmarks chosen for earlier queries between the same regions, see {@link ActiveLandmarkCache}
+     */
+    public LMApproximator setActiveLandmarkCache(ActiveLandmarkCache activeLandmarkCache) {
+        this.activeLandmarkCache = activeLandmarkCache;
+        return this;
+    }
+
     /**
      * Increase approximation with higher epsilon
      */
@@ -98,10 +112,12 @@ public class LMApproximator implements WeightApproximator {
         // we have to update the priority queues and the maps if done in the middle of the search http://cstheory.stackexchange.com/q/36355/13229
         if (recalculateActiveLandmarks) {
             recalculateActiveLandmarks = false;
-            if (lms.chooseActiveLandmarks(v, towerNodeNextToT, activeLandmarkIndices, reverse)) {
+            if (lms.chooseActiveLandmarks(v, towerNodeNextToT, activeLandmarkIndices, reverse, activeLandmarkCache)) {
                 for (int i = 0; i < activeLandmarkIndices.length; i++) {
                     weightsFromActiveLandmarksToT[i] = lms.getFromWeight(activeLandmarkIndices[i], towerNodeNextToT);
                     weightsFromTToActiveLandmarks[i] = lms.getToWeight(activeLandmarkIndices[i], towerNodeNextToT);
+                    maxWeightsFromActiveLandmarksToT[i] = lms.getFromWeightUpperBound(activeLandmarkIndices[i], towerNodeNextToT);
+                    maxWeightsFromTToActiveLandmarks[i] = lms.getToWeightUpperBound(activeLandmarkIndices[i], towerNodeNextToT);
                 }
             } else {
                 // note: fallback==true means forever true!
@@ -151,18 +167,22 @@ public class LMApproximator implements WeightApproximator {
         //  III)  d(t,v)  + d(LM,t) >= d(LM,v), so d(t,v) >= d(LM,v) - d(LM,t)
         //   IV)  d(v,LM) + d(t,v)  >= d(t,LM), so d(t,v) >= d(t,LM) - d(v,LM)
         //
-        // ...and we can get the right-hand sides of III) and IV) by multiplying those of II) and I) by -1.
-
-        int rhs1Int = weightsFromActiveLandmarksToT[i] - lms.getFromWeight(activeLandmarkIndices[i], v);
-        int rhs2Int = lms.getToWeight(activeLandmarkIndices[i], v) - weightsFromTToActiveLandmarks[i];
+        // ...so the right-hand sides of III) and IV) are those of II) and I) multiplied by -1.
+        //
+        // The stored weights are only known to lie within a range (which is just a single value unless the weights
+        // are compressed), so we subtract the upper bound of the one weight from the lower bound of the other to
+        // make sure we do not overestimate.
 
-        int resultInt;
+        int landmarkIndex = activeLandmarkIndices[i];
         if (reverse) {
-            resultInt = Math.max(-rhs2Int, -rhs1Int);
+            int rhs3Int = lms.getFromWeight(landmarkIndex, v) - maxWeightsFromActiveLandmarksToT[i];
+            int rhs4Int = weightsFromTToActiveLandmarks[i] - lms.getToWeightUpperBound(landmarkIndex, v);
+            return Math.max(rhs3Int, rhs4Int);
         } else {
-            resultInt = Math.max(rhs1Int, rhs2Int);
+            int rhs1Int = weightsFromActiveLandmarksToT[i] - lms.getFromWeightUpperBound(landmarkIndex, v);
+            int rhs2Int = lms.getToWeight(landmarkIndex, v) - maxWeightsFromTToActiveLandmarks[i];
+            return Math.max(rhs1Int, rhs2Int);
         }
-        return resultInt;
     }
 
     @Override
@@ -191,7 +211,8 @@ public class LMApproximator implements WeightApproximator {
 
     @Override
     public WeightApproximator reverse() {
-        return new LMApproximator(graph, weighting, maxBaseNodes, lms, activeLandmarkIndices.length, factor, !reverse);
+        return new LMApproximator(graph, weighting, maxBaseNodes, lms, activeLandmarkIndices.length, factor, !reverse)
+                .setActiveLandmarkCache(activeLandmarkCache);
     }
 
     @Override
@@ -54,9 +54,11 @@ public class LMPreparationHandler {
     private int landmarkCount = 16;
     private final List<LMProfile> lmProfiles = new ArrayList<>();
     private final Map<String, Double> maximumWeights = new HashMap<>();
+    private final Set<String> compressedWeightProfiles = new HashSet<>();
     private int minNodes = -1;
     private final List<String> lmSuggestionsLocations = new ArrayList<>(5);
     private int preparationThreads;
+    private int landmarkThreads = 1;
     private boolean logDetails = false;
     private AreaIndex<SplitArea> areaIndex;
 
@@ -71,6 +73,7 @@ public class LMPreparationHandler {
         }
 
         setPreparationThreads(ghConfig.getInt(Parameters.Landmark.PREPARE + "threads", getPreparationThreads()));
+        setLandmarkThreads(ghConfig.getInt(Parameters.Landmark.PREPARE + "landmark_threads", getLandmarkThreads()));
         setLMProfiles(ghConfig.getLMProfiles());
 
         landmarkCount = ghConfig.getInt(Parameters.Landmark.COUNT, landmarkCount);
@@ -115,6 +118,18 @@ public class LMPreparationHandler {
         this.preparationThreads = preparationThreads;
     }
 
+    public int getLandmarkThreads() {
+        return landmarkThreads;
+    }
+
+    /**
+     * This method changes the number of threads used to calculate the landmarks of a single LM profile. Default is 1.
+     * The total number of threads is this number times the preparation threads, see {@link #setPreparationThreads(int)}.
+     */
+    public void setLandmarkThreads(int landmarkThreads) {
+        this.landmarkThreads = landmarkThreads;
+    }
+
     public LMPreparationHandler setLMProfiles(LMProfile... lmProfiles) {
         return setLMProfiles(Arrays.asList(lmProfiles));
     }
@@ -125,10 +140,13 @@ public class LMPreparationHandler {
     public LMPreparationHandler setLMProfiles(Collection<LMProfile> lmProfiles) {
         this.lmProfiles.clear();
         this.maximumWeights.clear();
+        this.compressedWeightProfiles.clear();
         for (LMProfile profile : lmProfiles) {
             if (profile.usesOtherPreparation())
                 continue;
             maximumWeights.put(profile.getProfile(), profile.getMaximumLMWeight());
+            if (profile.isCompressedWeights())
+                compressedWeightProfiles.add(profile.getProfile());
         }
         this.lmProfiles.addAll(lmProfiles);
         return this;
@@ -222,6 +240,8 @@ public class LMPreparationHandler {
                     lmConfig, landmarkCount).
                     setLandmarkSuggestions(lmSuggestions).
                     setMaximumWeight(maximumWeight).
+                    setCompressedWeights(compressedWeightProfiles.contains(lmConfig.getName())).
+                    setLandmarkThreads(landmarkThreads).
                     setLogDetails(logDetails);
             if (minNodes > 1)
                 prepareLandmarks.setMinimumNodes(minNodes);
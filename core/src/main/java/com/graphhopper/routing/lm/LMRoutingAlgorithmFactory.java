@@ -31,6 +31,7 @@ import static com.graphhopper.util.Parameters.Algorithms.AltRoute.*;
 public class LMRoutingAlgorithmFactory implements RoutingAlgorithmFactory {
     private final LandmarkStorage lms;
     private int defaultActiveLandmarks;
+    private ActiveLandmarkCache activeLandmarkCache;
 
     public LMRoutingAlgorithmFactory(LandmarkStorage lms) {
         this.lms = lms;
@@ -42,6 +43,14 @@ public class LMRoutingAlgorithmFactory implements RoutingAlgorithmFactory {
         return this;
     }
 
+    /**
+     * @param activeLandmarkCache the cache used to pick the active landmarks, or null to pick them for every query
+     */
+    public LMRoutingAlgorithmFactory setActiveLandmarkCache(ActiveLandmarkCache activeLandmarkCache) {
+        this.activeLandmarkCache = activeLandmarkCache;
+        return this;
+    }
+
     @Override
     public RoutingAlgorithm createAlgo(Graph g, Weighting w, AlgorithmOptions opts) {
         if (!lms.isInitialized())
@@ -81,6 +90,6 @@ public class LMRoutingAlgorithmFactory implements RoutingAlgorithmFactory {
     }
 
     private LMApproximator getApproximator(Graph g, int activeLM, double epsilon) {
-        return LMApproximator.forLandmarks(g, lms, activeLM).setEpsilon(epsilon);
+        return LMApproximator.forLandmarks(g, lms, activeLM).setEpsilon(epsilon).setActiveLandmarkCache(activeLandmarkCache);
     }
 }
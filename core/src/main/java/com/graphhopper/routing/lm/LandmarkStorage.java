@@ -48,8 +48,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
 
 /**
  * This class stores the landmark nodes and the weights from and to all other nodes in every
@@ -65,6 +70,24 @@ public class LandmarkStorage {
     private static final int SHORT_INFINITY = Short.MAX_VALUE * 2 + 1;
     // We have large values that do not fit into a short, use a specific maximum value
     private static final int SHORT_MAX = SHORT_INFINITY - 1;
+    // When the weights are compressed every weight is stored as a single byte that represents a range of short values
+    private static final int BYTE_INFINITY = 255;
+    private static final int BYTE_MAX = BYTE_INFINITY - 1;
+    // The smallest and largest short value every byte represents. The smallest values are stored exactly, but above this
+    // the ranges grow exponentially, so the relative error is roughly the same (~3.5%) for all larger weights.
+    private static final int[] BYTE_LOWER_BOUNDS = new int[BYTE_INFINITY + 1];
+    private static final int[] BYTE_UPPER_BOUNDS = new int[BYTE_INFINITY + 1];
+
+    static {
+        int exact = 32;
+        double growth = Math.pow((double) SHORT_MAX / exact, 1.0 / (BYTE_MAX - exact));
+        for (int b = 0; b < BYTE_MAX; b++)
+            BYTE_LOWER_BOUNDS[b] = b <= exact ? b : Math.max(BYTE_LOWER_BOUNDS[b - 1] + 1, (int) (exact * Math.pow(growth, b - exact)));
+        BYTE_LOWER_BOUNDS[BYTE_MAX] = BYTE_LOWER_BOUNDS[BYTE_INFINITY] = SHORT_MAX;
+        for (int b = 0; b < BYTE_MAX; b++)
+            BYTE_UPPER_BOUNDS[b] = BYTE_LOWER_BOUNDS[b + 1] - 1;
+        BYTE_UPPER_BOUNDS[BYTE_MAX] = BYTE_UPPER_BOUNDS[BYTE_INFINITY] = SHORT_MAX;
+    }
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LandmarkStorage.class);
     // This value is used to identify nodes where no subnetwork is associated
@@ -75,7 +98,9 @@ public class LandmarkStorage {
     private long LM_ROW_LENGTH;
     private int landmarks;
     private final int FROM_OFFSET;
-    private final int TO_OFFSET;
+    private int TO_OFFSET;
+    // the number of bytes used for a single weight, 1 if the weights are compressed and 2 otherwise
+    private int weightBytes;
     private final DataAccess landmarkWeightDA;
     // every subnetwork has its own landmark mapping but the count of landmarks is always the same
     private final List<int[]> landmarkIDs;
@@ -94,6 +119,9 @@ public class LandmarkStorage {
     private List<LandmarkSuggestion> landmarkSuggestions = Collections.emptyList();
     private AreaIndex<SplitArea> areaIndex;
     private boolean logDetails = false;
+    private int threads = 1;
+    // only set while the landmarks are created
+    private ExecutorService executorService;
     /**
      * 'to' and 'from' fit into 32 bit => 16 bit for each of them => 65536
      */
@@ -135,10 +163,8 @@ public class LandmarkStorage {
         this.landmarkWeightDA = dir.create("landmarks_" + lmConfig.getName());
 
         this.landmarks = landmarks;
-        // one short per landmark and two directions => 2*2 byte
-        this.LM_ROW_LENGTH = landmarks * 4;
         this.FROM_OFFSET = 0;
-        this.TO_OFFSET = 2;
+        setWeightBytes(2);
         this.landmarkIDs = new ArrayList<>();
         this.subnetworkStorage = new SubnetworkStorage(dir.create("landmarks_subnetwork_" + lmConfig.getName()));
     }
@@ -162,6 +188,30 @@ public class LandmarkStorage {
         return this;
     }
 
+    /**
+     * Stores every weight in a single byte instead of two bytes, which halves the memory needed for the landmark
+     * weights. The weights are quantized logarithmically, so the approximation gets less precise for nodes that are
+     * far away from the landmarks and the queries usually need to explore more nodes. The encoding is stored together
+     * with the weights, so this does not need to be set when the landmarks are loaded.
+     */
+    public LandmarkStorage setCompressedWeights(boolean compressedWeights) {
+        if (isInitialized())
+            throw new IllegalStateException("Cannot change the weight encoding after the landmarks were created or loaded");
+        setWeightBytes(compressedWeights ? 1 : 2);
+        return this;
+    }
+
+    public boolean isCompressedWeights() {
+        return weightBytes == 1;
+    }
+
+    private void setWeightBytes(int weightBytes) {
+        this.weightBytes = weightBytes;
+        // one weight per landmark and two directions
+        this.LM_ROW_LENGTH = (long) landmarks * 2 * weightBytes;
+        this.TO_OFFSET = weightBytes;
+    }
+
     /**
      * By default do not log many details.
      */
@@ -169,6 +219,18 @@ public class LandmarkStorage {
         this.logDetails = logDetails;
     }
 
+    /**
+     * This method sets the number of threads used to calculate the weights of the different landmarks of one
+     * subnetwork. Every thread needs its own shortest path tree, so make sure you have enough memory when increasing
+     * this number. Default is 1.
+     */
+    public LandmarkStorage setLandmarkThreads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("landmark threads must be at least 1, but was: " + threads);
+        this.threads = threads;
+        return this;
+    }
+
     /**
      * This method forces the landmark preparation to skip the landmark search and uses the specified landmark list instead.
      * Useful for manual tuning of larger areas to safe import time or improve quality.
@@ -230,13 +292,30 @@ public class LandmarkStorage {
         if (isInitialized())
             throw new IllegalStateException("Initialize the landmark storage only once!");
 
+        if (threads > 1)
+            executorService = Executors.newFixedThreadPool(threads);
+        try {
+            createLandmarksInternal();
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+                executorService = null;
+            }
+        }
+    }
+
+    private void createLandmarksInternal() {
+
         // fill 'from' and 'to' weights with maximum value
         long maxBytes = (long) graph.getNodes() * LM_ROW_LENGTH;
         this.landmarkWeightDA.create(2000);
         this.landmarkWeightDA.ensureCapacity(maxBytes);
 
-        for (long pointer = 0; pointer < maxBytes; pointer += 2) {
-            landmarkWeightDA.setShort(pointer, (short) SHORT_INFINITY);
+        for (long pointer = 0; pointer < maxBytes; pointer += weightBytes) {
+            if (weightBytes == 1)
+                landmarkWeightDA.setByte(pointer, (byte) BYTE_INFINITY);
+            else
+                landmarkWeightDA.setShort(pointer, (short) SHORT_INFINITY);
         }
 
         int[] empty = new int[landmarks];
@@ -339,6 +418,7 @@ public class LandmarkStorage {
         if (factor * DOUBLE_MLTPL > Integer.MAX_VALUE)
             throw new UnsupportedOperationException("landmark weight factor cannot be bigger than Integer.MAX_VALUE " + factor * DOUBLE_MLTPL);
         landmarkWeightDA.setHeader(3 * 4, (int) Math.round(factor * DOUBLE_MLTPL));
+        landmarkWeightDA.setHeader(4 * 4, weightBytes);
 
         // serialize fast byte[] into DataAccess
         subnetworkStorage.create(graph.getNodes());
@@ -379,13 +459,15 @@ public class LandmarkStorage {
                 }
 
                 // starting
-                for (int lmIdx = 0; lmIdx < tmpLandmarkNodeIds.length; lmIdx++) {
-                    int lmNodeId = tmpLandmarkNodeIds[lmIdx];
-                    explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, false);
-                    explorer.setStartNode(lmNodeId);
-                    explorer.runAlgo();
-                    maxWeight = Math.max(maxWeight, explorer.getLastEntry().weight);
-                }
+                double[] lmMaxWeights = new double[tmpLandmarkNodeIds.length];
+                runConcurrently(tmpLandmarkNodeIds.length, lmIdx -> {
+                    LandmarkExplorer lmExplorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, false);
+                    lmExplorer.setStartNode(tmpLandmarkNodeIds[lmIdx]);
+                    lmExplorer.runAlgo();
+                    lmMaxWeights[lmIdx] = lmExplorer.getLastEntry().weight;
+                });
+                for (double lmMaxWeight : lmMaxWeights)
+                    maxWeight = Math.max(maxWeight, lmMaxWeight);
                 break;
             }
         }
@@ -445,42 +527,83 @@ public class LandmarkStorage {
         }
 
         // 2) calculate weights for all landmarks -> 'from' and 'to' weight
-        for (int lmIdx = 0; lmIdx < tmpLandmarkNodeIds.length; lmIdx++) {
-            if (Thread.currentThread().isInterrupted()) {
-                throw new RuntimeException("Thread was interrupted for landmark " + lmIdx);
-            }
-            int lmNodeId = tmpLandmarkNodeIds[lmIdx];
-            LandmarkExplorer explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, false);
-            explorer.setStartNode(lmNodeId);
-            explorer.runAlgo();
-            explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, FROM_OFFSET);
-
-            // set subnetwork id to all explored nodes, but do this only for the first landmark
-            if (lmIdx == 0) {
-                if (explorer.setSubnetworks(subnetworks, subnetworkId))
-                    return false;
-            }
-
-            explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, true);
-            explorer.setStartNode(lmNodeId);
-            explorer.runAlgo();
-            explorer.initLandmarkWeights(lmIdx, lmNodeId, LM_ROW_LENGTH, TO_OFFSET);
-
-            if (lmIdx == 0) {
-                if (explorer.setSubnetworks(subnetworks, subnetworkId))
-                    return false;
-            }
+        // the first landmark determines the subnetwork, so we do not start the others before we know it is valid
+        if (!calcLandmarkWeights(0, tmpLandmarkNodeIds[0], accessFilter, subnetworks, subnetworkId))
+            return false;
 
-            if (logDetails && lmIdx % logOffset == 0)
+        // the weights of the other landmarks are written to different columns and can be calculated concurrently
+        AtomicInteger finishedLandmarks = new AtomicInteger(1);
+        runConcurrently(tmpLandmarkNodeIds.length - 1, i -> {
+            int lmIdx = i + 1;
+            calcLandmarkWeights(lmIdx, tmpLandmarkNodeIds[lmIdx], accessFilter, null, subnetworkId);
+            int finished = finishedLandmarks.getAndIncrement();
+            if (logDetails && finished % logOffset == 0)
                 LOGGER.info("Set landmarks weights [" + weighting + "]. "
-                        + "Progress " + (int) (100.0 * lmIdx / tmpLandmarkNodeIds.length) + "%");
-        }
+                        + "Progress " + (int) (100.0 * finished / tmpLandmarkNodeIds.length) + "%");
+        });
 
         // TODO set weight to SHORT_MAX if entry has either no 'from' or no 'to' entry
         landmarkIDs.add(tmpLandmarkNodeIds);
         return true;
     }
 
+    /**
+     * Calculates the 'from' and 'to' weights of the given landmark. If subnetworks is not null the subnetwork id is set
+     * for all explored nodes.
+     *
+     * @return false if the subnetwork id of an explored node was already set to a different subnetwork
+     */
+    private boolean calcLandmarkWeights(int lmIdx, int lmNodeId, EdgeFilter accessFilter, byte[] subnetworks, int subnetworkId) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new RuntimeException("Thread was interrupted for landmark " + lmIdx);
+        }
+        LandmarkExplorer explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, false);
+        explorer.setStartNode(lmNodeId);
+        explorer.runAlgo();
+        explorer.initLandmarkWeights(lmIdx, lmNodeId, FROM_OFFSET);
+
+        // set subnetwork id to all explored nodes
+        if (subnetworks != null && explorer.setSubnetworks(subnetworks, subnetworkId))
+            return false;
+
+        explorer = new LandmarkExplorer(graph, this, weighting, traversalMode, accessFilter, true);
+        explorer.setStartNode(lmNodeId);
+        explorer.runAlgo();
+        explorer.initLandmarkWeights(lmIdx, lmNodeId, TO_OFFSET);
+
+        return subnetworks == null || !explorer.setSubnetworks(subnetworks, subnetworkId);
+    }
+
+    /**
+     * Runs the given task for all indices in [0, count). The tasks run concurrently if more than one thread was
+     * configured, see {@link #setLandmarkThreads(int)}.
+     */
+    private void runConcurrently(int count, IntConsumer task) {
+        if (executorService == null || count < 2) {
+            for (int i = 0; i < count; i++)
+                task.accept(i);
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int index = i;
+            futures.add(executorService.submit(() -> task.accept(index)));
+        }
+        try {
+            for (Future<?> future : futures)
+                future.get();
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Thread was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /**
      * This method specifies the polygons which should be used to split the world wide area to improve performance and
      * quality in this scenario.
@@ -523,8 +646,10 @@ public class LandmarkStorage {
      * a node ID but the internal index of the landmark array.
      */
     int getFromWeight(int landmarkIndex, int node) {
-        int res = (int) landmarkWeightDA.getShort((long) node * LM_ROW_LENGTH + landmarkIndex * 4 + FROM_OFFSET)
-                & 0x0000FFFF;
+        long pointer = toPointer(landmarkIndex, node, FROM_OFFSET);
+        if (weightBytes == 1)
+            return BYTE_LOWER_BOUNDS[landmarkWeightDA.getByte(pointer) & 0xFF];
+        int res = (int) landmarkWeightDA.getShort(pointer) & 0x0000FFFF;
         if (res == SHORT_INFINITY)
             // TODO can happen if endstanding oneway
             // we should set a 'from' value to SHORT_MAX if the 'to' value was already set to find real bugs
@@ -540,14 +665,39 @@ public class LandmarkStorage {
      * @return the weight from the specified node to the landmark (specified *as index*)
      */
     int getToWeight(int landmarkIndex, int node) {
-        int res = (int) landmarkWeightDA.getShort((long) node * LM_ROW_LENGTH + landmarkIndex * 4 + TO_OFFSET)
-                & 0x0000FFFF;
+        long pointer = toPointer(landmarkIndex, node, TO_OFFSET);
+        if (weightBytes == 1)
+            return BYTE_LOWER_BOUNDS[landmarkWeightDA.getByte(pointer) & 0xFF];
+        int res = (int) landmarkWeightDA.getShort(pointer) & 0x0000FFFF;
         if (res == SHORT_INFINITY)
             return SHORT_MAX;
 
         return res;
     }
 
+    /**
+     * @return an upper bound of the weight from the landmark to the specified node, i.e. {@link #getFromWeight} is the
+     * lower bound. Both are the same unless the weights are compressed.
+     */
+    int getFromWeightUpperBound(int landmarkIndex, int node) {
+        if (weightBytes == 1)
+            return BYTE_UPPER_BOUNDS[landmarkWeightDA.getByte(toPointer(landmarkIndex, node, FROM_OFFSET)) & 0xFF];
+        return getFromWeight(landmarkIndex, node);
+    }
+
+    /**
+     * @return an upper bound of the weight from the specified node to the landmark, see {@link #getFromWeightUpperBound}
+     */
+    int getToWeightUpperBound(int landmarkIndex, int node) {
+        if (weightBytes == 1)
+            return BYTE_UPPER_BOUNDS[landmarkWeightDA.getByte(toPointer(landmarkIndex, node, TO_OFFSET)) & 0xFF];
+        return getToWeight(landmarkIndex, node);
+    }
+
+    private long toPointer(int landmarkIndex, int node, int offset) {
+        return (long) node * LM_ROW_LENGTH + (long) landmarkIndex * 2 * weightBytes + offset;
+    }
+
     /**
      * @return false if the value capacity was reached and instead of the real value the SHORT_MAX was stored.
      */
@@ -556,6 +706,16 @@ public class LandmarkStorage {
         if (tmpVal > Integer.MAX_VALUE)
             throw new UnsupportedOperationException("Cannot store infinity explicitly, pointer=" + pointer + ", value=" + value + ", factor=" + factor);
 
+        if (weightBytes == 1) {
+            if (tmpVal >= SHORT_MAX) {
+                landmarkWeightDA.setByte(pointer, (byte) BYTE_MAX);
+                return false;
+            }
+            // the largest byte whose range starts at or below the value
+            int index = Arrays.binarySearch(BYTE_LOWER_BOUNDS, 0, BYTE_MAX, (int) tmpVal);
+            landmarkWeightDA.setByte(pointer, (byte) (index >= 0 ? index : -index - 2));
+            return true;
+        }
         if (tmpVal >= SHORT_MAX) {
             landmarkWeightDA.setShort(pointer, (short) SHORT_MAX);
             return false;
@@ -566,6 +726,8 @@ public class LandmarkStorage {
     }
 
     boolean isInfinity(long pointer) {
+        if (weightBytes == 1)
+            return ((int) landmarkWeightDA.getByte(pointer) & 0xFF) == BYTE_INFINITY;
         return ((int) landmarkWeightDA.getShort(pointer) & 0x0000FFFF) == SHORT_INFINITY;
     }
 
@@ -575,6 +737,14 @@ public class LandmarkStorage {
 
     // From all available landmarks pick just a few active ones
     boolean chooseActiveLandmarks(int fromNode, int toNode, int[] activeLandmarkIndices, boolean reverse) {
+        return chooseActiveLandmarks(fromNode, toNode, activeLandmarkIndices, reverse, null);
+    }
+
+    /**
+     * Same as {@link #chooseActiveLandmarks(int, int, int[], boolean)}, but the initial choice is looked up in (and
+     * added to) the given cache, if it is not null.
+     */
+    boolean chooseActiveLandmarks(int fromNode, int toNode, int[] activeLandmarkIndices, boolean reverse, ActiveLandmarkCache cache) {
         if (fromNode < 0 || toNode < 0)
             throw new IllegalStateException("from " + fromNode + " and to "
                     + toNode + " nodes have to be 0 or positive to init landmarks");
@@ -588,6 +758,15 @@ public class LandmarkStorage {
                     + " vs. " + subnetworkTo, new HashMap<>());
         }
 
+        long fromTile = 0, toTile = 0;
+        boolean useCache = cache != null && activeLandmarkIndices[0] < 0;
+        if (useCache) {
+            fromTile = cache.getTile(na.getLat(fromNode), na.getLon(fromNode));
+            toTile = cache.getTile(na.getLat(toNode), na.getLon(toNode));
+            if (cache.get(subnetworkFrom, fromTile, toTile, reverse, activeLandmarkIndices))
+                return true;
+        }
+
         // See the similar formula in LMApproximator.approximateForLandmark
         List<Map.Entry<Integer, Integer>> list = new ArrayList<>(landmarks);
         for (int lmIndex = 0; lmIndex < landmarks; lmIndex++) {
@@ -623,6 +802,8 @@ public class LandmarkStorage {
             }
         }
 
+        if (useCache)
+            cache.put(subnetworkFrom, fromTile, toTile, reverse, activeLandmarkIndices);
         return true;
     }
 
@@ -693,7 +874,9 @@ public class LandmarkStorage {
             landmarks = landmarkWeightDA.getHeader(1 * 4);
             int subnetworks = landmarkWeightDA.getHeader(2 * 4);
             factor = landmarkWeightDA.getHeader(3 * 4) / DOUBLE_MLTPL;
-            LM_ROW_LENGTH = landmarks * 4;
+            // landmark data that was written before the weights could be compressed has no encoding header
+            int storedWeightBytes = landmarkWeightDA.getHeader(4 * 4);
+            setWeightBytes(storedWeightBytes == 0 ? 2 : storedWeightBytes);
             long maxBytes = LM_ROW_LENGTH * nodes;
             long bytePos = maxBytes;
 
@@ -862,7 +1045,7 @@ public class LandmarkStorage {
             return failed.get();
         }
 
-        public void initLandmarkWeights(final int lmIdx, int lmNodeId, final long rowSize, final int offset) {
+        public void initLandmarkWeights(final int lmIdx, int lmNodeId, final int offset) {
             IntObjectMap<SPTEntry> map = reverse ? bestWeightMapTo : bestWeightMapFrom;
             final AtomicInteger maxedout = new AtomicInteger(0);
             final Map.Entry<Double, Double> finalMaxWeight = new MapEntry<>(0d, 0d);
@@ -870,7 +1053,7 @@ public class LandmarkStorage {
             map.forEach(new IntObjectProcedure<SPTEntry>() {
                 @Override
                 public void apply(int nodeId, SPTEntry b) {
-                    if (!lms.setWeight(nodeId * rowSize + lmIdx * 4 + offset, b.weight)) {
+                    if (!lms.setWeight(lms.toPointer(lmIdx, nodeId, offset), b.weight)) {
                         maxedout.incrementAndGet();
                         finalMaxWeight.setValue(Math.max(b.weight, finalMaxWeight.getValue()));
                     }
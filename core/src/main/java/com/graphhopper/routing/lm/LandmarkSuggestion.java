@@ -43,10 +43,8 @@ public class LandmarkSuggestion {
         // landmarks should be suited for all vehicles
         EdgeFilter edgeFilter = EdgeFilter.ALL_EDGES;
         List<String> lines = Helper.readFile(file);
-        List<Integer> landmarkNodeIds = new ArrayList<>();
+        List<GHPoint> points = new ArrayList<>();
         BBox bbox = BBox.createInverse(false);
-        int lmSuggestionIdx = 0;
-        String errors = "";
         for (String lmStr : lines) {
             if (lmStr.startsWith("#BBOX:")) {
                 bbox = BBox.parseTwoPoints(lmStr.substring("#BBOX:".length()));
@@ -57,17 +55,28 @@ public class LandmarkSuggestion {
 
             GHPoint point = GHPoint.fromStringLonLat(lmStr);
             if (point == null)
-                throw new RuntimeException("Invalid format " + lmStr + " for point " + lmSuggestionIdx);
+                throw new RuntimeException("Invalid format " + lmStr + " for point " + points.size());
+            points.add(point);
+        }
 
-            lmSuggestionIdx++;
-            Snap result = locationIndex.findClosest(point.lat, point.lon, edgeFilter);
-            if (!result.isValid()) {
-                errors += "Cannot find close node found for landmark suggestion[" + lmSuggestionIdx + "]=" + point + ".\n";
+        double[] lats = new double[points.size()];
+        double[] lons = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(i).lat;
+            lons[i] = points.get(i).lon;
+        }
+        Snap[] snaps = locationIndex.findClosest(lats, lons, edgeFilter);
+        List<Integer> landmarkNodeIds = new ArrayList<>();
+        String errors = "";
+        for (int i = 0; i < snaps.length; i++) {
+            GHPoint point = points.get(i);
+            if (!snaps[i].isValid()) {
+                errors += "Cannot find close node found for landmark suggestion[" + (i + 1) + "]=" + point + ".\n";
                 continue;
             }
 
             bbox.update(point.lat, point.lon);
-            landmarkNodeIds.add(result.getClosestNode());
+            landmarkNodeIds.add(snaps[i].getClosestNode());
         }
 
         if (!errors.isEmpty())
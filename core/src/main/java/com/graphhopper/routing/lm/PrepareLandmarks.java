@@ -74,6 +74,14 @@ public class PrepareLandmarks {
         return this;
     }
 
+    /**
+     * @see LandmarkStorage#setCompressedWeights(boolean)
+     */
+    public PrepareLandmarks setCompressedWeights(boolean compressedWeights) {
+        lms.setCompressedWeights(compressedWeights);
+        return this;
+    }
+
     /**
      * @see LandmarkStorage#setLMSelectionWeighting(Weighting)
      */
@@ -91,6 +99,14 @@ public class PrepareLandmarks {
         lms.setMinimumNodes(nodes);
     }
 
+    /**
+     * @see LandmarkStorage#setLandmarkThreads(int)
+     */
+    public PrepareLandmarks setLandmarkThreads(int threads) {
+        lms.setLandmarkThreads(threads);
+        return this;
+    }
+
     public PrepareLandmarks setLogDetails(boolean logDetails) {
         lms.setLogDetails(logDetails);
         return this;
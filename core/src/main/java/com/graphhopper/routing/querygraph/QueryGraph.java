@@ -46,6 +46,11 @@ import java.util.*;
  * to each adjacent nodes via 2 virtual edges with opposite base node / adjacent node encoding.
  * However, the edge explorer returned by {@link #createEdgeExplorer()} only returns two
  * virtual edges per virtual node (the ones with correct base node).
+ * <p>
+ * Apart from the 'unfavored' status of the virtual edges (see {@link #unfavorVirtualEdge(int)}) a query graph is
+ * not modified by the routing algorithms. To run several path calculations for the same snaps concurrently the query
+ * graph only needs to be created once and every thread can use its own {@link #copy()}, which shares the virtual nodes
+ * and edges but keeps a separate unfavored status.
  *
  * @author Peter Karich
  */
@@ -57,9 +62,11 @@ public class QueryGraph implements Graph {
     private final TurnCostStorage turnCostStorage;
     private final NodeAccess nodeAccess;
     private final QueryOverlay queryOverlay;
+    // the same as queryOverlay.getVirtualEdges() unless this graph is a copy
+    private final List<VirtualEdgeIteratorState> virtualEdges;
 
-    // Use LinkedHashSet for predictable iteration order.
-    private final Set<VirtualEdgeIteratorState> unfavoredEdges = new LinkedHashSet<>(5);
+    // there are only a few unfavored edges, so a list is faster than a set to add and clear them
+    private final List<VirtualEdgeIteratorState> unfavoredEdges = new ArrayList<>(4);
     private final IntObjectMap<List<EdgeIteratorState>> virtualEdgesAtRealNodes;
     private final List<List<EdgeIteratorState>> virtualEdgesAtVirtualNodes;
 
@@ -99,6 +106,7 @@ public class QueryGraph implements Graph {
         baseEdges = graph.getEdges();
 
         queryOverlay = QueryOverlayBuilder.build(graph, snaps);
+        virtualEdges = queryOverlay.getVirtualEdges();
         nodeAccess = new ExtendedNodeAccess(graph.getNodeAccess(), queryOverlay.getVirtualNodes(), baseNodes);
         turnCostStorage = baseGraph.getTurnCostStorage();
 
@@ -109,6 +117,44 @@ public class QueryGraph implements Graph {
         virtualEdgesAtVirtualNodes = buildVirtualEdgesAtVirtualNodes();
     }
 
+    private QueryGraph(QueryGraph other) {
+        baseGraph = other.baseGraph;
+        baseNodes = other.baseNodes;
+        baseEdges = other.baseEdges;
+        queryOverlay = other.queryOverlay;
+        nodeAccess = other.nodeAccess;
+        turnCostStorage = other.turnCostStorage;
+
+        virtualEdges = new ArrayList<>(other.virtualEdges.size());
+        for (VirtualEdgeIteratorState edge : other.virtualEdges)
+            virtualEdges.add(edge.copy());
+        for (int i = 0; i < virtualEdges.size(); i += 2) {
+            virtualEdges.get(i).setReverseEdge(virtualEdges.get(i + 1));
+            virtualEdges.get(i + 1).setReverseEdge(virtualEdges.get(i));
+        }
+        virtualEdgesAtRealNodes = new GHIntObjectHashMap<>(other.virtualEdgesAtRealNodes.size());
+        other.virtualEdgesAtRealNodes.forEach(new IntObjectProcedure<List<EdgeIteratorState>>() {
+            @Override
+            public void apply(int node, List<EdgeIteratorState> edges) {
+                List<EdgeIteratorState> copiedEdges = new ArrayList<>(edges.size());
+                // the detached edges of the base graph are never modified, so we can keep them
+                for (EdgeIteratorState edge : edges)
+                    copiedEdges.add(edge instanceof VirtualEdgeIteratorState ? getVirtualEdge(edge.getEdgeKey() - 2 * baseEdges) : edge);
+                virtualEdgesAtRealNodes.put(node, copiedEdges);
+            }
+        });
+        virtualEdgesAtVirtualNodes = buildVirtualEdgesAtVirtualNodes();
+    }
+
+    /**
+     * Creates a query graph with the same virtual nodes and edges as this one without running the (more expensive)
+     * overlay construction again. The copy has its own unfavored status, so it can be used by another thread while
+     * this query graph is used for other path calculations.
+     */
+    public QueryGraph copy() {
+        return new QueryGraph(this);
+    }
+
     public QueryOverlay getQueryOverlay() {
         return queryOverlay;
     }
@@ -139,6 +185,8 @@ public class QueryGraph implements Graph {
         if (!isVirtualEdge(virtualEdgeId))
             return;
         VirtualEdgeIteratorState edge = getVirtualEdge(getInternalVirtualEdgeId(virtualEdgeId));
+        if (edge.get(EdgeIteratorState.UNFAVORED_EDGE))
+            return;
         edge.setUnfavored(true);
         unfavoredEdges.add(edge);
         // we have to set the unfavored flag also for the virtual edge state that is used when we discover the same edge
@@ -159,7 +207,7 @@ public class QueryGraph implements Graph {
     }
 
     /**
-     * Removes the 'unfavored' status of all virtual edges.
+     * Removes the 'unfavored' status of all virtual edges. This only touches the edges that were unfavored before.
      */
     public void clearUnfavoredStatus() {
         for (VirtualEdgeIteratorState edge : unfavoredEdges) {
@@ -215,7 +263,7 @@ public class QueryGraph implements Graph {
     }
 
     private VirtualEdgeIteratorState getVirtualEdge(int edgeId) {
-        return queryOverlay.getVirtualEdge(edgeId);
+        return virtualEdges.get(edgeId);
     }
 
     static int getPosOfReverseEdge(int edgeId) {
@@ -273,8 +321,8 @@ public class QueryGraph implements Graph {
         final List<List<EdgeIteratorState>> virtualEdgesAtVirtualNodes = new ArrayList<>();
         for (int i = 0; i < queryOverlay.getVirtualNodes().size(); i++) {
             List<EdgeIteratorState> virtualEdges = Arrays.<EdgeIteratorState>asList(
-                    queryOverlay.getVirtualEdge(i * 4 + SNAP_BASE),
-                    queryOverlay.getVirtualEdge(i * 4 + SNAP_ADJ)
+                    getVirtualEdge(i * 4 + SNAP_BASE),
+                    getVirtualEdge(i * 4 + SNAP_ADJ)
             );
             virtualEdgesAtVirtualNodes.add(virtualEdges);
         }
@@ -319,7 +367,7 @@ public class QueryGraph implements Graph {
     }
 
     List<VirtualEdgeIteratorState> getVirtualEdges() {
-        return queryOverlay.getVirtualEdges();
+        return virtualEdges;
     }
 
     private UnsupportedOperationException exc() {
@@ -356,4 +356,12 @@ public class VirtualEdgeIteratorState implements EdgeIteratorState {
         this.reverseEdge = reverseEdge;
     }
 
+    /**
+     * @return a copy of this edge that shares the flags and the geometry with this edge, but is not unfavored and
+     * has no reverse edge yet
+     */
+    VirtualEdgeIteratorState copy() {
+        return new VirtualEdgeIteratorState(originalEdgeKey, edgeKey, baseNode, adjNode, distance, edgeFlags, name, pointList, reverse);
+    }
+
 }
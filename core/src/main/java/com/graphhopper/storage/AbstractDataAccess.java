@@ -33,6 +33,8 @@ public abstract class AbstractDataAccess implements DataAccess {
     protected static final int HEADER_OFFSET = 20 * 4 + 20;
     protected static final byte[] EMPTY = new byte[1024];
     private static final int SEGMENT_SIZE_DEFAULT = 1 << 20;
+    // the maximum size of the segment in the single segment mode, larger DataAccess objects use multiple segments
+    protected static final int SINGLE_SEGMENT_MAX = 1 << 30;
     protected final ByteOrder byteOrder = ByteOrder.LITTLE_ENDIAN;
     protected final BitUtil bitUtil = BitUtil.LITTLE;
     private final String location;
@@ -42,6 +44,7 @@ public abstract class AbstractDataAccess implements DataAccess {
     protected int segmentSizePower;
     protected int indexDivisor;
     protected boolean closed = false;
+    protected boolean singleSegment = false;
 
     public AbstractDataAccess(String name, String location, int segmentSize) {
         this.name = name;
@@ -132,6 +135,33 @@ public abstract class AbstractDataAccess implements DataAccess {
         return this;
     }
 
+    /**
+     * In the single segment mode the data is kept in one segment that grows by doubling its size whenever more space
+     * is needed (up to 1GB, if even more space is needed further segments of this size are added). This allows direct
+     * access to the data via {@link #createIntReader()}, but the growth is more expensive and up to half of the segment
+     * might be unused. Call this before create.
+     */
+    public DataAccess setSingleSegment(boolean singleSegment) {
+        this.singleSegment = singleSegment;
+        return this;
+    }
+
+    public boolean isSingleSegment() {
+        return singleSegment;
+    }
+
+    /**
+     * @return the size the single segment needs to have to store the given bytes. This is never smaller than the
+     * current segment size (if there is a segment already) and never larger than {@link #SINGLE_SEGMENT_MAX}.
+     */
+    protected int getSingleSegmentSize(long bytes) {
+        long size = getSegments() == 0 ? SEGMENT_SIZE_MIN : segmentSizeInBytes;
+        while (size < bytes && size < SINGLE_SEGMENT_MAX) {
+            size <<= 1;
+        }
+        return (int) size;
+    }
+
     @Override
     public int getSegmentSize() {
         return segmentSizeInBytes;
@@ -27,6 +27,8 @@ import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.BBox;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 
 import static com.graphhopper.util.Helper.nf;
@@ -57,6 +59,13 @@ public class BaseGraph implements Graph, Closeable {
     private final int segmentSize;
     private boolean initialized = false;
     private long maxGeoRef;
+    private boolean compressedGeometry;
+    private boolean csrAdjacency;
+    // the edges adjacent to every node in compressed sparse row format, only available for frozen graphs, see
+    // setCSRAdjacency. adjEdgeKeys contains the edge keys pointing away from the node and adjNodes the adjacent nodes
+    int[] adjOffsets;
+    int[] adjEdgeKeys;
+    int[] adjNodes;
 
     public BaseGraph(Directory dir, int intsForFlags, boolean withElevation, boolean withTurnCosts, int segmentSize) {
         this.dir = dir;
@@ -66,7 +75,7 @@ public class BaseGraph implements Graph, Closeable {
         this.store = new BaseGraphNodesAndEdges(dir, intsForFlags, withElevation, withTurnCosts, segmentSize);
         this.nodeAccess = new GHNodeAccess(store);
         this.segmentSize = segmentSize;
-        turnCostStorage = withTurnCosts ? new TurnCostStorage(this, dir.create("turn_costs", segmentSize)) : null;
+        turnCostStorage = withTurnCosts ? new TurnCostStorage(this, dir.create("turn_costs", segmentSize), dir.create("turn_cost_index", segmentSize)) : null;
     }
 
     private int getOtherNode(int nodeThis, long edgePointer) {
@@ -99,9 +108,73 @@ public class BaseGraph implements Graph, Closeable {
                     + "after calling create or loadExisting. Calling one of the methods twice is also not allowed.");
     }
 
+    /**
+     * Stores the pillar nodes of the way geometries as zig-zag encoded variable-length deltas instead of full-width
+     * integers, which usually makes the geometry storage less than half as large. This needs to be set before
+     * {@link #create}. For existing graphs the format is read from the geometry header, so graphs that were created
+     * with the uncompressed format can still be loaded.
+     */
+    public BaseGraph setCompressedGeometry(boolean compressedGeometry) {
+        checkNotInitialized();
+        this.compressedGeometry = compressedGeometry;
+        return this;
+    }
+
+    public boolean isCompressedGeometry() {
+        return compressedGeometry;
+    }
+
+    /**
+     * Copies the edges adjacent to every node into contiguous arrays once the graph is frozen (or when a frozen graph
+     * is loaded). The edge explorers then read the adjacent edges and nodes sequentially instead of following the
+     * linked lists of the edge storage, while the iteration order stays the same. The arrays are kept on the heap and
+     * need 4 bytes per node and 16 bytes per edge. They are not stored, so this needs to be set before {@link #create}
+     * or {@link #loadExisting}.
+     */
+    public BaseGraph setCSRAdjacency(boolean csrAdjacency) {
+        checkNotInitialized();
+        this.csrAdjacency = csrAdjacency;
+        return this;
+    }
+
+    public boolean isCSRAdjacency() {
+        return csrAdjacency;
+    }
+
+    private void buildCSRAdjacency() {
+        int nodes = store.getNodes();
+        long maxEntries = 2L * store.getEdges();
+        if (maxEntries > Integer.MAX_VALUE - 8)
+            throw new IllegalStateException("Too many edges for the CSR adjacency: " + store.getEdges());
+        int[] offsets = new int[nodes + 1];
+        int[] edgeKeys = new int[(int) maxEntries];
+        int[] adjacentNodes = new int[(int) maxEntries];
+        int index = 0;
+        for (int node = 0; node < nodes; node++) {
+            offsets[node] = index;
+            // we follow the linked list just like EdgeIteratorImpl#goToNext so the order of the edges does not change
+            int edge = store.getEdgeRef(store.toNodePointer(node));
+            while (EdgeIterator.Edge.isValid(edge)) {
+                long edgePointer = store.toEdgePointer(edge);
+                int nodeA = store.getNodeA(edgePointer);
+                boolean baseNodeIsNodeA = node == nodeA;
+                edgeKeys[index] = GHUtility.createEdgeKey(edge, !baseNodeIsNodeA);
+                adjacentNodes[index] = baseNodeIsNodeA ? store.getNodeB(edgePointer) : nodeA;
+                index++;
+                edge = baseNodeIsNodeA ? store.getLinkA(edgePointer) : store.getLinkB(edgePointer);
+            }
+        }
+        offsets[nodes] = index;
+        // loops are only contained in the list of their node once
+        adjOffsets = offsets;
+        adjEdgeKeys = index < edgeKeys.length ? Arrays.copyOf(edgeKeys, index) : edgeKeys;
+        adjNodes = index < adjacentNodes.length ? Arrays.copyOf(adjacentNodes, index) : adjacentNodes;
+    }
+
     private void loadWayGeometryHeader() {
         int geometryVersion = wayGeometry.getHeader(0);
-        GHUtility.checkDAVersion(wayGeometry.getName(), Constants.VERSION_GEOMETRY, geometryVersion);
+        GHUtility.checkDAVersion(wayGeometry.getName(), new int[]{Constants.VERSION_GEOMETRY, Constants.VERSION_GEOMETRY_COMPRESSED}, geometryVersion);
+        compressedGeometry = geometryVersion == Constants.VERSION_GEOMETRY_COMPRESSED;
         maxGeoRef = bitUtil.combineIntsToLong(
                 wayGeometry.getHeader(4),
                 wayGeometry.getHeader(8)
@@ -109,7 +182,7 @@ public class BaseGraph implements Graph, Closeable {
     }
 
     private void setWayGeometryHeader() {
-        wayGeometry.setHeader(0, Constants.VERSION_GEOMETRY);
+        wayGeometry.setHeader(0, compressedGeometry ? Constants.VERSION_GEOMETRY_COMPRESSED : Constants.VERSION_GEOMETRY);
         wayGeometry.setHeader(4, bitUtil.getIntLow(maxGeoRef));
         wayGeometry.setHeader(8, bitUtil.getIntHigh(maxGeoRef));
     }
@@ -146,12 +219,59 @@ public class BaseGraph implements Graph, Closeable {
         if (isFrozen())
             throw new IllegalStateException("base graph already frozen");
         store.setFrozen(true);
+        if (supportsTurnCosts())
+            turnCostStorage.buildLookupIndex();
+        if (csrAdjacency)
+            buildCSRAdjacency();
     }
 
     public synchronized boolean isFrozen() {
         return store.getFrozen();
     }
 
+    /**
+     * Renumbers the nodes of this graph in place such that node i becomes newNodes[i]. The edges are renumbered in
+     * the order of their smaller new node id, so the edges of nodes that are close in the new order are also close
+     * in storage. The geometries and names are kept where they are and the edge ids of the turn cost entries are
+     * updated. This has to be done before the graph is frozen, because CH and LM depend on the node and edge ids.
+     *
+     * @return the new edge ids, i.e. edge j became the j-th entry of the returned array
+     */
+    public int[] reorder(int[] newNodes) {
+        if (isFrozen())
+            throw new IllegalStateException("Cannot reorder a frozen graph");
+        int nodes = getNodes();
+        if (newNodes.length != nodes)
+            throw new IllegalArgumentException("newNodes must contain an entry for each of the " + nodes + " nodes, but had " + newNodes.length);
+        BitSet seen = new BitSet(nodes);
+        for (int newNode : newNodes) {
+            if (newNode < 0 || newNode >= nodes || seen.get(newNode))
+                throw new IllegalArgumentException("newNodes must be a permutation of the node ids, invalid or duplicate entry: " + newNode);
+            seen.set(newNode);
+        }
+
+        // counting sort of the edges by the smaller of their two new nodes, edges with the same node keep their order
+        int edges = getEdges();
+        int[] firstEdgeOfNode = new int[nodes + 1];
+        for (int edge = 0; edge < edges; edge++)
+            firstEdgeOfNode[getFirstNewNode(edge, newNodes) + 1]++;
+        for (int node = 0; node < nodes; node++)
+            firstEdgeOfNode[node + 1] += firstEdgeOfNode[node];
+        int[] newEdges = new int[edges];
+        for (int edge = 0; edge < edges; edge++)
+            newEdges[edge] = firstEdgeOfNode[getFirstNewNode(edge, newNodes)]++;
+
+        store.reorder(newNodes, newEdges);
+        if (supportsTurnCosts())
+            turnCostStorage.reorderEdges(newEdges);
+        return newEdges;
+    }
+
+    private int getFirstNewNode(int edge, int[] newNodes) {
+        long edgePointer = store.toEdgePointer(edge);
+        return Math.min(newNodes[store.getNodeA(edgePointer)], newNodes[store.getNodeB(edgePointer)]);
+    }
+
     public BaseGraph create(long initSize) {
         checkNotInitialized();
         dir.create();
@@ -213,6 +333,9 @@ public class BaseGraph implements Graph, Closeable {
         if (supportsTurnCosts()) {
             turnCostStorage.close();
         }
+        adjOffsets = null;
+        adjEdgeKeys = null;
+        adjNodes = null;
     }
 
     public long getCapacity() {
@@ -241,6 +364,8 @@ public class BaseGraph implements Graph, Closeable {
 
         setInitialized();
         loadWayGeometryHeader();
+        if (csrAdjacency && isFrozen())
+            buildCSRAdjacency();
     }
 
     /**
@@ -336,6 +461,10 @@ public class BaseGraph implements Graph, Closeable {
                         + "D for graph which is " + nodeAccess.getDimension() + "D");
 
             long existingGeoRef = Helper.toUnsignedLong(store.getGeoRef(edgePointer));
+            if (compressedGeometry) {
+                setCompressedWayGeometry(pillarNodes, edgePointer, reverse, existingGeoRef);
+                return;
+            }
 
             int len = pillarNodes.size();
             int dim = nodeAccess.getDimension();
@@ -391,6 +520,108 @@ public class BaseGraph implements Graph, Closeable {
         return bytes;
     }
 
+    private void setCompressedWayGeometry(PointList pillarNodes, long edgePointer, boolean reverse, long existingGeoRef) {
+        byte[] bytes = createCompressedWayGeometryBytes(pillarNodes, reverse);
+        long geoRef;
+        if (existingGeoRef > 0 && bytes.length <= getCompressedWayGeometryLength(existingGeoRef * 4L))
+            geoRef = existingGeoRef;
+        else
+            // the geoRef is a multiple of four bytes and nextGeoRef always reserves an additional int for the count
+            geoRef = nextGeoRef((bytes.length + 3) / 4 - 1);
+        long geoRefPosition = geoRef * 4;
+        ensureGeometry(geoRefPosition, bytes.length);
+        wayGeometry.setBytes(geoRefPosition, bytes, bytes.length);
+        store.setGeoRef(edgePointer, Helper.toSignedInt(geoRef));
+    }
+
+    /**
+     * The compressed format is: count | length | lat/lon(/ele) of the first point | deltas to the previous point ...
+     * where all values are variable-length longs (see {@link VLongStorage}) and the coordinates and deltas are
+     * zig-zag encoded such that small negative values also use only a few bytes. The length is the number of bytes
+     * used for the points.
+     */
+    private byte[] createCompressedWayGeometryBytes(PointList pillarNodes, boolean reverse) {
+        int len = pillarNodes.size();
+        boolean is3D = nodeAccess.is3D();
+        if (reverse)
+            pillarNodes.reverse();
+
+        VLongStorage points = new VLongStorage(len * nodeAccess.getDimension() * 2);
+        int prevLat = 0, prevLon = 0, prevEle = 0;
+        for (int i = 0; i < len; i++) {
+            int lat = Helper.degreeToInt(pillarNodes.getLat(i));
+            int lon = Helper.degreeToInt(pillarNodes.getLon(i));
+            points.writeVLong(zigZagEncode((long) lat - prevLat));
+            points.writeVLong(zigZagEncode((long) lon - prevLon));
+            prevLat = lat;
+            prevLon = lon;
+            if (is3D) {
+                int ele = Helper.eleToInt(pillarNodes.getEle(i));
+                points.writeVLong(zigZagEncode((long) ele - prevEle));
+                prevEle = ele;
+            }
+        }
+        int pointsLength = (int) points.getPosition();
+        VLongStorage header = new VLongStorage(10);
+        header.writeVLong(len);
+        header.writeVLong(pointsLength);
+        int headerLength = (int) header.getPosition();
+        byte[] bytes = new byte[headerLength + pointsLength];
+        System.arraycopy(header.getBytes(), 0, bytes, 0, headerLength);
+        System.arraycopy(points.getBytes(), 0, bytes, headerLength, pointsLength);
+        return bytes;
+    }
+
+    private int getCompressedWayGeometryLength(long bytePos) {
+        long count = readVLong(bytePos);
+        int countLength = getVLongLength(count);
+        long pointsLength = readVLong(bytePos + countLength);
+        return countLength + getVLongLength(pointsLength) + (int) pointsLength;
+    }
+
+    private void addCompressedPillarNodes(PointList pillarNodes, byte[] bytes, int count) {
+        VLongStorage points = new VLongStorage(bytes);
+        boolean is3D = nodeAccess.is3D();
+        int lat = 0, lon = 0, ele = 0;
+        for (int i = 0; i < count; i++) {
+            lat = (int) (lat + zigZagDecode(points.readVLong()));
+            lon = (int) (lon + zigZagDecode(points.readVLong()));
+            if (is3D) {
+                ele = (int) (ele + zigZagDecode(points.readVLong()));
+                pillarNodes.add(Helper.intToDegree(lat), Helper.intToDegree(lon), Helper.intToEle(ele));
+            } else {
+                pillarNodes.add(Helper.intToDegree(lat), Helper.intToDegree(lon));
+            }
+        }
+    }
+
+    private long readVLong(long bytePos) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = wayGeometry.getByte(bytePos++);
+            value |= (b & 0x7FL) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    private static int getVLongLength(long value) {
+        int length = 1;
+        while ((value & ~0x7FL) != 0L) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
     private PointList fetchWayGeometry_(long edgePointer, boolean reverse, FetchMode mode, int baseNode, int adjNode) {
         if (mode == FetchMode.TOWER_ONLY) {
             // no reverse handling required as adjNode and baseNode is already properly switched
@@ -404,10 +635,17 @@ public class BaseGraph implements Graph, Closeable {
         byte[] bytes = null;
         if (geoRef > 0) {
             geoRef *= 4L;
-            count = wayGeometry.getInt(geoRef);
-
-            geoRef += 4L;
-            bytes = new byte[count * nodeAccess.getDimension() * 4];
+            if (compressedGeometry) {
+                count = (int) readVLong(geoRef);
+                geoRef += getVLongLength(count);
+                int pointsLength = (int) readVLong(geoRef);
+                geoRef += getVLongLength(pointsLength);
+                bytes = new byte[pointsLength];
+            } else {
+                count = wayGeometry.getInt(geoRef);
+                geoRef += 4L;
+                bytes = new byte[count * nodeAccess.getDimension() * 4];
+            }
             wayGeometry.getBytes(geoRef, bytes, bytes.length);
         } else if (mode == FetchMode.PILLAR_ONLY)
             return PointList.EMPTY;
@@ -419,17 +657,21 @@ public class BaseGraph implements Graph, Closeable {
         } else if (mode == FetchMode.ALL || mode == FetchMode.BASE_AND_PILLAR)
             pillarNodes.add(nodeAccess, baseNode);
 
-        int index = 0;
-        for (int i = 0; i < count; i++) {
-            double lat = Helper.intToDegree(bitUtil.toInt(bytes, index));
-            index += 4;
-            double lon = Helper.intToDegree(bitUtil.toInt(bytes, index));
-            index += 4;
-            if (nodeAccess.is3D()) {
-                pillarNodes.add(lat, lon, Helper.intToEle(bitUtil.toInt(bytes, index)));
+        if (compressedGeometry) {
+            addCompressedPillarNodes(pillarNodes, bytes, count);
+        } else {
+            int index = 0;
+            for (int i = 0; i < count; i++) {
+                double lat = Helper.intToDegree(bitUtil.toInt(bytes, index));
                 index += 4;
-            } else {
-                pillarNodes.add(lat, lon);
+                double lon = Helper.intToDegree(bitUtil.toInt(bytes, index));
+                index += 4;
+                if (nodeAccess.is3D()) {
+                    pillarNodes.add(lat, lon, Helper.intToEle(bitUtil.toInt(bytes, index)));
+                    index += 4;
+                } else {
+                    pillarNodes.add(lat, lon);
+                }
             }
         }
 
@@ -498,6 +740,8 @@ public class BaseGraph implements Graph, Closeable {
         private boolean withTurnCosts = false;
         private long bytes = 100;
         private int segmentSize = -1;
+        private boolean compressedGeometry = false;
+        private boolean csrAdjacency = false;
 
         /**
          * @deprecated Used for GraphHopperStorage -> BaseGraph migration, but will be removed
@@ -540,8 +784,20 @@ public class BaseGraph implements Graph, Closeable {
             return this;
         }
 
+        public Builder setCompressedGeometry(boolean compressedGeometry) {
+            this.compressedGeometry = compressedGeometry;
+            return this;
+        }
+
+        public Builder setCSRAdjacency(boolean csrAdjacency) {
+            this.csrAdjacency = csrAdjacency;
+            return this;
+        }
+
         public BaseGraph build() {
-            return new BaseGraph(directory, intsForFlags, withElevation, withTurnCosts, segmentSize);
+            return new BaseGraph(directory, intsForFlags, withElevation, withTurnCosts, segmentSize).
+                    setCompressedGeometry(compressedGeometry).
+                    setCSRAdjacency(csrAdjacency);
         }
 
         public BaseGraph create() {
@@ -554,6 +810,11 @@ public class BaseGraph implements Graph, Closeable {
     protected static class EdgeIteratorImpl extends EdgeIteratorStateImpl implements EdgeExplorer, EdgeIterator {
         final EdgeFilter filter;
         int nextEdgeId;
+        // the adjacency arrays of the base graph, or null if the edges are read from the linked lists
+        private int[] adjEdgeKeys;
+        private int[] adjNodes;
+        private int adjIndex;
+        private int adjEnd;
 
         public EdgeIteratorImpl(BaseGraph baseGraph, EdgeFilter filter) {
             super(baseGraph);
@@ -565,7 +826,15 @@ public class BaseGraph implements Graph, Closeable {
 
         @Override
         public EdgeIterator setBaseNode(int baseNode) {
-            nextEdgeId = edgeId = store.getEdgeRef(store.toNodePointer(baseNode));
+            adjEdgeKeys = baseGraph.adjEdgeKeys;
+            if (adjEdgeKeys != null) {
+                adjNodes = baseGraph.adjNodes;
+                adjIndex = baseGraph.adjOffsets[baseNode];
+                adjEnd = baseGraph.adjOffsets[baseNode + 1];
+                nextEdgeId = edgeId = adjIndex < adjEnd ? GHUtility.getEdgeFromEdgeKey(adjEdgeKeys[adjIndex]) : EdgeIterator.NO_EDGE;
+            } else {
+                nextEdgeId = edgeId = store.getEdgeRef(store.toNodePointer(baseNode));
+            }
             this.baseNode = baseNode;
             return this;
         }
@@ -581,6 +850,10 @@ public class BaseGraph implements Graph, Closeable {
         }
 
         void goToNext() {
+            if (adjEdgeKeys != null) {
+                goToNextAdjacent();
+                return;
+            }
             edgePointer = store.toEdgePointer(nextEdgeId);
             edgeId = nextEdgeId;
             int nodeA = store.getNodeA(edgePointer);
@@ -595,6 +868,21 @@ public class BaseGraph implements Graph, Closeable {
                     + ", edge pointer: " + edgePointer + ", edge: " + edgeId);
         }
 
+        /**
+         * Same as {@link #goToNext()}, but reads the edge and the adjacent node from the CSR adjacency arrays
+         */
+        private void goToNextAdjacent() {
+            int edgeKey = adjEdgeKeys[adjIndex];
+            edgeId = nextEdgeId;
+            edgePointer = store.toEdgePointer(edgeId);
+            adjNode = adjNodes[adjIndex];
+            reverse = (edgeKey & 1) != 0;
+            freshFlags = false;
+
+            adjIndex++;
+            nextEdgeId = adjIndex < adjEnd ? GHUtility.getEdgeFromEdgeKey(adjEdgeKeys[adjIndex]) : EdgeIterator.NO_EDGE;
+        }
+
         @Override
         public EdgeIteratorState detach(boolean reverseArg) {
             if (edgeId == nextEdgeId)
@@ -24,6 +24,7 @@ import com.graphhopper.util.GHUtility;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.shapes.BBox;
 
+import java.util.BitSet;
 import java.util.Locale;
 
 import static com.graphhopper.util.EdgeIterator.NO_EDGE;
@@ -42,12 +43,14 @@ class BaseGraphNodesAndEdges {
 
     // nodes
     private final DataAccess nodes;
+    private IntReader nodesReader;
     private final int N_EDGE_REF, N_LAT, N_LON, N_ELE, N_TC;
     private int nodeEntryBytes;
     private int nodeCount;
 
     // edges
     private final DataAccess edges;
+    private IntReader edgesReader;
     private final int E_NODEA, E_NODEB, E_LINKA, E_LINKB, E_FLAGS, E_DIST, E_GEO, E_NAME;
     private final int intsForFlags;
     private int edgeEntryBytes;
@@ -65,6 +68,7 @@ class BaseGraphNodesAndEdges {
     public BaseGraphNodesAndEdges(Directory dir, int intsForFlags, boolean withElevation, boolean withTurnCosts, int segmentSize) {
         nodes = dir.create("nodes", dir.getDefaultType("nodes", true), segmentSize);
         edges = dir.create("edges", dir.getDefaultType("edges", true), segmentSize);
+        updateReaders();
         this.intsForFlags = intsForFlags;
         this.withTurnCosts = withTurnCosts;
         this.withElevation = withElevation;
@@ -93,11 +97,21 @@ class BaseGraphNodesAndEdges {
     public void create(long initSize) {
         nodes.create(initSize);
         edges.create(initSize);
+        updateReaders();
+    }
+
+    /**
+     * The readers need to be updated whenever the segments of the DataAccess objects change
+     */
+    private void updateReaders() {
+        nodesReader = nodes.createIntReader();
+        edgesReader = edges.createIntReader();
     }
 
     public boolean loadExisting() {
         if (!nodes.loadExisting() || !edges.loadExisting())
             return false;
+        updateReaders();
 
         // now load some properties from stored data
         final int nodesVersion = nodes.getHeader(0 * 4);
@@ -152,6 +166,7 @@ class BaseGraphNodesAndEdges {
     public void close() {
         edges.close();
         nodes.close();
+        updateReaders();
     }
 
     public int getNodes() {
@@ -194,7 +209,8 @@ class BaseGraphNodesAndEdges {
         final int edge = edgeCount;
         final long edgePointer = (long) edgeCount * edgeEntryBytes;
         edgeCount++;
-        edges.ensureCapacity((long) edgeCount * edgeEntryBytes);
+        if (edges.ensureCapacity((long) edgeCount * edgeEntryBytes))
+            edgesReader = edges.createIntReader();
 
         setNodeA(edgePointer, nodeA);
         setNodeB(edgePointer, nodeB);
@@ -214,13 +230,82 @@ class BaseGraphNodesAndEdges {
         return edge;
     }
 
+    /**
+     * Renumbers the nodes and edges in place, such that node i becomes newNodes[i] and edge j becomes newEdges[j].
+     * All node and edge references stored in the node and edge entries are updated accordingly.
+     */
+    public void reorder(int[] newNodes, int[] newEdges) {
+        // first we update the references, then we move the entries to their new positions
+        for (int edge = 0; edge < edgeCount; edge++) {
+            long edgePointer = toEdgePointer(edge);
+            int nodeA = getNodeA(edgePointer);
+            int nodeB = getNodeB(edgePointer);
+            setNodeA(edgePointer, newNodes[nodeA]);
+            setNodeB(edgePointer, newNodes[nodeB]);
+            setLinkA(edgePointer, reorderEdgeRef(getLinkA(edgePointer), newEdges));
+            // linkB is not used for loops
+            if (nodeA != nodeB)
+                setLinkB(edgePointer, reorderEdgeRef(getLinkB(edgePointer), newEdges));
+        }
+        for (int node = 0; node < nodeCount; node++) {
+            long nodePointer = toNodePointer(node);
+            setEdgeRef(nodePointer, reorderEdgeRef(getEdgeRef(nodePointer), newEdges));
+        }
+        permuteEntries(nodes, nodeEntryBytes, nodeCount, newNodes);
+        permuteEntries(edges, edgeEntryBytes, edgeCount, newEdges);
+    }
+
+    private static int reorderEdgeRef(int edge, int[] newEdges) {
+        return EdgeIterator.Edge.isValid(edge) ? newEdges[edge] : edge;
+    }
+
+    /**
+     * Moves every entry to its new index by following the cycles of the permutation, so apart from a bit set we only
+     * need space for two entries. The entries are copied int by int, because not all DataAccess implementations
+     * support byte based access.
+     */
+    private static void permuteEntries(DataAccess da, int entryBytes, int count, int[] newIndices) {
+        int entryInts = entryBytes / 4;
+        int[] moving = new int[entryInts];
+        int[] tmp = new int[entryInts];
+        BitSet moved = new BitSet(count);
+        for (int start = 0; start < count; start++) {
+            if (moved.get(start) || newIndices[start] == start)
+                continue;
+            readEntry(da, (long) start * entryBytes, moving);
+            int curr = start;
+            do {
+                int target = newIndices[curr];
+                long targetPointer = (long) target * entryBytes;
+                readEntry(da, targetPointer, tmp);
+                writeEntry(da, targetPointer, moving);
+                moved.set(target);
+                int[] swap = moving;
+                moving = tmp;
+                tmp = swap;
+                curr = target;
+            } while (curr != start);
+        }
+    }
+
+    private static void readEntry(DataAccess da, long pointer, int[] entry) {
+        for (int i = 0; i < entry.length; i++)
+            entry[i] = da.getInt(pointer + i * 4L);
+    }
+
+    private static void writeEntry(DataAccess da, long pointer, int[] entry) {
+        for (int i = 0; i < entry.length; i++)
+            da.setInt(pointer + i * 4L, entry[i]);
+    }
+
     public void ensureNodeCapacity(int node) {
         if (node < nodeCount)
             return;
 
         int oldNodes = nodeCount;
         nodeCount = node + 1;
-        nodes.ensureCapacity((long) nodeCount * nodeEntryBytes);
+        if (nodes.ensureCapacity((long) nodeCount * nodeEntryBytes))
+            nodesReader = nodes.createIntReader();
         for (int n = oldNodes; n < nodeCount; ++n) {
             setEdgeRef(toNodePointer(n), NO_EDGE);
             if (withTurnCosts)
@@ -243,7 +328,7 @@ class BaseGraphNodesAndEdges {
     public void readFlags(long edgePointer, IntsRef edgeFlags) {
         int size = edgeFlags.ints.length;
         for (int i = 0; i < size; ++i)
-            edgeFlags.ints[i] = edges.getInt(edgePointer + E_FLAGS + i * 4);
+            edgeFlags.ints[i] = edgesReader.getInt(edgePointer + E_FLAGS + i * 4);
     }
 
     public void writeFlags(long edgePointer, IntsRef edgeFlags) {
@@ -281,33 +366,33 @@ class BaseGraphNodesAndEdges {
     }
 
     public int getNodeA(long edgePointer) {
-        return edges.getInt(edgePointer + E_NODEA);
+        return edgesReader.getInt(edgePointer + E_NODEA);
     }
 
     public int getNodeB(long edgePointer) {
-        return edges.getInt(edgePointer + E_NODEB);
+        return edgesReader.getInt(edgePointer + E_NODEB);
     }
 
     public int getLinkA(long edgePointer) {
-        return edges.getInt(edgePointer + E_LINKA);
+        return edgesReader.getInt(edgePointer + E_LINKA);
     }
 
     public int getLinkB(long edgePointer) {
-        return edges.getInt(edgePointer + E_LINKB);
+        return edgesReader.getInt(edgePointer + E_LINKB);
     }
 
     public double getDist(long pointer) {
-        int val = edges.getInt(pointer + E_DIST);
+        int val = edgesReader.getInt(pointer + E_DIST);
         // do never return infinity even if INT MAX, see #435
         return val / INT_DIST_FACTOR;
     }
 
     public int getGeoRef(long edgePointer) {
-        return edges.getInt(edgePointer + E_GEO);
+        return edgesReader.getInt(edgePointer + E_GEO);
     }
 
     public int getNameRef(long edgePointer) {
-        return edges.getInt(edgePointer + E_NAME);
+        return edgesReader.getInt(edgePointer + E_NAME);
     }
 
     public void setEdgeRef(long nodePointer, int edgeRef) {
@@ -331,23 +416,23 @@ class BaseGraphNodesAndEdges {
     }
 
     public int getEdgeRef(long nodePointer) {
-        return nodes.getInt(nodePointer + N_EDGE_REF);
+        return nodesReader.getInt(nodePointer + N_EDGE_REF);
     }
 
     public double getLat(long nodePointer) {
-        return Helper.intToDegree(nodes.getInt(nodePointer + N_LAT));
+        return Helper.intToDegree(nodesReader.getInt(nodePointer + N_LAT));
     }
 
     public double getLon(long nodePointer) {
-        return Helper.intToDegree(nodes.getInt(nodePointer + N_LON));
+        return Helper.intToDegree(nodesReader.getInt(nodePointer + N_LON));
     }
 
     public double getEle(long nodePointer) {
-        return Helper.intToEle(nodes.getInt(nodePointer + N_ELE));
+        return Helper.intToEle(nodesReader.getInt(nodePointer + N_ELE));
     }
 
     public int getTurnCostRef(long nodePointer) {
-        return nodes.getInt(nodePointer + N_TC);
+        return nodesReader.getInt(nodePointer + N_TC);
     }
 
     public void setFrozen(boolean frozen) {
@@ -20,7 +20,10 @@ package com.graphhopper.storage;
 
 import com.graphhopper.routing.ch.NodeOrderingProvider;
 import com.graphhopper.routing.ch.PrepareEncoder;
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.weighting.Weighting;
 import com.graphhopper.util.Constants;
+import com.graphhopper.util.EdgeIteratorState;
 import com.graphhopper.util.GHUtility;
 import com.graphhopper.util.Helper;
 import org.slf4j.Logger;
@@ -37,6 +40,10 @@ import static com.graphhopper.util.Helper.nf;
  * <p>
  * This can be seen as an extension to a base graph: We assign a CH level to each node and add additional edges to
  * the graph ('shortcuts'). The shortcuts need to be ordered in a certain way, but this is not enforced here.
+ * <p>
+ * Optionally the forward and backward weights of all base graph edges can be stored as well, see
+ * {@link #initBaseEdgeWeights}. CH queries can then read the weights of the original edges from this storage instead of
+ * calculating them using the weighting, which requires decoding the edge flags.
  *
  * @see CHStorageBuilder to build a valid storage that can be used for routing
  */
@@ -52,16 +59,23 @@ public class CHStorage {
 
     // shortcuts
     private final DataAccess shortcuts;
+    private IntReader shortcutsReader;
     private final int S_NODEA, S_NODEB, S_WEIGHT, S_SKIP_EDGE1, S_SKIP_EDGE2, S_ORIG_FIRST, S_ORIG_LAST;
     private int shortcutEntryBytes;
     private int shortcutCount = 0;
 
     // nodes
     private final DataAccess nodesCH;
+    private IntReader nodesCHReader;
     private final int N_LEVEL, N_LAST_SC;
     private int nodeCHEntryBytes;
     private int nodeCount = -1;
 
+    // base edge weights (optional)
+    private final DataAccess baseEdgeWeights;
+    private IntReader baseEdgeWeightsReader;
+    private int baseEdgeCount = -1;
+
     private boolean edgeBased;
     // some shortcuts exceed the maximum storable weight, and we count them here
     private int numShortcutsExceedingWeight;
@@ -96,6 +110,8 @@ public class CHStorage {
         this.edgeBased = edgeBased;
         this.nodesCH = dir.create("nodes_ch_" + name, dir.getDefaultType("nodes_ch_" + name, true), segmentSize);
         this.shortcuts = dir.create("shortcuts_" + name, dir.getDefaultType("shortcuts_" + name, true), segmentSize);
+        this.baseEdgeWeights = dir.create("base_weights_" + name, dir.getDefaultType("base_weights_" + name, true), segmentSize);
+        updateReaders();
         // shortcuts are stored consecutively using this layout (the last two entries only exist for edge-based):
         // NODEA | NODEB | WEIGHT | SKIP_EDGE1 | SKIP_EDGE2 | S_ORIG_FIRST | S_ORIG_LAST
         S_NODEA = 0;
@@ -129,6 +145,16 @@ public class CHStorage {
         // loadExisting() later, see #2384
         nodesCH.create(0);
         shortcuts.create(0);
+        updateReaders();
+    }
+
+    /**
+     * The readers need to be updated whenever the segments of the DataAccess objects change
+     */
+    private void updateReaders() {
+        nodesCHReader = nodesCH.createIntReader();
+        shortcutsReader = shortcuts.createIntReader();
+        baseEdgeWeightsReader = baseEdgeWeights.createIntReader();
     }
 
     /**
@@ -145,6 +171,7 @@ public class CHStorage {
         nodesCH.ensureCapacity((long) nodes * nodeCHEntryBytes);
         nodeCount = nodes;
         shortcuts.ensureCapacity((long) expectedShortcuts * shortcutEntryBytes);
+        updateReaders();
         for (int node = 0; node < nodes; node++)
             setLastShortcut(toNodePointer(node), -1);
     }
@@ -163,11 +190,19 @@ public class CHStorage {
         shortcuts.setHeader(12, numShortcutsExceedingWeight);
         shortcuts.setHeader(16, edgeBased ? 1 : 0);
         shortcuts.flush();
+
+        // base edge weights
+        if (hasBaseEdgeWeights()) {
+            baseEdgeWeights.setHeader(0, Constants.VERSION_SHORTCUT);
+            baseEdgeWeights.setHeader(4, baseEdgeCount);
+            baseEdgeWeights.flush();
+        }
     }
 
     public boolean loadExisting() {
         if (!nodesCH.loadExisting() || !shortcuts.loadExisting())
             return false;
+        updateReaders();
 
         // nodes
         int nodesCHVersion = nodesCH.getHeader(0);
@@ -183,12 +218,21 @@ public class CHStorage {
         numShortcutsExceedingWeight = shortcuts.getHeader(12);
         edgeBased = shortcuts.getHeader(16) == 1;
 
+        // base edge weights, these are optional
+        if (baseEdgeWeights.loadExisting()) {
+            updateReaders();
+            GHUtility.checkDAVersion(baseEdgeWeights.getName(), Constants.VERSION_SHORTCUT, baseEdgeWeights.getHeader(0));
+            baseEdgeCount = baseEdgeWeights.getHeader(4);
+        }
+
         return true;
     }
 
     public void close() {
         nodesCH.close();
         shortcuts.close();
+        baseEdgeWeights.close();
+        updateReaders();
     }
 
     /**
@@ -216,7 +260,8 @@ public class CHStorage {
             lowShortcutWeightConsumer.accept(new LowWeightShortcut(nodeA, nodeB, shortcutCount, weight, MIN_WEIGHT));
         long shortcutPointer = (long) shortcutCount * shortcutEntryBytes;
         shortcutCount++;
-        shortcuts.ensureCapacity((long) shortcutCount * shortcutEntryBytes);
+        if (shortcuts.ensureCapacity((long) shortcutCount * shortcutEntryBytes))
+            shortcutsReader = shortcuts.createIntReader();
         int weightInt = weightFromDouble(weight);
         setNodesAB(shortcutPointer, nodeA, nodeB, accessFlags);
         setWeightInt(shortcutPointer, weightInt);
@@ -259,7 +304,7 @@ public class CHStorage {
     }
 
     public int getLastShortcut(long nodePointer) {
-        return nodesCH.getInt(nodePointer + N_LAST_SC);
+        return nodesCHReader.getInt(nodePointer + N_LAST_SC);
     }
 
     public void setLastShortcut(long nodePointer, int shortcut) {
@@ -267,7 +312,7 @@ public class CHStorage {
     }
 
     public int getLevel(long nodePointer) {
-        return nodesCH.getInt(nodePointer + N_LEVEL);
+        return nodesCHReader.getInt(nodePointer + N_LEVEL);
     }
 
     public void setLevel(long nodePointer, int level) {
@@ -300,41 +345,90 @@ public class CHStorage {
     }
 
     public int getNodeA(long shortcutPointer) {
-        return shortcuts.getInt(shortcutPointer + S_NODEA) >>> 1;
+        return shortcutsReader.getInt(shortcutPointer + S_NODEA) >>> 1;
     }
 
     public int getNodeB(long shortcutPointer) {
-        return shortcuts.getInt(shortcutPointer + S_NODEB) >>> 1;
+        return shortcutsReader.getInt(shortcutPointer + S_NODEB) >>> 1;
     }
 
     public boolean getFwdAccess(long shortcutPointer) {
-        return (shortcuts.getInt(shortcutPointer + S_NODEA) & 0x1) != 0;
+        return (shortcutsReader.getInt(shortcutPointer + S_NODEA) & 0x1) != 0;
     }
 
     public boolean getBwdAccess(long shortcutPointer) {
-        return (shortcuts.getInt(shortcutPointer + S_NODEB) & 0x1) != 0;
+        return (shortcutsReader.getInt(shortcutPointer + S_NODEB) & 0x1) != 0;
     }
 
     public double getWeight(long shortcutPointer) {
-        return weightToDouble(shortcuts.getInt(shortcutPointer + S_WEIGHT));
+        return weightToDouble(shortcutsReader.getInt(shortcutPointer + S_WEIGHT));
     }
 
     public int getSkippedEdge1(long shortcutPointer) {
-        return shortcuts.getInt(shortcutPointer + S_SKIP_EDGE1);
+        return shortcutsReader.getInt(shortcutPointer + S_SKIP_EDGE1);
     }
 
     public int getSkippedEdge2(long shortcutPointer) {
-        return shortcuts.getInt(shortcutPointer + S_SKIP_EDGE2);
+        return shortcutsReader.getInt(shortcutPointer + S_SKIP_EDGE2);
     }
 
     public int getOrigEdgeFirst(long shortcutPointer) {
         assert edgeBased : "orig edges are only available for edge-based CH";
-        return shortcuts.getInt(shortcutPointer + S_ORIG_FIRST);
+        return shortcutsReader.getInt(shortcutPointer + S_ORIG_FIRST);
     }
 
     public int getOrigEdgeLast(long shortcutPointer) {
         assert edgeBased : "orig edges are only available for edge-based CH";
-        return shortcuts.getInt(shortcutPointer + S_ORIG_LAST);
+        return shortcutsReader.getInt(shortcutPointer + S_ORIG_LAST);
+    }
+
+    /**
+     * Calculates the weights of all edges of the given graph in both directions and stores them in this storage. This
+     * needs two integers per edge, but afterwards the weights of the base edges can be read via
+     * {@link #getBaseEdgeWeight} without using the weighting. The weights are rounded to three decimal digits just like
+     * the shortcut weights. Edges without access get an infinite weight, except for loops.
+     * <p>
+     * The graph and weighting must not change afterwards, i.e. this must be the weighting the CH was prepared for.
+     */
+    public void initBaseEdgeWeights(BaseGraph baseGraph, Weighting weighting) {
+        if (!baseGraph.isFrozen())
+            throw new IllegalStateException("graph must be frozen before we can store the base edge weights");
+        if (hasBaseEdgeWeights())
+            throw new IllegalStateException("The base edge weights were already initialized");
+        int edges = baseGraph.getEdges();
+        baseEdgeWeights.create((long) edges * 8);
+        baseEdgeWeights.ensureCapacity((long) edges * 8);
+        AllEdgesIterator iter = baseGraph.getAllEdges();
+        while (iter.next()) {
+            // the all edges iterator always points from nodeA to nodeB
+            long pointer = (long) iter.getEdge() * 8;
+            baseEdgeWeights.setInt(pointer, baseWeightFromDouble(calcBaseEdgeWeight(iter, weighting, false)));
+            baseEdgeWeights.setInt(pointer + 4, baseWeightFromDouble(calcBaseEdgeWeight(iter, weighting, true)));
+        }
+        baseEdgeCount = edges;
+        updateReaders();
+    }
+
+    private static double calcBaseEdgeWeight(EdgeIteratorState edge, Weighting weighting, boolean reverse) {
+        // this must be consistent with RoutingCHEdgeIteratorStateImpl#getOrigEdgeWeight
+        if (edge.getBaseNode() != edge.getAdjNode() && weighting.edgeHasNoAccess(edge, reverse))
+            return Double.POSITIVE_INFINITY;
+        return weighting.calcEdgeWeight(edge, reverse);
+    }
+
+    public boolean hasBaseEdgeWeights() {
+        return baseEdgeCount >= 0;
+    }
+
+    /**
+     * @param edge      the id of an edge of the base graph
+     * @param fromNodeA true if the weight for the direction from nodeA to nodeB of the edge shall be returned, false
+     *                  for the opposite direction
+     * @return the pre-computed weight of the given base edge, see {@link #initBaseEdgeWeights}
+     */
+    public double getBaseEdgeWeight(int edge, boolean fromNodeA) {
+        assert edge >= 0 && edge < baseEdgeCount : "base edge " + edge + " not in bounds [0, " + baseEdgeCount + "[";
+        return weightToDouble(baseEdgeWeightsReader.getInt((long) edge * 8 + (fromNodeA ? 0 : 4)));
     }
 
     public NodeOrderingProvider getNodeOrderingProvider() {
@@ -392,7 +486,7 @@ public class CHStorage {
     }
 
     public long getCapacity() {
-        return nodesCH.getCapacity() + shortcuts.getCapacity();
+        return nodesCH.getCapacity() + shortcuts.getCapacity() + (hasBaseEdgeWeights() ? baseEdgeWeights.getCapacity() : 0);
     }
 
     public int getNumShortcutsExceedingWeight() {
@@ -401,7 +495,8 @@ public class CHStorage {
 
     public String toDetailsString() {
         return "shortcuts:" + nf(shortcutCount) + " (" + nf(shortcuts.getCapacity() / Helper.MB) + "MB)" +
-                ", nodesCH:" + nf(nodeCount) + " (" + nf(nodesCH.getCapacity() / Helper.MB) + "MB)";
+                ", nodesCH:" + nf(nodeCount) + " (" + nf(nodesCH.getCapacity() / Helper.MB) + "MB)" +
+                (hasBaseEdgeWeights() ? ", baseEdgeWeights:" + nf(baseEdgeCount) + " (" + nf(baseEdgeWeights.getCapacity() / Helper.MB) + "MB)" : "");
     }
 
     public boolean isClosed() {
@@ -421,6 +516,15 @@ public class CHStorage {
             return (int) Math.round(weight * WEIGHT_FACTOR);
     }
 
+    private int baseWeightFromDouble(double weight) {
+        // unlike shortcuts base edges can have a zero weight, and we do not count the edges with too large weights
+        if (weight < 0)
+            throw new IllegalArgumentException("weight cannot be negative but was " + weight);
+        if (weight >= MAX_WEIGHT)
+            return (int) MAX_STORED_INTEGER_WEIGHT;
+        return (int) Math.round(weight * WEIGHT_FACTOR);
+    }
+
     private double weightToDouble(int intWeight) {
         // If the value is too large (> Integer.MAX_VALUE) the `int` is negative. Converted to `long` the JVM fills the
         // high bits with 1's which we remove via "& 0xFFFFFFFFL" to get the unsigned value. (The L is necessary or prepend 8 zeros.)
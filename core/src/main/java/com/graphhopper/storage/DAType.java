@@ -53,6 +53,16 @@ public class DAType {
      * embedded data stores.
      */
     public static final DAType MMAP_RO = new DAType(MemRef.MMAP, true, false, false);
+    /**
+     * The DA object is hold entirely in direct memory outside of the JVM heap. Loading and flushing is a no-op. See
+     * OffHeapDataAccess.
+     */
+    public static final DAType OFF_HEAP = new DAType(MemRef.OFF_HEAP, false, false, true);
+    /**
+     * The DA object is hold entirely in direct memory outside of the JVM heap. It will load from disc and flush to it
+     * if the equivalent methods are called. See OffHeapDataAccess.
+     */
+    public static final DAType OFF_HEAP_STORE = new DAType(MemRef.OFF_HEAP, true, false, true);
     private final MemRef memRef;
     private final boolean storing;
     private final boolean integ;
@@ -74,6 +84,10 @@ public class DAType {
         DAType type;
         if (dataAccess.contains("SYNC"))
             throw new IllegalArgumentException("SYNC option is no longer supported, see #982");
+        else if (dataAccess.contains("OFF_HEAP_STORE"))
+            type = DAType.OFF_HEAP_STORE;
+        else if (dataAccess.contains("OFF_HEAP"))
+            type = DAType.OFF_HEAP;
         else if (dataAccess.contains("MMAP_RO"))
             type = DAType.MMAP_RO;
         else if (dataAccess.contains("MMAP"))
@@ -88,7 +102,7 @@ public class DAType {
     }
 
     /**
-     * Memory mapped or purely in memory? default is HEAP
+     * Memory mapped, off-heap or purely in memory? default is HEAP
      */
     MemRef getMemRef() {
         return memRef;
@@ -109,6 +123,13 @@ public class DAType {
         return memRef == MemRef.MMAP;
     }
 
+    /**
+     * @return true if data resides in direct memory outside of the JVM heap.
+     */
+    public boolean isOffHeap() {
+        return memRef == MemRef.OFF_HEAP;
+    }
+
     /**
      * Temporary data or store (with loading and storing)? default is false
      */
@@ -128,6 +149,8 @@ public class DAType {
         String str;
         if (getMemRef() == MemRef.MMAP)
             str = "MMAP";
+        else if (getMemRef() == MemRef.OFF_HEAP)
+            str = "OFF_HEAP";
         else
             str = "RAM";
 
@@ -164,6 +187,6 @@ public class DAType {
     }
 
     public enum MemRef {
-        HEAP, MMAP
+        HEAP, MMAP, OFF_HEAP
     }
 }
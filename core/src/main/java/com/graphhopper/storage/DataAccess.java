@@ -114,7 +114,7 @@ public interface DataAccess extends Closeable {
      * have to call 'create' instead.
      * <p>
      *
-     * @return true if size was increased
+     * @return true if size was increased or the single segment was replaced by a bigger one
      * @see #create(long)
      */
     boolean ensureCapacity(long bytes);
@@ -133,4 +133,14 @@ public interface DataAccess extends Closeable {
      * @return the data access type of this object.
      */
     DAType getType();
+
+    /**
+     * Creates a reader for the integers of this DataAccess. If there is only a single segment the returned reader
+     * accesses it directly, see {@link AbstractDataAccess#setSingleSegment(boolean)}. The reader becomes invalid
+     * whenever the segments change, i.e. it needs to be created again after create, loadExisting, close and every
+     * call of ensureCapacity that returned true.
+     */
+    default IntReader createIntReader() {
+        return this::getInt;
+    }
 }
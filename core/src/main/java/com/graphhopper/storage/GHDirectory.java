@@ -38,6 +38,7 @@ public class GHDirectory implements Directory {
     // first rule matches => LinkedHashMap
     private final Map<String, DAType> defaultTypes = new LinkedHashMap<>();
     private final Map<String, Integer> mmapPreloads = new LinkedHashMap<>();
+    private final Map<String, Boolean> singleSegments = new LinkedHashMap<>();
     private final Map<String, DataAccess> map = Collections.synchronizedMap(new HashMap<>());
 
     public GHDirectory(String _location, DAType defaultType) {
@@ -57,7 +58,8 @@ public class GHDirectory implements Directory {
     /**
      * Configure the DAType (specified by the value) of a single DataAccess object (specified by the key). For "MMAP" you
      * can prepend "preload." to the name and specify a percentage which preloads the DataAccess into physical memory of
-     * the specified percentage (only applied for load, not for import).
+     * the specified percentage (only applied for load, not for import). Prepend "single_segment." to the name and
+     * specify true to keep the DataAccess in a single segment, see {@link AbstractDataAccess#setSingleSegment(boolean)}.
      * As keys can be patterns the order is important and the LinkedHashMap is forced as type.
      */
     public void configure(LinkedHashMap<String, String> config) {
@@ -70,6 +72,8 @@ public class GHDirectory implements Directory {
                 } catch (NumberFormatException ex) {
                     throw new IllegalArgumentException("DataAccess " + kv.getKey() + " has an incorrect preload value: " + value);
                 }
+            else if (kv.getKey().startsWith("single_segment."))
+                singleSegments.put(kv.getKey().substring("single_segment.".length()), Boolean.parseBoolean(value));
             else {
                 String pattern = kv.getKey();
                 defaultTypes.put(pattern, DAType.fromString(value));
@@ -87,6 +91,16 @@ public class GHDirectory implements Directory {
         return 0;
     }
 
+    /**
+     * Returns true if the DataAccess should be kept in a single segment, false if no patterns match.
+     * See {@link #configure(LinkedHashMap)}
+     */
+    boolean isSingleSegment(String name) {
+        for (Map.Entry<String, Boolean> entry : singleSegments.entrySet())
+            if (name.matches(entry.getKey())) return entry.getValue();
+        return false;
+    }
+
     public void loadMMap() {
         for (DataAccess da : map.values()) {
             if (!(da instanceof MMapDataAccess))
@@ -141,9 +155,13 @@ public class GHDirectory implements Directory {
                 da = new RAMDataAccess(name, location, false, segmentSize);
         } else if (type.isMMap()) {
             da = new MMapDataAccess(name, location, type.isAllowWrites(), segmentSize);
+        } else if (type.isOffHeap()) {
+            da = new OffHeapDataAccess(name, location, type.isStoring(), segmentSize);
         } else {
             throw new IllegalArgumentException("DAType not supported " + type);
         }
+        if (isSingleSegment(name))
+            ((AbstractDataAccess) da).setSingleSegment(true);
 
         map.put(name, da);
         return da;
@@ -32,6 +32,8 @@ public class GraphBuilder {
     private boolean turnCosts;
     private long bytes = 100;
     private int segmentSize = -1;
+    private boolean compressedGeometry = false;
+    private boolean csrAdjacency = false;
 
     public static GraphBuilder start(EncodingManager encodingManager) {
         return new GraphBuilder(encodingManager);
@@ -78,13 +80,32 @@ public class GraphBuilder {
         return this;
     }
 
+    /**
+     * @see BaseGraph#setCompressedGeometry
+     */
+    public GraphBuilder setCompressedGeometry(boolean compressedGeometry) {
+        this.compressedGeometry = compressedGeometry;
+        return this;
+    }
+
+    /**
+     * @see BaseGraph#setCSRAdjacency
+     */
+    public GraphBuilder setCSRAdjacency(boolean csrAdjacency) {
+        this.csrAdjacency = csrAdjacency;
+        return this;
+    }
+
     /**
      * Default graph is a {@link GraphHopperStorage} with an in memory directory and disabled storing on flush.
      * Afterwards you'll need to call {@link GraphHopperStorage#create} to have a usable object. Better use
      * {@link #create} directly.
      */
     public GraphHopperStorage build() {
-        return new GraphHopperStorage(dir, encodingManager, elevation, turnCosts, segmentSize);
+        GraphHopperStorage graph = new GraphHopperStorage(dir, encodingManager, elevation, turnCosts, segmentSize);
+        graph.getBaseGraph().setCompressedGeometry(compressedGeometry);
+        graph.getBaseGraph().setCSRAdjacency(csrAdjacency);
+        return graph;
     }
 
     /**
@@ -167,7 +167,7 @@ public final class GraphHopperStorage implements Graph, Closeable {
     private String getVersionsString() {
         return "nodes:" + Constants.VERSION_NODE +
                 ",edges:" + Constants.VERSION_EDGE +
-                ",geometry:" + Constants.VERSION_GEOMETRY +
+                ",geometry:" + (baseGraph.isCompressedGeometry() ? Constants.VERSION_GEOMETRY_COMPRESSED : Constants.VERSION_GEOMETRY) +
                 ",location_index:" + Constants.VERSION_LOCATION_IDX +
                 ",string_index:" + Constants.VERSION_STRING_IDX +
                 ",nodesCH:" + Constants.VERSION_NODE_CH +
@@ -0,0 +1,33 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.storage;
+
+/**
+ * Read access to the integers of a {@link DataAccess}. If the DataAccess consists of a single segment the reader
+ * accesses the underlying array or buffer directly and no segment index needs to be calculated for every read.
+ * Storages that are read in the hot loops of the routing algorithms bind to this interface instead of calling
+ * {@link DataAccess#getInt(long)}.
+ *
+ * @see DataAccess#createIntReader()
+ */
+public interface IntReader {
+    /**
+     * Get 4 bytes from position 'bytePos'
+     */
+    int getInt(long bytePos);
+}
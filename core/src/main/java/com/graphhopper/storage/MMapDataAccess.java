@@ -179,6 +179,15 @@ public final class MMapDataAccess extends AbstractDataAccess {
 
     @Override
     public boolean ensureCapacity(long bytes) {
+        if (singleSegment && allowWrites && segments.size() <= 1) {
+            int newSize = getSingleSegmentSize(bytes);
+            if (segments.isEmpty() || newSize > segmentSizeInBytes) {
+                // the data stays in the file, so we can simply unmap the old segment and map a larger one
+                clean(0, segments.size());
+                segments.clear();
+                setSegmentSize(newSize);
+            }
+        }
         return mapIt(HEADER_OFFSET, bytes);
     }
 
@@ -461,6 +470,15 @@ public final class MMapDataAccess extends AbstractDataAccess {
         }
     }
 
+    @Override
+    public IntReader createIntReader() {
+        if (segments.size() != 1)
+            return super.createIntReader();
+        // absolute reads do not modify the buffer, so unlike getInt we do not need to synchronize here
+        final ByteBuffer segment = segments.get(0);
+        return bytePos -> segment.getInt((int) bytePos);
+    }
+
     @Override
     public long getCapacity() {
         long cap = 0;
@@ -0,0 +1,338 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * An in-memory DataAccess implementation that keeps its segments in direct (off-heap) ByteBuffers. Compared to
+ * {@link RAMDataAccess} the data does not have to be traversed or moved by the garbage collector, which reduces GC
+ * pauses for big graphs, and compared to {@link MMapDataAccess} there are no page faults, because all data is loaded
+ * into memory when calling {@link #loadExisting()}. Like for RAMDataAccess the data is only written to disc if it is
+ * configured to store and flush() is called.
+ * <p>
+ * Every segment is a separate buffer, so the capacity is not limited to 2GB. But keep in mind that the total size of
+ * all direct buffers is limited by the JVM option -XX:MaxDirectMemorySize (by default this equals the max heap size).
+ * <p>
+ * Only absolute get and put methods are used, so concurrent reads are thread safe.
+ */
+public class OffHeapDataAccess extends AbstractDataAccess {
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private final boolean store;
+
+    OffHeapDataAccess(String name, String location, boolean store, int segmentSize) {
+        super(name, location, segmentSize);
+        this.store = store;
+    }
+
+    @Override
+    public boolean isStoring() {
+        return store;
+    }
+
+    @Override
+    public OffHeapDataAccess create(long bytes) {
+        if (segments.length > 0)
+            throw new IllegalThreadStateException("already created");
+
+        ensureCapacity(Math.max(10 * 4, bytes));
+        return this;
+    }
+
+    @Override
+    public boolean ensureCapacity(long bytes) {
+        if (bytes < 0)
+            throw new IllegalArgumentException("new capacity has to be strictly positive");
+
+        boolean replacedSegment = singleSegment && segments.length <= 1 && growSingleSegment(bytes);
+
+        long cap = getCapacity();
+        long newBytes = bytes - cap;
+        if (newBytes <= 0)
+            return replacedSegment;
+
+        int segmentsToCreate = (int) (newBytes / segmentSizeInBytes);
+        if (newBytes % segmentSizeInBytes != 0)
+            segmentsToCreate++;
+
+        try {
+            ByteBuffer[] newSegs = Arrays.copyOf(segments, segments.length + segmentsToCreate);
+            for (int i = segments.length; i < newSegs.length; i++) {
+                newSegs[i] = newByteBuffer();
+            }
+            segments = newSegs;
+        } catch (OutOfMemoryError err) {
+            throw new OutOfMemoryError(err.getMessage() + " - problem when allocating new direct memory, consider to increase"
+                    + " -XX:MaxDirectMemorySize. Old capacity: " + cap + ", new bytes:" + newBytes + ", segmentSizePower:"
+                    + segmentSizePower + ", new segments:" + segmentsToCreate + ", existing:" + segments.length);
+        }
+        return true;
+    }
+
+    private boolean growSingleSegment(long bytes) {
+        int newSize = getSingleSegmentSize(bytes);
+        if (segments.length == 1 && newSize <= segmentSizeInBytes)
+            return false;
+        ByteBuffer oldSegment = segments.length == 1 ? segments[0] : null;
+        setSegmentSize(newSize);
+        ByteBuffer newSegment = newByteBuffer();
+        if (oldSegment != null) {
+            ByteBuffer tmp = oldSegment.duplicate();
+            tmp.clear();
+            newSegment.put(tmp);
+            newSegment.clear();
+            MMapDataAccess.cleanMappedByteBuffer(oldSegment);
+        }
+        segments = new ByteBuffer[]{newSegment};
+        return true;
+    }
+
+    private ByteBuffer newByteBuffer() {
+        // allocateDirect initializes the memory with zeros, just like new byte[] does for RAMDataAccess
+        ByteBuffer buffer = ByteBuffer.allocateDirect(segmentSizeInBytes);
+        buffer.order(byteOrder);
+        return buffer;
+    }
+
+    @Override
+    public boolean loadExisting() {
+        if (segments.length > 0)
+            throw new IllegalStateException("already initialized");
+
+        if (isClosed())
+            throw new IllegalStateException("already closed");
+
+        if (!store)
+            return false;
+
+        File file = new File(getFullName());
+        if (!file.exists() || file.length() == 0)
+            return false;
+
+        try {
+            try (RandomAccessFile raFile = new RandomAccessFile(getFullName(), "r")) {
+                long byteCount = readHeader(raFile) - HEADER_OFFSET;
+                if (byteCount < 0)
+                    return false;
+
+                FileChannel channel = raFile.getChannel();
+                channel.position(HEADER_OFFSET);
+                int segmentCount = (int) (byteCount / segmentSizeInBytes);
+                if (byteCount % segmentSizeInBytes != 0)
+                    segmentCount++;
+
+                segments = new ByteBuffer[segmentCount];
+                for (int s = 0; s < segmentCount; s++) {
+                    ByteBuffer buffer = newByteBuffer();
+                    int read = 0;
+                    while (buffer.hasRemaining()) {
+                        int tmp = channel.read(buffer);
+                        if (tmp < 0)
+                            break;
+                        read += tmp;
+                    }
+                    if (read <= 0)
+                        throw new IllegalStateException("segment " + s + " is empty? " + toString());
+
+                    buffer.clear();
+                    segments[s] = buffer;
+                }
+                return true;
+            }
+        } catch (IOException ex) {
+            throw new RuntimeException("Problem while loading " + getFullName(), ex);
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (closed)
+            throw new IllegalStateException("already closed");
+
+        if (!store)
+            return;
+
+        try {
+            try (RandomAccessFile raFile = new RandomAccessFile(getFullName(), "rw")) {
+                long len = getCapacity();
+                writeHeader(raFile, len, segmentSizeInBytes);
+                FileChannel channel = raFile.getChannel();
+                channel.position(HEADER_OFFSET);
+                for (ByteBuffer segment : segments) {
+                    // write a duplicate to keep the position of the segment untouched
+                    ByteBuffer buffer = segment.duplicate();
+                    buffer.clear();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            throw new RuntimeException("Couldn't store bytes to " + toString(), ex);
+        }
+    }
+
+    @Override
+    public final void setInt(long bytePos, int value) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        if (index + 4 > segmentSizeInBytes)
+            throw new IllegalStateException("Padding required. Currently an int cannot be distributed over two segments. " + bytePos);
+        segments[bufferIndex].putInt(index, value);
+    }
+
+    @Override
+    public final int getInt(long bytePos) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        if (index + 4 > segmentSizeInBytes)
+            throw new IllegalStateException("Padding required. Currently an int cannot be distributed over two segments. " + bytePos);
+        return segments[bufferIndex].getInt(index);
+    }
+
+    @Override
+    public final void setShort(long bytePos, short value) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        if (index + 2 > segmentSizeInBytes) {
+            // special case if short has to be written into two separate segments
+            segments[bufferIndex].put(index, (byte) value);
+            segments[bufferIndex + 1].put(0, (byte) (value >>> 8));
+        } else {
+            segments[bufferIndex].putShort(index, value);
+        }
+    }
+
+    @Override
+    public final short getShort(long bytePos) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        if (index + 2 > segmentSizeInBytes)
+            return (short) ((segments[bufferIndex + 1].get(0) & 0xFF) << 8 | (segments[bufferIndex].get(index) & 0xFF));
+        else
+            return segments[bufferIndex].getShort(index);
+    }
+
+    @Override
+    public void setBytes(long bytePos, byte[] values, int length) {
+        assert length <= segmentSizeInBytes : "the length has to be smaller or equal to the segment size: " + length + " vs. " + segmentSizeInBytes;
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        ByteBuffer seg = segments[bufferIndex];
+        int delta = index + length - segmentSizeInBytes;
+        if (delta > 0) {
+            length -= delta;
+            for (int i = 0; i < length; i++) {
+                seg.put(index + i, values[i]);
+            }
+            seg = segments[bufferIndex + 1];
+            for (int i = 0; i < delta; i++) {
+                seg.put(i, values[length + i]);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                seg.put(index + i, values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void getBytes(long bytePos, byte[] values, int length) {
+        assert length <= segmentSizeInBytes : "the length has to be smaller or equal to the segment size: " + length + " vs. " + segmentSizeInBytes;
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        ByteBuffer seg = segments[bufferIndex];
+        int delta = index + length - segmentSizeInBytes;
+        if (delta > 0) {
+            length -= delta;
+            for (int i = 0; i < length; i++) {
+                values[i] = seg.get(index + i);
+            }
+            seg = segments[bufferIndex + 1];
+            for (int i = 0; i < delta; i++) {
+                values[length + i] = seg.get(i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                values[i] = seg.get(index + i);
+            }
+        }
+    }
+
+    @Override
+    public final void setByte(long bytePos, byte value) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        segments[bufferIndex].put(index, value);
+    }
+
+    @Override
+    public final byte getByte(long bytePos) {
+        assert segments.length > 0 : "call create or loadExisting before usage!";
+        int bufferIndex = (int) (bytePos >>> segmentSizePower);
+        int index = (int) (bytePos & indexDivisor);
+        return segments[bufferIndex].get(index);
+    }
+
+    @Override
+    public IntReader createIntReader() {
+        if (segments.length != 1)
+            return super.createIntReader();
+        final ByteBuffer segment = segments[0];
+        return bytePos -> segment.getInt((int) bytePos);
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        // release the direct memory immediately instead of waiting for the garbage collector
+        for (ByteBuffer segment : segments) {
+            MMapDataAccess.cleanMappedByteBuffer(segment);
+        }
+        segments = new ByteBuffer[0];
+    }
+
+    @Override
+    public long getCapacity() {
+        return (long) getSegments() * segmentSizeInBytes;
+    }
+
+    @Override
+    public int getSegments() {
+        return segments.length;
+    }
+
+    @Override
+    public DAType getType() {
+        if (isStoring())
+            return DAType.OFF_HEAP_STORE;
+        return DAType.OFF_HEAP;
+    }
+}
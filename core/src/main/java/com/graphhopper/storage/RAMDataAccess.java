@@ -65,10 +65,12 @@ public class RAMDataAccess extends AbstractDataAccess {
         if (bytes < 0)
             throw new IllegalArgumentException("new capacity has to be strictly positive");
 
+        boolean replacedSegment = singleSegment && segments.length <= 1 && growSingleSegment(bytes);
+
         long cap = getCapacity();
         long newBytes = bytes - cap;
         if (newBytes <= 0)
-            return false;
+            return replacedSegment;
 
         int segmentsToCreate = (int) (newBytes / segmentSizeInBytes);
         if (newBytes % segmentSizeInBytes != 0)
@@ -88,6 +90,18 @@ public class RAMDataAccess extends AbstractDataAccess {
         return true;
     }
 
+    private boolean growSingleSegment(long bytes) {
+        int newSize = getSingleSegmentSize(bytes);
+        if (segments.length == 1 && newSize <= segmentSizeInBytes)
+            return false;
+        byte[] newSegment = new byte[newSize];
+        if (segments.length == 1)
+            System.arraycopy(segments[0], 0, newSegment, 0, segmentSizeInBytes);
+        segments = new byte[][]{newSegment};
+        setSegmentSize(newSize);
+        return true;
+    }
+
     @Override
     public boolean loadExisting() {
         if (segments.length > 0)
@@ -252,6 +266,14 @@ public class RAMDataAccess extends AbstractDataAccess {
         return segments[bufferIndex][index];
     }
 
+    @Override
+    public IntReader createIntReader() {
+        if (segments.length != 1)
+            return super.createIntReader();
+        final byte[] segment = segments[0];
+        return bytePos -> bitUtil.toInt(segment, (int) bytePos);
+    }
+
     @Override
     public void close() {
         super.close();
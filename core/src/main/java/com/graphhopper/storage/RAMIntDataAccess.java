@@ -67,10 +67,12 @@ class RAMIntDataAccess extends AbstractDataAccess {
         if (bytes < 0)
             throw new IllegalArgumentException("new capacity has to be strictly positive");
 
+        boolean replacedSegment = singleSegment && segments.length <= 1 && growSingleSegment(bytes);
+
         long cap = getCapacity();
         long newBytes = bytes - cap;
         if (newBytes <= 0)
-            return false;
+            return replacedSegment;
 
         int segmentsToCreate = (int) (newBytes / segmentSizeInBytes);
         if (newBytes % segmentSizeInBytes != 0)
@@ -90,6 +92,18 @@ class RAMIntDataAccess extends AbstractDataAccess {
         }
     }
 
+    private boolean growSingleSegment(long bytes) {
+        int newSize = getSingleSegmentSize(bytes);
+        if (segments.length == 1 && newSize <= segmentSizeInBytes)
+            return false;
+        int[] newSegment = new int[newSize / 4];
+        if (segments.length == 1)
+            System.arraycopy(segments[0], 0, newSegment, 0, segments[0].length);
+        segments = new int[][]{newSegment};
+        setSegmentSize(newSize);
+        return true;
+    }
+
     @Override
     public boolean loadExisting() {
         if (segments.length > 0)
@@ -232,6 +246,14 @@ class RAMIntDataAccess extends AbstractDataAccess {
         throw new UnsupportedOperationException(toString() + " does not support byte based acccess. Use RAMDataAccess instead");
     }
 
+    @Override
+    public IntReader createIntReader() {
+        if (segments.length != 1)
+            return super.createIntReader();
+        final int[] segment = segments[0];
+        return bytePos -> segment[(int) (bytePos >>> 2)];
+    }
+
     @Override
     public void close() {
         super.close();
@@ -128,6 +128,11 @@ public class RoutingCHEdgeIteratorStateImpl implements RoutingCHEdgeIteratorStat
      *                   do the full computation)
      */
     double getOrigEdgeWeight(boolean reverse, boolean needWeight) {
+        if (store.hasBaseEdgeWeights()) {
+            checkShortcut(false, "getOrigEdgeWeight");
+            // the base edge state is reversed if its base node is nodeB, so we need to flip the direction in this case
+            return store.getBaseEdgeWeight(baseEdgeState.edgeId, reverse == baseEdgeState.reverse);
+        }
         // todo: for #1835 move the access check into the weighting
         final EdgeIteratorState baseEdge = getBaseGraphEdgeState();
         if (baseEdge.getBaseNode() != baseEdge.getAdjNode() && weighting.edgeHasNoAccess(baseEdge, reverse))
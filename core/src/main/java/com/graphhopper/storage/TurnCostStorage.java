@@ -21,6 +21,8 @@ import com.graphhopper.routing.ev.DecimalEncodedValue;
 import com.graphhopper.routing.ev.TurnCost;
 import com.graphhopper.util.EdgeIterator;
 
+import java.util.Arrays;
+
 /**
  * A key/value store, where the unique keys are turn relations, and the values are IntRefs.
  * A turn relation is a triple (fromEdge, viaNode, toEdge),
@@ -44,14 +46,23 @@ public class TurnCostStorage {
     private static final int TC_FLAGS = 8;
     private static final int TC_NEXT = 12;
     private static final int BYTES_PER_ENTRY = 16;
+    // The lookup index is a read-optimized copy of the turn cost entries that is built when the graph is frozen. For
+    // every via node it stores a block |count|from_edge|to_edge|flags|...| sorted by from_edge and to_edge, so a turn
+    // relation can be found by binary search. The first turnCostsCount ints hold the int position of the block of the
+    // via node for the first turn cost entry of this node, i.e. the entry referenced by the node.
+    private static final int BYTES_PER_LOOKUP_ENTRY = 12;
 
     private BaseGraph baseGraph;
     private DataAccess turnCosts;
     private int turnCostsCount;
+    private final DataAccess lookupIndex;
+    private boolean lookupIndexInitialized;
+    private boolean lookupIndexValid;
 
-    public TurnCostStorage(BaseGraph baseGraph, DataAccess turnCosts) {
+    public TurnCostStorage(BaseGraph baseGraph, DataAccess turnCosts, DataAccess lookupIndex) {
         this.baseGraph = baseGraph;
         this.turnCosts = turnCosts;
+        this.lookupIndex = lookupIndex;
     }
 
     public TurnCostStorage create(long initBytes) {
@@ -63,14 +74,21 @@ public class TurnCostStorage {
         turnCosts.setHeader(0, BYTES_PER_ENTRY);
         turnCosts.setHeader(1 * 4, turnCostsCount);
         turnCosts.flush();
+        if (lookupIndexInitialized) {
+            lookupIndex.setHeader(0, BYTES_PER_LOOKUP_ENTRY);
+            // an outdated lookup index must not be used after loading the graph again
+            lookupIndex.setHeader(1 * 4, lookupIndexValid ? turnCostsCount : -1);
+            lookupIndex.flush();
+        }
     }
 
     public void close() {
         turnCosts.close();
+        lookupIndex.close();
     }
 
     public long getCapacity() {
-        return turnCosts.getCapacity();
+        return turnCosts.getCapacity() + (lookupIndexInitialized ? lookupIndex.getCapacity() : 0);
     }
 
     public boolean loadExisting() {
@@ -81,9 +99,87 @@ public class TurnCostStorage {
             throw new IllegalStateException("Number of bytes per turn cost entry does not match the current configuration: " + turnCosts.getHeader(0) + " vs. " + BYTES_PER_ENTRY);
         }
         turnCostsCount = turnCosts.getHeader(4);
+        // the lookup index is optional, without it we fall back to the linked lists
+        if (lookupIndex.loadExisting()) {
+            lookupIndexInitialized = true;
+            lookupIndexValid = lookupIndex.getHeader(0) == BYTES_PER_LOOKUP_ENTRY
+                    && lookupIndex.getHeader(1 * 4) == turnCostsCount;
+        }
         return true;
     }
 
+    /**
+     * Builds the lookup index that is used by {@link #get} instead of walking the linked list of turn cost entries
+     * of the via node. This is called when the graph is frozen. The index is dropped again if the turn costs are
+     * modified afterwards.
+     */
+    void buildLookupIndex() {
+        if (!lookupIndexInitialized) {
+            lookupIndex.create((long) (turnCostsCount + 1) * 4);
+            lookupIndexInitialized = true;
+        }
+        long blockPointer = (long) turnCostsCount * 4;
+        int[] fromEdges = new int[16];
+        int[] toEdges = new int[16];
+        int[] flags = new int[16];
+        for (int node = 0; node < baseGraph.getNodes(); node++) {
+            int firstIndex = baseGraph.getNodeAccess().getTurnCostIndex(node);
+            if (firstIndex == NO_TURN_ENTRY)
+                continue;
+            int count = 0;
+            for (int index = firstIndex; index != NO_TURN_ENTRY; index = turnCosts.getInt((long) index * BYTES_PER_ENTRY + TC_NEXT)) {
+                if (count == fromEdges.length) {
+                    fromEdges = Arrays.copyOf(fromEdges, count * 2);
+                    toEdges = Arrays.copyOf(toEdges, count * 2);
+                    flags = Arrays.copyOf(flags, count * 2);
+                }
+                long pointer = (long) index * BYTES_PER_ENTRY;
+                int fromEdge = turnCosts.getInt(pointer + TC_FROM);
+                int toEdge = turnCosts.getInt(pointer + TC_TO);
+                int tcFlags = turnCosts.getInt(pointer + TC_FLAGS);
+                // insertion sort, there are only a few turn relations per node
+                int i = count++;
+                for (; i > 0 && compare(fromEdges[i - 1], toEdges[i - 1], fromEdge, toEdge) > 0; i--) {
+                    fromEdges[i] = fromEdges[i - 1];
+                    toEdges[i] = toEdges[i - 1];
+                    flags[i] = flags[i - 1];
+                }
+                fromEdges[i] = fromEdge;
+                toEdges[i] = toEdge;
+                flags[i] = tcFlags;
+            }
+            lookupIndex.ensureCapacity(blockPointer + 4 + (long) count * BYTES_PER_LOOKUP_ENTRY);
+            lookupIndex.setInt((long) firstIndex * 4, toIntPosition(blockPointer));
+            lookupIndex.setInt(blockPointer, count);
+            long entryPointer = blockPointer + 4;
+            for (int i = 0; i < count; i++, entryPointer += BYTES_PER_LOOKUP_ENTRY) {
+                lookupIndex.setInt(entryPointer + TC_FROM, fromEdges[i]);
+                lookupIndex.setInt(entryPointer + TC_TO, toEdges[i]);
+                lookupIndex.setInt(entryPointer + TC_FLAGS, flags[i]);
+            }
+            blockPointer = entryPointer;
+        }
+        lookupIndexValid = true;
+    }
+
+    private static int toIntPosition(long bytePointer) {
+        long intPosition = bytePointer / 4;
+        if (intPosition > Integer.MAX_VALUE)
+            throw new IllegalStateException("Turn cost lookup index is too large: " + bytePointer);
+        return (int) intPosition;
+    }
+
+    private static int compare(int fromEdgeA, int toEdgeA, int fromEdgeB, int toEdgeB) {
+        return fromEdgeA != fromEdgeB ? Integer.compare(fromEdgeA, fromEdgeB) : Integer.compare(toEdgeA, toEdgeB);
+    }
+
+    /**
+     * @return true if turn costs are read from the lookup index built by {@link #buildLookupIndex()}
+     */
+    boolean isLookupIndexValid() {
+        return lookupIndexValid;
+    }
+
     /**
      * Sets the turn cost at the viaNode when going from "fromEdge" to "toEdge"
      * WARNING: It is tacitly assumed that for every encoder, this method is only called once per turn relation.
@@ -97,6 +193,7 @@ public class TurnCostStorage {
     }
 
     private void merge(IntsRef tcFlags, int fromEdge, int viaNode, int toEdge) {
+        lookupIndexValid = false;
         int newEntryIndex = turnCostsCount;
         ensureTurnCostIndex(newEntryIndex);
         boolean oldEntryFound = false;
@@ -175,6 +272,10 @@ public class TurnCostStorage {
 
     private void readFlags(IntsRef tcFlags, int fromEdge, int viaNode, int toEdge) {
         int turnCostIndex = baseGraph.getNodeAccess().getTurnCostIndex(viaNode);
+        if (lookupIndexValid) {
+            tcFlags.ints[0] = turnCostIndex == NO_TURN_ENTRY ? EMPTY_FLAGS : lookupFlags(turnCostIndex, fromEdge, toEdge);
+            return;
+        }
         int i = 0;
         for (; i < 1000; i++) {
             if (turnCostIndex == NO_TURN_ENTRY)
@@ -199,10 +300,41 @@ public class TurnCostStorage {
         tcFlags.ints[0] = EMPTY_FLAGS;
     }
 
+    private int lookupFlags(int turnCostIndex, int fromEdge, int toEdge) {
+        long blockPointer = (long) lookupIndex.getInt((long) turnCostIndex * 4) * 4;
+        int low = 0;
+        int high = lookupIndex.getInt(blockPointer) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long entryPointer = blockPointer + 4 + (long) mid * BYTES_PER_LOOKUP_ENTRY;
+            int cmp = compare(lookupIndex.getInt(entryPointer + TC_FROM), lookupIndex.getInt(entryPointer + TC_TO), fromEdge, toEdge);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return lookupIndex.getInt(entryPointer + TC_FLAGS);
+        }
+        return EMPTY_FLAGS;
+    }
+
     private void ensureTurnCostIndex(int nodeIndex) {
         turnCosts.ensureCapacity(((long) nodeIndex + 4) * BYTES_PER_ENTRY);
     }
 
+    /**
+     * Updates the edge ids of all turn cost entries after the edges of the graph were renumbered such that edge j
+     * became newEdges[j]. The entries are still found from the via node, so they do not need to be moved.
+     */
+    void reorderEdges(int[] newEdges) {
+        lookupIndexValid = false;
+        for (int i = 0; i < turnCostsCount; i++) {
+            long pointer = (long) i * BYTES_PER_ENTRY;
+            turnCosts.setInt(pointer + TC_FROM, newEdges[turnCosts.getInt(pointer + TC_FROM)]);
+            turnCosts.setInt(pointer + TC_TO, newEdges[turnCosts.getInt(pointer + TC_TO)]);
+        }
+    }
+
     public boolean isClosed() {
         return turnCosts.isClosed();
     }
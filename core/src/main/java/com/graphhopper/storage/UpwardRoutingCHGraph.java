@@ -0,0 +1,268 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.storage;
+
+import com.carrotsearch.hppc.LongArrayList;
+import com.graphhopper.routing.weighting.Weighting;
+
+import static com.graphhopper.util.EdgeIterator.NO_EDGE;
+
+/**
+ * A {@link RoutingCHGraph} that is optimized for CH queries. The shortcuts and base edges of every node are copied into
+ * contiguous arrays together with their weights (compressed sparse row format), but only the ones leading to nodes with
+ * a higher level. These are the only edges the CH algorithms accept anyway, so the searches yield the same results as
+ * with the given graph, but the edges of every settled node are read from a single memory region and the downward edges
+ * are not scanned at all.
+ * <p>
+ * For edge-based graphs the downward base edges are kept as well, because the edge-based CH algorithms expand all edges
+ * of the source and target nodes in their first step, see {@link com.graphhopper.routing.AbstractBidirectionEdgeCHNoSOD}.
+ * Later on they are skipped by the level filter of the algorithms.
+ * <p>
+ * The arrays are kept on the heap and need 24 (node-based) or 32 (edge-based) bytes per upward edge and direction. All
+ * other requests, like the unpacking of shortcuts via {@link #getEdgeIteratorState}, are delegated to the given graph.
+ */
+public class UpwardRoutingCHGraph implements RoutingCHGraph {
+    // every edge is stored as edge|adjNode, fwdWeight, bwdWeight (, origEdgeFirst|origEdgeLast for edge-based)
+    private static final int NODE_BASED_STRIDE = 3;
+    private static final int EDGE_BASED_STRIDE = 4;
+    private final RoutingCHGraph graph;
+    private final int baseEdges;
+    private final int stride;
+    private final int[] levels;
+    private final int[] outOffsets;
+    private final long[] outEdges;
+    private final int[] inOffsets;
+    private final long[] inEdges;
+
+    public static UpwardRoutingCHGraph fromGraph(RoutingCHGraph graph) {
+        return new UpwardRoutingCHGraph(graph);
+    }
+
+    private UpwardRoutingCHGraph(RoutingCHGraph graph) {
+        if (graph instanceof UpwardRoutingCHGraph)
+            throw new IllegalArgumentException("The given graph is already an UpwardRoutingCHGraph");
+        this.graph = graph;
+        baseEdges = graph.getEdges() - graph.getShortcuts();
+        stride = graph.isEdgeBased() ? EDGE_BASED_STRIDE : NODE_BASED_STRIDE;
+        int nodes = graph.getNodes();
+        levels = new int[nodes];
+        for (int node = 0; node < nodes; node++)
+            levels[node] = graph.getLevel(node);
+        outOffsets = new int[nodes + 1];
+        outEdges = copyUpwardEdges(graph.createOutEdgeExplorer(), outOffsets);
+        inOffsets = new int[nodes + 1];
+        inEdges = copyUpwardEdges(graph.createInEdgeExplorer(), inOffsets);
+    }
+
+    private long[] copyUpwardEdges(RoutingCHEdgeExplorer explorer, int[] offsets) {
+        LongArrayList edges = new LongArrayList();
+        boolean skipDownwardBaseEdges = !graph.isEdgeBased();
+        int nodes = offsets.length - 1;
+        for (int node = 0; node < nodes; node++) {
+            offsets[node] = edges.size();
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            while (iter.next()) {
+                // shortcuts always lead to higher level nodes, see AbstractBidirCHAlgo's level filter
+                if (skipDownwardBaseEdges && !iter.isShortcut() && levels[node] > levels[iter.getAdjNode()])
+                    continue;
+                if ((long) edges.size() + stride > Integer.MAX_VALUE - 8)
+                    throw new IllegalStateException("Too many upward edges for node " + node);
+                edges.add(((long) iter.getEdge() << 32) | (iter.getAdjNode() & 0xFFFF_FFFFL));
+                edges.add(Double.doubleToRawLongBits(iter.getWeight(false)));
+                edges.add(Double.doubleToRawLongBits(iter.getWeight(true)));
+                if (stride == EDGE_BASED_STRIDE)
+                    edges.add(((long) iter.getOrigEdgeFirst() << 32) | (iter.getOrigEdgeLast() & 0xFFFF_FFFFL));
+            }
+        }
+        offsets[nodes] = edges.size();
+        return edges.toArray();
+    }
+
+    @Override
+    public int getNodes() {
+        return graph.getNodes();
+    }
+
+    @Override
+    public int getEdges() {
+        return graph.getEdges();
+    }
+
+    @Override
+    public int getShortcuts() {
+        return graph.getShortcuts();
+    }
+
+    /**
+     * Unlike {@link RoutingCHGraphImpl#createInEdgeExplorer()} this only includes the base edges coming from higher
+     * level nodes.
+     */
+    @Override
+    public RoutingCHEdgeExplorer createInEdgeExplorer() {
+        return new UpwardEdgeIterator(inOffsets, inEdges);
+    }
+
+    /**
+     * Unlike {@link RoutingCHGraphImpl#createOutEdgeExplorer()} this only includes the base edges going to higher
+     * level nodes.
+     */
+    @Override
+    public RoutingCHEdgeExplorer createOutEdgeExplorer() {
+        return new UpwardEdgeIterator(outOffsets, outEdges);
+    }
+
+    @Override
+    public RoutingCHEdgeIteratorState getEdgeIteratorState(int chEdge, int adjNode) {
+        return graph.getEdgeIteratorState(chEdge, adjNode);
+    }
+
+    @Override
+    public int getLevel(int node) {
+        return levels[node];
+    }
+
+    @Override
+    public double getTurnWeight(int inEdge, int viaNode, int outEdge) {
+        return graph.getTurnWeight(inEdge, viaNode, outEdge);
+    }
+
+    @Override
+    public Graph getBaseGraph() {
+        return graph.getBaseGraph();
+    }
+
+    @Override
+    public boolean hasTurnCosts() {
+        return graph.hasTurnCosts();
+    }
+
+    @Override
+    public boolean isEdgeBased() {
+        return graph.isEdgeBased();
+    }
+
+    @Override
+    public Weighting getWeighting() {
+        return graph.getWeighting();
+    }
+
+    /**
+     * @return the approximate memory used by the upward edges and levels in bytes
+     */
+    public long getMemoryUsage() {
+        return 8L * (outEdges.length + inEdges.length) + 4L * (outOffsets.length + inOffsets.length + levels.length);
+    }
+
+    @Override
+    public void close() {
+        graph.close();
+    }
+
+    private class UpwardEdgeIterator implements RoutingCHEdgeExplorer, RoutingCHEdgeIterator {
+        private final int[] offsets;
+        private final long[] edges;
+        private int baseNode;
+        private int index;
+        private int end;
+
+        UpwardEdgeIterator(int[] offsets, long[] edges) {
+            this.offsets = offsets;
+            this.edges = edges;
+        }
+
+        @Override
+        public RoutingCHEdgeIterator setBaseNode(int baseNode) {
+            this.baseNode = baseNode;
+            index = offsets[baseNode] - stride;
+            end = offsets[baseNode + 1];
+            return this;
+        }
+
+        @Override
+        public boolean next() {
+            index += stride;
+            return index < end;
+        }
+
+        @Override
+        public int getEdge() {
+            return (int) (edges[index] >>> 32);
+        }
+
+        @Override
+        public int getOrigEdge() {
+            return isShortcut() ? NO_EDGE : getEdge();
+        }
+
+        @Override
+        public int getOrigEdgeFirst() {
+            if (stride != EDGE_BASED_STRIDE || !isShortcut())
+                return getEdge();
+            return (int) (edges[index + 3] >>> 32);
+        }
+
+        @Override
+        public int getOrigEdgeLast() {
+            if (stride != EDGE_BASED_STRIDE || !isShortcut())
+                return getEdge();
+            return (int) edges[index + 3];
+        }
+
+        @Override
+        public int getBaseNode() {
+            return baseNode;
+        }
+
+        @Override
+        public int getAdjNode() {
+            return (int) edges[index];
+        }
+
+        @Override
+        public boolean isShortcut() {
+            return getEdge() >= baseEdges;
+        }
+
+        @Override
+        public int getSkippedEdge1() {
+            // this is not needed during the searches, so we do not store it
+            return getShortcutState("getSkippedEdge1").getSkippedEdge1();
+        }
+
+        @Override
+        public int getSkippedEdge2() {
+            return getShortcutState("getSkippedEdge2").getSkippedEdge2();
+        }
+
+        private RoutingCHEdgeIteratorState getShortcutState(String methodName) {
+            if (!isShortcut())
+                throw new IllegalStateException("Method " + methodName + " only for shortcuts " + getEdge());
+            return graph.getEdgeIteratorState(getEdge(), getAdjNode());
+        }
+
+        @Override
+        public double getWeight(boolean reverse) {
+            return Double.longBitsToDouble(edges[index + (reverse ? 2 : 1)]);
+        }
+
+        @Override
+        public String toString() {
+            return baseNode + "->" + getAdjNode() + " (" + getEdge() + ")";
+        }
+    }
+}
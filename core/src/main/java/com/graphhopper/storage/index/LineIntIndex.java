@@ -20,6 +20,7 @@ package com.graphhopper.storage.index;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.LongObjectMap;
 import com.graphhopper.geohash.SpatialKeyAlgo;
 import com.graphhopper.storage.DataAccess;
 import com.graphhopper.storage.Directory;
@@ -33,6 +34,7 @@ import java.util.function.IntConsumer;
 public class LineIntIndex {
     // do not start with 0 as a positive value means leaf and a negative means "entry with subentries"
     static final int START_POINTER = 1;
+    private static final int[] EMPTY_TILE = new int[0];
 
     final DataAccess dataAccess;
     private final BBox bounds;
@@ -153,6 +155,27 @@ public class LineIntIndex {
         }
     }
 
+    /**
+     * Same as {@link #fillIDs(long, IntConsumer)} but reads the edge ids of every tile only once and keeps them in the
+     * given cache. Without a cache the edge ids are read directly.
+     */
+    private void fillIDs(long keyPart, IntConsumer consumer, LongObjectMap<int[]> tileCache) {
+        if (tileCache == null) {
+            fillIDs(keyPart, consumer);
+            return;
+        }
+        int[] edgeIds = tileCache.get(keyPart);
+        if (edgeIds == null) {
+            IntArrayList list = new IntArrayList();
+            fillIDs(keyPart, list::add);
+            edgeIds = list.isEmpty() ? EMPTY_TILE : list.toArray();
+            tileCache.put(keyPart, edgeIds);
+        }
+        for (int edgeId : edgeIds) {
+            consumer.accept(edgeId);
+        }
+    }
+
     public void query(BBox queryShape, final LocationIndex.Visitor function) {
         final IntHashSet set = new IntHashSet();
         query(START_POINTER, queryShape,
@@ -231,6 +254,17 @@ public class LineIntIndex {
      * <p>
      */
     public void findEdgeIdsInNeighborhood(double queryLat, double queryLon, int iteration, IntConsumer foundEntries) {
+        findEdgeIdsInNeighborhood(queryLat, queryLon, iteration, foundEntries, null);
+    }
+
+    /**
+     * Same as {@link #findEdgeIdsInNeighborhood(double, double, int, IntConsumer)}, but the edge ids of every visited
+     * tile are taken from (or put into) the given cache. This is useful if many nearby points are looked up in a row.
+     *
+     * @param tileCache maps the spatial key of a tile to its edge ids, can be null
+     */
+    public void findEdgeIdsInNeighborhood(double queryLat, double queryLon, int iteration, IntConsumer foundEntries,
+                                          LongObjectMap<int[]> tileCache) {
         int x = keyAlgo.x(queryLon);
         int y = keyAlgo.y(queryLat);
         for (int yreg = -iteration; yreg <= iteration; yreg++) {
@@ -239,11 +273,11 @@ public class LineIntIndex {
             int subqueryXB = x + iteration;
             if (subqueryXA >= 0 && subqueryY >= 0) { // TODO: Also don't walk off the _other_ side of the grid.
                 long keyPart = keyAlgo.encode(subqueryXA, subqueryY) << (64 - keyAlgo.getBits());
-                fillIDs(keyPart, foundEntries);
+                fillIDs(keyPart, foundEntries, tileCache);
             }
             if (iteration > 0 && subqueryXB >= 0 && subqueryY >= 0) {
                 long keyPart = keyAlgo.encode(subqueryXB, subqueryY) << (64 - keyAlgo.getBits());
-                fillIDs(keyPart, foundEntries);
+                fillIDs(keyPart, foundEntries, tileCache);
             }
         }
 
@@ -253,11 +287,11 @@ public class LineIntIndex {
             int subqueryYB = y + iteration;
             if (subqueryX >= 0 && subqueryYA >= 0) {
                 long keyPart = keyAlgo.encode(subqueryX, subqueryYA) << (64 - keyAlgo.getBits());
-                fillIDs(keyPart, foundEntries);
+                fillIDs(keyPart, foundEntries, tileCache);
             }
             if (subqueryX >= 0 && subqueryYB >= 0) {
                 long keyPart = keyAlgo.encode(subqueryX, subqueryYB) << (64 - keyAlgo.getBits());
-                fillIDs(keyPart, foundEntries);
+                fillIDs(keyPart, foundEntries, tileCache);
             }
         }
     }
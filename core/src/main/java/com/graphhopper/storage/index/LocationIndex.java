@@ -20,6 +20,8 @@ package com.graphhopper.storage.index;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.util.shapes.BBox;
 
+import java.util.List;
+
 /**
  * Provides a way to map real world data "lat,lon" to internal ids/indices of a memory efficient graph
  * - often just implemented as an array.
@@ -46,6 +48,41 @@ public interface LocationIndex {
      */
     Snap findClosest(double lat, double lon, EdgeFilter edgeFilter);
 
+    /**
+     * Looks up the closest Snap for many locations at once, see {@link #findClosest(double, double, EdgeFilter)}.
+     * Implementations can use this to share work between nearby locations, this default implementation just handles
+     * one location after the other.
+     *
+     * @return the Snaps in the same order as the given coordinates
+     */
+    default Snap[] findClosest(double[] lats, double[] lons, EdgeFilter edgeFilter) {
+        if (lats.length != lons.length)
+            throw new IllegalArgumentException("Number of latitudes and longitudes must be equal: " + lats.length + " vs. " + lons.length);
+        Snap[] snaps = new Snap[lats.length];
+        for (int i = 0; i < lats.length; i++) {
+            snaps[i] = findClosest(lats[i], lons[i], edgeFilter);
+        }
+        return snaps;
+    }
+
+    /**
+     * Finds the k edges that are closest to the specified location and accepted by the filter.
+     *
+     * @param k           the maximum number of returned Snaps
+     * @param maxDistance only edges closer than this distance (in meter) are considered
+     * @return one Snap per edge, sorted by increasing distance from the query location
+     */
+    List<Snap> findNearest(double lat, double lon, int k, double maxDistance, EdgeFilter edgeFilter);
+
+    /**
+     * Finds all edges accepted by the filter that are closer than radius (in meter) to the specified location.
+     *
+     * @return one Snap per edge, sorted by increasing distance from the query location
+     */
+    default List<Snap> findWithinRadius(double lat, double lon, double radius, EdgeFilter edgeFilter) {
+        return findNearest(lat, lon, Integer.MAX_VALUE, radius, edgeFilter);
+    }
+
     /**
      * This method explores the LocationIndex with the specified Visitor. It visits only the stored edges (and only once)
      * and limited by the queryBBox. Also (a few) more edges slightly outside of queryBBox could be
@@ -18,6 +18,9 @@
 package com.graphhopper.storage.index;
 
 import com.carrotsearch.hppc.IntHashSet;
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.carrotsearch.hppc.LongObjectMap;
+import com.carrotsearch.hppc.sorting.IndirectSort;
 import com.graphhopper.routing.util.AllEdgesIterator;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.Directory;
@@ -28,7 +31,8 @@ import com.graphhopper.util.shapes.BBox;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import java.util.*;
+import java.util.concurrent.Callable;
 
 import static com.graphhopper.util.DistancePlaneProjection.DIST_PLANE;
 
@@ -56,6 +60,13 @@ public class LocationIndexTree implements LocationIndex {
     private final Graph graph;
     private final Logger logger = LoggerFactory.getLogger(getClass());
     private final NodeAccess nodeAccess;
+    /**
+     * The maximum number of tiles whose edge ids are kept in memory during a batch lookup. The queries of a batch are
+     * sorted such that nearby queries follow each other, so a cache of a moderate size is sufficient.
+     */
+    private static final int MAX_CACHED_TILES = 4096;
+    private static final Comparator<Snap> SNAP_COMPARATOR = Comparator.comparingDouble(Snap::getQueryDistance)
+            .thenComparingInt(snap -> snap.getClosestEdge().getEdge());
     private int maxRegionSearch = 4;
     private int minResolutionInMeter = 300;
     private boolean initialized = false;
@@ -274,8 +285,72 @@ public class LocationIndexTree implements LocationIndex {
         if (isClosed())
             throw new IllegalStateException("You need to create a new LocationIndex instance as it is already closed");
 
-        final Snap closestMatch = new Snap(queryLat, queryLon);
+        return findClosest(queryLat, queryLon, edgeFilter, new IntHashSet(), null);
+    }
+
+    @Override
+    public Snap[] findClosest(double[] queryLats, double[] queryLons, EdgeFilter edgeFilter) {
+        return findClosest(queryLats, queryLons, edgeFilter, 1);
+    }
+
+    /**
+     * Looks up the closest Snap for many locations at once. The queries are sorted by the tile they are located in such
+     * that nearby queries are handled one after another and the edge ids of a tile are (usually) read only once per
+     * batch.
+     *
+     * @param threads if larger than one the sorted queries are split into this number of consecutive chunks that are
+     *                processed concurrently. In this case the edgeFilter must be thread-safe.
+     * @return the Snaps in the same order as the given coordinates
+     */
+    public Snap[] findClosest(double[] queryLats, double[] queryLons, EdgeFilter edgeFilter, int threads) {
+        if (isClosed())
+            throw new IllegalStateException("You need to create a new LocationIndex instance as it is already closed");
+        if (queryLats.length != queryLons.length)
+            throw new IllegalArgumentException("Number of latitudes and longitudes must be equal: " + queryLats.length + " vs. " + queryLons.length);
+        if (threads < 1)
+            throw new IllegalArgumentException("threads must be positive but was " + threads);
+
+        final int queries = queryLats.length;
+        final long[] tileKeys = new long[queries];
+        for (int i = 0; i < queries; i++) {
+            tileKeys[i] = indexStructureInfo.getKeyAlgo().encodeLatLon(queryLats[i], queryLons[i]);
+        }
+        final int[] order = IndirectSort.mergesort(0, queries, (indexA, indexB) -> Long.compare(tileKeys[indexA], tileKeys[indexB]));
+        final Snap[] snaps = new Snap[queries];
+        threads = Math.max(1, Math.min(threads, queries));
+        if (threads == 1) {
+            findClosest(queryLats, queryLons, edgeFilter, order, 0, queries, snaps);
+        } else {
+            List<Callable<String>> callables = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                final int from = (int) ((long) queries * t / threads);
+                final int to = (int) ((long) queries * (t + 1) / threads);
+                callables.add(() -> {
+                    findClosest(queryLats, queryLons, edgeFilter, order, from, to, snaps);
+                    return "find_closest_" + from;
+                });
+            }
+            GHUtility.runConcurrently(callables, threads);
+        }
+        return snaps;
+    }
+
+    private void findClosest(double[] queryLats, double[] queryLons, EdgeFilter edgeFilter,
+                             int[] order, int from, int to, Snap[] snaps) {
+        LongObjectMap<int[]> tileCache = new LongObjectHashMap<>();
         IntHashSet seenEdges = new IntHashSet();
+        for (int i = from; i < to; i++) {
+            int query = order[i];
+            if (tileCache.size() > MAX_CACHED_TILES)
+                tileCache.clear();
+            seenEdges.clear();
+            snaps[query] = findClosest(queryLats[query], queryLons[query], edgeFilter, seenEdges, tileCache);
+        }
+    }
+
+    private Snap findClosest(final double queryLat, final double queryLon, final EdgeFilter edgeFilter,
+                             IntHashSet seenEdges, LongObjectMap<int[]> tileCache) {
+        final Snap closestMatch = new Snap(queryLat, queryLon);
         for (int iteration = 0; iteration < maxRegionSearch; iteration++) {
             lineIntIndex.findEdgeIdsInNeighborhood(queryLat, queryLon, iteration, edgeId -> {
                 EdgeIteratorState edgeIteratorState = graph.getEdgeIteratorStateForKey(edgeId * 2);
@@ -290,7 +365,7 @@ public class LocationIndexTree implements LocationIndex {
                         }
                     });
                 }
-            });
+            }, tileCache);
             if (closestMatch.isValid()) {
                 // Check if we can stop...
                 double rMin = calculateRMin(queryLat, queryLon, iteration);
@@ -308,6 +383,78 @@ public class LocationIndexTree implements LocationIndex {
         return closestMatch;
     }
 
+    /**
+     * Searches the tiles in rings of increasing size around the query location, like
+     * {@link #findClosest(double, double, EdgeFilter)} does. The k best Snaps found so far are kept in a bounded
+     * priority queue and the search stops as soon as the distance to the border of the searched region exceeds
+     * the distance of the k-th best Snap (or maxDistance), because all edges that were not visited yet are further
+     * away. In contrast to findClosest this is not limited by {@link #setMaxRegionSearch(int)}.
+     */
+    @Override
+    public List<Snap> findNearest(final double queryLat, final double queryLon, final int k, final double maxDistance,
+                                  final EdgeFilter edgeFilter) {
+        if (isClosed())
+            throw new IllegalStateException("You need to create a new LocationIndex instance as it is already closed");
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive but was " + k);
+        if (!(maxDistance >= 0))
+            throw new IllegalArgumentException("maxDistance must not be negative but was " + maxDistance);
+
+        final double maxNormedDist = DIST_PLANE.calcNormalizedDist(maxDistance);
+        // the worst of the best k Snaps found so far is at the head
+        final PriorityQueue<Snap> bestSnaps = new PriorityQueue<>(SNAP_COMPARATOR.reversed());
+        IntHashSet seenEdges = new IntHashSet();
+        for (int iteration = 0; iteration <= indexStructureInfo.getParts(); iteration++) {
+            lineIntIndex.findEdgeIdsInNeighborhood(queryLat, queryLon, iteration, edgeId -> {
+                if (!seenEdges.add(edgeId))
+                    return;
+                EdgeIteratorState edgeIteratorState = graph.getEdgeIteratorStateForKey(edgeId * 2);
+                if (!edgeFilter.accept(edgeIteratorState))
+                    return;
+                Snap snap = snapToEdge(queryLat, queryLon, edgeIteratorState);
+                if (snap.getQueryDistance() > maxNormedDist)
+                    return;
+                if (bestSnaps.size() < k) {
+                    bestSnaps.add(snap);
+                } else if (SNAP_COMPARATOR.compare(snap, bestSnaps.peek()) < 0) {
+                    bestSnaps.poll();
+                    bestSnaps.add(snap);
+                }
+            });
+            double rMin = calculateRMin(queryLat, queryLon, iteration);
+            if (rMin > maxDistance)
+                break;
+            if (bestSnaps.size() == k && DIST_PLANE.calcDenormalizedDist(bestSnaps.peek().getQueryDistance()) < rMin)
+                break;
+        }
+
+        List<Snap> result = new ArrayList<>(bestSnaps);
+        result.sort(SNAP_COMPARATOR);
+        for (Snap snap : result) {
+            snap.setQueryDistance(DIST_PLANE.calcDenormalizedDist(snap.getQueryDistance()));
+            snap.calcSnappedPoint(DIST_PLANE);
+        }
+        return result;
+    }
+
+    /**
+     * @return the Snap of the point on the given edge that is closest to the query location. The query distance is
+     * not yet denormalized.
+     */
+    private Snap snapToEdge(double queryLat, double queryLon, EdgeIteratorState edgeIteratorState) {
+        final Snap snap = new Snap(queryLat, queryLon);
+        snap.setClosestEdge(edgeIteratorState);
+        traverseEdge(queryLat, queryLon, edgeIteratorState, (node, normedDist, wayIndex, pos) -> {
+            if (normedDist < snap.getQueryDistance()) {
+                snap.setQueryDistance(normedDist);
+                snap.setClosestNode(node);
+                snap.setWayIndex(wayIndex);
+                snap.setSnappedPosition(pos);
+            }
+        });
+        return snap;
+    }
+
     @Override
     public void query(BBox queryBBox, Visitor function) {
         lineIntIndex.query(queryBBox, function);
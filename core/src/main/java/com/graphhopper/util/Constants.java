@@ -71,6 +71,8 @@ public class Constants {
     public static final int VERSION_SHORTCUT = 8;
     public static final int VERSION_NODE_CH = 0;
     public static final int VERSION_GEOMETRY = 6;
+    // same as VERSION_GEOMETRY, but using the delta-encoded format, see BaseGraph#setCompressedGeometry
+    public static final int VERSION_GEOMETRY_COMPRESSED = 7;
     public static final int VERSION_LOCATION_IDX = 5;
     public static final int VERSION_STRING_IDX = 6;
     /**
@@ -18,6 +18,7 @@
 package com.graphhopper.util;
 
 import com.bedatadriven.jackson.datatype.jts.JtsModule;
+import com.carrotsearch.hppc.IntArrayDeque;
 import com.carrotsearch.hppc.IntArrayList;
 import com.carrotsearch.hppc.IntIndexedContainer;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,6 +57,7 @@ import static com.graphhopper.util.DistanceCalcEarth.DIST_EARTH;
  */
 public class GHUtility {
     private static final Logger LOGGER = LoggerFactory.getLogger(GHUtility.class);
+    private static final int HILBERT_ORDER = 16;
 
     /**
      * This method could throw an exception if problems like index out of bounds etc
@@ -386,6 +388,85 @@ public class GHUtility {
         return createSortedGraph(g, sortedGraph, nodeList, edgeList);
     }
 
+    /**
+     * Calculates new node ids such that the nodes are ordered along a Hilbert curve laid over the bounds of the graph,
+     * i.e. nodes that are close to each other mostly get similar ids. Use the result for {@link BaseGraph#reorder}.
+     */
+    public static int[] calcHilbertNodeOrder(Graph graph) {
+        int nodes = graph.getNodes();
+        NodeAccess na = graph.getNodeAccess();
+        BBox bounds = graph.getBounds();
+        int cells = 1 << HILBERT_ORDER;
+        double lonFactor = bounds.maxLon > bounds.minLon ? (cells - 1) / (bounds.maxLon - bounds.minLon) : 0;
+        double latFactor = bounds.maxLat > bounds.minLat ? (cells - 1) / (bounds.maxLat - bounds.minLat) : 0;
+        // the Hilbert index uses 2 * 16 bits, so we can sort by index and node id at once
+        long[] keys = new long[nodes];
+        for (int node = 0; node < nodes; node++) {
+            int x = Math.max(0, Math.min(cells - 1, (int) ((na.getLon(node) - bounds.minLon) * lonFactor)));
+            int y = Math.max(0, Math.min(cells - 1, (int) ((na.getLat(node) - bounds.minLat) * latFactor)));
+            keys[node] = (calcHilbertIndex(x, y) << 31) | node;
+        }
+        Arrays.sort(keys);
+        int[] newNodes = new int[nodes];
+        for (int i = 0; i < nodes; i++)
+            newNodes[(int) (keys[i] & Integer.MAX_VALUE)] = i;
+        return newNodes;
+    }
+
+    /**
+     * @return the position of the given cell on a Hilbert curve that covers 2^16 x 2^16 cells
+     */
+    static long calcHilbertIndex(int x, int y) {
+        int n = 1 << HILBERT_ORDER;
+        long index = 0;
+        for (int s = n / 2; s > 0; s /= 2) {
+            int rx = (x & s) > 0 ? 1 : 0;
+            int ry = (y & s) > 0 ? 1 : 0;
+            index += (long) s * s * ((3 * rx) ^ ry);
+            // rotate the quadrant such that the curve continues in the right direction
+            if (ry == 0) {
+                if (rx == 1) {
+                    x = n - 1 - x;
+                    y = n - 1 - y;
+                }
+                int tmp = x;
+                x = y;
+                y = tmp;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Calculates new node ids in the order of a breadth-first search, which is started again from the smallest
+     * unvisited node for every connected component. Use the result for {@link BaseGraph#reorder}.
+     */
+    public static int[] calcBFSNodeOrder(Graph graph) {
+        int nodes = graph.getNodes();
+        int[] newNodes = new int[nodes];
+        Arrays.fill(newNodes, -1);
+        IntArrayDeque queue = new IntArrayDeque();
+        EdgeExplorer explorer = graph.createEdgeExplorer();
+        int nextId = 0;
+        for (int start = 0; start < nodes; start++) {
+            if (newNodes[start] >= 0)
+                continue;
+            newNodes[start] = nextId++;
+            queue.addLast(start);
+            while (!queue.isEmpty()) {
+                EdgeIterator iter = explorer.setBaseNode(queue.removeFirst());
+                while (iter.next()) {
+                    int adjNode = iter.getAdjNode();
+                    if (newNodes[adjNode] < 0) {
+                        newNodes[adjNode] = nextId++;
+                        queue.addLast(adjNode);
+                    }
+                }
+            }
+        }
+        return newNodes;
+    }
+
     static Graph createSortedGraph(Graph fromGraph, Graph toSortedGraph, final IntIndexedContainer oldToNewNodeList, final IntIndexedContainer newToOldEdgeList) {
         if (fromGraph.getTurnCostStorage() != null) {
             throw new IllegalArgumentException("Sorting the graph is currently not supported in the presence of turn costs");
@@ -441,6 +522,7 @@ public class GHUtility {
         GraphHopperStorage copy = new GraphBuilder(store.getEncodingManager())
                 .withTurnCosts(store.getTurnCostStorage() != null)
                 .set3D(is3D)
+                .setCompressedGeometry(store.getBaseGraph().isCompressedGeometry())
                 .setDir(outdir)
                 .create();
         copy.getProperties().putAll(store.getProperties().getAll());
@@ -464,6 +546,21 @@ public class GHUtility {
         }
     }
 
+    /**
+     * Same as {@link #checkDAVersion(String, int, int)}, but for storages that can read several versions, e.g. because
+     * older files can still be loaded after a new format was introduced.
+     */
+    public static void checkDAVersion(String name, int[] expectedVersions, int version) {
+        for (int expectedVersion : expectedVersions) {
+            if (version == expectedVersion)
+                return;
+        }
+        throw new IllegalStateException("Unexpected version for '" + name + "'. Got: " + version + ", " +
+                "expected one of: " + Arrays.toString(expectedVersions) + ". "
+                + "Make sure you are using the same GraphHopper version for reading the files that was used for creating them. "
+                + "See https://discuss.graphhopper.com/t/722");
+    }
+
     public static EdgeIteratorState createMockedEdgeIteratorState(final double distance, final IntsRef flags) {
         return createMockedEdgeIteratorState(distance, flags, 0, 1, 2, 3, 4);
     }
@@ -24,6 +24,7 @@ import com.graphhopper.json.Statement;
 import com.graphhopper.reader.ReaderWay;
 import com.graphhopper.reader.dem.SRTMProvider;
 import com.graphhopper.reader.dem.SkadiProvider;
+import com.graphhopper.routing.ch.CustomizedCHCache;
 import com.graphhopper.routing.ev.Subnetwork;
 import com.graphhopper.routing.util.AllEdgesIterator;
 import com.graphhopper.routing.util.DefaultSnapFilter;
@@ -663,6 +664,58 @@ public class GraphHopperTest {
         assertDistance(hopper, customCar, new CustomModel(customModelWithUnclassifiedRule).setDistanceInfluence(100), 14475);
     }
 
+    @Test
+    public void testCustomModelWithCustomizedCH() {
+        final String vehicle = "car";
+        final String customCar = "custom_car";
+        final String emptyCar = "empty_car";
+        CustomModel customModel = new CustomModel();
+        customModel.addToSpeed(Statement.If("road_class == TERTIARY || road_class == TRACK", Statement.Op.MULTIPLY, 0.1));
+        GraphHopper hopper = new GraphHopper().
+                setGraphHopperLocation(GH_LOCATION).
+                setOSMFile(BAYREUTH).
+                setProfiles(
+                        new CustomProfile(emptyCar).setCustomModel(new CustomModel()).setVehicle(vehicle),
+                        new CustomProfile(customCar).setCustomModel(customModel).setVehicle(vehicle)
+                );
+        hopper.getRouterConfig().setCustomizedCHCacheSize(2);
+        hopper.getRouterConfig().setCustomizationThreads(2);
+        hopper.importOrLoad();
+        CustomizedCHCache cache = hopper.getCustomizedCHCache();
+        assertNotNull(cache);
+
+        // same routes as in testCustomModel, but now the custom models of the requests use the customized CH graphs
+        assertDistance(hopper, emptyCar, new CustomModel(customModel), 13223);
+        CustomModel strictCustomModel = new CustomModel().addToSpeed(
+                Statement.If("road_class == TERTIARY || road_class == TRACK || road_class == UNCLASSIFIED", Statement.Op.MULTIPLY, 0.1));
+        assertDistance(hopper, emptyCar, strictCustomModel, 19289);
+        CustomModel customModelWithUnclassifiedRule = new CustomModel().addToSpeed(
+                Statement.If("road_class == UNCLASSIFIED", Statement.Op.MULTIPLY, 0.1)
+        );
+        assertDistance(hopper, customCar, customModelWithUnclassifiedRule, 19289);
+        assertEquals(3, cache.getMisses());
+        assertEquals(0, cache.getHits());
+
+        // the second request with the same custom model uses the cached graph
+        assertDistance(hopper, emptyCar, strictCustomModel, 19289);
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getHits());
+
+        // the customized CH finds the same routes as the flexible mode
+        GHRequest req = new GHRequest(50.008732, 11.596413, 49.974361, 11.514509).setProfile(customCar).
+                setCustomModel(new CustomModel(customModelWithUnclassifiedRule).setDistanceInfluence(100));
+        GHResponse chRsp = hopper.route(req);
+        assertFalse(chRsp.hasErrors(), chRsp.getErrors().toString());
+        req.putHint(CH.DISABLE, true);
+        GHResponse flexRsp = hopper.route(req);
+        assertFalse(flexRsp.hasErrors(), flexRsp.getErrors().toString());
+        assertEquals(flexRsp.getBest().getDistance(), chRsp.getBest().getDistance(), 1.e-3);
+        assertEquals(flexRsp.getBest().getRouteWeight(), chRsp.getBest().getRouteWeight(), 1.e-3);
+        assertTrue(chRsp.getHints().getLong("visited_nodes.sum", 0) < flexRsp.getHints().getLong("visited_nodes.sum", 0) / 10,
+                chRsp.getHints().getLong("visited_nodes.sum", 0) + " vs. " + flexRsp.getHints().getLong("visited_nodes.sum", 0));
+        hopper.close();
+    }
+
     private void assertDistance(GraphHopper hopper, String profile, CustomModel customModel, double expectedDistance) {
         GHRequest req = new GHRequest(50.008732, 11.596413, 49.974361, 11.514509);
         req.setProfile(profile);
@@ -2104,6 +2157,81 @@ public class GraphHopperTest {
         return hopper.route(req);
     }
 
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testViaLegThreads(boolean ch) {
+        GraphHopper h = new GraphHopper().
+                setGraphHopperLocation(GH_LOCATION).
+                setOSMFile(BAYREUTH).
+                setProfiles(new Profile("my_profile").setVehicle("car").setWeighting("fastest").setTurnCosts(true));
+        h.getCHPreparationHandler()
+                .setCHProfiles(new CHProfile("my_profile"));
+        h.getRouterConfig().setViaLegThreads(4);
+        h.importOrLoad();
+
+        List<GHPoint> points = asList(new GHPoint(50.015072, 11.499145), new GHPoint(50.014141, 11.497552),
+                new GHPoint(50.020562, 11.500196), new GHPoint(50.019935, 11.500567), new GHPoint(50.022027, 11.498255),
+                new GHPoint(50.016895, 11.4923));
+        List<String> curbsides = asList(CURBSIDE_RIGHT, CURBSIDE_LEFT, CURBSIDE_ANY, CURBSIDE_RIGHT, CURBSIDE_LEFT, CURBSIDE_RIGHT);
+        for (boolean withCurbsides : new boolean[]{false, true}) {
+            GHRequest req = new GHRequest(points).setProfile("my_profile");
+            req.putHint(CH.DISABLE, !ch);
+            req.putHint(Routing.FORCE_CURBSIDE, false);
+            if (withCurbsides)
+                req.setCurbsides(curbsides);
+            GHResponse rsp = h.route(req);
+            assertFalse(rsp.hasErrors(), rsp.getErrors().toString());
+
+            // the legs are independent, so they need to be the same as the ones we get when routing them one by one
+            double distance = 0;
+            double weight = 0;
+            for (int i = 0; i < points.size() - 1; i++) {
+                GHRequest legReq = new GHRequest(points.get(i), points.get(i + 1)).setProfile("my_profile");
+                legReq.putHint(CH.DISABLE, !ch);
+                legReq.putHint(Routing.FORCE_CURBSIDE, false);
+                if (withCurbsides)
+                    legReq.setCurbsides(curbsides.subList(i, i + 2));
+                GHResponse legRsp = h.route(legReq);
+                assertFalse(legRsp.hasErrors(), legRsp.getErrors().toString());
+                distance += legRsp.getBest().getDistance();
+                weight += legRsp.getBest().getRouteWeight();
+            }
+            assertEquals(distance, rsp.getBest().getDistance(), 1);
+            assertEquals(weight, rsp.getBest().getRouteWeight(), 1);
+            // the result does not change when the legs are calculated in a different order
+            assertEquals(rsp.getBest().getPoints(), h.route(req).getBest().getPoints());
+        }
+    }
+
+    @Test
+    public void testViaLegThreads_headings() {
+        // headings are enforced by unfavoring the virtual edges of the query graph, which every leg does on its own copy
+        List<GHPoint> points = asList(new GHPoint(50.015072, 11.499145), new GHPoint(50.014141, 11.497552),
+                new GHPoint(50.020562, 11.500196), new GHPoint(50.019935, 11.500567), new GHPoint(50.022027, 11.498255),
+                new GHPoint(50.016895, 11.4923));
+        GHRequest req = new GHRequest(points).setProfile("my_profile")
+                .setHeadings(asList(90., 270., Double.NaN, 0., 180., 90.));
+        ResponsePath[] paths = new ResponsePath[2];
+        for (int threads : new int[]{4, 1}) {
+            GraphHopper h = new GraphHopper().
+                    setGraphHopperLocation(GH_LOCATION).
+                    setOSMFile(BAYREUTH).
+                    setProfiles(new Profile("my_profile").setVehicle("car").setWeighting("fastest").setTurnCosts(true));
+            h.getRouterConfig().setViaLegThreads(threads);
+            h.importOrLoad();
+            GHResponse rsp = h.route(req);
+            assertFalse(rsp.hasErrors(), rsp.getErrors().toString());
+            paths[threads == 1 ? 1 : 0] = rsp.getBest();
+            // make sure the headings have an effect
+            GHResponse noHeadingsRsp = h.route(new GHRequest(points).setProfile("my_profile"));
+            assertNotEquals(noHeadingsRsp.getBest().getRouteWeight(), rsp.getBest().getRouteWeight(), 1);
+            h.close();
+        }
+        assertEquals(paths[1].getDistance(), paths[0].getDistance(), 1.e-6);
+        assertEquals(paths[1].getRouteWeight(), paths[0].getRouteWeight(), 1.e-6);
+        assertEquals(paths[1].getPoints(), paths[0].getPoints());
+    }
+
     @Test
     public void testCHWithFiniteUTurnCosts() {
         GraphHopper h = new GraphHopper().
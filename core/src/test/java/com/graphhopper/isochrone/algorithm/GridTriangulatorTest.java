@@ -0,0 +1,91 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.isochrone.algorithm;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.junit.jupiter.api.Test;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.GeometryFactory;
+import org.locationtech.jts.geom.MultiPolygon;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GridTriangulatorTest {
+
+    @Test
+    public void gridKeepsSmallestValuePerCell() {
+        GridTriangulator.Grid grid = new GridTriangulator.Grid(0.01, 3);
+        grid.add(50.001, 10.001, 5);
+        grid.add(50.002, 10.002, 3);
+        grid.add(50.003, 10.003, 7);
+        assertEquals(1, grid.size());
+        assertEquals(3, grid.getValue(0));
+        assertEquals(50.002, grid.getSites().get(0).y);
+
+        grid.add(50.011, 10.001, 9);
+        grid.add(50.001, 10.011, 1);
+        assertEquals(3, grid.size());
+        assertEquals(9, grid.getValue(1));
+        assertEquals(1, grid.getValue(2));
+
+        // existing cells can still be updated, but there is no space for a new one
+        grid.add(50.012, 10.002, 8);
+        assertEquals(8, grid.getValue(1));
+        assertThrows(IllegalArgumentException.class, () -> grid.add(50.011, 10.011, 2));
+    }
+
+    @Test
+    public void triangulateLattice() {
+        EncodingManager encodingManager = EncodingManager.create("car");
+        FlagEncoder encoder = encodingManager.getEncoder("car");
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        // a 10x10 lattice with a spacing of 0.001 degrees
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 10; j++) {
+                int node = i * 10 + j;
+                graph.getNodeAccess().setNode(node, i * 0.001, j * 0.001);
+                if (i > 0)
+                    GHUtility.setSpeed(60, true, true, encoder, graph.edge(node - 10, node).setDistance(111));
+                if (j > 0)
+                    GHUtility.setSpeed(60, true, true, encoder, graph.edge(node - 1, node).setDistance(111));
+            }
+        }
+        ArrayShortestPathTree tree = new ArrayShortestPathTree(graph, new FastestWeighting(encoder, new PMap()), false, TraversalMode.NODE_BASED);
+        tree.setTimeLimit(Double.MAX_VALUE);
+        Triangulator.Result result = new GridTriangulator(0.0025, 100).triangulate(graph, tree, 44, 0);
+        assertEquals(100, tree.getVisitedNodes());
+
+        // every edge takes a bit less than 7s, the start node is in the middle of the lattice
+        MultiPolygon isoline = new ContourBuilder(result.triangulation).computeIsoline(20_000, result.seedEdges);
+        GeometryFactory geometryFactory = new GeometryFactory();
+        assertTrue(isoline.contains(geometryFactory.createPoint(new Coordinate(0.004, 0.004))));
+        assertFalse(isoline.contains(geometryFactory.createPoint(new Coordinate(0.009, 0.009))));
+
+        // the grid is too small for the lattice
+        ArrayShortestPathTree tree2 = new ArrayShortestPathTree(graph, new FastestWeighting(encoder, new PMap()), false, TraversalMode.NODE_BASED);
+        tree2.setTimeLimit(Double.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> new GridTriangulator(0.0025, 10).triangulate(graph, tree2, 44, 0));
+        graph.close();
+    }
+}
@@ -16,7 +16,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -324,4 +326,64 @@ public class ShortestPathTreeTest {
         );
     }
 
+    @Test
+    public void testArrayShortestPathTree25Seconds() {
+        List<Integer> nodes = new ArrayList<>();
+        List<Long> times = new ArrayList<>();
+        ArrayShortestPathTree instance = new ArrayShortestPathTree(graph, new FastestWeighting(carEncoder, new PMap()), false, TraversalMode.NODE_BASED);
+        instance.setTimeLimit(25_000);
+        instance.search(0, (node, edge, weight, time, distance) -> {
+            nodes.add(node);
+            times.add(time);
+        });
+        assertEquals(Arrays.asList(0, 4, 6), nodes);
+        assertEquals(Arrays.asList(0L, 9000L, 18000L), times);
+    }
+
+    @Test
+    public void testArrayShortestPathTreeSettlesSameLabels() {
+        // with finite u-turn costs the labels are updated a lot
+        FastestWeighting fastestWeighting = new FastestWeighting(carEncoder, new PMap(), new TimeBasedUTurnCost(20000));
+        List<String> expected = new ArrayList<>();
+        ShortestPathTree tree = new ShortestPathTree(graph, fastestWeighting, false, TraversalMode.EDGE_BASED);
+        tree.setTimeLimit(Double.MAX_VALUE);
+        tree.search(0, l -> expected.add(l.node + "," + l.edge + "," + l.time));
+
+        List<String> actual = new ArrayList<>();
+        ArrayShortestPathTree arrayTree = new ArrayShortestPathTree(graph, fastestWeighting, false, TraversalMode.EDGE_BASED);
+        arrayTree.setTimeLimit(Double.MAX_VALUE);
+        arrayTree.search(0, (node, edge, weight, time, distance) -> actual.add(node + "," + edge + "," + time));
+
+        // labels with the same weight might be settled in a different order
+        Collections.sort(expected);
+        Collections.sort(actual);
+        assertEquals(expected, actual);
+        assertEquals(tree.getVisitedNodes(), arrayTree.getVisitedNodes());
+    }
+
+    @Test
+    public void testArrayShortestPathTreeSearchByDistance() {
+        List<Double> distances = new ArrayList<>();
+        ArrayShortestPathTree instance = new ArrayShortestPathTree(graph, new FastestWeighting(carEncoder, new PMap()), false, TraversalMode.NODE_BASED);
+        instance.setDistanceLimit(110.0);
+        instance.search(5, (node, edge, weight, time, distance) -> distances.add(distance));
+        // the same labels as in testSearchByDistance
+        Collections.sort(distances);
+        assertEquals(Arrays.asList(0.0, 50.0, 70.0, 70.0, 70.0, 110.0), distances);
+    }
+
+    @Test
+    public void testArrayShortestPathTreeMaxVisitedNodes() {
+        List<Integer> nodes = new ArrayList<>();
+        ArrayShortestPathTree instance = new ArrayShortestPathTree(graph, new FastestWeighting(carEncoder, new PMap()), false, TraversalMode.NODE_BASED);
+        instance.setTimeLimit(Double.MAX_VALUE);
+        instance.setMaxVisitedNodes(3);
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> instance.search(0, (node, edge, weight, time, distance) -> nodes.add(node)));
+        assertTrue(e.getMessage().contains("Too many nodes would be visited"), e.getMessage());
+        // the search stops as soon as the limit is exceeded
+        assertEquals(3, nodes.size());
+        assertEquals(4, instance.getVisitedNodes());
+    }
+
 }
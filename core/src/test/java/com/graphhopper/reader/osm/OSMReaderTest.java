@@ -950,6 +950,39 @@ public class OSMReaderTest {
         assertEquals(Country.BGR, iter.get(countryEnc));
     }
 
+    @Test
+    public void testCachePass1() throws IOException {
+        assertSameGraph(readAndorra(new OSMReaderConfig()), readAndorra(new OSMReaderConfig().setCachePass1(true)));
+    }
+
+    @Test
+    public void testWayThreads() throws IOException {
+        assertSameGraph(readAndorra(new OSMReaderConfig()), readAndorra(new OSMReaderConfig().setWayThreads(4)));
+    }
+
+    private void assertSameGraph(BaseGraph expected, BaseGraph graph) {
+        assertEquals(expected.getNodes(), graph.getNodes());
+        assertEquals(expected.getEdges(), graph.getEdges());
+        AllEdgesIterator iter = expected.getAllEdges();
+        while (iter.next()) {
+            EdgeIteratorState edge = graph.getEdgeIteratorState(iter.getEdge(), Integer.MIN_VALUE);
+            assertEquals(iter.getBaseNode(), edge.getBaseNode());
+            assertEquals(iter.getAdjNode(), edge.getAdjNode());
+            assertEquals(iter.getFlags(), edge.getFlags());
+            assertEquals(iter.getName(), edge.getName());
+            assertEquals(iter.fetchWayGeometry(FetchMode.ALL), edge.fetchWayGeometry(FetchMode.ALL));
+        }
+    }
+
+    private BaseGraph readAndorra(OSMReaderConfig config) throws IOException {
+        TagParserManager em = TagParserManager.create("car");
+        BaseGraph graph = new BaseGraph.Builder(em.getEncodingManager()).create();
+        OSMReader reader = new OSMReader(graph, em, config);
+        reader.setFile(new File("../core/files/andorra.osm.pbf"));
+        reader.readGraph();
+        return graph;
+    }
+
     @Test
     public void testFixWayName() {
         assertEquals("B8, B12", OSMReader.fixWayName("B8;B12"));
@@ -0,0 +1,68 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArraySPTPoolTest {
+
+    @Test
+    void workspacePerThread() throws InterruptedException {
+        ArraySPTPool pool = new ArraySPTPool(10);
+        ArraySPTPool.Workspace workspace = pool.get(10);
+        assertSame(workspace, pool.get(5));
+        assertEquals(10, workspace.getFwd().getCapacity());
+        // more nodes than initially expected, e.g. because of virtual nodes
+        assertSame(workspace, pool.get(12));
+        assertTrue(workspace.getFwd().getCapacity() >= 12);
+        assertTrue(workspace.getBwd().getCapacity() >= 12);
+
+        AtomicReference<ArraySPTPool.Workspace> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(pool.get(10)));
+        thread.start();
+        thread.join();
+        assertNotNull(other.get());
+        assertNotSame(workspace, other.get());
+    }
+
+    @Test
+    void clearIsLazy() {
+        ArraySPT spt = new ArraySPT(5);
+        spt.setRoot(0, 0);
+        spt.update(3, 4.5, 4.5, 0, 7);
+        assertTrue(spt.isReached(3));
+        assertEquals(4.5, spt.getWeight(3));
+        assertEquals(0, spt.getParent(3));
+        assertEquals(7, spt.getEdge(3));
+        assertEquals(0, spt.poll());
+
+        spt.clear();
+        assertTrue(spt.isEmpty());
+        assertFalse(spt.isReached(0));
+        assertFalse(spt.isReached(3));
+        assertEquals(Double.POSITIVE_INFINITY, spt.getWeight(3));
+        assertEquals(-1, spt.getEdge(3));
+        spt.setRoot(3, 0);
+        assertEquals(0, spt.getWeight(3));
+        assertEquals(3, spt.poll());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing;
+
+import com.graphhopper.routing.ch.CHRoutingAlgorithmFactory;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.graphhopper.routing.util.TraversalMode.NODE_BASED;
+import static com.graphhopper.util.Parameters.Algorithms.DIJKSTRA_BI;
+import static com.graphhopper.util.Parameters.Routing.ALGORITHM;
+import static com.graphhopper.util.Parameters.Routing.ARRAY_SPT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Makes sure the {@link ArraySPT}s can be re-used for many queries, see {@link RandomizedRoutingTest} for a comparison
+ * of the array-based algorithms with the other algorithms.
+ */
+public class DijkstraBidirectionArrayTest {
+    private final FlagEncoder encoder = FlagEncoders.createCar();
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+
+    @Test
+    public void reuseTrees() {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        GHUtility.buildRandomGraph(graph, rnd, 200, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        graph.freeze();
+        Weighting weighting = new FastestWeighting(encoder);
+        PrepareContractionHierarchies.Result res = PrepareContractionHierarchies.fromGraph(graph, CHConfig.nodeBased("car", weighting)).doWork();
+        RoutingCHGraph chGraph = RoutingCHGraphImpl.fromGraph(graph, res.getCHStorage(), res.getCHConfig());
+
+        ArraySPT fwd = new ArraySPT(graph.getNodes());
+        ArraySPT bwd = new ArraySPT(graph.getNodes());
+        for (int i = 0; i < 100; i++) {
+            int from = rnd.nextInt(graph.getNodes());
+            int to = rnd.nextInt(graph.getNodes());
+            Path refPath = new DijkstraBidirectionRef(graph, weighting, NODE_BASED).calcPath(from, to);
+            Path path = new DijkstraBidirectionArray(graph, weighting, fwd, bwd).calcPath(from, to);
+            Path chPath = new DijkstraBidirectionCHArray(chGraph, fwd, bwd).calcPath(from, to);
+            assertEquals(refPath.isFound(), path.isFound(), "seed: " + seed);
+            assertEquals(refPath.isFound(), chPath.isFound(), "seed: " + seed);
+            assertEquals(refPath.getWeight(), path.getWeight(), 1.e-2, "seed: " + seed);
+            assertEquals(refPath.getWeight(), chPath.getWeight(), 1.e-2, "seed: " + seed);
+            assertEquals(refPath.getDistance(), path.getDistance(), 1.e-1, "seed: " + seed);
+        }
+    }
+
+    @Test
+    public void growTrees() {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(1, 2).setDistance(100));
+        Weighting weighting = new FastestWeighting(encoder);
+        ArraySPT fwd = new ArraySPT(1);
+        ArraySPT bwd = new ArraySPT(1);
+        Path path = new DijkstraBidirectionArray(graph, weighting, fwd, bwd).calcPath(0, 2);
+        assertEquals(200, path.getDistance(), 1.e-6);
+        assertEquals(3, fwd.getCapacity());
+        assertEquals(3, bwd.getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new DijkstraBidirectionArray(graph, weighting, fwd, fwd));
+    }
+
+    @Test
+    public void arraySPTHint() {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        graph.freeze();
+        Weighting weighting = new FastestWeighting(encoder);
+        AlgorithmOptions opts = new AlgorithmOptions().setAlgorithm(DIJKSTRA_BI).setTraversalMode(NODE_BASED);
+        RoutingAlgorithmFactorySimple factory = new RoutingAlgorithmFactorySimple();
+        assertTrue(factory.createAlgo(graph, weighting, opts) instanceof DijkstraBidirectionRef);
+        opts.getHints().putObject(ARRAY_SPT, true);
+        assertTrue(factory.createAlgo(graph, weighting, opts) instanceof DijkstraBidirectionArray);
+        // with a pool the array based algorithm is used by default
+        factory.setArraySPTPool(new ArraySPTPool(graph.getNodes()));
+        opts.getHints().remove(ARRAY_SPT);
+        assertTrue(factory.createAlgo(graph, weighting, opts) instanceof DijkstraBidirectionArray);
+        opts.getHints().putObject(ARRAY_SPT, false);
+        assertTrue(factory.createAlgo(graph, weighting, opts) instanceof DijkstraBidirectionRef);
+
+        PrepareContractionHierarchies.Result res = PrepareContractionHierarchies.fromGraph(graph, CHConfig.nodeBased("car", weighting)).doWork();
+        RoutingCHGraph chGraph = RoutingCHGraphImpl.fromGraph(graph, res.getCHStorage(), res.getCHConfig());
+        CHRoutingAlgorithmFactory chFactory = new CHRoutingAlgorithmFactory(chGraph);
+        assertTrue(chFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI)) instanceof DijkstraBidirectionCH);
+        assertTrue(chFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI).putObject(ARRAY_SPT, true)) instanceof DijkstraBidirectionCHArray);
+        chFactory.setArraySPTPool(new ArraySPTPool(chGraph.getNodes()));
+        assertTrue(chFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI)) instanceof DijkstraBidirectionCHArray);
+        assertTrue(chFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI).putObject(ARRAY_SPT, false)) instanceof DijkstraBidirectionCH);
+    }
+}
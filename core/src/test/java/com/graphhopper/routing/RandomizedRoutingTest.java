@@ -54,6 +54,7 @@ import static com.graphhopper.routing.util.TraversalMode.NODE_BASED;
 import static com.graphhopper.util.GHUtility.createRandomSnaps;
 import static com.graphhopper.util.Parameters.Algorithms.*;
 import static com.graphhopper.util.Parameters.Routing.ALGORITHM;
+import static com.graphhopper.util.Parameters.Routing.ARRAY_SPT;
 import static org.junit.jupiter.api.Assertions.fail;
 
 /**
@@ -76,6 +77,8 @@ public class RandomizedRoutingTest {
                     () -> new Fixture(Algo.ASTAR_BIDIR, false, false, NODE_BASED),
                     () -> new Fixture(Algo.CH_ASTAR, true, false, NODE_BASED),
                     () -> new Fixture(Algo.CH_DIJKSTRA, true, false, NODE_BASED),
+                    () -> new Fixture(Algo.CH_DIJKSTRA_ARRAY, true, false, NODE_BASED),
+                    () -> new Fixture(Algo.DIJKSTRA_BIDIR_ARRAY, false, false, NODE_BASED),
                     () -> new Fixture(Algo.LM_UNIDIR, false, true, NODE_BASED),
                     () -> new Fixture(Algo.LM_BIDIR, false, true, NODE_BASED),
                     () -> new Fixture(Algo.DIJKSTRA, false, false, EDGE_BASED),
@@ -171,6 +174,14 @@ public class RandomizedRoutingTest {
                             : new CHRoutingAlgorithmFactory(routingCHGraph);
                     return algoFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI));
                 }
+                case CH_DIJKSTRA_ARRAY: {
+                    CHRoutingAlgorithmFactory algoFactory = graph instanceof QueryGraph
+                            ? new CHRoutingAlgorithmFactory(new QueryRoutingCHGraph(routingCHGraph, (QueryGraph) graph))
+                            : new CHRoutingAlgorithmFactory(routingCHGraph);
+                    return algoFactory.createAlgo(new PMap().putObject(ALGORITHM, DIJKSTRA_BI).putObject(ARRAY_SPT, true));
+                }
+                case DIJKSTRA_BIDIR_ARRAY:
+                    return new DijkstraBidirectionArray(graph, graph.wrapWeighting(weighting));
                 case CH_ASTAR: {
                     CHRoutingAlgorithmFactory algoFactory = graph instanceof QueryGraph
                             ? new CHRoutingAlgorithmFactory(new QueryRoutingCHGraph(routingCHGraph, (QueryGraph) graph))
@@ -283,6 +294,8 @@ public class RandomizedRoutingTest {
         ASTAR_UNIDIR,
         CH_ASTAR,
         CH_DIJKSTRA,
+        CH_DIJKSTRA_ARRAY,
+        DIJKSTRA_BIDIR_ARRAY,
         LM_BIDIR,
         LM_UNIDIR,
         PERFECT_ASTAR
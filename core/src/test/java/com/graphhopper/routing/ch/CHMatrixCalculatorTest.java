@@ -0,0 +1,131 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.graphhopper.routing.DijkstraBidirectionRef;
+import com.graphhopper.routing.DistanceMatrix;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.querygraph.QueryRoutingCHGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.*;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.GHUtility;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.graphhopper.routing.util.TraversalMode.NODE_BASED;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CHMatrixCalculatorTest {
+    private final FlagEncoder encoder = FlagEncoders.createCar();
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+    private final Weighting weighting = new FastestWeighting(encoder);
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void compareWithDijkstra(boolean stallOnDemand) {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        // we may not use a random distance offset, because the matrix contains virtual nodes and otherwise traveling
+        // via virtual edges is not the same as taking the direct edge, see RandomizedRoutingTest
+        GHUtility.buildRandomGraph(graph, rnd, 300, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0);
+        graph.freeze();
+        RoutingCHGraph chGraph = prepareCH(graph);
+        LocationIndexTree index = new LocationIndexTree(graph, new RAMDirectory());
+        index.prepareIndex();
+
+        // snap some random points, such that the matrix also contains virtual nodes
+        List<Snap> snaps = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            Snap snap = index.findClosest(49.4 + rnd.nextDouble() * 0.01, 9.7 + rnd.nextDouble() * 0.01, EdgeFilter.ALL_EDGES);
+            if (snap.isValid())
+                snaps.add(snap);
+        }
+        QueryGraph queryGraph = QueryGraph.create(graph, snaps);
+        int[] fromNodes = new int[snaps.size() + 3];
+        int[] toNodes = new int[snaps.size()];
+        for (int i = 0; i < snaps.size(); i++) {
+            fromNodes[i] = snaps.get(i).getClosestNode();
+            toNodes[i] = snaps.get(i).getClosestNode();
+        }
+        for (int i = snaps.size(); i < fromNodes.length; i++)
+            fromNodes[i] = rnd.nextInt(graph.getNodes());
+
+        CHMatrixCalculator calculator = new CHMatrixCalculator(new QueryRoutingCHGraph(chGraph, queryGraph)).setStallOnDemand(stallOnDemand);
+        DistanceMatrix matrix = calculator.calcMatrix(fromNodes, toNodes);
+        assertEquals(fromNodes.length, matrix.getFromCount());
+        assertEquals(toNodes.length, matrix.getToCount());
+        for (int i = 0; i < fromNodes.length; i++) {
+            for (int j = 0; j < toNodes.length; j++) {
+                Path refPath = new DijkstraBidirectionRef(queryGraph, queryGraph.wrapWeighting(weighting), NODE_BASED).calcPath(fromNodes[i], toNodes[j]);
+                String msg = "seed: " + seed + ", " + fromNodes[i] + "->" + toNodes[j];
+                assertEquals(refPath.isFound(), matrix.isConnected(i, j), msg);
+                if (!refPath.isFound())
+                    continue;
+                assertEquals(refPath.getWeight(), matrix.getWeight(i, j), 1.e-2, msg);
+                // the paths can differ if there are multiple shortest paths, but usually the distance is the same
+                if (Math.abs(refPath.getWeight() - matrix.getWeight(i, j)) < 1.e-6) {
+                    assertEquals(refPath.getTime(), matrix.getTime(i, j), 10, msg);
+                    assertEquals(refPath.getDistance(), matrix.getDistance(i, j), 1.e-1, msg);
+                }
+            }
+        }
+        assertTrue(calculator.getVisitedNodes() > 0);
+    }
+
+    @Test
+    public void invalidNodesAreSkipped() {
+        // 0-1-2
+        //     |
+        //     3
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(1, 2).setDistance(200));
+        GHUtility.setSpeed(60, true, false, encoder, graph.edge(2, 3).setDistance(300));
+        graph.freeze();
+        CHMatrixCalculator calculator = new CHMatrixCalculator(prepareCH(graph));
+        DistanceMatrix matrix = calculator.calcMatrix(new int[]{0, -1, 3}, new int[]{3, 0, -1});
+        assertEquals(600, matrix.getDistance(0, 0), 1.e-6);
+        assertEquals(36_000, matrix.getTime(0, 0));
+        assertEquals(0, matrix.getDistance(0, 1), 1.e-6);
+        assertFalse(matrix.isConnected(0, 2));
+        assertFalse(matrix.isConnected(1, 0));
+        // 2->3 is a one-way
+        assertEquals(0, matrix.getDistance(2, 0), 1.e-6);
+        assertFalse(matrix.isConnected(2, 1));
+    }
+
+    private RoutingCHGraph prepareCH(BaseGraph graph) {
+        PrepareContractionHierarchies.Result res = PrepareContractionHierarchies.fromGraph(graph, CHConfig.nodeBased("car", weighting)).doWork();
+        return RoutingCHGraphImpl.fromGraph(graph, res.getCHStorage(), res.getCHConfig());
+    }
+}
@@ -76,6 +76,7 @@ public class CHTurnCostTest {
     private CHConfig chConfig;
     private RoutingCHGraph chGraph;
     private boolean checkStrict;
+    private boolean priorityCache;
 
     @BeforeEach
     public void init() {
@@ -997,6 +998,33 @@ public class CHTurnCostTest {
         assertEquals(DistancePlaneProjection.DIST_PLANE.calcDist(0.00, 0.00, 0.03, 0.03), path.getDistance(), 1.e-1);
     }
 
+    @Test
+    public void testSettledNodes() {
+        // 0->1->2
+        GHUtility.setSpeed(60, true, false, encoder, graph.edge(0, 1).setDistance(100));
+        GHUtility.setSpeed(60, true, false, encoder, graph.edge(1, 2).setDistance(100));
+        graph.freeze();
+        PrepareContractionHierarchies.Result res = PrepareContractionHierarchies.fromGraph(graph, chConfig).doWork();
+        assertEquals(3, res.getContractedNodes());
+        // a witness search is only needed for a path that enters the source node and leaves the target node of a
+        // bridge path via original edges, but nothing enters node 0 or leaves node 2, so no node is ever settled
+        assertEquals(0, res.getSettledNodes());
+    }
+
+    @Test
+    public void testSettledNodes_bidirectional() {
+        // 0-1-2-3-4
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(1, 2).setDistance(100));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(2, 3).setDistance(100));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(3, 4).setDistance(100));
+        graph.freeze();
+        PrepareContractionHierarchies.Result res = PrepareContractionHierarchies.fromGraph(graph, chConfig).doWork();
+        assertEquals(5, res.getContractedNodes());
+        // e.g. the priority of node 2 requires a search for a witness of 0->1->2->3->4
+        assertTrue(res.getSettledNodes() > 0, "no settled nodes, something is wrong");
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {DIJKSTRA_BI, ASTAR_BI})
     public void testRouteViaVirtualNode_withAlternative(String algo) {
@@ -1159,6 +1187,17 @@ public class CHTurnCostTest {
         compareWithDijkstraOnRandomGraph_heuristic(seed);
     }
 
+    /**
+     * same as {@link #testFindPath_heuristic_compareWithDijkstra()}, but re-using node priorities during the preparation
+     */
+    @RepeatedTest(10)
+    public void testFindPath_heuristic_priorityCache_compareWithDijkstra() {
+        long seed = System.nanoTime();
+        LOGGER.info("Seed for testFindPath_heuristic_priorityCache_compareWithDijkstra: {}", seed);
+        priorityCache = true;
+        compareWithDijkstraOnRandomGraph_heuristic(seed);
+    }
+
     private void compareWithDijkstraOnRandomGraph_heuristic(long seed) {
         GHUtility.buildRandomGraph(graph, new Random(seed), 20, 3.0, true, true,
                 encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.9, 0.8);
@@ -1238,6 +1277,7 @@ public class CHTurnCostTest {
         pMap.putObject(LAST_LAZY_NODES_UPDATES, 100);
         pMap.putObject(NEIGHBOR_UPDATES, 4);
         pMap.putObject(LOG_MESSAGES, 10);
+        pMap.putObject(PRIORITY_CACHE_EDGE, priorityCache);
         PrepareContractionHierarchies ch = PrepareContractionHierarchies.fromGraph(graph, chConfig);
         ch.setParams(pMap);
         PrepareContractionHierarchies.Result res = ch.doWork();
@@ -0,0 +1,134 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.DefaultTurnCostProvider;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomizableCHTest {
+    private final FlagEncoder encoder = FlagEncoders.createCar(new PMap().putObject("speed_two_directions", true));
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+
+    @Test
+    void nestedDissectionOrdering() {
+        BaseGraph graph = createGrid(new Random(123), 20, 30);
+        NodeOrderingProvider ordering = NestedDissectionOrdering.calcOrder(graph);
+        assertEquals(graph.getNodes(), ordering.getNumNodes());
+        boolean[] seen = new boolean[graph.getNodes()];
+        for (int level = 0; level < ordering.getNumNodes(); level++) {
+            int node = ordering.getNodeIdForLevel(level);
+            assertFalse(seen[node], "node " + node + " appears twice");
+            seen[node] = true;
+        }
+        // the separators keep the number of arcs and the height of the elimination tree small, for the identity
+        // ordering the nodes would be contracted row by row and every row would be connected to the next one
+        CustomizableCH cch = CustomizableCH.fromGraph(graph, ordering);
+        CustomizableCH identityCCH = CustomizableCH.fromGraph(graph, NodeOrderingProvider.identity(graph.getNodes()));
+        assertTrue(cch.getArcs() < identityCCH.getArcs(), cch.getArcs() + " vs. " + identityCCH.getArcs());
+        assertTrue(cch.getHeight() < identityCCH.getHeight(), cch.getHeight() + " vs. " + identityCCH.getHeight());
+    }
+
+    @RepeatedTest(10)
+    void randomGraph() {
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.buildRandomGraph(graph, rnd, 200, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        graph.freeze();
+        CustomizableCH cch = CustomizableCH.fromGraph(graph);
+        // the same topology is used for different weightings
+        checkRoutes(graph, cch.customize("fastest", new FastestWeighting(encoder), 1), rnd, seed);
+        checkRoutes(graph, cch.customize("shortest", new ShortestWeighting(encoder), 1), rnd, seed);
+    }
+
+    @RepeatedTest(5)
+    void parallelCustomization() {
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        BaseGraph graph = createGrid(rnd, 60, 50);
+        CustomizableCH cch = CustomizableCH.fromGraph(graph);
+        Weighting weighting = new FastestWeighting(encoder);
+        RoutingCHGraph chGraph = cch.customize("fastest", weighting, 1);
+        RoutingCHGraph parallelCHGraph = cch.customize("fastest_parallel", weighting, 4);
+        assertEquals(chGraph.getShortcuts(), parallelCHGraph.getShortcuts(), "seed: " + seed);
+        checkRoutes(graph, parallelCHGraph, rnd, seed);
+    }
+
+    @Test
+    void turnCostsAreNotSupported() {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).withTurnCosts(true).create();
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        graph.freeze();
+        CustomizableCH cch = CustomizableCH.fromGraph(graph);
+        Weighting weighting = new FastestWeighting(encoder, new DefaultTurnCostProvider(encoder, graph.getTurnCostStorage()));
+        assertThrows(IllegalArgumentException.class, () -> cch.customize("car", weighting, 1));
+    }
+
+    private void checkRoutes(BaseGraph graph, RoutingCHGraph chGraph, Random rnd, long seed) {
+        for (int i = 0; i < 100; i++) {
+            int from = rnd.nextInt(graph.getNodes());
+            int to = rnd.nextInt(graph.getNodes());
+            Path expected = new Dijkstra(graph, chGraph.getWeighting(), TraversalMode.NODE_BASED).calcPath(from, to);
+            Path path = new CHRoutingAlgorithmFactory(chGraph).createAlgo(new PMap()).calcPath(from, to);
+            assertEquals(expected.isFound(), path.isFound(), "seed: " + seed);
+            assertEquals(expected.getWeight(), path.getWeight(), 1.e-1, "seed: " + seed);
+        }
+    }
+
+    /**
+     * Creates a grid with random speeds and some one-way edges
+     */
+    private BaseGraph createGrid(Random rnd, int rows, int cols) {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        for (int row = 0; row < rows; row++)
+            for (int col = 0; col < cols; col++)
+                graph.getNodeAccess().setNode(row * cols + col, 49.4 + row * 0.001, 9.7 + col * 0.001);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                int node = row * cols + col;
+                if (col + 1 < cols)
+                    GHUtility.setSpeed(10 + rnd.nextInt(100), true, rnd.nextDouble() < 0.8, encoder,
+                            graph.edge(node, node + 1).setDistance(70 + rnd.nextInt(10)));
+                if (row + 1 < rows)
+                    GHUtility.setSpeed(10 + rnd.nextInt(100), true, rnd.nextDouble() < 0.8, encoder,
+                            graph.edge(node, node + cols).setDistance(110 + rnd.nextInt(10)));
+            }
+        }
+        graph.freeze();
+        return graph;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.ch;
+
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.ShortestWeighting;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.RoutingCHGraph;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomizedCHCacheTest {
+    private final FlagEncoder encoder = FlagEncoders.createCar(new PMap().putObject("speed_two_directions", true));
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+    private CustomizableCH cch;
+
+    @BeforeEach
+    void setup() {
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.buildRandomGraph(graph, new Random(123), 50, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        graph.freeze();
+        cch = CustomizableCH.fromGraph(graph);
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsDropped() {
+        CustomizedCHCache cache = new CustomizedCHCache(cch, 2, 1);
+        RoutingCHGraph fastest = cache.get("fastest", () -> new FastestWeighting(encoder));
+        RoutingCHGraph shortest = cache.get("shortest", () -> new ShortestWeighting(encoder));
+        assertEquals(2, cache.getMisses());
+        assertSame(fastest, cache.get("fastest", () -> fail("fastest should be cached")));
+        assertEquals(1, cache.getHits());
+
+        // shortest was used less recently than fastest, so it is dropped
+        cache.get("fastest_2", () -> new FastestWeighting(encoder));
+        assertSame(fastest, cache.get("fastest", () -> fail("fastest should be cached")));
+        assertNotSame(shortest, cache.get("shortest", () -> new ShortestWeighting(encoder)));
+        assertEquals(4, cache.getMisses());
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    void failedCustomizationIsNotCached() {
+        CustomizedCHCache cache = new CustomizedCHCache(cch, 2, 1);
+        // e.g. an invalid custom model
+        assertThrows(IllegalArgumentException.class, () -> cache.get("fastest", () -> {
+            throw new IllegalArgumentException("cannot create weighting");
+        }));
+        RoutingCHGraph chGraph = cache.get("fastest", () -> new FastestWeighting(encoder));
+        assertEquals(2, cache.getMisses());
+        assertSame(chGraph, cache.get("fastest", () -> fail("fastest should be cached")));
+    }
+}
@@ -139,6 +139,9 @@ public class PrepareContractionHierarchiesTest {
         useNodeOrdering(prepare, new int[]{5, 3, 4, 0, 1, 2});
         PrepareContractionHierarchies.Result res = prepare.doWork();
         assertEquals(2, res.getShortcuts());
+        assertEquals(6, res.getContractedNodes());
+        assertTrue(res.getSettledNodes() > 0);
+        assertEquals(res.getSettledNodes() / 6.0, res.getSettledNodesPerContraction(), 1.e-6);
     }
 
     @Test
@@ -563,6 +566,81 @@ public class PrepareContractionHierarchiesTest {
         }
     }
 
+    @Test
+    public void testParallelContraction() {
+        int numNodes = 5_000;
+        int numQueries = 100;
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        GHUtility.buildRandomGraph(g, rnd, numNodes, 1.3, true, true,
+                carEncoder.getAccessEnc(), carEncoder.getAverageSpeedEnc(), 60.0, 0.7, 0.9, 0.8);
+        g.freeze();
+
+        PrepareContractionHierarchies.Result sequentialResult = createPrepareContractionHierarchies(g, CHConfig.nodeBased("sequential", weighting))
+                .setParams(new PMap().putObject(CHParameters.CONTRACTION_THREADS, 1))
+                .doWork();
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g)
+                .setParams(new PMap().putObject(CHParameters.CONTRACTION_THREADS, 4));
+        PrepareContractionHierarchies.Result result = prepare.doWork();
+        assertTrue(result.getShortcuts() > 0);
+        // the witness searches of a round cannot use the shortcuts of the same round, so there can be a few more
+        // shortcuts, see PrepareContractionHierarchies#contractNodesUsingHeuristicNodeOrderingInParallel. the node
+        // order also differs, so there can be less shortcuts as well. on these graphs we usually see up to 2% more.
+        assertTrue(result.getShortcuts() <= sequentialResult.getShortcuts() * 1.05,
+                "seed: " + seed + ", shortcuts: " + result.getShortcuts() + " vs. " + sequentialResult.getShortcuts() + " (sequential)");
+        RoutingCHGraph routingCHGraph = RoutingCHGraphImpl.fromGraph(g, result.getCHStorage(), result.getCHConfig());
+
+        for (int i = 0; i < numQueries; ++i) {
+            Dijkstra dijkstra = new Dijkstra(g, weighting, TraversalMode.NODE_BASED);
+            RoutingAlgorithm chAlgo = new CHRoutingAlgorithmFactory(routingCHGraph).createAlgo(new PMap());
+            int from = rnd.nextInt(numNodes);
+            int to = rnd.nextInt(numNodes);
+            double dijkstraWeight = dijkstra.calcPath(from, to).getWeight();
+            double chWeight = chAlgo.calcPath(from, to).getWeight();
+            assertEquals(dijkstraWeight, chWeight, 1.e-1, "seed: " + seed);
+        }
+    }
+
+    @Test
+    public void testBaseEdgeWeights() {
+        int numNodes = 1_000;
+        int numQueries = 100;
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        GHUtility.buildRandomGraph(g, rnd, numNodes, 1.3, true, true,
+                carEncoder.getAccessEnc(), carEncoder.getAverageSpeedEnc(), 60.0, 0.7, 0.9, 0.8);
+        g.freeze();
+
+        PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g)
+                .setParams(new PMap().putObject(CHParameters.BASE_EDGE_WEIGHTS, true));
+        PrepareContractionHierarchies.Result result = prepare.doWork();
+        assertTrue(result.getCHStorage().hasBaseEdgeWeights());
+        RoutingCHGraph routingCHGraph = RoutingCHGraphImpl.fromGraph(g, result.getCHStorage(), result.getCHConfig());
+
+        // the stored weights of the base edges must match the ones calculated by the weighting
+        RoutingCHEdgeExplorer outExplorer = routingCHGraph.createOutEdgeExplorer();
+        for (int node = 0; node < numNodes; node++) {
+            RoutingCHEdgeIterator iter = outExplorer.setBaseNode(node);
+            while (iter.next()) {
+                if (iter.isShortcut())
+                    continue;
+                EdgeIteratorState edge = g.getEdgeIteratorState(iter.getOrigEdge(), iter.getAdjNode());
+                assertEquals(weighting.calcEdgeWeightWithAccess(edge, false), iter.getWeight(false), 1.e-3, "seed: " + seed);
+                assertEquals(weighting.calcEdgeWeightWithAccess(edge, true), iter.getWeight(true), 1.e-3, "seed: " + seed);
+            }
+        }
+
+        for (int i = 0; i < numQueries; ++i) {
+            Dijkstra dijkstra = new Dijkstra(g, weighting, TraversalMode.NODE_BASED);
+            RoutingAlgorithm chAlgo = new CHRoutingAlgorithmFactory(routingCHGraph).createAlgo(new PMap());
+            int from = rnd.nextInt(numNodes);
+            int to = rnd.nextInt(numNodes);
+            double dijkstraWeight = dijkstra.calcPath(from, to).getWeight();
+            double chWeight = chAlgo.calcPath(from, to).getWeight();
+            assertEquals(dijkstraWeight, chWeight, 1.e-1, "seed: " + seed);
+        }
+    }
+
     private void checkPath(BaseGraph g, CHConfig c, int expShortcuts, double expDistance, IntIndexedContainer expNodes, int[] nodeOrdering) {
         PrepareContractionHierarchies prepare = createPrepareContractionHierarchies(g, c);
         useNodeOrdering(prepare, nodeOrdering);
@@ -0,0 +1,108 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.routing.lm;
+
+import com.graphhopper.routing.AlgorithmOptions;
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.RoutingAlgorithm;
+import com.graphhopper.routing.ev.Subnetwork;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.BaseGraph;
+import com.graphhopper.storage.RAMDirectory;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.Parameters;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.graphhopper.util.Parameters.Algorithms.ASTAR;
+import static com.graphhopper.util.Parameters.Algorithms.ASTAR_BI;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActiveLandmarkCacheTest {
+
+    @Test
+    public void getAndPut() {
+        ActiveLandmarkCache cache = new ActiveLandmarkCache(100, 0.1);
+        assertEquals(cache.getTile(50.01, 10.01), cache.getTile(50.09, 10.09));
+        assertNotEquals(cache.getTile(50.01, 10.01), cache.getTile(50.11, 10.01));
+        assertNotEquals(cache.getTile(50.01, 10.01), cache.getTile(50.01, 10.11));
+        assertNotEquals(cache.getTile(-0.01, -0.01), cache.getTile(0.01, 0.01));
+
+        long from = cache.getTile(50.01, 10.01);
+        long to = cache.getTile(51.01, 11.01);
+        int[] landmarks = {-1, -1, -1};
+        assertFalse(cache.get(1, from, to, false, landmarks));
+        cache.put(1, from, to, false, new int[]{4, 2, 7});
+        assertTrue(cache.get(1, from, to, false, landmarks));
+        assertEquals("[4, 2, 7]", Arrays.toString(landmarks));
+
+        // all parts of the key need to match
+        assertFalse(cache.get(2, from, to, false, new int[3]));
+        assertFalse(cache.get(1, to, from, false, new int[3]));
+        assertFalse(cache.get(1, from, to, true, new int[3]));
+        assertFalse(cache.get(1, from, to, false, new int[4]));
+        assertEquals(1, cache.getHits());
+        assertEquals(5, cache.getMisses());
+        assertEquals(1 / 6.0, cache.getHitRate(), 1.e-6);
+    }
+
+    @Test
+    public void cachedLandmarksYieldOptimalRoutes() {
+        FlagEncoder encoder = FlagEncoders.createCar();
+        EncodingManager encodingManager = new EncodingManager.Builder().add(encoder).add(Subnetwork.create("car")).build();
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        Random rnd = new Random(123);
+        GHUtility.buildRandomGraph(graph, rnd, 300, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        Weighting weighting = new FastestWeighting(encoder);
+        PrepareLandmarks prepare = new PrepareLandmarks(new RAMDirectory(), graph, encodingManager, new LMConfig("car", weighting), 8);
+        prepare.setMinimumNodes(2);
+        prepare.doWork();
+        LandmarkStorage lms = prepare.getLandmarkStorage();
+
+        // a huge tile size, so that all queries share the same active landmarks
+        ActiveLandmarkCache cache = new ActiveLandmarkCache(1000, 180);
+        PMap hints = new PMap().putObject(Parameters.Landmark.ACTIVE_COUNT, 2);
+        for (int i = 0; i < 200; i++) {
+            int from = rnd.nextInt(graph.getNodes());
+            int to = rnd.nextInt(graph.getNodes());
+            Path expectedPath = new Dijkstra(graph, weighting, TraversalMode.NODE_BASED).calcPath(from, to);
+            // the landmarks are only calculated within strongly connected components
+            if (!expectedPath.isFound() || !new Dijkstra(graph, weighting, TraversalMode.NODE_BASED).calcPath(to, from).isFound())
+                continue;
+            for (String algo : Arrays.asList(ASTAR, ASTAR_BI)) {
+                RoutingAlgorithm lmAlgo = new LMRoutingAlgorithmFactory(lms).setActiveLandmarkCache(cache).createAlgo(graph, weighting,
+                        new AlgorithmOptions().setAlgorithm(algo).setTraversalMode(TraversalMode.NODE_BASED).setHints(hints));
+                Path path = lmAlgo.calcPath(from, to);
+                assertTrue(path.isFound(), algo + " " + from + "->" + to);
+                assertEquals(expectedPath.getWeight(), path.getWeight(), 1.e-3, algo + " " + from + "->" + to);
+            }
+        }
+        assertTrue(cache.getHits() > 0);
+        assertTrue(cache.getHitRate() > 0.9, "unexpected hit rate: " + cache.getHitRate());
+    }
+}
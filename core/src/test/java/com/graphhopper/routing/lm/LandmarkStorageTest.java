@@ -39,6 +39,7 @@ import org.junit.jupiter.api.Test;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static java.util.Collections.emptyList;
 import static org.junit.jupiter.api.Assertions.*;
@@ -113,6 +114,40 @@ public class LandmarkStorageTest {
         assertFalse(lms.isInfinity(0));
     }
 
+    @Test
+    public void testSetGetCompressedWeight() {
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(40.1));
+        Directory dir = new RAMDirectory();
+        LandmarkStorage lms = new LandmarkStorage(graph, encodingManager, dir, new LMConfig("c1", new FastestWeighting(encoder)), 4).
+                setMaximumWeight(LandmarkStorage.PRECISION).setCompressedWeights(true);
+        lms._getInternalDA().create(2000);
+        // small weights are stored exactly
+        for (int w = 0; w <= 32; w++) {
+            assertTrue(lms.setWeight(0, w));
+            assertEquals(w, lms.getFromWeight(0, 0));
+            assertEquals(w, lms.getFromWeightUpperBound(0, 0));
+        }
+        // larger weights are rounded down, but the upper bound is still known
+        Random rnd = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            int w = rnd.nextInt(65534);
+            assertTrue(lms.setWeight(0, w));
+            assertTrue(lms.getFromWeight(0, 0) <= w, "lower bound too large for " + w);
+            assertTrue(lms.getFromWeightUpperBound(0, 0) >= w, "upper bound too small for " + w);
+        }
+        // reached maximum value
+        assertFalse(lms.setWeight(0, 65534));
+        assertEquals(65534, lms.getFromWeight(0, 0));
+        assertFalse(lms.setWeight(0, 79999));
+        assertEquals(65534, lms.getFromWeight(0, 0));
+        assertFalse(lms.isInfinity(0));
+
+        lms._getInternalDA().setByte(0, (byte) 255);
+        assertTrue(lms.isInfinity(0));
+        // the second byte belongs to the weight to the landmark
+        assertFalse(lms.isInfinity(1));
+    }
+
     @Test
     public void testWithSubnetworks() {
         // 0-1-2..4-5->6
@@ -157,6 +192,32 @@ public class LandmarkStorageTest {
         assertEquals("[4, 0]", Arrays.toString(storage.getLandmarks(1)));
     }
 
+    @Test
+    public void testLandmarkThreads() {
+        Random rnd = new Random(42);
+        GHUtility.buildRandomGraph(graph, rnd, 1_000, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        Weighting weighting = new FastestWeighting(encoder);
+        subnetworkRemoval(weighting, 1);
+
+        LandmarkStorage sequential = new LandmarkStorage(graph, encodingManager, new RAMDirectory(), new LMConfig("car", weighting), 8);
+        sequential.createLandmarks();
+        LandmarkStorage parallel = new LandmarkStorage(graph, encodingManager, new RAMDirectory(), new LMConfig("car", weighting), 8).
+                setLandmarkThreads(4);
+        parallel.createLandmarks();
+
+        assertEquals(sequential.getSubnetworksWithLandmarks(), parallel.getSubnetworksWithLandmarks());
+        assertTrue(parallel.getSubnetworksWithLandmarks() > 1);
+        for (int subnetwork = 1; subnetwork < parallel.getSubnetworksWithLandmarks(); subnetwork++)
+            assertArrayEquals(sequential.getLandmarks(subnetwork), parallel.getLandmarks(subnetwork));
+        for (int node = 0; node < graph.getNodes(); node++) {
+            for (int lm = 0; lm < 8; lm++) {
+                assertEquals(sequential.getFromWeight(lm, node), parallel.getFromWeight(lm, node));
+                assertEquals(sequential.getToWeight(lm, node), parallel.getToWeight(lm, node));
+            }
+        }
+    }
+
     private void subnetworkRemoval(Weighting weighting, int minNodeSize) {
         // currently we rely on subnetwork removal in Landmark preparation, see #2256
         // PrepareRoutingSubnetworks removes OSM bugs regarding turn restriction mapping which the node-based Tarjan in Landmark preparation can't
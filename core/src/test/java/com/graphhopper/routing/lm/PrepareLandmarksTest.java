@@ -182,6 +182,39 @@ public class PrepareLandmarksTest {
         assertEquals(expectedAlgo.getVisitedNodes() - 135, qGraphOneDirAlgo.getVisitedNodes());
     }
 
+    @Test
+    public void testCompressedWeights() {
+        Random rnd = new Random(42);
+        GHUtility.buildRandomGraph(graph, rnd, 200, 2.2, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        Weighting weighting = new FastestWeighting(encoder);
+        LMConfig lmConfig = new LMConfig("car", weighting);
+        PrepareLandmarks prepare = new PrepareLandmarks(new RAMDirectory(), graph, encodingManager, lmConfig, 8);
+        prepare.setCompressedWeights(true);
+        prepare.setMinimumNodes(2);
+        prepare.doWork();
+        LandmarkStorage lms = prepare.getLandmarkStorage();
+        assertTrue(lms.isCompressedWeights());
+
+        PMap hints = new PMap().putObject(Parameters.Landmark.ACTIVE_COUNT, 4);
+        for (int i = 0; i < 100; i++) {
+            int from = rnd.nextInt(graph.getNodes());
+            int to = rnd.nextInt(graph.getNodes());
+            Path expectedPath = new AStar(graph, weighting, tm).calcPath(from, to);
+            // the landmarks are only calculated within strongly connected components and LM queries between different
+            // components fail with a ConnectionNotFoundException, so we only compare routes within one component
+            if (!expectedPath.isFound() || !new AStar(graph, weighting, tm).calcPath(to, from).isFound())
+                continue;
+            for (String algo : Arrays.asList(ASTAR, ASTAR_BI)) {
+                RoutingAlgorithm lmAlgo = new LMRoutingAlgorithmFactory(lms).createAlgo(graph, weighting,
+                        new AlgorithmOptions().setAlgorithm(algo).setTraversalMode(tm).setHints(hints));
+                Path path = lmAlgo.calcPath(from, to);
+                assertTrue(path.isFound(), algo + " " + from + "->" + to);
+                assertEquals(expectedPath.getWeight(), path.getWeight(), 1.e-3, algo + " " + from + "->" + to);
+            }
+        }
+    }
+
     @Test
     public void testStoreAndLoad() {
         GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(80_000));
@@ -643,6 +643,50 @@ public class QueryGraphTest {
         assertFalse(GHUtility.getEdge(queryGraph, 1, 2).getReverse(UNFAVORED_EDGE));
     }
 
+    @Test
+    public void testCopyHasSeparateUnfavoredStatus() {
+        NodeAccess na = g.getNodeAccess();
+        // 0 <-> x <-> 1 <-> 2
+        //       3
+        na.setNode(0, 0, 0);
+        na.setNode(1, 0, 2);
+        na.setNode(2, 0, 3);
+        EdgeIteratorState edge = GHUtility.setSpeed(60, true, true, encoder, g.edge(0, 1).setDistance(10));
+        GHUtility.setSpeed(60, true, true, encoder, g.edge(1, 2).setDistance(10));
+
+        Snap snap = fakeEdgeSnap(edge, 0, 1, 0);
+        QueryGraph queryGraph = QueryGraph.create(g, snap);
+        QueryGraph copy = queryGraph.copy();
+        assertEquals(queryGraph.getNodes(), copy.getNodes());
+        assertEquals(queryGraph.getEdges(), copy.getEdges());
+        assertEquals(queryGraph.getNodeAccess().getLon(3), copy.getNodeAccess().getLon(3), 1.e-6);
+        // the explorers of the copy see the same virtual and real edges
+        for (int node = 0; node < queryGraph.getNodes(); node++)
+            assertEquals(GHUtility.getNeighbors(queryGraph.createEdgeExplorer().setBaseNode(node)),
+                    GHUtility.getNeighbors(copy.createEdgeExplorer().setBaseNode(node)), "node " + node);
+        assertEquals(3, GHUtility.getEdge(copy, 0, 3).detach(false).detach(true).getBaseNode());
+
+        // the virtual edges are 0-3 (edge 2) and 3-1 (edge 3)
+        queryGraph.unfavorVirtualEdge(2);
+        assertTrue(GHUtility.getEdge(queryGraph, 3, 0).get(UNFAVORED_EDGE));
+        assertTrue(GHUtility.getEdge(queryGraph, 0, 3).get(UNFAVORED_EDGE));
+        assertFalse(GHUtility.getEdge(copy, 3, 0).get(UNFAVORED_EDGE));
+        assertFalse(GHUtility.getEdge(copy, 0, 3).get(UNFAVORED_EDGE));
+        assertFalse(copy.getEdgeIteratorState(2, 0).get(UNFAVORED_EDGE));
+        assertEquals(2, queryGraph.getUnfavoredVirtualEdges().size());
+        assertTrue(copy.getUnfavoredVirtualEdges().isEmpty());
+
+        copy.unfavorVirtualEdge(3);
+        assertTrue(GHUtility.getEdge(copy, 3, 1).get(UNFAVORED_EDGE));
+        assertTrue(GHUtility.getEdge(copy, 1, 3).get(UNFAVORED_EDGE));
+        assertFalse(GHUtility.getEdge(queryGraph, 3, 1).get(UNFAVORED_EDGE));
+        queryGraph.clearUnfavoredStatus();
+        assertFalse(GHUtility.getEdge(queryGraph, 3, 0).get(UNFAVORED_EDGE));
+        assertTrue(GHUtility.getEdge(copy, 1, 3).get(UNFAVORED_EDGE));
+        copy.clearUnfavoredStatus();
+        assertFalse(GHUtility.getEdge(copy, 1, 3).get(UNFAVORED_EDGE));
+    }
+
     @Test
     public void testUnfavorVirtualEdgePair() {
         // setup graph
@@ -1,12 +1,19 @@
 package com.graphhopper.storage;
 
 import com.graphhopper.routing.ch.PrepareEncoder;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.util.GHUtility;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CHStorageTest {
@@ -61,6 +68,47 @@ class CHStorageTest {
         }
     }
 
+    @Test
+    void baseEdgeWeights(@TempDir Path path) {
+        FlagEncoder encoder = FlagEncoders.createCar();
+        EncodingManager em = EncodingManager.create(encoder);
+        BaseGraph graph = new BaseGraph.Builder(em).create();
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(0, 1).setDistance(100));
+        GHUtility.setSpeed(30, true, false, encoder, graph.edge(2, 1).setDistance(200));
+        GHUtility.setSpeed(60, true, true, encoder, graph.edge(2, 2).setDistance(50));
+        graph.freeze();
+        Weighting weighting = new FastestWeighting(encoder);
+        {
+            GHDirectory dir = new GHDirectory(path.toAbsolutePath().toString(), DAType.RAM_INT_STORE);
+            CHStorage chStorage = new CHStorage(dir, "car", -1, false);
+            chStorage.create();
+            chStorage.init(3, 0);
+            assertFalse(chStorage.hasBaseEdgeWeights());
+            chStorage.initBaseEdgeWeights(graph, weighting);
+            assertTrue(chStorage.hasBaseEdgeWeights());
+            chStorage.flush();
+            chStorage.close();
+        }
+        {
+            GHDirectory dir = new GHDirectory(path.toAbsolutePath().toString(), DAType.RAM_INT_STORE);
+            CHStorage chStorage = new CHStorage(dir, "car", -1, false);
+            chStorage.loadExisting();
+            assertTrue(chStorage.hasBaseEdgeWeights());
+            assertEquals(weighting.calcEdgeWeight(graph.getEdgeIteratorState(0, 1), false), chStorage.getBaseEdgeWeight(0, true), 1.e-3);
+            assertEquals(weighting.calcEdgeWeight(graph.getEdgeIteratorState(0, 1), true), chStorage.getBaseEdgeWeight(0, false), 1.e-3);
+            // edge 1 is a one-way from 2 to 1
+            assertEquals(weighting.calcEdgeWeight(graph.getEdgeIteratorState(1, 1), false), chStorage.getBaseEdgeWeight(1, true), 1.e-3);
+            assertTrue(Double.isInfinite(chStorage.getBaseEdgeWeight(1, false)));
+            assertEquals(weighting.calcEdgeWeight(graph.getEdgeIteratorState(2, 2), false), chStorage.getBaseEdgeWeight(2, true), 1.e-3);
+
+            // the routing CH graph uses the stored weights for the base edges
+            RoutingCHGraph routingCHGraph = new RoutingCHGraphImpl(graph, chStorage, weighting);
+            assertEquals(chStorage.getBaseEdgeWeight(1, true), routingCHGraph.getEdgeIteratorState(1, 1).getWeight(false));
+            assertEquals(chStorage.getBaseEdgeWeight(1, true), routingCHGraph.getEdgeIteratorState(1, 2).getWeight(true));
+            assertTrue(Double.isInfinite(routingCHGraph.getEdgeIteratorState(1, 2).getWeight(false)));
+        }
+    }
+
     @Test
     public void testBigWeight() {
         CHStorage g = new CHStorage(new RAMDirectory(), "abc", 1024, false);
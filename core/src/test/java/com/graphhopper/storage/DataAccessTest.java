@@ -173,6 +173,72 @@ public abstract class DataAccessTest {
         da.close();
     }
 
+    @Test
+    public void testSingleSegment() {
+        AbstractDataAccess da = (AbstractDataAccess) createDataAccess(name, 128);
+        da.setSingleSegment(true);
+        da.create(10);
+        assertEquals(1, da.getSegments());
+        da.setInt(4, 123);
+        da.ensureCapacity(1000);
+        // the segment grew, but we still use a single segment
+        assertEquals(1, da.getSegments());
+        assertEquals(1024, da.getSegmentSize());
+        assertEquals(123, da.getInt(4));
+        da.setInt(996, 321);
+
+        IntReader reader = da.createIntReader();
+        assertEquals(123, reader.getInt(4));
+        assertEquals(321, reader.getInt(996));
+        da.flush();
+        da.close();
+
+        da = (AbstractDataAccess) createDataAccess(name, 128);
+        assertTrue(da.loadExisting());
+        assertEquals(1, da.getSegments());
+        assertEquals(1024, da.getSegmentSize());
+        reader = da.createIntReader();
+        assertEquals(123, reader.getInt(4));
+        assertEquals(321, reader.getInt(996));
+        da.close();
+    }
+
+    @Test
+    public void testSingleSegmentIntReaderAfterGrowth() {
+        AbstractDataAccess da = (AbstractDataAccess) createDataAccess(name, 128);
+        da.setSingleSegment(true);
+        da.create(10);
+        da.setInt(4, 123);
+        IntReader reader = da.createIntReader();
+        assertEquals(123, reader.getInt(4));
+
+        // the capacity stays the same so the segment is not replaced
+        assertFalse(da.ensureCapacity(da.getCapacity()));
+        // the single segment gets replaced by a larger one and old readers must not be used anymore
+        assertTrue(da.ensureCapacity(1000));
+        assertEquals(1, da.getSegments());
+        da.setInt(996, 321);
+        reader = da.createIntReader();
+        assertEquals(123, reader.getInt(4));
+        assertEquals(321, reader.getInt(996));
+        da.close();
+    }
+
+    @Test
+    public void testIntReader() {
+        DataAccess da = createDataAccess(name, 128);
+        da.create(10);
+        da.ensureCapacity(500);
+        assertTrue(da.getSegments() > 1);
+        da.setInt(4, 123);
+        da.setInt(400, 321);
+        // with multiple segments the reader falls back to the segment calculations of the DataAccess
+        IntReader reader = da.createIntReader();
+        assertEquals(123, reader.getInt(4));
+        assertEquals(321, reader.getInt(400));
+        da.close();
+    }
+
     @Test
     public void testSegmentSize() {
         DataAccess da = createDataAccess(name, 20);
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import java.util.LinkedHashMap;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class GHDirectoryTest {
 
@@ -33,4 +35,36 @@ class GHDirectoryTest {
         assertEquals(DAType.MMAP, dir.getDefaultType("nodes_ch_car", false));
     }
 
+    @Test
+    public void testSingleSegment() {
+        GHDirectory dir = new GHDirectory("", DAType.RAM);
+        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        map.put("single_segment.shortcuts_.*", "true");
+        dir.configure(map);
+        assertTrue(dir.isSingleSegment("shortcuts_car"));
+        assertFalse(dir.isSingleSegment("edges"));
+        assertTrue(((AbstractDataAccess) dir.create("shortcuts_car")).isSingleSegment());
+        assertFalse(((AbstractDataAccess) dir.create("edges")).isSingleSegment());
+        dir.close();
+    }
+
+    @Test
+    public void testOffHeap() {
+        GHDirectory dir = new GHDirectory("", DAType.RAM);
+        LinkedHashMap<String, String> map = new LinkedHashMap<>();
+        map.put("edges", "OFF_HEAP");
+        map.put("nodes.*", "off_heap_store");
+        dir.configure(map);
+        assertEquals(DAType.RAM, dir.getDefaultType("geometry", false));
+        assertEquals(DAType.OFF_HEAP, dir.getDefaultType("edges", false));
+        // off-heap data is never converted to RAM_INT
+        assertEquals(DAType.OFF_HEAP_STORE, dir.getDefaultType("nodes_ch_car", true));
+        assertEquals("OFF_HEAP_STORE", DAType.OFF_HEAP_STORE.toString());
+
+        DataAccess da = dir.create("edges");
+        assertTrue(da instanceof OffHeapDataAccess);
+        assertEquals(DAType.OFF_HEAP, da.getType());
+        dir.close();
+    }
+
 }
\ No newline at end of file
@@ -17,10 +17,14 @@
  */
 package com.graphhopper.storage;
 
+import com.graphhopper.routing.util.AllEdgesIterator;
+import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.util.*;
 import com.graphhopper.util.shapes.BBox;
 import org.junit.jupiter.api.Test;
 
+import java.util.Random;
+
 import static com.graphhopper.util.EdgeIteratorState.REVERSE_STATE;
 import static com.graphhopper.util.FetchMode.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -251,6 +255,113 @@ public class GraphHopperStorageTest extends AbstractGraphStorageTester {
         assertEquals(key, edge.getEdgeKey());
     }
 
+    @Test
+    public void testReorder() {
+        BaseGraph expected = createRandomGraphWithGeometryAndNames(new Random(123));
+        graph = createRandomGraphWithGeometryAndNames(new Random(123));
+        int[] newNodes = ArrayUtil.permutation(graph.getNodes(), new Random(42)).toArray();
+        int[] newEdges = graph.reorder(newNodes);
+
+        for (int node = 0; node < expected.getNodes(); node++) {
+            assertEquals(expected.getNodeAccess().getLat(node), graph.getNodeAccess().getLat(newNodes[node]), 1.e-6);
+            assertEquals(expected.getNodeAccess().getLon(node), graph.getNodeAccess().getLon(newNodes[node]), 1.e-6);
+            // the edges of a node are still iterated in the same order
+            EdgeIterator expectedIter = expected.createEdgeExplorer().setBaseNode(node);
+            EdgeIterator iter = graph.createEdgeExplorer().setBaseNode(newNodes[node]);
+            while (expectedIter.next()) {
+                assertTrue(iter.next());
+                assertEquals(newEdges[expectedIter.getEdge()], iter.getEdge());
+                assertEquals(newNodes[expectedIter.getAdjNode()], iter.getAdjNode());
+                assertEquals(expectedIter.getDistance(), iter.getDistance(), 1.e-6);
+                assertEquals(expectedIter.getFlags(), iter.getFlags());
+                assertEquals(expectedIter.getName(), iter.getName());
+                assertEquals(expectedIter.fetchWayGeometry(PILLAR_ONLY), iter.fetchWayGeometry(PILLAR_ONLY));
+            }
+            assertFalse(iter.next());
+        }
+
+        // the edges are sorted by their smaller node
+        int prevNode = -1;
+        for (int edge = 0; edge < graph.getEdges(); edge++) {
+            EdgeIteratorState state = graph.getEdgeIteratorState(edge, Integer.MIN_VALUE);
+            int node = Math.min(state.getBaseNode(), state.getAdjNode());
+            assertTrue(node >= prevNode);
+            prevNode = node;
+        }
+        expected.close();
+    }
+
+    @Test
+    public void testReorderInvalidPermutation() {
+        graph = createGHStorage();
+        graph.edge(0, 1);
+        graph.edge(1, 2);
+        assertThrows(IllegalArgumentException.class, () -> graph.reorder(new int[]{0, 1}));
+        assertThrows(IllegalArgumentException.class, () -> graph.reorder(new int[]{0, 1, 1}));
+        graph.freeze();
+        assertThrows(IllegalStateException.class, () -> graph.reorder(new int[]{2, 1, 0}));
+    }
+
+    @Test
+    public void testCSRAdjacency() {
+        BaseGraph expected = newGHStorage(new RAMDirectory(), false).create(defaultSize);
+        GHUtility.buildRandomGraph(expected, new Random(123), 100, 2.5, true, true, carAccessEnc, null, null, 0.5, 0.7, 0.5);
+        expected.freeze();
+        graph = new BaseGraph.Builder(encodingManager).setDir(new RAMDirectory(defaultGraphLoc, true)).setCSRAdjacency(true).create();
+        GHUtility.buildRandomGraph(graph, new Random(123), 100, 2.5, true, true, carAccessEnc, null, null, 0.5, 0.7, 0.5);
+        // the adjacency arrays are only built when the graph is frozen
+        assertNull(graph.adjOffsets);
+        checkSameAdjacency(expected, graph);
+        graph.freeze();
+        assertNotNull(graph.adjOffsets);
+        checkSameAdjacency(expected, graph);
+
+        // the arrays are not stored, but built again when a frozen graph is loaded
+        graph.flush();
+        graph.close();
+        graph = new BaseGraph.Builder(encodingManager).setDir(new RAMDirectory(defaultGraphLoc, true)).setCSRAdjacency(true).build();
+        graph.loadExisting();
+        assertNotNull(graph.adjOffsets);
+        checkSameAdjacency(expected, graph);
+        expected.close();
+    }
+
+    private void checkSameAdjacency(BaseGraph expected, BaseGraph graph) {
+        for (EdgeFilter filter : new EdgeFilter[]{EdgeFilter.ALL_EDGES, carOutFilter}) {
+            EdgeExplorer expectedExplorer = expected.createEdgeExplorer(filter);
+            EdgeExplorer explorer = graph.createEdgeExplorer(filter);
+            for (int node = 0; node < expected.getNodes(); node++) {
+                EdgeIterator expectedIter = expectedExplorer.setBaseNode(node);
+                EdgeIterator iter = explorer.setBaseNode(node);
+                while (expectedIter.next()) {
+                    assertTrue(iter.next());
+                    assertEquals(expectedIter.getEdge(), iter.getEdge());
+                    assertEquals(expectedIter.getEdgeKey(), iter.getEdgeKey());
+                    assertEquals(expectedIter.getBaseNode(), iter.getBaseNode());
+                    assertEquals(expectedIter.getAdjNode(), iter.getAdjNode());
+                    assertEquals(expectedIter.get(REVERSE_STATE), iter.get(REVERSE_STATE));
+                    assertEquals(expectedIter.getDistance(), iter.getDistance(), 1.e-6);
+                    assertEquals(expectedIter.getFlags(), iter.getFlags());
+                    assertEquals(expectedIter.detach(true).getAdjNode(), iter.detach(true).getAdjNode());
+                }
+                assertFalse(iter.next());
+            }
+        }
+    }
+
+    private BaseGraph createRandomGraphWithGeometryAndNames(Random rnd) {
+        BaseGraph g = newGHStorage(new RAMDirectory(), false).create(defaultSize);
+        GHUtility.buildRandomGraph(g, rnd, 100, 2.5, true, true, carAccessEnc, null, null, 0.5, 0.7, 0.5);
+        AllEdgesIterator iter = g.getAllEdges();
+        while (iter.next()) {
+            if (rnd.nextBoolean())
+                iter.setWayGeometry(Helper.createPointList(49.4 + rnd.nextDouble() * 0.01, 9.7 + rnd.nextDouble() * 0.01,
+                        49.4 + rnd.nextDouble() * 0.01, 9.7 + rnd.nextDouble() * 0.01));
+            iter.setName("street " + iter.getEdge());
+        }
+        return g;
+    }
+
     @Test
     public void outOfBounds() {
         BaseGraph graph = createGHStorage();
@@ -0,0 +1,106 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.storage;
+
+import com.graphhopper.util.EdgeIteratorState;
+import com.graphhopper.util.FetchMode;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.PointList;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs all graph storage tests for the delta-encoded way geometry format
+ */
+public class GraphHopperStorageWithCompressedGeometryTest extends GraphHopperStorageTest {
+    @Override
+    protected BaseGraph newGHStorage(Directory dir, boolean is3D) {
+        return newGHStorage(dir, is3D, -1);
+    }
+
+    @Override
+    protected BaseGraph newGHStorage(Directory dir, boolean enabled3D, int segmentSize) {
+        return new BaseGraph.Builder(encodingManager).setDir(dir).set3D(enabled3D).setSegmentSize(segmentSize).
+                setCompressedGeometry(true).build();
+    }
+
+    @Override
+    @Test
+    public void testDontGrowOnUpdate() {
+        graph = createGHStorage(defaultGraphLoc, true);
+        NodeAccess na = graph.getNodeAccess();
+        na.setNode(0, 10, 10, 0);
+        na.setNode(1, 11, 20, 1);
+
+        EdgeIteratorState edge = graph.edge(0, 1).setDistance(100).set(carAccessEnc, true, true);
+        assertEquals(4, graph.getMaxGeoRef());
+        edge.setWayGeometry(Helper.createPointList3D(1, 2, 3, 3, 4, 5, 5, 6, 7, 7, 8, 9));
+        long maxGeoRef = graph.getMaxGeoRef();
+        assertTrue(maxGeoRef > 4);
+        edge.setWayGeometry(Helper.createPointList3D(1, 2, 3, 3, 4, 5, 5, 6, 7));
+        assertEquals(maxGeoRef, graph.getMaxGeoRef());
+        edge.setWayGeometry(Helper.createPointList3D(1, 2, 3));
+        assertEquals(maxGeoRef, graph.getMaxGeoRef());
+        assertEquals(Helper.createPointList3D(1, 2, 3), edge.fetchWayGeometry(FetchMode.PILLAR_ONLY));
+        // the slot only remembers the length of the last geometry, so this one needs a new slot
+        edge.setWayGeometry(Helper.createPointList3D(1.5, 1, 0, 2, 3, 0));
+        assertTrue(graph.getMaxGeoRef() > maxGeoRef);
+        assertEquals(Helper.createPointList3D(1.5, 1, 0, 2, 3, 0), edge.fetchWayGeometry(FetchMode.PILLAR_ONLY));
+    }
+
+    @Test
+    public void testCompressedGeometryIsSmaller() {
+        BaseGraph uncompressed = new BaseGraph.Builder(encodingManager).set3D(true).create();
+        graph = newGHStorage(new RAMDirectory(), true).create(defaultSize);
+        PointList pointList = new PointList(100, true);
+        for (int i = 0; i < 100; i++)
+            pointList.add(-33.9 + i * 1.3e-4, 18.4 - i * 0.7e-4, 20 + (i % 7) * 0.5);
+        for (BaseGraph g : new BaseGraph[]{uncompressed, graph}) {
+            g.getNodeAccess().setNode(0, -33.9, 18.4, 20);
+            g.getNodeAccess().setNode(1, -33.88, 18.39, 21);
+            g.edge(0, 1).setDistance(100).setWayGeometry(pointList.clone(false));
+            // the reverse direction is stored in reverse order
+            g.edge(1, 0).setDistance(100).setWayGeometry(pointList.clone(true));
+        }
+        for (int edge = 0; edge < 2; edge++)
+            assertEquals(uncompressed.getEdgeIteratorState(edge, Integer.MIN_VALUE).fetchWayGeometry(FetchMode.ALL),
+                    graph.getEdgeIteratorState(edge, Integer.MIN_VALUE).fetchWayGeometry(FetchMode.ALL));
+        // typical pillar node distances need two bytes per coordinate instead of four
+        assertTrue(graph.getMaxGeoRef() < 0.6 * uncompressed.getMaxGeoRef(),
+                graph.getMaxGeoRef() + " vs. " + uncompressed.getMaxGeoRef());
+    }
+
+    @Test
+    public void testLoadUncompressedGeometry() {
+        BaseGraph uncompressed = new BaseGraph.Builder(encodingManager).setDir(new RAMDirectory(defaultGraphLoc, true)).
+                set3D(true).create();
+        uncompressed.getNodeAccess().setNode(0, 10, 10, 0);
+        uncompressed.getNodeAccess().setNode(1, 11, 20, 1);
+        uncompressed.edge(0, 1).setDistance(100).setWayGeometry(Helper.createPointList3D(1.5, 1, 0, 2, 3, 0));
+        uncompressed.flush();
+        uncompressed.close();
+
+        // graphs that were created with the old format can still be loaded
+        graph = newGHStorage(new RAMDirectory(defaultGraphLoc, true), true);
+        graph.loadExisting();
+        assertFalse(graph.isCompressedGeometry());
+        assertEquals(Helper.createPointList3D(1.5, 1, 0, 2, 3, 0),
+                graph.getEdgeIteratorState(0, Integer.MIN_VALUE).fetchWayGeometry(FetchMode.PILLAR_ONLY));
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.graphhopper.storage;
 
+import com.graphhopper.routing.ev.DecimalEncodedValue;
 import com.graphhopper.routing.ev.EncodedValueLookup;
 import com.graphhopper.routing.ev.TurnCost;
 import com.graphhopper.routing.util.FlagEncoder;
@@ -154,6 +155,29 @@ public class GraphHopperStorageWithTurnCostsTest extends GraphHopperStorageTest
         assertEquals(12, na.getTurnCostIndex(4000));
     }
 
+    @Test
+    public void testReorderTurnCosts() {
+        graph = newGHStorage(new RAMDirectory(), false).create(defaultSize);
+        int edge0 = graph.edge(0, 1).setDistance(10).set(carAccessEnc, true, true).getEdge();
+        int edge1 = graph.edge(1, 2).setDistance(10).set(carAccessEnc, true, true).getEdge();
+        int edge2 = graph.edge(2, 3).setDistance(10).set(carAccessEnc, true, true).getEdge();
+        setTurnCost(edge0, 1, edge1, 10);
+        setTurnCost(edge1, 2, edge2, 20);
+        setTurnCost(edge2, 2, edge1, 30);
+
+        int[] newNodes = {3, 2, 1, 0};
+        int[] newEdges = graph.reorder(newNodes);
+        // the edges are sorted by their smaller new node, so the order of the edges is reversed as well
+        assertEquals(2, newEdges[edge0]);
+        assertEquals(0, newEdges[edge2]);
+        DecimalEncodedValue turnCostEnc = ((EncodedValueLookup) encodingManager).getDecimalEncodedValue(TurnCost.key("car"));
+        TurnCostStorage turnCostStorage = graph.getTurnCostStorage();
+        assertEquals(10, turnCostStorage.get(turnCostEnc, newEdges[edge0], newNodes[1], newEdges[edge1]), .1);
+        assertEquals(20, turnCostStorage.get(turnCostEnc, newEdges[edge1], newNodes[2], newEdges[edge2]), .1);
+        assertEquals(30, turnCostStorage.get(turnCostEnc, newEdges[edge2], newNodes[2], newEdges[edge1]), .1);
+        assertEquals(0, turnCostStorage.get(turnCostEnc, newEdges[edge1], newNodes[1], newEdges[edge0]), .1);
+    }
+
     private double getTurnCost(EdgeIteratorState fromEdge, int viaNode, EdgeIteratorState toEdge) {
         return graph.getTurnCostStorage().get(((EncodedValueLookup) encodingManager).getDecimalEncodedValue(TurnCost.key("car")), toEdge.getEdge(), viaNode, fromEdge.getEdge());
     }
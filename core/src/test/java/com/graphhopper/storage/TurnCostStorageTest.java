@@ -23,18 +23,20 @@ import com.graphhopper.routing.ev.TurnCost;
 import com.graphhopper.routing.util.EncodingManager;
 import com.graphhopper.routing.util.FlagEncoder;
 import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.util.EdgeIterator;
 import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.Helper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.io.File;
+import java.util.*;
 
 import static com.graphhopper.util.GHUtility.getEdge;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class TurnCostStorageTest {
 
@@ -160,4 +162,71 @@ public class TurnCostStorageTest {
         assertFalse(iterator.next());
     }
 
+    @Test
+    public void testLookupIndex() {
+        String location = "./target/turn-cost-lookup-index";
+        Helper.removeDir(new File(location));
+        FlagEncoder carEncoder = manager.getEncoder("car");
+        DecimalEncodedValue carEnc = manager.getDecimalEncodedValue(TurnCost.key("car"));
+        BaseGraph g = new BaseGraph.Builder(manager).setDir(new RAMDirectory(location, true)).create();
+        Random rnd = new Random(123);
+        GHUtility.buildRandomGraph(g, rnd, 50, 2.5, true, true, carEncoder.getAccessEnc(), carEncoder.getAverageSpeedEnc(), 60d, 0.8, 0.8, 0.8);
+        TurnCostStorage turnCostStorage = g.getTurnCostStorage();
+        // set turn costs for all turns at some nodes, in random order
+        List<int[]> turns = new ArrayList<>();
+        for (int node = 0; node < g.getNodes(); node += 2) {
+            for (EdgeIterator in = g.createEdgeExplorer().setBaseNode(node); in.next(); )
+                for (EdgeIterator out = g.createEdgeExplorer().setBaseNode(node); out.next(); )
+                    turns.add(new int[]{in.getEdge(), node, out.getEdge()});
+        }
+        Collections.shuffle(turns, rnd);
+        for (int[] turn : turns)
+            turnCostStorage.set(carEnc, turn[0], turn[1], turn[2], rnd.nextInt(4));
+
+        double[][] expected = new double[g.getNodes()][];
+        for (int node = 0; node < g.getNodes(); node++)
+            expected[node] = getTurnCosts(g, carEnc, node);
+        assertFalse(turnCostStorage.isLookupIndexValid());
+
+        g.freeze();
+        assertTrue(turnCostStorage.isLookupIndexValid());
+        for (int node = 0; node < g.getNodes(); node++)
+            assertArrayEquals(expected[node], getTurnCosts(g, carEnc, node), "node " + node);
+        g.flush();
+        g.close();
+
+        g = new BaseGraph.Builder(manager).setDir(new RAMDirectory(location, true)).build();
+        g.loadExisting();
+        turnCostStorage = g.getTurnCostStorage();
+        assertTrue(turnCostStorage.isLookupIndexValid());
+        for (int node = 0; node < g.getNodes(); node++)
+            assertArrayEquals(expected[node], getTurnCosts(g, carEnc, node), "node " + node);
+
+        // modifying the turn costs drops the lookup index. set() is only defined once per turn relation, so we use
+        // one at a via node with an odd id, because these have no turn costs yet
+        int[] turn = findTurnAtOddNode(g);
+        assertEquals(0, turnCostStorage.get(carEnc, turn[0], turn[1], turn[2]));
+        turnCostStorage.set(carEnc, turn[0], turn[1], turn[2], 2);
+        assertFalse(turnCostStorage.isLookupIndexValid());
+        assertEquals(2, turnCostStorage.get(carEnc, turn[0], turn[1], turn[2]));
+        g.close();
+        Helper.removeDir(new File(location));
+    }
+
+    private static int[] findTurnAtOddNode(BaseGraph g) {
+        for (int node = 1; node < g.getNodes(); node += 2) {
+            EdgeIterator iter = g.createEdgeExplorer().setBaseNode(node);
+            if (iter.next())
+                return new int[]{iter.getEdge(), node, iter.getEdge()};
+        }
+        throw new IllegalStateException("no turn found");
+    }
+
+    private static double[] getTurnCosts(BaseGraph g, DecimalEncodedValue turnCostEnc, int node) {
+        List<Double> costs = new ArrayList<>();
+        for (EdgeIterator in = g.createEdgeExplorer().setBaseNode(node); in.next(); )
+            for (EdgeIterator out = g.createEdgeExplorer().setBaseNode(node); out.next(); )
+                costs.add(g.getTurnCostStorage().get(turnCostEnc, in.getEdge(), node, out.getEdge()));
+        return costs.stream().mapToDouble(Double::doubleValue).toArray();
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.storage;
+
+import com.graphhopper.routing.Dijkstra;
+import com.graphhopper.routing.Path;
+import com.graphhopper.routing.ch.CHRoutingAlgorithmFactory;
+import com.graphhopper.routing.ch.PrepareContractionHierarchies;
+import com.graphhopper.routing.querygraph.QueryGraph;
+import com.graphhopper.routing.util.EdgeFilter;
+import com.graphhopper.routing.util.EncodingManager;
+import com.graphhopper.routing.util.FlagEncoder;
+import com.graphhopper.routing.util.FlagEncoders;
+import com.graphhopper.routing.util.TraversalMode;
+import com.graphhopper.routing.weighting.DefaultTurnCostProvider;
+import com.graphhopper.routing.weighting.FastestWeighting;
+import com.graphhopper.routing.weighting.Weighting;
+import com.graphhopper.storage.index.LocationIndexTree;
+import com.graphhopper.storage.index.Snap;
+import com.graphhopper.util.GHUtility;
+import com.graphhopper.util.PMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UpwardRoutingCHGraphTest {
+    private final FlagEncoder encoder = FlagEncoders.createCar(5, 5, 10);
+    private final EncodingManager encodingManager = EncodingManager.create(encoder);
+
+    @Test
+    void nodeBased() {
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.buildRandomGraph(graph, rnd, 500, 2.5, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        graph.freeze();
+        Weighting weighting = new FastestWeighting(encoder);
+        CHConfig chConfig = CHConfig.nodeBased("car", weighting);
+        PrepareContractionHierarchies.Result result = PrepareContractionHierarchies.fromGraph(graph, chConfig).doWork();
+        RoutingCHGraph chGraph = RoutingCHGraphImpl.fromGraph(graph, result.getCHStorage(), chConfig);
+        UpwardRoutingCHGraph upwardGraph = UpwardRoutingCHGraph.fromGraph(chGraph);
+        checkUpwardEdges(chGraph, upwardGraph, seed);
+
+        // the searches must yield the same results, also when there are virtual nodes
+        LocationIndexTree index = new LocationIndexTree(graph, new RAMDirectory());
+        index.prepareIndex();
+        for (int i = 0; i < 100; i++) {
+            Snap from = index.findClosest(49.4 + rnd.nextDouble() * 0.01, 9.7 + rnd.nextDouble() * 0.01, EdgeFilter.ALL_EDGES);
+            Snap to = index.findClosest(49.4 + rnd.nextDouble() * 0.01, 9.7 + rnd.nextDouble() * 0.01, EdgeFilter.ALL_EDGES);
+            if (!from.isValid() || !to.isValid())
+                continue;
+            QueryGraph queryGraph = QueryGraph.create(graph, from, to);
+            Path expected = new Dijkstra(queryGraph, weighting, TraversalMode.NODE_BASED)
+                    .calcPath(from.getClosestNode(), to.getClosestNode());
+            Path path = new CHRoutingAlgorithmFactory(upwardGraph, queryGraph).createAlgo(new PMap())
+                    .calcPath(from.getClosestNode(), to.getClosestNode());
+            assertEquals(expected.isFound(), path.isFound(), "seed: " + seed);
+            assertEquals(expected.getWeight(), path.getWeight(), 1.e-1, "seed: " + seed);
+        }
+    }
+
+    @Test
+    void edgeBased() {
+        long seed = System.nanoTime();
+        Random rnd = new Random(seed);
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        GHUtility.buildRandomGraph(graph, rnd, 100, 2.5, true, true,
+                encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), null, 0.7, 0.8, 0.8);
+        GHUtility.addRandomTurnCosts(graph, seed, encodingManager, encoder, 10, graph.getTurnCostStorage());
+        graph.freeze();
+        Weighting weighting = new FastestWeighting(encoder, new DefaultTurnCostProvider(encoder, graph.getTurnCostStorage()));
+        CHConfig chConfig = CHConfig.edgeBased("car", weighting);
+        PrepareContractionHierarchies.Result result = PrepareContractionHierarchies.fromGraph(graph, chConfig).doWork();
+        RoutingCHGraph chGraph = RoutingCHGraphImpl.fromGraph(graph, result.getCHStorage(), chConfig);
+        UpwardRoutingCHGraph upwardGraph = UpwardRoutingCHGraph.fromGraph(chGraph);
+        assertTrue(upwardGraph.isEdgeBased());
+        checkUpwardEdges(chGraph, upwardGraph, seed);
+
+        for (int i = 0; i < 100; i++) {
+            int from = rnd.nextInt(graph.getNodes());
+            int to = rnd.nextInt(graph.getNodes());
+            Path expected = new CHRoutingAlgorithmFactory(chGraph).createAlgo(new PMap()).calcPath(from, to);
+            Path path = new CHRoutingAlgorithmFactory(upwardGraph).createAlgo(new PMap()).calcPath(from, to);
+            assertEquals(expected.isFound(), path.isFound(), "seed: " + seed);
+            assertEquals(expected.getWeight(), path.getWeight(), 1.e-6, "seed: " + seed);
+        }
+    }
+
+    private void checkUpwardEdges(RoutingCHGraph chGraph, UpwardRoutingCHGraph upwardGraph, long seed) {
+        assertEquals(chGraph.getNodes(), upwardGraph.getNodes());
+        assertEquals(chGraph.getEdges(), upwardGraph.getEdges());
+        assertTrue(upwardGraph.getMemoryUsage() > 0);
+        for (int node = 0; node < chGraph.getNodes(); node++)
+            assertEquals(chGraph.getLevel(node), upwardGraph.getLevel(node));
+        checkUpwardEdges(chGraph, chGraph.createOutEdgeExplorer(), upwardGraph.createOutEdgeExplorer(), seed);
+        checkUpwardEdges(chGraph, chGraph.createInEdgeExplorer(), upwardGraph.createInEdgeExplorer(), seed);
+    }
+
+    private void checkUpwardEdges(RoutingCHGraph chGraph, RoutingCHEdgeExplorer explorer, RoutingCHEdgeExplorer upwardExplorer, long seed) {
+        for (int node = 0; node < chGraph.getNodes(); node++) {
+            RoutingCHEdgeIterator iter = explorer.setBaseNode(node);
+            RoutingCHEdgeIterator upwardIter = upwardExplorer.setBaseNode(node);
+            while (iter.next()) {
+                // the downward base edges are only kept for edge-based graphs
+                if (!chGraph.isEdgeBased() && !iter.isShortcut() && chGraph.getLevel(node) > chGraph.getLevel(iter.getAdjNode()))
+                    continue;
+                assertTrue(upwardIter.next(), "seed: " + seed);
+                assertEquals(iter.getEdge(), upwardIter.getEdge());
+                assertEquals(iter.getOrigEdge(), upwardIter.getOrigEdge());
+                assertEquals(iter.getOrigEdgeFirst(), upwardIter.getOrigEdgeFirst());
+                assertEquals(iter.getOrigEdgeLast(), upwardIter.getOrigEdgeLast());
+                assertEquals(iter.getBaseNode(), upwardIter.getBaseNode());
+                assertEquals(iter.getAdjNode(), upwardIter.getAdjNode());
+                assertEquals(iter.isShortcut(), upwardIter.isShortcut());
+                assertEquals(iter.getWeight(false), upwardIter.getWeight(false));
+                assertEquals(iter.getWeight(true), upwardIter.getWeight(true));
+                if (iter.isShortcut()) {
+                    assertEquals(iter.getSkippedEdge1(), upwardIter.getSkippedEdge1());
+                    assertEquals(iter.getSkippedEdge2(), upwardIter.getSkippedEdge2());
+                }
+            }
+            assertFalse(upwardIter.next(), "seed: " + seed);
+        }
+    }
+}
@@ -31,6 +31,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -613,6 +614,87 @@ public class LocationIndexTreeTest {
         g.close();
     }
 
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    public void testFindClosestBatch(int threads) {
+        FlagEncoder encoder = encodingManager.getEncoder("car");
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        Random rnd = new Random(42);
+        GHUtility.buildRandomGraph(graph, rnd, 200, 2.2, false, false, encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), 60d, 0, 0.8, 0);
+        LocationIndexTree index = createIndexNoPrepare(graph, 100);
+        index.prepareIndex();
+
+        int queries = 500;
+        double[] lats = new double[queries];
+        double[] lons = new double[queries];
+        for (int i = 0; i < queries; i++) {
+            lats[i] = 49.398 + rnd.nextDouble() * 0.014;
+            lons[i] = 9.698 + rnd.nextDouble() * 0.014;
+        }
+        EdgeFilter filter = edge -> edge.getEdge() % 3 != 0;
+        Snap[] snaps = index.findClosest(lats, lons, filter, threads);
+        assertEquals(queries, snaps.length);
+        for (int i = 0; i < queries; i++) {
+            Snap expected = index.findClosest(lats[i], lons[i], filter);
+            assertEquals(expected.isValid(), snaps[i].isValid());
+            assertEquals(lats[i], snaps[i].getQueryPoint().lat);
+            if (!expected.isValid())
+                continue;
+            assertEquals(expected.getClosestNode(), snaps[i].getClosestNode());
+            assertEquals(expected.getClosestEdge().getEdge(), snaps[i].getClosestEdge().getEdge());
+            assertEquals(expected.getQueryDistance(), snaps[i].getQueryDistance(), 1.e-6);
+            assertEquals(expected.getSnappedPoint(), snaps[i].getSnappedPoint());
+        }
+        assertEquals(0, index.findClosest(new double[0], new double[0], filter, threads).length);
+    }
+
+    @Test
+    public void testFindNearestAndWithinRadius() {
+        FlagEncoder encoder = encodingManager.getEncoder("car");
+        BaseGraph graph = new BaseGraph.Builder(encodingManager).create();
+        Random rnd = new Random(7);
+        GHUtility.buildRandomGraph(graph, rnd, 100, 2.2, false, false, encoder.getAccessEnc(), encoder.getAverageSpeedEnc(), 60d, 0, 0.8, 0);
+        LocationIndexTree index = createIndexNoPrepare(graph, 100);
+        index.prepareIndex();
+        EdgeFilter filter = edge -> edge.getEdge() % 4 != 0;
+
+        for (int i = 0; i < 50; i++) {
+            double lat = 49.4 + rnd.nextDouble() * 0.01;
+            double lon = 9.7 + rnd.nextDouble() * 0.01;
+            // brute force: distance of the query point to every accepted edge
+            List<double[]> expected = new ArrayList<>();
+            AllEdgesIterator iter = graph.getAllEdges();
+            while (iter.next()) {
+                if (!filter.accept(iter))
+                    continue;
+                double[] minDist = {Double.MAX_VALUE};
+                index.traverseEdge(lat, lon, iter, (node, normedDist, wayIndex, pos) -> minDist[0] = Math.min(minDist[0], normedDist));
+                expected.add(new double[]{DistancePlaneProjection.DIST_PLANE.calcDenormalizedDist(minDist[0]), iter.getEdge()});
+            }
+            expected.sort(Comparator.<double[]>comparingDouble(e -> e[0]).thenComparingDouble(e -> e[1]));
+
+            List<Snap> nearest = index.findNearest(lat, lon, 5, 10_000, filter);
+            assertEquals(5, nearest.size());
+            for (int j = 0; j < nearest.size(); j++) {
+                assertEquals(expected.get(j)[1], nearest.get(j).getClosestEdge().getEdge());
+                assertEquals(expected.get(j)[0], nearest.get(j).getQueryDistance(), 1.e-6);
+                assertTrue(nearest.get(j).isValid());
+                assertTrue(nearest.get(j).getSnappedPoint() != null);
+            }
+
+            double radius = 150;
+            List<Snap> withinRadius = index.findWithinRadius(lat, lon, radius, filter);
+            long expectedCount = expected.stream().filter(e -> e[0] <= radius).count();
+            assertEquals(expectedCount, withinRadius.size());
+            for (int j = 0; j < withinRadius.size(); j++) {
+                assertEquals(expected.get(j)[1], withinRadius.get(j).getClosestEdge().getEdge());
+            }
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> index.findNearest(49.405, 9.705, 0, 100, filter));
+        assertEquals(0, index.findWithinRadius(0, 0, 1000, filter).size());
+    }
+
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
     public void closeToTowerNode(boolean snapAtBase) {
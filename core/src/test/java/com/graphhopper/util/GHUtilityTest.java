@@ -17,6 +17,7 @@
  */
 package com.graphhopper.util;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.graphhopper.coll.GHIntLongHashMap;
 import com.graphhopper.routing.util.AllEdgesIterator;
 import com.graphhopper.routing.util.EncodingManager;
@@ -27,6 +28,8 @@ import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.NodeAccess;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -121,6 +124,41 @@ public class GHUtilityTest {
         GHUtility.sortDFS(g, createGraph());
     }
 
+    @Test
+    public void testHilbertIndex() {
+        // the first 256 positions of the curve fill the 16x16 square in the corner and each step goes to a neighbor cell
+        int[] xs = new int[256];
+        int[] ys = new int[256];
+        Arrays.fill(xs, -1);
+        for (int x = 0; x < 16; x++) {
+            for (int y = 0; y < 16; y++) {
+                int index = (int) GHUtility.calcHilbertIndex(x, y);
+                assertTrue(index < 256, "index: " + index);
+                assertEquals(-1, xs[index]);
+                xs[index] = x;
+                ys[index] = y;
+            }
+        }
+        for (int i = 1; i < 256; i++)
+            assertEquals(1, Math.abs(xs[i] - xs[i - 1]) + Math.abs(ys[i] - ys[i - 1]));
+    }
+
+    @Test
+    public void testHilbertNodeOrder() {
+        Graph g = initUnsorted(createGraph(), carEncoder);
+        int[] newNodes = GHUtility.calcHilbertNodeOrder(g);
+        assertTrue(ArrayUtil.isPermutation(IntArrayList.from(newNodes)));
+        // node 0 is in the bottom left corner, where the curve starts
+        assertEquals(0, newNodes[0]);
+    }
+
+    @Test
+    public void testBFSNodeOrder() {
+        Graph g = initUnsorted(createGraph(), carEncoder);
+        // components are numbered one after another, starting from their smallest node
+        assertArrayEquals(new int[]{0, 1, 3, 4, 7, 6, 8, 5, 2}, GHUtility.calcBFSNodeOrder(g));
+    }
+
     @Test
     public void testEdgeStuff() {
         assertEquals(6, GHUtility.createEdgeKey(1, 2, 3, false));
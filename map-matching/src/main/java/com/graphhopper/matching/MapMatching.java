@@ -42,16 +42,12 @@ import com.graphhopper.storage.Graph;
 import com.graphhopper.storage.index.LocationIndexTree;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.*;
-import com.graphhopper.util.shapes.BBox;
-import org.locationtech.jts.geom.Envelope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.stream.Collectors;
 
-import static com.graphhopper.util.DistancePlaneProjection.DIST_PLANE;
-
 /**
  * This class matches real world GPX entries to the digital road network stored
  * in GraphHopper. The Viterbi algorithm is used to compute the most likely
@@ -72,6 +68,9 @@ import static com.graphhopper.util.DistancePlaneProjection.DIST_PLANE;
  */
 public class MapMatching {
 
+    // candidates are searched up to this multiple of measurementErrorSigma away from an observation
+    private static final int MAX_CANDIDATE_RINGS = 50;
+
     private final Logger logger = LoggerFactory.getLogger(getClass());
 
     private final BaseGraph graph;
@@ -155,9 +154,7 @@ public class MapMatching {
         List<Observation> filteredObservations = filterObservations(observations);
 
         // Snap observations to links. Generates multiple candidate snaps per observation.
-        List<Collection<Snap>> snapsPerObservation = filteredObservations.stream()
-                .map(o -> findCandidateSnaps(o.getPoint().lat, o.getPoint().lon))
-                .collect(Collectors.toList());
+        List<Collection<Snap>> snapsPerObservation = findCandidateSnaps(filteredObservations);
 
         // Create the query graph, containing split edges so that all the places where an observation might have happened
         // are a node. This modifies the Snap objects and puts the new node numbers into them.
@@ -205,48 +202,55 @@ public class MapMatching {
         return filtered;
     }
 
-    public List<Snap> findCandidateSnaps(final double queryLat, final double queryLon) {
-        double rLon = (measurementErrorSigma * 360.0 / DistanceCalcEarth.DIST_EARTH.calcCircumference(queryLat));
-        double rLat = measurementErrorSigma / DistanceCalcEarth.METERS_PER_DEGREE;
-        Envelope envelope = new Envelope(queryLon, queryLon, queryLat, queryLat);
-        for (int i = 0; i < 50; i++) {
-            envelope.expandBy(rLon, rLat);
-            List<Snap> snaps = findCandidateSnapsInBBox(queryLat, queryLon, BBox.fromEnvelope(envelope));
-            if (!snaps.isEmpty()) {
-                return snaps;
+    /**
+     * Finds the candidates of all observations. The closest edges of the observations, which determine the search
+     * radius of their candidates, are looked up in one batch, so nearby observations share the tiles they read.
+     */
+    private List<Collection<Snap>> findCandidateSnaps(List<Observation> observations) {
+        EdgeFilter edgeFilter = new DefaultSnapFilter(unwrappedWeighting, inSubnetworkEnc);
+        double[] lats = new double[observations.size()];
+        double[] lons = new double[observations.size()];
+        for (int i = 0; i < observations.size(); i++) {
+            lats[i] = observations.get(i).getPoint().lat;
+            lons[i] = observations.get(i).getPoint().lon;
+        }
+        Snap[] closestSnaps = locationIndex.findClosest(lats, lons, edgeFilter);
+        List<Collection<Snap>> snapsPerObservation = new ArrayList<>(observations.size());
+        for (int i = 0; i < observations.size(); i++) {
+            Snap closest = closestSnaps[i];
+            if (!closest.isValid()) {
+                // the batch lookup only searches a few tiles, but candidates can be further away
+                snapsPerObservation.add(findCandidateSnaps(lats[i], lons[i]));
+            } else if (closest.getQueryDistance() > MAX_CANDIDATE_RINGS * measurementErrorSigma) {
+                snapsPerObservation.add(Collections.emptyList());
+            } else {
+                snapsPerObservation.add(findCandidateSnaps(lats[i], lons[i], closest.getQueryDistance(), edgeFilter));
             }
         }
-        return Collections.emptyList();
+        return snapsPerObservation;
     }
 
-    private List<Snap> findCandidateSnapsInBBox(double queryLat, double queryLon, BBox queryShape) {
+    public List<Snap> findCandidateSnaps(final double queryLat, final double queryLon) {
         EdgeFilter edgeFilter = new DefaultSnapFilter(unwrappedWeighting, inSubnetworkEnc);
+        List<Snap> closest = locationIndex.findNearest(queryLat, queryLon, 1, MAX_CANDIDATE_RINGS * measurementErrorSigma, edgeFilter);
+        if (closest.isEmpty())
+            return Collections.emptyList();
+        return findCandidateSnaps(queryLat, queryLon, closest.get(0).getQueryDistance(), edgeFilter);
+    }
+
+    /**
+     * Returns the candidates of the first ring of width measurementErrorSigma around the query location that contains
+     * the closest snap, i.e. all edges within the smallest multiple of measurementErrorSigma that is at least
+     * closestDistance. Edges snapping to the same tower node only yield one candidate.
+     */
+    private List<Snap> findCandidateSnaps(double queryLat, double queryLon, double closestDistance, EdgeFilter edgeFilter) {
+        double radius = Math.max(closestDistance, Math.max(1, Math.ceil(closestDistance / measurementErrorSigma)) * measurementErrorSigma);
         List<Snap> snaps = new ArrayList<>();
-        IntHashSet seenEdges = new IntHashSet();
         IntHashSet seenNodes = new IntHashSet();
-        locationIndex.query(queryShape, edgeId -> {
-            EdgeIteratorState edge = graph.getEdgeIteratorStateForKey(edgeId * 2);
-            if (seenEdges.add(edgeId) && edgeFilter.accept(edge)) {
-                Snap snap = new Snap(queryLat, queryLon);
-                locationIndex.traverseEdge(queryLat, queryLon, edge, (node, normedDist, wayIndex, pos) -> {
-                    if (normedDist < snap.getQueryDistance()) {
-                        snap.setQueryDistance(normedDist);
-                        snap.setClosestNode(node);
-                        snap.setWayIndex(wayIndex);
-                        snap.setSnappedPosition(pos);
-                    }
-                });
-                double dist = DIST_PLANE.calcDenormalizedDist(snap.getQueryDistance());
-                snap.setClosestEdge(edge);
-                snap.setQueryDistance(dist);
-                if (snap.isValid() && (snap.getSnappedPosition() != Snap.Position.TOWER || seenNodes.add(snap.getClosestNode()))) {
-                    snap.calcSnappedPoint(DistanceCalcEarth.DIST_EARTH);
-                    if (queryShape.contains(snap.getSnappedPoint().lat, snap.getSnappedPoint().lon)) {
-                        snaps.add(snap);
-                    }
-                }
-            }
-        });
+        for (Snap snap : locationIndex.findWithinRadius(queryLat, queryLon, radius, edgeFilter)) {
+            if (snap.getSnappedPosition() != Snap.Position.TOWER || seenNodes.add(snap.getClosestNode()))
+                snaps.add(snap);
+        }
         return snaps;
     }
 
@@ -29,6 +29,7 @@ import com.graphhopper.config.Profile;
 import com.graphhopper.jackson.Jackson;
 import com.graphhopper.routing.ch.PrepareContractionHierarchies;
 import com.graphhopper.routing.ev.Subnetwork;
+import com.graphhopper.routing.lm.ActiveLandmarkCache;
 import com.graphhopper.routing.lm.LMConfig;
 import com.graphhopper.routing.lm.PrepareLandmarks;
 import com.graphhopper.routing.util.*;
@@ -196,6 +197,8 @@ public class Measurement {
                 boolean isLM = false;
                 measureRouting(hopper, new QuerySettings("routing", count / 20, isCH, isLM).
                         withInstructions());
+                measureRouting(hopper, new QuerySettings("routing_array", count / 20, isCH, isLM).
+                        withInstructions().arraySPT());
                 if (encoder.supportsTurnCosts())
                     measureRouting(hopper, new QuerySettings("routing_edge", count / 20, isCH, isLM).
                             withInstructions().edgeBased());
@@ -222,6 +225,21 @@ public class Measurement {
                 if (!blockAreaStr.isEmpty())
                     measureRouting(hopper, new QuerySettings("routingLM" + activeLMCount + "_block_area", count / 20, isCH, isLM).
                             withInstructions().activeLandmarks(activeLMCount).blockArea(blockAreaStr));
+
+                if (!hopper.getActiveLandmarkCaches().isEmpty()) {
+                    // queries along a few corridors, like the ones of a fleet, with and without the active landmark cache
+                    // both runs use the same queries, so only the cache makes a difference
+                    int corridors = args.getInt("measurement.lm.corridors", 10);
+                    List<List<GHPoint>> queries = createCorridorQueries(hopper, "profile_no_tc", corridors, 2, count / 20);
+                    String prefix = "routingLM" + activeLMCount + "_corridors";
+                    measureRouting(hopper, new QuerySettings(prefix, count / 20, isCH, isLM).
+                            withInstructions().activeLandmarks(activeLMCount).withQueries(queries));
+                    measureRouting(hopper, new QuerySettings(prefix + "_cached", count / 20, isCH, isLM).
+                            withInstructions().activeLandmarks(activeLMCount).withQueries(queries).activeLandmarkCache());
+                    float visitedNodes = (float) properties.get(prefix + ".visited_nodes_mean");
+                    float visitedNodesCached = (float) properties.get(prefix + "_cached.visited_nodes_mean");
+                    put(prefix + "_cached.visited_nodes_reduction", visitedNodes == 0 ? 0 : 1 - visitedNodesCached / visitedNodes);
+                }
             }
 
             if (hopper.getCHPreparationHandler().isEnabled()) {
@@ -240,6 +258,8 @@ public class Measurement {
                             withInstructions().sod().withPointHints());
                     measureRouting(hopper, new QuerySettings("routingCH_no_sod", count, isCH, isLM).
                             withInstructions());
+                    measureRouting(hopper, new QuerySettings("routingCH_array", count, isCH, isLM).
+                            withInstructions().sod().arraySPT());
                     measureRouting(hopper, new QuerySettings("routingCH_no_instr", count, isCH, isLM).
                             sod());
                     measureRouting(hopper, new QuerySettings("routingCH_full", count, isCH, isLM).
@@ -340,6 +360,15 @@ public class Measurement {
                 lmProfiles.add(new LMProfile("profile_tc").setPreparationProfile("profile_no_tc"));
         }
         ghConfig.setLMProfiles(lmProfiles);
+        // routing_array and routingCH_array measure the pooled shortest path trees, the other queries disable them
+        // explicitly, see QuerySettings#arraySPT
+        if (!ghConfig.has("routing.workspace_pooling"))
+            ghConfig.putObject("routing.workspace_pooling", true);
+        if (useCHNode && !ghConfig.has("routing.ch.workspace_pooling"))
+            ghConfig.putObject("routing.ch.workspace_pooling", true);
+        // the cache is only used for the queries that enable it explicitly, see QuerySettings#activeLandmarkCache
+        if (useLM && !ghConfig.has(Landmark.ACTIVE_LANDMARK_CACHE_SIZE))
+            ghConfig.putObject(Landmark.ACTIVE_LANDMARK_CACHE_SIZE, 10_000);
         return ghConfig;
     }
 
@@ -348,9 +377,10 @@ public class Measurement {
         private final int count;
         final boolean ch, lm;
         int activeLandmarks = -1;
-        boolean withInstructions, withPointHints, sod, edgeBased, simplify, pathDetails, alternative;
+        boolean withInstructions, withPointHints, sod, edgeBased, simplify, pathDetails, alternative, arraySPT, activeLandmarkCache;
         String blockArea;
         int points = 2;
+        List<List<GHPoint>> queries;
 
         QuerySettings(String prefix, int count, boolean isCH, boolean isLM) {
             this.prefix = prefix;
@@ -404,10 +434,28 @@ public class Measurement {
             return this;
         }
 
+        QuerySettings arraySPT() {
+            arraySPT = true;
+            return this;
+        }
+
         QuerySettings blockArea(String str) {
             blockArea = str;
             return this;
         }
+
+        /**
+         * Uses the given points (one after the other) instead of choosing random points for every query
+         */
+        QuerySettings withQueries(List<List<GHPoint>> queries) {
+            this.queries = queries;
+            return this;
+        }
+
+        QuerySettings activeLandmarkCache() {
+            activeLandmarkCache = true;
+            return this;
+        }
     }
 
     private void printGraphDetails(BaseGraph g, String vehicleStr) {
@@ -544,12 +592,20 @@ public class Measurement {
         final AtomicLong maxVisitedNodes = new AtomicLong(0);
         final Random rand = new Random(seed);
         final NodeAccess na = g.getNodeAccess();
+        final long gcCountBefore = getTotalGcCount();
+        final long gcTimeBefore = getTotalGcTime();
+        final AtomicInteger queryIndex = new AtomicInteger(0);
+        final ActiveLandmarkCache activeLandmarkCache = hopper.getActiveLandmarkCaches().get(profileName);
+        final long cacheHitsBefore = activeLandmarkCache == null ? 0 : activeLandmarkCache.getHits();
+        final long cacheMissesBefore = activeLandmarkCache == null ? 0 : activeLandmarkCache.getMisses();
 
         MiniPerfTest miniPerf = new MiniPerfTest().setIterations(querySettings.count).start((warmup, run) -> {
             GHRequest req = new GHRequest(querySettings.points);
             IntArrayList nodes = new IntArrayList(querySettings.points);
+            if (querySettings.queries != null)
+                req.setPoints(querySettings.queries.get(queryIndex.getAndIncrement() % querySettings.queries.size()));
             // we try a few times to find points that do not lie within our blocked area
-            for (int i = 0; i < 5; i++) {
+            for (int i = 0; i < 5 && querySettings.queries == null; i++) {
                 nodes.clear();
                 List<GHPoint> points = new ArrayList<>();
                 List<String> pointHints = new ArrayList<>();
@@ -589,7 +645,9 @@ public class Measurement {
                     putObject("stall_on_demand", querySettings.sod).
                     putObject(Landmark.DISABLE, !querySettings.lm).
                     putObject(Landmark.ACTIVE_COUNT, querySettings.activeLandmarks).
-                    putObject("instructions", querySettings.withInstructions);
+                    putObject("instructions", querySettings.withInstructions).
+                    putObject(Parameters.Routing.ARRAY_SPT, querySettings.arraySPT).
+                    putObject(Landmark.ACTIVE_LANDMARK_CACHE, querySettings.activeLandmarkCache);
 
             if (querySettings.alternative)
                 req.setAlgorithm(ALT_ROUTE);
@@ -652,6 +710,8 @@ public class Measurement {
 
             return responsePath.getPoints().size();
         });
+        final long gcCount = getTotalGcCount() - gcCountBefore;
+        final long gcTime = getTotalGcTime() - gcTimeBefore;
 
         int count = querySettings.count - failedCount.get();
         if (count == 0)
@@ -662,6 +722,9 @@ public class Measurement {
         if (querySettings.ch && !querySettings.sod) {
             algoStr += "_no_sod";
         }
+        if (querySettings.arraySPT && !querySettings.edgeBased) {
+            algoStr += "_array";
+        }
         String prefix = querySettings.prefix;
         put(prefix + ".guessed_algorithm", algoStr);
         put(prefix + ".failed_count", failedCount.get());
@@ -672,9 +735,76 @@ public class Measurement {
         put(prefix + ".visited_nodes_mean", (float) visitedNodesSum.get() / count);
         put(prefix + ".visited_nodes_max", (float) maxVisitedNodes.get());
         put(prefix + ".alternative_rate", (float) altCount.get() / count);
+        put(prefix + ".gc_count", gcCount);
+        put(prefix + ".gc_time_ms", gcTime);
+        if (querySettings.activeLandmarkCache && activeLandmarkCache != null) {
+            long hits = activeLandmarkCache.getHits() - cacheHitsBefore;
+            long lookups = hits + activeLandmarkCache.getMisses() - cacheMissesBefore;
+            put(prefix + ".active_landmark_cache_hit_rate", lookups == 0 ? 0 : (float) hits / lookups);
+        }
         print(prefix, miniPerf);
     }
 
+    /**
+     * @return the points of random queries (including the warmup queries of {@link MiniPerfTest}) that are all close
+     * to the (accessible) points of a few fixed queries, like the ones of a fleet
+     */
+    private List<List<GHPoint>> createCorridorQueries(GraphHopper hopper, String profileName, int corridors, int points, int count) {
+        final Graph g = hopper.getGraphHopperStorage();
+        final NodeAccess na = g.getNodeAccess();
+        Weighting weighting = hopper.createWeighting(hopper.getProfile(profileName), new PMap());
+        EdgeFilter edgeFilter = new DefaultSnapFilter(weighting, hopper.getEncodingManager().getBooleanEncodedValue(Subnetwork.key(profileName)));
+        EdgeExplorer edgeExplorer = g.createEdgeExplorer(edgeFilter);
+        Random rand = new Random(seed);
+        int[][] corridorNodes = new int[corridors][points];
+        for (int[] nodes : corridorNodes) {
+            for (int i = 0; i < nodes.length; i++) {
+                int node;
+                do {
+                    node = rand.nextInt(maxNode);
+                } while (GHUtility.count(edgeExplorer.setBaseNode(node)) == 0);
+                nodes[i] = node;
+            }
+        }
+
+        int warmupCount = Math.max(1, count / 3);
+        List<List<GHPoint>> queries = new ArrayList<>(warmupCount + count);
+        for (int q = 0; q < warmupCount + count; q++) {
+            int[] corridor = corridorNodes[rand.nextInt(corridorNodes.length)];
+            List<GHPoint> query = new ArrayList<>(points);
+            for (int i = 0; i < points; i++) {
+                int node;
+                int tries = 0;
+                do {
+                    if (++tries > g.getNodes())
+                        throw new RuntimeException("Could not find accessible points");
+                    node = randomWalk(edgeExplorer, corridor[i], rand);
+                } while (GHUtility.count(edgeExplorer.setBaseNode(node)) == 0);
+                query.add(new GHPoint(na.getLat(node), na.getLon(node)));
+            }
+            queries.add(query);
+        }
+        return queries;
+    }
+
+    /**
+     * @return a node that is a few random steps away from the given one
+     */
+    private static int randomWalk(EdgeExplorer edgeExplorer, int node, Random rand) {
+        int steps = rand.nextInt(10);
+        IntArrayList adjNodes = new IntArrayList();
+        for (int i = 0; i < steps; i++) {
+            adjNodes.clear();
+            EdgeIterator iter = edgeExplorer.setBaseNode(node);
+            while (iter.next())
+                adjNodes.add(iter.getAdjNode());
+            if (adjNodes.isEmpty())
+                break;
+            node = adjNodes.get(rand.nextInt(adjNodes.size()));
+        }
+        return node;
+    }
+
     void print(String prefix, MiniPerfTest perf) {
         logger.info(prefix + ": " + perf.getReport());
         put(prefix + ".sum", perf.getSum());
@@ -855,4 +985,15 @@ public class Measurement {
         }
         return sum;
     }
+
+    private static long getTotalGcTime() {
+        long sum = 0;
+        for (GarbageCollectorMXBean b : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long time = b.getCollectionTime();
+            if (time != -1) {
+                sum += time;
+            }
+        }
+        return sum;
+    }
 }
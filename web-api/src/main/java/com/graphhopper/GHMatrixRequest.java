@@ -0,0 +1,169 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.graphhopper.util.PMap;
+import com.graphhopper.util.shapes.GHPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Request object to calculate the weights, times and distances between all pairs of the given from and to points.
+ * This is the server side counterpart of the JSON format written by the matrix client.
+ */
+public class GHMatrixRequest {
+    private List<GHPoint> fromPoints = new ArrayList<>();
+    private List<GHPoint> toPoints = new ArrayList<>();
+    private List<String> fromPointHints = new ArrayList<>();
+    private List<String> toPointHints = new ArrayList<>();
+    private List<String> snapPreventions = new ArrayList<>();
+    private List<String> outArrays = new ArrayList<>(Arrays.asList("weights"));
+    private boolean failFast = true;
+    private String profile = "";
+    private final PMap hints = new PMap();
+
+    /**
+     * Sets the from and the to points to the same list, i.e. a symmetric matrix is calculated.
+     */
+    @JsonProperty("points")
+    public GHMatrixRequest setPoints(List<GHPoint> points) {
+        this.fromPoints = points;
+        this.toPoints = points;
+        return this;
+    }
+
+    @JsonProperty("from_points")
+    public GHMatrixRequest setFromPoints(List<GHPoint> fromPoints) {
+        this.fromPoints = fromPoints;
+        return this;
+    }
+
+    public List<GHPoint> getFromPoints() {
+        return fromPoints;
+    }
+
+    @JsonProperty("to_points")
+    public GHMatrixRequest setToPoints(List<GHPoint> toPoints) {
+        this.toPoints = toPoints;
+        return this;
+    }
+
+    public List<GHPoint> getToPoints() {
+        return toPoints;
+    }
+
+    /**
+     * @return true if the from and to points are the same list, in this case the points are only looked up once
+     */
+    public boolean isIdenticalLists() {
+        return fromPoints == toPoints;
+    }
+
+    @JsonProperty("point_hints")
+    public GHMatrixRequest setPointHints(List<String> pointHints) {
+        this.fromPointHints = pointHints;
+        this.toPointHints = pointHints;
+        return this;
+    }
+
+    @JsonProperty("from_point_hints")
+    public GHMatrixRequest setFromPointHints(List<String> fromPointHints) {
+        this.fromPointHints = fromPointHints;
+        return this;
+    }
+
+    public List<String> getFromPointHints() {
+        return fromPointHints;
+    }
+
+    @JsonProperty("to_point_hints")
+    public GHMatrixRequest setToPointHints(List<String> toPointHints) {
+        this.toPointHints = toPointHints;
+        return this;
+    }
+
+    public List<String> getToPointHints() {
+        return toPointHints;
+    }
+
+    @JsonProperty("snap_preventions")
+    public GHMatrixRequest setSnapPreventions(List<String> snapPreventions) {
+        this.snapPreventions = snapPreventions;
+        return this;
+    }
+
+    public List<String> getSnapPreventions() {
+        return snapPreventions;
+    }
+
+    /**
+     * @param outArrays the arrays that shall be returned, possible values are weights, times and distances
+     */
+    @JsonProperty("out_arrays")
+    public GHMatrixRequest setOutArrays(List<String> outArrays) {
+        this.outArrays = outArrays;
+        return this;
+    }
+
+    public List<String> getOutArrays() {
+        return outArrays;
+    }
+
+    /**
+     * @param failFast if true the request fails if a point cannot be found or a pair of points is not connected,
+     *                 otherwise the corresponding entries are left empty and the response lists the problems
+     */
+    @JsonProperty("fail_fast")
+    public GHMatrixRequest setFailFast(boolean failFast) {
+        this.failFast = failFast;
+        return this;
+    }
+
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public GHMatrixRequest setProfile(String profile) {
+        this.profile = profile;
+        return this;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public PMap getHints() {
+        return hints;
+    }
+
+    // unknown properties end up in the hints like for GHRequest
+    @JsonAnySetter
+    public GHMatrixRequest putHint(String fieldName, Object value) {
+        this.hints.putObject(fieldName, value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "from: " + fromPoints.size() + ", to: " + toPoints.size() + ", profile: " + profile;
+    }
+}
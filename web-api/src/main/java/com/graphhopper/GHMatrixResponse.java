@@ -0,0 +1,124 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper;
+
+import com.graphhopper.util.PMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response of a {@link GHMatrixRequest}. The entries of pairs of points that are not connected (or that could not
+ * be found) are set to their maximum values like in the matrix client.
+ */
+public class GHMatrixResponse {
+    private final List<Throwable> errors = new ArrayList<>(4);
+    private final PMap hints = new PMap();
+    private double[][] weights = new double[0][];
+    private long[][] times = new long[0][];
+    private double[][] distances = new double[0][];
+    private final List<int[]> disconnectedPairs = new ArrayList<>();
+    private final List<Integer> invalidFromPoints = new ArrayList<>();
+    private final List<Integer> invalidToPoints = new ArrayList<>();
+    private String debugInfo = "";
+
+    public GHMatrixResponse() {
+    }
+
+    public GHMatrixResponse(int fromCount, int toCount) {
+        weights = new double[fromCount][toCount];
+        times = new long[fromCount][toCount];
+        distances = new double[fromCount][toCount];
+    }
+
+    public double[][] getWeights() {
+        return weights;
+    }
+
+    /**
+     * @return the times in milliseconds
+     */
+    public long[][] getTimes() {
+        return times;
+    }
+
+    /**
+     * @return the distances in meters
+     */
+    public double[][] getDistances() {
+        return distances;
+    }
+
+    public boolean isConnected(int fromIndex, int toIndex) {
+        return weights[fromIndex][toIndex] != Double.MAX_VALUE;
+    }
+
+    /**
+     * @return the pairs of (from index, to index) that are not connected, not including the invalid points
+     */
+    public List<int[]> getDisconnectedPairs() {
+        return disconnectedPairs;
+    }
+
+    public List<Integer> getInvalidFromPoints() {
+        return invalidFromPoints;
+    }
+
+    public List<Integer> getInvalidToPoints() {
+        return invalidToPoints;
+    }
+
+    public PMap getHints() {
+        return hints;
+    }
+
+    public void addDebugInfo(String debugInfo) {
+        if (debugInfo == null)
+            throw new IllegalStateException("Debug information has to be none null");
+
+        if (!this.debugInfo.isEmpty())
+            this.debugInfo += "; ";
+
+        this.debugInfo += debugInfo;
+    }
+
+    public String getDebugInfo() {
+        return debugInfo;
+    }
+
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
+
+    public List<Throwable> getErrors() {
+        return errors;
+    }
+
+    public GHMatrixResponse addError(Throwable error) {
+        errors.add(error);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        String str = weights.length + "x" + (weights.length == 0 ? 0 : weights[0].length);
+        if (!errors.isEmpty())
+            str += ", errors: " + errors;
+        return str;
+    }
+}
@@ -97,6 +97,17 @@ public class Parameters {
         public static final String U_TURN_COSTS = "u_turn_costs";
         public static final String MAX_VISITED_NODES = "max_visited_nodes";
         public static final String INIT_MAX_VISITED_NODES = ROUTING_INIT_PREFIX + "max_visited_nodes";
+        /**
+         * the maximum number of entries (from points times to points) of a matrix request
+         */
+        public static final String INIT_MAX_MATRIX_SIZE = ROUTING_INIT_PREFIX + "max_matrix_size";
+        /**
+         * if true node-based bidirectional Dijkstra keeps its shortest path trees in primitive arrays instead of
+         * creating an object per visited node. The arrays have the size of the graph and are allocated for every query,
+         * unless the workspaces are pooled (routing.ch.workspace_pooling and routing.workspace_pooling). With a pool this
+         * is enabled by default.
+         */
+        public static final String ARRAY_SPT = "array_spt";
         /**
          * if true the response will contain turn instructions
          */
@@ -171,6 +182,18 @@ public class Parameters {
          * Default for active count
          */
         public static final String ACTIVE_COUNT_DEFAULT = ROUTING_INIT_PREFIX + ACTIVE_COUNT;
+        /**
+         * This property name in HintsMap configures at runtime if the cached active landmarks should be ignored.
+         */
+        public static final String ACTIVE_LANDMARK_CACHE = "lm.active_landmark_cache";
+        /**
+         * Number of entries of the active landmark cache, 0 disables it
+         */
+        public static final String ACTIVE_LANDMARK_CACHE_SIZE = ROUTING_INIT_PREFIX + ACTIVE_LANDMARK_CACHE + ".size";
+        /**
+         * Size of the tiles used to group the queries of the active landmark cache in degrees
+         */
+        public static final String ACTIVE_LANDMARK_CACHE_TILE_SIZE = ROUTING_INIT_PREFIX + ACTIVE_LANDMARK_CACHE + ".tile_size";
         /**
          * Specifies how many landmarks should be created
          */
@@ -5,7 +5,9 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.config.Profile;
 import com.graphhopper.http.GHPointParam;
+import com.graphhopper.isochrone.algorithm.ArrayShortestPathTree;
 import com.graphhopper.isochrone.algorithm.ContourBuilder;
+import com.graphhopper.isochrone.algorithm.GridTriangulator;
 import com.graphhopper.isochrone.algorithm.ShortestPathTree;
 import com.graphhopper.isochrone.algorithm.Triangulator;
 import com.graphhopper.jackson.ResponsePathSerializer;
@@ -79,6 +81,7 @@ public class IsochroneResource {
             @QueryParam("weight_limit") @DefaultValue("-1") LongParam weightLimit,
             @QueryParam("type") @DefaultValue("json") ResponseType respType,
             @QueryParam("tolerance") @DefaultValue("0") double toleranceInMeter,
+            @QueryParam("cell_size") @DefaultValue("0") double cellSizeInMeter,
             @QueryParam("full_geometry") @DefaultValue("false") boolean fullGeometry) {
         StopWatch sw = new StopWatch().start();
         PMap hintsMap = new PMap();
@@ -108,18 +111,18 @@ public class IsochroneResource {
             throw new IllegalArgumentException("Point not found:" + point);
         QueryGraph queryGraph = QueryGraph.create(graph, snap);
         TraversalMode traversalMode = profile.isTurnCosts() ? EDGE_BASED : NODE_BASED;
-        ShortestPathTree shortestPathTree = new ShortestPathTree(queryGraph, queryGraph.wrapWeighting(weighting), reverseFlow, traversalMode);
 
         double limit;
+        double searchLimit;
         if (weightLimit.get() > 0) {
             limit = weightLimit.get();
-            shortestPathTree.setWeightLimit(limit + Math.max(limit * 0.14, 2_000));
+            searchLimit = limit + Math.max(limit * 0.14, 2_000);
         } else if (distanceLimitInMeter.get() > 0) {
             limit = distanceLimitInMeter.get();
-            shortestPathTree.setDistanceLimit(limit + Math.max(limit * 0.14, 2_000));
+            searchLimit = limit + Math.max(limit * 0.14, 2_000);
         } else {
             limit = timeLimitInSeconds.get() * 1000;
-            shortestPathTree.setTimeLimit(limit + Math.max(limit * 0.14, 200_000));
+            searchLimit = limit + Math.max(limit * 0.14, 200_000);
         }
         ArrayList<Double> zs = new ArrayList<>();
         double delta = limit / nBuckets.get();
@@ -127,17 +130,39 @@ public class IsochroneResource {
             zs.add((i + 1) * delta);
         }
 
-        ToDoubleFunction<ShortestPathTree.IsoLabel> fz;
-        if (weightLimit.get() > 0) {
-            fz = l -> l.weight;
-        } else if (distanceLimitInMeter.get() > 0) {
-            fz = l -> l.distance;
+        Triangulator.Result result;
+        int visitedNodes;
+        if (cellSizeInMeter > 0) {
+            // stream the settled labels into a grid, so only one site per cell needs to be kept and triangulated
+            ArrayShortestPathTree arrayShortestPathTree = new ArrayShortestPathTree(queryGraph, queryGraph.wrapWeighting(weighting), reverseFlow, traversalMode);
+            arrayShortestPathTree.setMaxVisitedNodes(graphHopper.getRouterConfig().getMaxVisitedNodes());
+            if (weightLimit.get() > 0) {
+                arrayShortestPathTree.setWeightLimit(searchLimit);
+            } else if (distanceLimitInMeter.get() > 0) {
+                arrayShortestPathTree.setDistanceLimit(searchLimit);
+            } else {
+                arrayShortestPathTree.setTimeLimit(searchLimit);
+            }
+            GridTriangulator gridTriangulator = new GridTriangulator(degreesFromMeters(cellSizeInMeter), graphHopper.getRouterConfig().getMaxVisitedNodes() / 3);
+            result = gridTriangulator.triangulate(queryGraph, arrayShortestPathTree, snap.getClosestNode(), degreesFromMeters(toleranceInMeter));
+            visitedNodes = arrayShortestPathTree.getVisitedNodes();
         } else {
-            fz = l -> l.time;
+            ShortestPathTree shortestPathTree = new ShortestPathTree(queryGraph, queryGraph.wrapWeighting(weighting), reverseFlow, traversalMode);
+            ToDoubleFunction<ShortestPathTree.IsoLabel> fz;
+            if (weightLimit.get() > 0) {
+                shortestPathTree.setWeightLimit(searchLimit);
+                fz = l -> l.weight;
+            } else if (distanceLimitInMeter.get() > 0) {
+                shortestPathTree.setDistanceLimit(searchLimit);
+                fz = l -> l.distance;
+            } else {
+                shortestPathTree.setTimeLimit(searchLimit);
+                fz = l -> l.time;
+            }
+            result = triangulator.triangulate(snap, queryGraph, shortestPathTree, fz, degreesFromMeters(toleranceInMeter));
+            visitedNodes = shortestPathTree.getVisitedNodes();
         }
 
-        Triangulator.Result result = triangulator.triangulate(snap, queryGraph, shortestPathTree, fz, degreesFromMeters(toleranceInMeter));
-
         ContourBuilder contourBuilder = new ContourBuilder(result.triangulation);
         ArrayList<Geometry> isochrones = new ArrayList<>();
         for (Double z : zs) {
@@ -178,7 +203,7 @@ public class IsochroneResource {
             finalJson = json;
         }
 
-        logger.info("took: " + sw.getSeconds() + ", visited nodes:" + shortestPathTree.getVisitedNodes());
+        logger.info("took: " + sw.getSeconds() + ", visited nodes:" + visitedNodes);
         return Response.ok(finalJson).header("X-GH-Took", "" + sw.getSeconds() * 1000).
                 build();
     }
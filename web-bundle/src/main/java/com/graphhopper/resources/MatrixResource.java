@@ -0,0 +1,157 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.resources;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.graphhopper.GHMatrixRequest;
+import com.graphhopper.GHMatrixResponse;
+import com.graphhopper.GraphHopper;
+import com.graphhopper.jackson.MultiException;
+import com.graphhopper.jackson.ResponsePathSerializer;
+import com.graphhopper.routing.ProfileResolver;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+import static com.graphhopper.resources.RouteResource.errorIfLegacyParameters;
+import static com.graphhopper.resources.RouteResource.removeLegacyParameters;
+
+/**
+ * Resource to calculate the weights, times and distances between many points at once. The request and response
+ * format is the one used by the matrix client (GraphHopperMatrixWeb): the points are passed as [longitude,latitude]
+ * arrays and the times are returned in seconds.
+ */
+@Path("matrix")
+public class MatrixResource {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatrixResource.class);
+
+    private final GraphHopper graphHopper;
+    private final ProfileResolver profileResolver;
+
+    @Inject
+    public MatrixResource(GraphHopper graphHopper, ProfileResolver profileResolver) {
+        this.graphHopper = graphHopper;
+        this.profileResolver = profileResolver;
+    }
+
+    @POST
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response doPost(@NotNull GHMatrixRequest request, @Context HttpServletRequest httpReq) {
+        StopWatch sw = new StopWatch().start();
+        if (Helper.isEmpty(request.getProfile())) {
+            request.setProfile(profileResolver.resolveProfile(request.getHints()).getName());
+            removeLegacyParameters(request.getHints());
+        }
+        errorIfLegacyParameters(request.getHints());
+        for (String outArray : request.getOutArrays()) {
+            if (!outArray.equals("weights") && !outArray.equals("times") && !outArray.equals("distances"))
+                throw new IllegalArgumentException("Unknown value for out_arrays: '" + outArray + "', possible values are weights, times and distances");
+        }
+        GHMatrixResponse matrixResponse = graphHopper.matrix(request);
+
+        long took = sw.stop().getNanos() / 1_000_000;
+        String logStr = httpReq.getRemoteAddr() + " " + httpReq.getLocale() + " " + httpReq.getHeader("User-Agent")
+                + " " + request + ", took: " + String.format("%.1f", (double) took) + " ms";
+        if (matrixResponse.hasErrors()) {
+            logger.error(logStr + ", errors:" + matrixResponse.getErrors());
+            throw new MultiException(matrixResponse.getErrors());
+        }
+        logger.info(logStr + ", debugInfo: " + matrixResponse.getDebugInfo());
+        return Response.ok(jsonObject(matrixResponse, request.getOutArrays(), request.isFailFast(), took)).
+                header("X-GH-Took", "" + Math.round(took)).
+                type(MediaType.APPLICATION_JSON).
+                build();
+    }
+
+    static ObjectNode jsonObject(GHMatrixResponse rsp, List<String> outArrays, boolean failFast, float took) {
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        int fromCount = rsp.getWeights().length;
+        if (outArrays.contains("weights")) {
+            ArrayNode weights = json.putArray("weights");
+            for (int i = 0; i < fromCount; i++) {
+                ArrayNode row = weights.addArray();
+                for (int j = 0; j < rsp.getWeights()[i].length; j++) {
+                    if (rsp.isConnected(i, j))
+                        row.add(Helper.round6(rsp.getWeights()[i][j]));
+                    else
+                        row.addNull();
+                }
+            }
+        }
+        if (outArrays.contains("times")) {
+            ArrayNode times = json.putArray("times");
+            for (int i = 0; i < fromCount; i++) {
+                ArrayNode row = times.addArray();
+                for (int j = 0; j < rsp.getTimes()[i].length; j++) {
+                    if (rsp.isConnected(i, j))
+                        row.add(Math.round(rsp.getTimes()[i][j] / 1000.0));
+                    else
+                        row.addNull();
+                }
+            }
+        }
+        if (outArrays.contains("distances")) {
+            ArrayNode distances = json.putArray("distances");
+            for (int i = 0; i < fromCount; i++) {
+                ArrayNode row = distances.addArray();
+                for (int j = 0; j < rsp.getDistances()[i].length; j++) {
+                    if (rsp.isConnected(i, j))
+                        row.add(Helper.round(rsp.getDistances()[i][j], 1));
+                    else
+                        row.addNull();
+                }
+            }
+        }
+        if (!failFast) {
+            // if fail_fast=false the problems are reported as hints, the client reads them from there
+            ArrayNode hints = json.putArray("hints");
+            if (!rsp.getDisconnectedPairs().isEmpty()) {
+                ObjectNode hint = hints.addObject();
+                hint.put("message", "Connection between locations not found");
+                hint.putPOJO("point_pairs", rsp.getDisconnectedPairs());
+            }
+            if (!rsp.getInvalidFromPoints().isEmpty() || !rsp.getInvalidToPoints().isEmpty()) {
+                ObjectNode hint = hints.addObject();
+                hint.put("message", "Cannot find point");
+                hint.putPOJO("invalid_from_points", rsp.getInvalidFromPoints());
+                hint.putPOJO("invalid_to_points", rsp.getInvalidToPoints());
+            }
+        }
+        final ObjectNode info = json.putObject("info");
+        info.putPOJO("copyrights", ResponsePathSerializer.COPYRIGHTS);
+        info.put("took", Math.round(took));
+        return json;
+    }
+}
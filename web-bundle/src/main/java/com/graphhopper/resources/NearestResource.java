@@ -18,6 +18,7 @@
 package com.graphhopper.resources;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.index.LocationIndex;
@@ -31,6 +32,8 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * @author svantulden
@@ -50,28 +53,66 @@ public class NearestResource {
         this.hasElevation = hasElevation;
     }
 
+    private static final int MAX_CANDIDATES = 100;
+    private static final double DEFAULT_MAX_CANDIDATE_DISTANCE = 1000;
+
     public static class Response {
         public final String type = "Point";
         public final double[] coordinates;
         public final double distance; // Distance from input to snapped point in meters
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        public final List<Response> candidates; // The closest points on the nearest edges, only if requested
+
+        Response(double[] coordinates, double distance) {
+            this(coordinates, distance, null);
+        }
 
         @JsonCreator
-        Response(@JsonProperty("coordinates") double[] coordinates, @JsonProperty("distance") double distance) {
+        Response(@JsonProperty("coordinates") double[] coordinates, @JsonProperty("distance") double distance,
+                 @JsonProperty("candidates") List<Response> candidates) {
             this.coordinates = coordinates;
             this.distance = distance;
+            this.candidates = candidates;
         }
     }
 
+    /**
+     * @param candidates    if larger than one the closest points on this number of nearest edges are returned as
+     *                      well, sorted by their distance
+     * @param maxDistance   the maximum distance in meters of the returned points. If not specified the nearest point is
+     *                      not limited and the candidates are limited to 1000m.
+     */
     @GET
-    public Response doGet(@QueryParam("point") GHPoint point, @QueryParam("elevation") @DefaultValue("false") boolean elevation) {
-        Snap snap = index.findClosest(point.lat, point.lon, EdgeFilter.ALL_EDGES);
-        if (snap.isValid()) {
-            GHPoint3D snappedPoint = snap.getSnappedPoint();
-            double[] coordinates = hasElevation && elevation ? new double[]{snappedPoint.lon, snappedPoint.lat, snappedPoint.ele} : new double[]{snappedPoint.lon, snappedPoint.lat};
-            return new Response(coordinates, calc.calcDist(point.lat, point.lon, snappedPoint.lat, snappedPoint.lon));
-        } else {
+    public Response doGet(@QueryParam("point") GHPoint point, @QueryParam("elevation") @DefaultValue("false") boolean elevation,
+                          @QueryParam("candidates") @DefaultValue("1") int candidates,
+                          @QueryParam("max_distance") Double maxDistance) {
+        if (candidates < 1 || candidates > MAX_CANDIDATES)
+            throw new IllegalArgumentException("candidates must be in [1, " + MAX_CANDIDATES + "] but was " + candidates);
+        if (maxDistance != null && !(maxDistance >= 0))
+            throw new IllegalArgumentException("max_distance must not be negative but was " + maxDistance);
+        if (candidates == 1) {
+            Snap snap = index.findClosest(point.lat, point.lon, EdgeFilter.ALL_EDGES);
+            if (!snap.isValid() || maxDistance != null && snap.getQueryDistance() > maxDistance)
+                throw new WebApplicationException("Nearest point cannot be found!");
+            return createResponse(point, snap, elevation);
+        }
+
+        List<Snap> snaps = index.findNearest(point.lat, point.lon, candidates,
+                maxDistance == null ? DEFAULT_MAX_CANDIDATE_DISTANCE : maxDistance, EdgeFilter.ALL_EDGES);
+        if (snaps.isEmpty())
             throw new WebApplicationException("Nearest point cannot be found!");
+        List<Response> responses = new ArrayList<>(snaps.size());
+        for (Snap snap : snaps) {
+            responses.add(createResponse(point, snap, elevation));
         }
+        Response closest = responses.get(0);
+        return new Response(closest.coordinates, closest.distance, responses);
+    }
+
+    private Response createResponse(GHPoint point, Snap snap, boolean elevation) {
+        GHPoint3D snappedPoint = snap.getSnappedPoint();
+        double[] coordinates = hasElevation && elevation ? new double[]{snappedPoint.lon, snappedPoint.lat, snappedPoint.ele} : new double[]{snappedPoint.lon, snappedPoint.lat};
+        return new Response(coordinates, calc.calcDist(point.lat, point.lon, snappedPoint.lat, snappedPoint.lon));
     }
 
 }
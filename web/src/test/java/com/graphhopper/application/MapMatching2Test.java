@@ -17,6 +17,7 @@
  */
 package com.graphhopper.application;
 
+import com.carrotsearch.hppc.IntHashSet;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.graphhopper.GraphHopper;
 import com.graphhopper.config.LMProfile;
@@ -27,6 +28,7 @@ import com.graphhopper.matching.EdgeMatch;
 import com.graphhopper.matching.MapMatching;
 import com.graphhopper.matching.MatchResult;
 import com.graphhopper.matching.State;
+import com.graphhopper.routing.util.EdgeFilter;
 import com.graphhopper.storage.index.Snap;
 import com.graphhopper.util.Helper;
 import com.graphhopper.util.PMap;
@@ -37,6 +39,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 import static com.graphhopper.application.MapMatchingTest.fetchStreets;
 import static org.junit.jupiter.api.Assertions.*;
@@ -124,6 +127,39 @@ public class MapMatching2Test {
         assertEquals(0, mr.getMatchMillis(), 50);
     }
 
+    @Test
+    public void testFindCandidateSnaps() {
+        GraphHopper hopper = new GraphHopper();
+        hopper.setOSMFile("../map-matching/files/map-issue13.osm.gz");
+        hopper.setGraphHopperLocation(GH_LOCATION);
+        hopper.setProfiles(new Profile("my_profile").setVehicle("car").setWeighting("fastest"));
+        hopper.importOrLoad();
+
+        MapMatching mapMatching = new MapMatching(hopper, new PMap().putObject("profile", "my_profile"));
+        mapMatching.setMeasurementErrorSigma(20);
+        List<Snap> snaps = mapMatching.findCandidateSnaps(41.0119089, 29.08910865);
+        assertFalse(snaps.isEmpty());
+        Snap closest = hopper.getLocationIndex().findClosest(41.0119089, 29.08910865, EdgeFilter.ALL_EDGES);
+        assertEquals(closest.getQueryDistance(), snaps.get(0).getQueryDistance(), 1.e-3);
+        // all candidates are within the first multiple of sigma that contains the closest snap
+        double radius = Math.max(1, Math.ceil(closest.getQueryDistance() / 20)) * 20;
+        IntHashSet towerNodes = new IntHashSet();
+        for (int i = 0; i < snaps.size(); i++) {
+            Snap snap = snaps.get(i);
+            assertTrue(snap.getQueryDistance() <= radius, snap.getQueryDistance() + " vs. " + radius);
+            if (i > 0)
+                assertTrue(snaps.get(i - 1).getQueryDistance() <= snap.getQueryDistance());
+            if (snap.getSnappedPosition() == Snap.Position.TOWER)
+                assertTrue(towerNodes.add(snap.getClosestNode()), "tower node " + snap.getClosestNode() + " appears twice");
+        }
+
+        mapMatching.setMeasurementErrorSigma(100);
+        assertTrue(mapMatching.findCandidateSnaps(41.0119089, 29.08910865).size() > snaps.size());
+
+        // there are no roads within 50 * sigma
+        assertTrue(mapMatching.findCandidateSnaps(41.2, 29.3).isEmpty());
+    }
+
     private void validateEdgeMatch(EdgeMatch edgeMatch) {
         for (State state : edgeMatch.getStates()) {
             if (state.getSnap().getSnappedPosition() == Snap.Position.TOWER) {
@@ -0,0 +1,162 @@
+/*
+ *  Licensed to GraphHopper GmbH under one or more contributor
+ *  license agreements. See the NOTICE file distributed with this work for
+ *  additional information regarding copyright ownership.
+ *
+ *  GraphHopper GmbH licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except in
+ *  compliance with the License. You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package com.graphhopper.application.resources;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.graphhopper.GHRequest;
+import com.graphhopper.GHResponse;
+import com.graphhopper.api.GHMRequest;
+import com.graphhopper.api.GHMatrixSyncRequester;
+import com.graphhopper.api.GraphHopperMatrixWeb;
+import com.graphhopper.api.GraphHopperWeb;
+import com.graphhopper.api.MatrixResponse;
+import com.graphhopper.application.GraphHopperApplication;
+import com.graphhopper.application.GraphHopperServerConfiguration;
+import com.graphhopper.application.util.GraphHopperServerTestConfiguration;
+import com.graphhopper.application.util.TestUtils;
+import com.graphhopper.config.CHProfile;
+import com.graphhopper.config.LMProfile;
+import com.graphhopper.config.Profile;
+import com.graphhopper.util.Helper;
+import com.graphhopper.util.shapes.GHPoint;
+import io.dropwizard.testing.junit5.DropwizardAppExtension;
+import io.dropwizard.testing.junit5.DropwizardExtensionsSupport;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.graphhopper.application.util.TestUtils.clientTarget;
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(DropwizardExtensionsSupport.class)
+public class MatrixResourceTest {
+    private static final String DIR = "./target/matrix-resource-gh/";
+    private static final DropwizardAppExtension<GraphHopperServerConfiguration> app = new DropwizardAppExtension<>(GraphHopperApplication.class, createConfig());
+    private static final List<GHPoint> POINTS = Arrays.asList(
+            new GHPoint(42.5093, 1.5274), new GHPoint(42.5126, 1.5410), new GHPoint(42.5436, 1.5552));
+
+    private static GraphHopperServerConfiguration createConfig() {
+        GraphHopperServerConfiguration config = new GraphHopperServerTestConfiguration();
+        config.getGraphHopperConfiguration().
+                putObject("graph.flag_encoders", "car|turn_costs=true").
+                putObject("prepare.min_network_size", 0).
+                putObject("datareader.file", "../core/files/andorra.osm.pbf").
+                putObject("graph.encoded_values", "road_class,surface,road_environment,max_speed").
+                putObject("graph.location", DIR).
+                putObject("routing.max_matrix_size", 9)
+                .setProfiles(Arrays.asList(
+                        new Profile("my_car").setVehicle("car").setWeighting("fastest"),
+                        new Profile("my_car_turn_costs").setVehicle("car").setWeighting("fastest").setTurnCosts(true)
+                ))
+                .setCHProfiles(Arrays.asList(new CHProfile("my_car"), new CHProfile("my_car_turn_costs")))
+                .setLMProfiles(Arrays.asList(new LMProfile("my_car")));
+        return config;
+    }
+
+    @BeforeAll
+    @AfterAll
+    public static void cleanUp() {
+        Helper.removeDir(new File(DIR));
+    }
+
+    private GraphHopperMatrixWeb createMatrixWeb() {
+        return new GraphHopperMatrixWeb(new GHMatrixSyncRequester(TestUtils.clientUrl(app, "/matrix"), new OkHttpClient(), false));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"CH", "LM", "flex", "CH_TURN_COSTS"})
+    public void matrixEqualsRoutes(String mode) {
+        String profile = mode.equals("CH_TURN_COSTS") ? "my_car_turn_costs" : "my_car";
+        GHMRequest request = new GHMRequest();
+        request.addAllPoints(POINTS);
+        request.addOutArray("weights").addOutArray("times").addOutArray("distances");
+        request.putHint("profile", profile);
+        request.putHint("ch.disable", !mode.startsWith("CH"));
+        request.putHint("lm.disable", !mode.equals("LM"));
+        MatrixResponse matrix = createMatrixWeb().route(request);
+        assertFalse(matrix.hasErrors(), matrix.getErrors().toString());
+
+        GraphHopperWeb gh = new GraphHopperWeb(TestUtils.clientUrl(app, "/route"));
+        for (int i = 0; i < POINTS.size(); i++) {
+            for (int j = 0; j < POINTS.size(); j++) {
+                if (i == j) {
+                    assertEquals(0, matrix.getDistance(i, j), 1);
+                    continue;
+                }
+                GHResponse route = gh.route(new GHRequest(POINTS.get(i), POINTS.get(j)).setProfile(profile).
+                        putHint("ch.disable", !mode.startsWith("CH")).putHint("lm.disable", !mode.equals("LM")).
+                        putHint("calc_points", false).putHint("instructions", false));
+                assertFalse(route.hasErrors(), route.getErrors().toString());
+                assertEquals(route.getBest().getDistance(), matrix.getDistance(i, j), 1, "distance " + i + "->" + j);
+                assertEquals(route.getBest().getTime(), matrix.getTime(i, j), 1000, "time " + i + "->" + j);
+                assertEquals(route.getBest().getRouteWeight(), matrix.getWeight(i, j), 1.e-3, "weight " + i + "->" + j);
+            }
+        }
+    }
+
+    @Test
+    public void differentFromAndToPoints() {
+        String body = "{\"from_points\": [[1.5274,42.5093]], \"to_points\": [[1.5410,42.5126],[1.5552,42.5436]], " +
+                "\"out_arrays\": [\"distances\", \"times\"], \"profile\": \"my_car\"}";
+        final Response response = clientTarget(app, "/matrix").request().post(Entity.json(body));
+        assertEquals(200, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        assertFalse(json.has("weights"));
+        assertEquals(1, json.get("distances").size());
+        assertEquals(2, json.get("distances").get(0).size());
+        assertEquals(2, json.get("times").get(0).size());
+        assertTrue(json.get("distances").get(0).get(1).asDouble() > json.get("distances").get(0).get(0).asDouble());
+    }
+
+    @Test
+    public void pointOutOfBounds() {
+        String body = "{\"points\": [[1.5274,42.5093],[-1.5196,42.5535]], \"profile\": \"my_car\"}";
+        final Response response = clientTarget(app, "/matrix").request().post(Entity.json(body));
+        assertEquals(400, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        assertTrue(json.get("message").asText().contains("out of bounds"), json.toString());
+    }
+
+    @Test
+    public void unknownOutArray() {
+        String body = "{\"points\": [[1.5274,42.5093],[1.5410,42.5126]], \"profile\": \"my_car\", \"out_arrays\": [\"durations\"]}";
+        final Response response = clientTarget(app, "/matrix").request().post(Entity.json(body));
+        assertEquals(400, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        assertTrue(json.get("message").asText().contains("Unknown value for out_arrays"), json.toString());
+    }
+
+    @Test
+    public void matrixTooLarge() {
+        String body = "{\"points\": [[1.5274,42.5093],[1.5410,42.5126],[1.5552,42.5436],[1.5300,42.5100]], \"profile\": \"my_car\"}";
+        final Response response = clientTarget(app, "/matrix").request().post(Entity.json(body));
+        assertEquals(400, response.getStatus());
+        JsonNode json = response.readEntity(JsonNode.class);
+        assertTrue(json.get("message").asText().contains("exceeds the maximum of 9 entries"), json.toString());
+    }
+}
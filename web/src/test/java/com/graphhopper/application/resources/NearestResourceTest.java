@@ -35,8 +35,7 @@ import java.io.File;
 import java.util.Collections;
 
 import static com.graphhopper.application.util.TestUtils.clientTarget;
-import static org.junit.jupiter.api.Assertions.assertArrayEquals;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * @author svantulden
@@ -68,5 +67,32 @@ public class NearestResourceTest {
         assertEquals(200, response.getStatus(), "HTTP status");
         NearestResource.Response json = response.readEntity(NearestResource.Response.class);
         assertArrayEquals(new double[]{1.5363743623376815, 42.554839049600155}, json.coordinates, "nearest point");
+        assertNull(json.candidates);
+    }
+
+    @Test
+    public void testMultipleCandidates() {
+        final Response response = clientTarget(app, "/nearest?point=42.554851,1.536198&candidates=3").request().buildGet().invoke();
+        assertEquals(200, response.getStatus(), "HTTP status");
+        NearestResource.Response json = response.readEntity(NearestResource.Response.class);
+        assertArrayEquals(new double[]{1.5363743623376815, 42.554839049600155}, json.coordinates, 1.e-6, "nearest point");
+        assertEquals(3, json.candidates.size());
+        assertArrayEquals(json.coordinates, json.candidates.get(0).coordinates, 1.e-6);
+        for (int i = 1; i < json.candidates.size(); i++) {
+            assertTrue(json.candidates.get(i - 1).distance <= json.candidates.get(i).distance);
+        }
+    }
+
+    @Test
+    public void testMaxDistance() {
+        // the nearest point is about 15m away
+        Response response = clientTarget(app, "/nearest?point=42.554851,1.536198&max_distance=20").request().buildGet().invoke();
+        assertEquals(200, response.getStatus(), "HTTP status");
+        response = clientTarget(app, "/nearest?point=42.554851,1.536198&max_distance=5").request().buildGet().invoke();
+        assertEquals(500, response.getStatus(), "HTTP status");
+        response = clientTarget(app, "/nearest?point=42.554851,1.536198&max_distance=5&candidates=3").request().buildGet().invoke();
+        assertEquals(500, response.getStatus(), "HTTP status");
+        response = clientTarget(app, "/nearest?point=42.554851,1.536198&max_distance=-1").request().buildGet().invoke();
+        assertEquals(400, response.getStatus(), "HTTP status");
     }
 }